@@ -0,0 +1,184 @@
+/**
+ * Copyright (c) 2002-2013 "Neo Technology,"
+ * Network Engine for Objects in Lund AB [http://neotechnology.com]
+ *
+ * This file is part of Neo4j.
+ *
+ * Neo4j is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package se.nawroth.scales.benchmarks;
+
+import java.util.concurrent.TimeUnit;
+
+import org.neo4j.graphdb.DynamicRelationshipType;
+import org.neo4j.graphdb.Node;
+import org.neo4j.graphdb.Transaction;
+import org.neo4j.test.ImpermanentGraphDatabase;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+
+import se.nawroth.scales.util.CategoryUtil;
+import se.nawroth.scales.util.CategoryUtil.QueryEngine;
+import se.nawroth.scales.util.Entity;
+import se.nawroth.scales.util.GraphDb;
+
+/**
+ * Collect all items below the root of a category tree. Outside of a
+ * transaction the result comes from the navigation cache, inside of one the
+ * query is run by the chosen engine every time.
+ * 
+ * @author Anders Nawroth
+ */
+@State( Scope.Thread )
+@BenchmarkMode( Mode.AverageTime )
+@OutputTimeUnit( TimeUnit.MICROSECONDS )
+@Warmup( iterations = 5, time = 1 )
+@Measurement( iterations = 5, time = 1 )
+@Fork( 1 )
+public class CategoryBenchmark
+{
+    private static final int DEPTH = 3;
+    private static final int ITEMS_PER_CATEGORY = 2;
+    @Param( { "TRAVERSAL", "CYPHER" } )
+    private QueryEngine engine;
+    @Param( { "4", "8" } )
+    private int fanOut;
+    @Param( { "true", "false" } )
+    private boolean cached;
+    private GraphDb graphDb;
+    private NodeCategories categories;
+    private NodeEntity root;
+
+    @Setup
+    public void setUp()
+    {
+        graphDb = new GraphDb( new ImpermanentGraphDatabase() );
+        categories = new NodeCategories( engine );
+        Transaction tx = graphDb.beginTx();
+        try
+        {
+            root = new NodeEntity( graphDb.createNode() );
+            addChildren( root, DEPTH );
+            tx.success();
+        }
+        finally
+        {
+            tx.finish();
+        }
+    }
+
+    @TearDown
+    public void tearDown()
+    {
+        graphDb.shutdown();
+    }
+
+    @Benchmark
+    public void getAllItems( final Blackhole blackhole )
+    {
+        if ( cached )
+        {
+            consumeAllItems( blackhole );
+            return;
+        }
+        Transaction tx = graphDb.beginTx();
+        try
+        {
+            consumeAllItems( blackhole );
+        }
+        finally
+        {
+            tx.finish();
+        }
+    }
+
+    private void consumeAllItems( final Blackhole blackhole )
+    {
+        for ( NodeEntity item : categories.getAllItems( root ) )
+        {
+            blackhole.consume( item );
+        }
+    }
+
+    private void addChildren( final NodeEntity category, final int depth )
+    {
+        for ( int i = 0; i < ITEMS_PER_CATEGORY; i++ )
+        {
+            categories.addItem( category, new NodeEntity( graphDb.createNode() ) );
+        }
+        if ( depth == 0 )
+        {
+            return;
+        }
+        for ( int i = 0; i < fanOut; i++ )
+        {
+            NodeEntity subCategory = new NodeEntity( graphDb.createNode() );
+            categories.addCategory( category, subCategory );
+            addChildren( subCategory, depth - 1 );
+        }
+    }
+
+    /**
+     * Plain wrapper of a node, used for both categories and items.
+     */
+    private static final class NodeEntity implements Entity
+    {
+        private final Node node;
+
+        private NodeEntity( final Node node )
+        {
+            this.node = node;
+        }
+
+        @Override
+        public Node getUnderlyingNode()
+        {
+            return node;
+        }
+    }
+
+    private static final class NodeCategories extends
+            CategoryUtil<NodeEntity, NodeEntity>
+    {
+        private NodeCategories( final QueryEngine engine )
+        {
+            super( DynamicRelationshipType.withName( "BENCHMARK_CATEGORY" ),
+                    DynamicRelationshipType.withName( "BENCHMARK_ITEM" ),
+                    engine );
+        }
+
+        @Override
+        protected NodeEntity categoryFromNode( final Node node )
+        {
+            return new NodeEntity( node );
+        }
+
+        @Override
+        protected NodeEntity itemFromNode( final Node node )
+        {
+            return new NodeEntity( node );
+        }
+    }
+}
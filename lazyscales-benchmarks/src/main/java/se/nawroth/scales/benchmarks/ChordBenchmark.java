@@ -0,0 +1,130 @@
+/**
+ * Copyright (c) 2002-2013 "Neo Technology,"
+ * Network Engine for Objects in Lund AB [http://neotechnology.com]
+ *
+ * This file is part of Neo4j.
+ *
+ * Neo4j is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package se.nawroth.scales.benchmarks;
+
+import static se.nawroth.scales.api.DiatonicInterval.FIFTH;
+import static se.nawroth.scales.api.DiatonicInterval.MAJOR_SECOND;
+import static se.nawroth.scales.api.DiatonicInterval.MAJOR_SEVENTH;
+import static se.nawroth.scales.api.DiatonicInterval.MAJOR_SIXTH;
+import static se.nawroth.scales.api.DiatonicInterval.MAJOR_THIRD;
+import static se.nawroth.scales.api.DiatonicInterval.MINOR_SEVENTH;
+import static se.nawroth.scales.api.DiatonicInterval.MINOR_THIRD;
+
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import org.neo4j.graphdb.Transaction;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+import se.nawroth.scales.Services;
+import se.nawroth.scales.api.ChordFamily;
+import se.nawroth.scales.api.Note;
+import se.nawroth.scales.chord.ChordFamilyService;
+import se.nawroth.scales.chord.ChordMatch;
+import se.nawroth.scales.chord.ChordService;
+
+/**
+ * Identify chords from notes in every inversion and transposition.
+ * 
+ * @author Anders Nawroth
+ */
+@State( Scope.Thread )
+@BenchmarkMode( Mode.AverageTime )
+@OutputTimeUnit( TimeUnit.NANOSECONDS )
+@Warmup( iterations = 5, time = 1 )
+@Measurement( iterations = 5, time = 1 )
+@Fork( 1 )
+public class ChordBenchmark
+{
+    private static final int[][] VOICINGS = { { 0, 4, 7 }, { 4, 7, 0 },
+            { 3, 7, 0 }, { 10, 0, 4, 7 }, { 9, 0, 4, 7 }, { 11, 4, 7, 0 },
+            { 0, 2, 7 }, { 0, 1, 2 } };
+    private SyntheticCatalog catalog;
+    private ChordService chords;
+    private Note[][] queries;
+    private int next;
+
+    @Setup
+    public void setUp()
+    {
+        catalog = new SyntheticCatalog( 0 );
+        Services services = catalog.getServices();
+        chords = services.getChordService();
+        Transaction tx = services.beginTx();
+        try
+        {
+            ChordFamilyService families = services.getChordFamilyService();
+            ChordFamily family = families.newChordFamily(
+                    families.getRootChordFamily(), "Common chords" );
+            chords.newChord( family, "Major", MAJOR_THIRD, FIFTH );
+            chords.newChord( family, "Minor", MINOR_THIRD, FIFTH );
+            chords.newChord( family, "Suspended second", MAJOR_SECOND, FIFTH );
+            chords.newChord( family, "Dominant seventh", MAJOR_THIRD, FIFTH,
+                    MINOR_SEVENTH );
+            chords.newChord( family, "Major seventh", MAJOR_THIRD, FIFTH,
+                    MAJOR_SEVENTH );
+            chords.newChord( family, "Minor seventh", MINOR_THIRD, FIFTH,
+                    MINOR_SEVENTH );
+            chords.newChord( family, "Major sixth", MAJOR_THIRD, FIFTH,
+                    MAJOR_SIXTH );
+            tx.success();
+        }
+        finally
+        {
+            tx.finish();
+        }
+        queries = new Note[VOICINGS.length * 12][];
+        for ( int i = 0; i < queries.length; i++ )
+        {
+            int[] voicing = VOICINGS[i % VOICINGS.length];
+            queries[i] = new Note[voicing.length];
+            for ( int position = 0; position < voicing.length; position++ )
+            {
+                queries[i][position] = catalog.note( ( voicing[position] + i
+                                                       / VOICINGS.length ) % 12 );
+            }
+        }
+        // read the chord table outside of the measurement
+        chords.identify( queries[0] );
+    }
+
+    @TearDown
+    public void tearDown()
+    {
+        catalog.shutdown();
+    }
+
+    @Benchmark
+    public List<ChordMatch> identify()
+    {
+        next = ( next + 1 ) % queries.length;
+        return chords.identify( queries[next] );
+    }
+}
@@ -0,0 +1,99 @@
+/**
+ * Copyright (c) 2002-2013 "Neo Technology,"
+ * Network Engine for Objects in Lund AB [http://neotechnology.com]
+ *
+ * This file is part of Neo4j.
+ *
+ * Neo4j is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package se.nawroth.scales.benchmarks;
+
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+
+import se.nawroth.scales.api.Note;
+import se.nawroth.scales.fretboard.Fretboard;
+import se.nawroth.scales.fretboard.FretboardService;
+import se.nawroth.scales.note.Notes;
+
+/**
+ * Read and print the strings of a fretboard. The fretboard matrix is cached by
+ * the service, so this measures the steady state of a displayed fretboard.
+ * 
+ * @author Anders Nawroth
+ */
+@State( Scope.Thread )
+@BenchmarkMode( Mode.AverageTime )
+@OutputTimeUnit( TimeUnit.MICROSECONDS )
+@Warmup( iterations = 5, time = 1 )
+@Measurement( iterations = 5, time = 1 )
+@Fork( 1 )
+public class FretboardBenchmark
+{
+    private static final int FRETS = 24;
+    private SyntheticCatalog catalog;
+    private FretboardService fretboardService;
+    private Fretboard fretboard;
+
+    @Setup
+    public void setUp()
+    {
+        catalog = new SyntheticCatalog( 0 );
+        fretboardService = catalog.getServices()
+                .getFretboardService();
+        fretboard = new Fretboard( catalog.getStandardTuning(), Notes.notes(
+                catalog.note( 0 ), catalog.getIonian() ) );
+    }
+
+    @TearDown
+    public void tearDown()
+    {
+        catalog.shutdown();
+    }
+
+    @Benchmark
+    public void getStrings( final Blackhole blackhole )
+    {
+        for ( Iterable<Note> string : fretboardService.getStrings( fretboard ) )
+        {
+            int fret = 0;
+            for ( Note note : string )
+            {
+                if ( fret++ > FRETS )
+                {
+                    break;
+                }
+                blackhole.consume( note );
+            }
+        }
+    }
+
+    @Benchmark
+    public String printStrings()
+    {
+        return fretboardService.printStrings( fretboard, FRETS );
+    }
+}
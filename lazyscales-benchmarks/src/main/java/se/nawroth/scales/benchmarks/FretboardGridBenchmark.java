@@ -0,0 +1,174 @@
+/**
+ * Copyright (c) 2002-2013 "Neo Technology,"
+ * Network Engine for Objects in Lund AB [http://neotechnology.com]
+ *
+ * This file is part of Neo4j.
+ *
+ * Neo4j is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package se.nawroth.scales.benchmarks;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+import se.nawroth.scales.Services;
+import se.nawroth.scales.api.Note;
+import se.nawroth.scales.api.Scale;
+import se.nawroth.scales.api.ScaleFamily;
+import se.nawroth.scales.api.Tuning;
+import se.nawroth.scales.fretboard.Fretboard;
+import se.nawroth.scales.fretboard.FretboardGrid;
+import se.nawroth.scales.fretboard.FretboardMatrix;
+import se.nawroth.scales.fretboard.FretboardService;
+import se.nawroth.scales.note.Notes;
+
+/**
+ * Compute the fretboards of every scale of the largest synthetic catalog in
+ * every key, one fretboard at a time and as one batch. Both count the scale
+ * positions of the first octave, so every fretboard is read once.
+ * 
+ * @author Anders Nawroth
+ */
+@State( Scope.Thread )
+@BenchmarkMode( Mode.AverageTime )
+@OutputTimeUnit( TimeUnit.MILLISECONDS )
+@Warmup( iterations = 3, time = 1 )
+@Measurement( iterations = 5, time = 1 )
+@Fork( 1 )
+public class FretboardGridBenchmark
+{
+    private static final int FRETS = 12;
+    private SyntheticCatalog catalog;
+    private FretboardService fretboardService;
+    private List<Tuning> tunings;
+    private List<Scale> scales;
+    private List<Note> roots;
+
+    @Setup
+    public void setUp()
+    {
+        catalog = new SyntheticCatalog( SyntheticCatalog.maxSize() );
+        Services services = catalog.getServices();
+        fretboardService = services.getFretboardService();
+        tunings = Collections.singletonList( catalog.getStandardTuning() );
+        scales = new ArrayList<Scale>();
+        collect( services.getScaleFamilyService()
+                .getRootScaleFamily(), scales );
+        roots = new ArrayList<Note>();
+        for ( int pitchClass = 0; pitchClass < FRETS; pitchClass++ )
+        {
+            roots.add( catalog.note( pitchClass ) );
+        }
+    }
+
+    @TearDown
+    public void tearDown()
+    {
+        catalog.shutdown();
+    }
+
+    @Benchmark
+    public int singleFretboards()
+    {
+        int count = 0;
+        for ( Tuning tuning : tunings )
+        {
+            for ( Scale scale : scales )
+            {
+                for ( Note root : roots )
+                {
+                    for ( Iterable<Note> string : fretboardService.getStrings( new Fretboard(
+                            tuning, Notes.notes( root, scale ) ) ) )
+                    {
+                        int fret = 0;
+                        for ( Note note : string )
+                        {
+                            if ( fret++ == FRETS )
+                            {
+                                break;
+                            }
+                            if ( note != null )
+                            {
+                                count++;
+                            }
+                        }
+                    }
+                }
+            }
+        }
+        return count;
+    }
+
+    @Benchmark
+    public int grid()
+    {
+        FretboardGrid grid = fretboardService.getMatrices( tunings, scales,
+                roots );
+        int count = 0;
+        for ( int tuning = 0; tuning < tunings.size(); tuning++ )
+        {
+            for ( int scale = 0; scale < scales.size(); scale++ )
+            {
+                for ( int root = 0; root < roots.size(); root++ )
+                {
+                    count += countPositions( grid.get( tuning, scale, root ) );
+                }
+            }
+        }
+        return count;
+    }
+
+    private static int countPositions( final FretboardMatrix matrix )
+    {
+        int count = 0;
+        for ( int string = 0; string < matrix.getStringCount(); string++ )
+        {
+            for ( int fret = 0; fret < FRETS; fret++ )
+            {
+                if ( matrix.inScale( string, fret ) )
+                {
+                    count++;
+                }
+            }
+        }
+        return count;
+    }
+
+    private static void collect( final ScaleFamily family,
+            final List<Scale> result )
+    {
+        for ( Scale scale : family.getScales() )
+        {
+            result.add( scale );
+        }
+        for ( ScaleFamily subFamily : family.getSubFamilies() )
+        {
+            collect( subFamily, result );
+        }
+    }
+}
@@ -0,0 +1,88 @@
+/**
+ * Copyright (c) 2002-2013 "Neo Technology,"
+ * Network Engine for Objects in Lund AB [http://neotechnology.com]
+ *
+ * This file is part of Neo4j.
+ *
+ * Neo4j is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package se.nawroth.scales.benchmarks;
+
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OperationsPerInvocation;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+
+import se.nawroth.scales.api.Note;
+import se.nawroth.scales.api.PitchClassSet;
+import se.nawroth.scales.note.NoteService;
+
+/**
+ * Find the interval between every pair of notes.
+ * 
+ * @author Anders Nawroth
+ */
+@State( Scope.Thread )
+@BenchmarkMode( Mode.AverageTime )
+@OutputTimeUnit( TimeUnit.NANOSECONDS )
+@Warmup( iterations = 5, time = 1 )
+@Measurement( iterations = 5, time = 1 )
+@Fork( 1 )
+public class NoteServiceBenchmark
+{
+    private static final int PAIRS = PitchClassSet.PITCH_CLASSES
+                                     * PitchClassSet.PITCH_CLASSES;
+    private SyntheticCatalog catalog;
+    private final Note[] notes = new Note[PitchClassSet.PITCH_CLASSES];
+
+    @Setup
+    public void setUp()
+    {
+        catalog = new SyntheticCatalog( 0 );
+        for ( int pitchClass = 0; pitchClass < notes.length; pitchClass++ )
+        {
+            notes[pitchClass] = catalog.note( pitchClass );
+        }
+    }
+
+    @TearDown
+    public void tearDown()
+    {
+        catalog.shutdown();
+    }
+
+    @Benchmark
+    @OperationsPerInvocation( PAIRS )
+    public void findInterval( final Blackhole blackhole )
+    {
+        for ( Note from : notes )
+        {
+            for ( Note to : notes )
+            {
+                blackhole.consume( NoteService.findInterval( from, to ) );
+            }
+        }
+    }
+}
@@ -0,0 +1,131 @@
+/**
+ * Copyright (c) 2002-2013 "Neo Technology,"
+ * Network Engine for Objects in Lund AB [http://neotechnology.com]
+ *
+ * This file is part of Neo4j.
+ *
+ * Neo4j is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package se.nawroth.scales.benchmarks;
+
+import java.util.Iterator;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+
+import se.nawroth.scales.api.Note;
+import se.nawroth.scales.note.Notes;
+import se.nawroth.scales.note.TranspositionAtlas;
+
+/**
+ * Walk the notes of a scale, once and circularly over several octaves. The
+ * notes are either computed from the intervals of the scale, or precomputed by
+ * the {@link TranspositionAtlas}.
+ * 
+ * @author Anders Nawroth
+ */
+@State( Scope.Thread )
+@BenchmarkMode( Mode.AverageTime )
+@OutputTimeUnit( TimeUnit.NANOSECONDS )
+@Warmup( iterations = 5, time = 1 )
+@Measurement( iterations = 5, time = 1 )
+@Fork( 1 )
+public class NotesBenchmark
+{
+    private static final int OCTAVES = 3;
+    @Param( { "computed", "atlas" } )
+    public String source;
+    private SyntheticCatalog catalog;
+    private TranspositionAtlas atlas;
+    private Notes notes;
+    private Note[] roots;
+    private int next;
+
+    @Setup
+    public void setUp()
+    {
+        catalog = new SyntheticCatalog( 0 );
+        atlas = catalog.getServices()
+                .getTranspositionAtlas();
+        atlas.build();
+        roots = new Note[12];
+        for ( int pitchClass = 0; pitchClass < roots.length; pitchClass++ )
+        {
+            roots[pitchClass] = catalog.note( pitchClass );
+        }
+        notes = notes( roots[0] );
+    }
+
+    @TearDown
+    public void tearDown()
+    {
+        catalog.shutdown();
+    }
+
+    @Benchmark
+    public void iterate( final Blackhole blackhole )
+    {
+        for ( Note note : notes )
+        {
+            blackhole.consume( note );
+        }
+    }
+
+    @Benchmark
+    public void iterateCircular( final Blackhole blackhole )
+    {
+        Iterator<Note> iterator = notes.circularIterator();
+        for ( int i = OCTAVES * notes.size(); i > 0; i-- )
+        {
+            blackhole.consume( iterator.next() );
+        }
+    }
+
+    @Benchmark
+    public String print()
+    {
+        return notes.toString();
+    }
+
+    @Benchmark
+    public void selectAndIterate( final Blackhole blackhole )
+    {
+        next = ( next + 1 ) % roots.length;
+        for ( Note note : notes( roots[next] ) )
+        {
+            blackhole.consume( note );
+        }
+    }
+
+    private Notes notes( final Note root )
+    {
+        if ( "atlas".equals( source ) )
+        {
+            return atlas.getNotes( catalog.getIonian(), root );
+        }
+        return Notes.notes( root, catalog.getIonian() );
+    }
+}
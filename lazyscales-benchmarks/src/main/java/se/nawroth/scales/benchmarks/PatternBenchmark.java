@@ -0,0 +1,144 @@
+/**
+ * Copyright (c) 2002-2013 "Neo Technology,"
+ * Network Engine for Objects in Lund AB [http://neotechnology.com]
+ *
+ * This file is part of Neo4j.
+ *
+ * Neo4j is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package se.nawroth.scales.benchmarks;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+import se.nawroth.scales.Services;
+import se.nawroth.scales.api.Note;
+import se.nawroth.scales.api.Scale;
+import se.nawroth.scales.api.ScaleFamily;
+import se.nawroth.scales.api.Tuning;
+import se.nawroth.scales.fretboard.FingeringCost;
+import se.nawroth.scales.fretboard.FretboardService;
+import se.nawroth.scales.fretboard.PatternStyle;
+import se.nawroth.scales.note.Notes;
+
+/**
+ * Generate the position patterns of every scale of the largest synthetic
+ * catalog, in every key and style, as a batch job would. The cold batch uses a
+ * new cost model for every invocation, so nothing is cached.
+ * 
+ * @author Anders Nawroth
+ */
+@State( Scope.Thread )
+@BenchmarkMode( Mode.AverageTime )
+@OutputTimeUnit( TimeUnit.MILLISECONDS )
+@Warmup( iterations = 3, time = 1 )
+@Measurement( iterations = 5, time = 1 )
+@Fork( 1 )
+public class PatternBenchmark
+{
+    private SyntheticCatalog catalog;
+    private FretboardService fretboardService;
+    private Tuning tuning;
+    private List<Scale> scales;
+    private Note[] roots;
+    private int shiftCost;
+    private FingeringCost cost;
+
+    @Setup
+    public void setUp()
+    {
+        catalog = new SyntheticCatalog( SyntheticCatalog.maxSize() );
+        Services services = catalog.getServices();
+        fretboardService = services.getFretboardService();
+        tuning = catalog.getStandardTuning();
+        scales = new ArrayList<Scale>();
+        collect( services.getScaleFamilyService()
+                .getRootScaleFamily(), scales );
+        roots = new Note[12];
+        for ( int pitchClass = 0; pitchClass < roots.length; pitchClass++ )
+        {
+            roots[pitchClass] = catalog.note( pitchClass );
+        }
+    }
+
+    @Setup( Level.Invocation )
+    public void newCostModel()
+    {
+        cost = new FingeringCost( 4, 2, ++shiftCost );
+    }
+
+    @TearDown
+    public void tearDown()
+    {
+        catalog.shutdown();
+    }
+
+    @Benchmark
+    public int coldCatalog()
+    {
+        return batch( cost );
+    }
+
+    @Benchmark
+    public int warmCatalog()
+    {
+        return batch( FingeringCost.DEFAULT );
+    }
+
+    private int batch( final FingeringCost costModel )
+    {
+        int count = 0;
+        for ( Scale scale : scales )
+        {
+            for ( Note root : roots )
+            {
+                Notes notes = Notes.notes( root, scale );
+                for ( PatternStyle style : PatternStyle.values() )
+                {
+                    count += fretboardService.getPatterns( notes, tuning,
+                            style, costModel )
+                            .size();
+                }
+            }
+        }
+        return count;
+    }
+
+    private static void collect( final ScaleFamily family,
+            final List<Scale> result )
+    {
+        for ( Scale scale : family.getScales() )
+        {
+            result.add( scale );
+        }
+        for ( ScaleFamily subFamily : family.getSubFamilies() )
+        {
+            collect( subFamily, result );
+        }
+    }
+}
@@ -0,0 +1,103 @@
+/**
+ * Copyright (c) 2002-2013 "Neo Technology,"
+ * Network Engine for Objects in Lund AB [http://neotechnology.com]
+ *
+ * This file is part of Neo4j.
+ *
+ * Neo4j is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package se.nawroth.scales.benchmarks;
+
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+import se.nawroth.scales.api.Interval;
+import se.nawroth.scales.api.Scale;
+import se.nawroth.scales.scale.ScaleSearchService;
+
+/**
+ * Find scales by their intervals, in catalogs of different sizes. The queries
+ * start on different intervals of the rings, so most of them hit a mode which
+ * isn't stored with the same starting point.
+ * 
+ * @author Anders Nawroth
+ */
+@State( Scope.Thread )
+@BenchmarkMode( Mode.AverageTime )
+@OutputTimeUnit( TimeUnit.MICROSECONDS )
+@Warmup( iterations = 5, time = 1 )
+@Measurement( iterations = 5, time = 1 )
+@Fork( 1 )
+public class ScaleSearchBenchmark
+{
+    @Param( { "16", "64", "256" } )
+    private int catalogSize;
+    private SyntheticCatalog catalog;
+    private ScaleSearchService search;
+    private Interval[][] queries;
+    private Interval[] missing;
+    private int next;
+
+    @Setup
+    public void setUp()
+    {
+        catalog = new SyntheticCatalog( catalogSize );
+        search = catalog.getServices()
+                .getScaleSearchService();
+        List<Interval[]> scales = catalog.getScales();
+        queries = new Interval[scales.size()][];
+        for ( int i = 0; i < queries.length; i++ )
+        {
+            Interval[] scale = scales.get( i );
+            queries[i] = new Interval[scale.length];
+            for ( int position = 0; position < scale.length; position++ )
+            {
+                queries[i][position] = scale[( i + position ) % scale.length];
+            }
+        }
+        missing = catalog.missingScale();
+    }
+
+    @TearDown
+    public void tearDown()
+    {
+        catalog.shutdown();
+    }
+
+    @Benchmark
+    public Scale findExisting()
+    {
+        next = ( next + 1 ) % queries.length;
+        return search.find( queries[next] );
+    }
+
+    @Benchmark
+    public Scale findMissing()
+    {
+        return search.find( missing );
+    }
+}
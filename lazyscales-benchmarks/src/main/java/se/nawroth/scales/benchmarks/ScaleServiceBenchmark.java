@@ -0,0 +1,107 @@
+/**
+ * Copyright (c) 2002-2013 "Neo Technology,"
+ * Network Engine for Objects in Lund AB [http://neotechnology.com]
+ *
+ * This file is part of Neo4j.
+ *
+ * Neo4j is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package se.nawroth.scales.benchmarks;
+
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import org.neo4j.graphdb.Transaction;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+import se.nawroth.scales.Services;
+import se.nawroth.scales.api.Interval;
+import se.nawroth.scales.api.ScaleFamily;
+import se.nawroth.scales.scale.ScaleService;
+
+/**
+ * Create the synthetic scales in an empty catalog, in a single transaction.
+ * Every invocation starts from a fresh database, so this measures the creation
+ * of new rings and not the reuse of existing ones.
+ * 
+ * @author Anders Nawroth
+ */
+@State( Scope.Thread )
+@BenchmarkMode( Mode.SingleShotTime )
+@OutputTimeUnit( TimeUnit.MILLISECONDS )
+@Warmup( iterations = 10 )
+@Measurement( iterations = 20 )
+@Fork( 1 )
+public class ScaleServiceBenchmark
+{
+    @Param( { "16", "64" } )
+    private int catalogSize;
+    private List<Interval[]> rings;
+    private SyntheticCatalog catalog;
+    private Services services;
+    private ScaleFamily family;
+
+    @Setup( Level.Trial )
+    public void setUpTrial()
+    {
+        rings = SyntheticCatalog.rings( catalogSize );
+    }
+
+    @Setup( Level.Invocation )
+    public void setUp()
+    {
+        catalog = new SyntheticCatalog( 0 );
+        services = catalog.getServices();
+        family = services.getScaleFamilyService()
+                .getRootScaleFamily();
+    }
+
+    @TearDown( Level.Invocation )
+    public void tearDown()
+    {
+        catalog.shutdown();
+    }
+
+    @Benchmark
+    public void newScales()
+    {
+        ScaleService scaleService = services.getScaleService();
+        Transaction tx = services.beginTx();
+        try
+        {
+            for ( int i = 0; i < rings.size(); i++ )
+            {
+                scaleService.newScales( family, new String[] { "Synthetic "
+                                                               + i }, rings.get( i ) );
+            }
+            tx.success();
+        }
+        finally
+        {
+            tx.finish();
+        }
+    }
+}
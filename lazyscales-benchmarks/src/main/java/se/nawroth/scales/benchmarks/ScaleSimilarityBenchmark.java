@@ -0,0 +1,107 @@
+/**
+ * Copyright (c) 2002-2013 "Neo Technology,"
+ * Network Engine for Objects in Lund AB [http://neotechnology.com]
+ *
+ * This file is part of Neo4j.
+ *
+ * Neo4j is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package se.nawroth.scales.benchmarks;
+
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import org.neo4j.graphdb.Transaction;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+import se.nawroth.scales.Services;
+import se.nawroth.scales.api.PitchClassSet;
+import se.nawroth.scales.scale.ScaleDistance;
+import se.nawroth.scales.scale.ScaleSimilarityService;
+import se.nawroth.scales.scale.SimilarScale;
+
+/**
+ * Find the ten scales closest to a scale, among every scale that fits in an
+ * octave.
+ * 
+ * @author Anders Nawroth
+ */
+@State( Scope.Thread )
+@BenchmarkMode( Mode.AverageTime )
+@OutputTimeUnit( TimeUnit.MICROSECONDS )
+@Warmup( iterations = 5, time = 1 )
+@Measurement( iterations = 5, time = 1 )
+@Fork( 1 )
+public class ScaleSimilarityBenchmark
+{
+    private static final int LIMIT = 10;
+    @Param( { "HAMMING", "SEMITONE_MOVES", "INTERVAL_VECTOR" } )
+    private ScaleDistance distance;
+    private SyntheticCatalog catalog;
+    private ScaleSimilarityService similarity;
+    private PitchClassSet[] queries;
+    private int next;
+
+    @Setup
+    public void setUp()
+    {
+        catalog = new SyntheticCatalog( 0 );
+        Services services = catalog.getServices();
+        Transaction tx = services.beginTx();
+        try
+        {
+            services.getScaleService()
+                    .addAllScales();
+            tx.success();
+        }
+        finally
+        {
+            tx.finish();
+        }
+        similarity = services.getScaleSimilarityService();
+        queries = new PitchClassSet[PitchClassSet.PITCH_CLASSES];
+        for ( int i = 0; i < queries.length; i++ )
+        {
+            queries[i] = catalog.getIonian()
+                    .getPitchClassSet()
+                    .rotate( i );
+        }
+        // build the index outside of the measurement
+        similarity.findSimilar( queries[0], distance, LIMIT );
+    }
+
+    @TearDown
+    public void tearDown()
+    {
+        catalog.shutdown();
+    }
+
+    @Benchmark
+    public List<SimilarScale> findSimilar()
+    {
+        next = ( next + 1 ) % queries.length;
+        return similarity.findSimilar( queries[next], distance, LIMIT );
+    }
+}
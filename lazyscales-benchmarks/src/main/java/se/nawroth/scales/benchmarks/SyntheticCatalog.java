@@ -0,0 +1,240 @@
+/**
+ * Copyright (c) 2002-2013 "Neo Technology,"
+ * Network Engine for Objects in Lund AB [http://neotechnology.com]
+ *
+ * This file is part of Neo4j.
+ *
+ * Neo4j is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package se.nawroth.scales.benchmarks;
+
+import static se.nawroth.scales.api.DiatonicInterval.FOURTH;
+import static se.nawroth.scales.api.DiatonicInterval.MAJOR_SECOND;
+import static se.nawroth.scales.api.DiatonicInterval.MAJOR_THIRD;
+import static se.nawroth.scales.api.DiatonicInterval.MINOR_SECOND;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Random;
+import java.util.Set;
+
+import org.neo4j.test.ImpermanentGraphDatabase;
+
+import se.nawroth.scales.CatalogStore;
+import se.nawroth.scales.LazyScales;
+import se.nawroth.scales.Services;
+import se.nawroth.scales.api.DiatonicInterval;
+import se.nawroth.scales.api.Interval;
+import se.nawroth.scales.api.Note;
+import se.nawroth.scales.api.PitchClassSet;
+import se.nawroth.scales.api.Scale;
+import se.nawroth.scales.api.ScaleFamily;
+import se.nawroth.scales.api.Tuning;
+import se.nawroth.scales.scale.RotationKey;
+
+/**
+ * Reproducible catalog for the benchmarks, kept in an in-memory database. It
+ * always contains the diatonic modes and a standard guitar tuning, followed by
+ * a number of synthetic scales. The synthetic scales are distinct interval
+ * rings, taken from all the ways to divide an octave, in an order shuffled by
+ * a fixed seed.
+ * 
+ * @author Anders Nawroth
+ */
+public final class SyntheticCatalog
+{
+    /**
+     * Seed for the order of the synthetic scales.
+     */
+    public static final long SEED = 0x5CA1E5L;
+    private static final int OCTAVE = PitchClassSet.PITCH_CLASSES;
+    private static final List<Interval[]> RINGS = createRings();
+    private static final String[] DIATONIC_MODES = { "Ionian", "Dorian",
+            "Phrygian", "Lydian", "Mixolydian", "Aeolian", "Locrian" };
+    private final LazyScales lazyScales;
+    private final Scale ionian;
+    private final Tuning standardTuning;
+    private final List<Interval[]> scales;
+
+    /**
+     * Create the catalog.
+     * 
+     * @param size the number of synthetic scales to add, at most
+     *            {@link #maxSize()}
+     */
+    public SyntheticCatalog( final int size )
+    {
+        if ( size < 0 || size > RINGS.size() )
+        {
+            throw new IllegalArgumentException( "The size has to be between 0 and "
+                                                + RINGS.size() + ", but was: ["
+                                                + size + "]" );
+        }
+        lazyScales = new LazyScales( new ImpermanentGraphDatabase() );
+        lazyScales.start();
+        lazyScales.init();
+        CatalogStore store = lazyScales.getCatalogStore();
+        ScaleFamily diatonic = store.newScaleFamily(
+                store.getRootScaleFamily(), "Diatonic" );
+        ionian = store.newScales( diatonic, DIATONIC_MODES, MAJOR_SECOND,
+                MAJOR_SECOND, MINOR_SECOND, MAJOR_SECOND, MAJOR_SECOND,
+                MAJOR_SECOND, MINOR_SECOND );
+        standardTuning = store.newTuning( store.newTuningFamily(
+                store.getRootTuningFamily(), "Standard tunings" ),
+                "Standard tuning", store.note( 4 ), FOURTH, FOURTH, FOURTH,
+                MAJOR_THIRD, FOURTH );
+        scales = rings( size );
+        ScaleFamily synthetic = store.newScaleFamily(
+                store.getRootScaleFamily(), "Synthetic" );
+        for ( int i = 0; i < scales.size(); i++ )
+        {
+            store.newScales( synthetic, new String[] { "Synthetic " + i },
+                    scales.get( i ) );
+        }
+    }
+
+    /**
+     * Get the number of distinct synthetic scales available.
+     * 
+     * @return the maximum size of a catalog
+     */
+    public static int maxSize()
+    {
+        return RINGS.size();
+    }
+
+    /**
+     * Get the first synthetic scales, in the shuffled order. A catalog of size
+     * <code>n</code> contains exactly the first <code>n</code> of them.
+     * 
+     * @param count the number of scales to get
+     * @return the intervals of the scales
+     */
+    public static List<Interval[]> rings( final int count )
+    {
+        return Collections.unmodifiableList( RINGS.subList( 0, count ) );
+    }
+
+    /**
+     * Get a synthetic scale which is not part of this catalog.
+     * 
+     * @return the intervals of the scale
+     * @throws IllegalStateException if the catalog contains all scales
+     */
+    public Interval[] missingScale()
+    {
+        if ( scales.size() == RINGS.size() )
+        {
+            throw new IllegalStateException(
+                    "All synthetic scales are part of the catalog." );
+        }
+        return RINGS.get( RINGS.size() - 1 );
+    }
+
+    /**
+     * Get the intervals of the synthetic scales in this catalog.
+     * 
+     * @return the intervals of the scales
+     */
+    public List<Interval[]> getScales()
+    {
+        return scales;
+    }
+
+    /**
+     * Get the services of the underlying database.
+     * 
+     * @return the services
+     */
+    public Services getServices()
+    {
+        return lazyScales.getServices();
+    }
+
+    /**
+     * Get a note of the catalog.
+     * 
+     * @param pitchClass the pitch class of the note
+     * @return the note
+     */
+    public Note note( final int pitchClass )
+    {
+        return lazyScales.getCatalogStore()
+                .note( pitchClass );
+    }
+
+    /**
+     * Get the Ionian scale.
+     * 
+     * @return the Ionian scale
+     */
+    public Scale getIonian()
+    {
+        return ionian;
+    }
+
+    /**
+     * Get the standard guitar tuning.
+     * 
+     * @return the standard tuning
+     */
+    public Tuning getStandardTuning()
+    {
+        return standardTuning;
+    }
+
+    /**
+     * Shut down the underlying database.
+     */
+    public void shutdown()
+    {
+        lazyScales.stop();
+    }
+
+    private static List<Interval[]> createRings()
+    {
+        // every subset of the eleven inner semitone boundaries divides the
+        // octave, keep one rotation of each ring
+        List<Interval[]> rings = new ArrayList<Interval[]>();
+        Set<Long> keys = new HashSet<Long>();
+        for ( int cuts = 1; cuts < 1 << ( OCTAVE - 1 ); cuts++ )
+        {
+            int[] steps = new int[Integer.bitCount( cuts ) + 1];
+            int step = 0;
+            int previous = 0;
+            for ( int boundary = 1; boundary < OCTAVE; boundary++ )
+            {
+                if ( ( cuts & 1 << ( boundary - 1 ) ) != 0 )
+                {
+                    steps[step++] = boundary - previous;
+                    previous = boundary;
+                }
+            }
+            steps[step] = OCTAVE - previous;
+            if ( keys.add( RotationKey.key( steps ) ) )
+            {
+                Interval[] intervals = new Interval[steps.length];
+                for ( int i = 0; i < steps.length; i++ )
+                {
+                    intervals[i] = DiatonicInterval.getFromSemitones( steps[i] );
+                }
+                rings.add( intervals );
+            }
+        }
+        Collections.shuffle( rings, new Random( SEED ) );
+        return rings;
+    }
+}
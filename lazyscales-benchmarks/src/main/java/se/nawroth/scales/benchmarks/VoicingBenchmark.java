@@ -0,0 +1,117 @@
+/**
+ * Copyright (c) 2002-2013 "Neo Technology,"
+ * Network Engine for Objects in Lund AB [http://neotechnology.com]
+ *
+ * This file is part of Neo4j.
+ *
+ * Neo4j is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package se.nawroth.scales.benchmarks;
+
+import static se.nawroth.scales.api.DiatonicInterval.FIFTH;
+import static se.nawroth.scales.api.DiatonicInterval.MAJOR_THIRD;
+import static se.nawroth.scales.api.DiatonicInterval.MINOR_SEVENTH;
+
+import java.util.Iterator;
+import java.util.concurrent.TimeUnit;
+
+import org.neo4j.graphdb.Transaction;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+import se.nawroth.scales.Services;
+import se.nawroth.scales.api.Chord;
+import se.nawroth.scales.api.Note;
+import se.nawroth.scales.fretboard.FretboardService;
+import se.nawroth.scales.fretboard.Voicing;
+import se.nawroth.scales.fretboard.VoicingLimits;
+
+/**
+ * Enumerate every voicing of a seventh chord in standard tuning, and only
+ * the first voicing.
+ * 
+ * @author Anders Nawroth
+ */
+@State( Scope.Thread )
+@BenchmarkMode( Mode.AverageTime )
+@OutputTimeUnit( TimeUnit.MICROSECONDS )
+@Warmup( iterations = 5, time = 1 )
+@Measurement( iterations = 5, time = 1 )
+@Fork( 1 )
+public class VoicingBenchmark
+{
+    private SyntheticCatalog catalog;
+    private FretboardService fretboardService;
+    private Chord chord;
+    private Note root;
+
+    @Setup
+    public void setUp()
+    {
+        catalog = new SyntheticCatalog( 0 );
+        Services services = catalog.getServices();
+        fretboardService = services.getFretboardService();
+        Transaction tx = services.beginTx();
+        try
+        {
+            chord = services.getChordService()
+                    .newChord( services.getChordFamilyService()
+                            .getRootChordFamily(), "Dominant seventh",
+                            MAJOR_THIRD, FIFTH, MINOR_SEVENTH );
+            tx.success();
+        }
+        finally
+        {
+            tx.finish();
+        }
+        root = catalog.note( 7 );
+    }
+
+    @TearDown
+    public void tearDown()
+    {
+        catalog.shutdown();
+    }
+
+    @Benchmark
+    public int allVoicings()
+    {
+        int count = 0;
+        Iterator<Voicing> voicings = fretboardService.getVoicings( chord,
+                root, catalog.getStandardTuning(), VoicingLimits.DEFAULT );
+        while ( voicings.hasNext() )
+        {
+            voicings.next();
+            count++;
+        }
+        return count;
+    }
+
+    @Benchmark
+    public Voicing firstVoicing()
+    {
+        return fretboardService.getVoicings( chord, root,
+                catalog.getStandardTuning(), VoicingLimits.DEFAULT )
+                .next();
+    }
+}
@@ -25,9 +25,12 @@ import java.awt.Font;
 import java.awt.FontMetrics;
 import java.awt.Graphics;
 import java.awt.Graphics2D;
+import java.awt.GraphicsConfiguration;
 import java.awt.RenderingHints;
 import java.awt.Stroke;
-import java.util.Iterator;
+import java.awt.Transparency;
+import java.awt.geom.AffineTransform;
+import java.awt.image.BufferedImage;
 
 import javax.swing.JPanel;
 
@@ -35,6 +38,7 @@ import se.nawroth.scales.Services;
 import se.nawroth.scales.api.Note;
 import se.nawroth.scales.api.Tuning;
 import se.nawroth.scales.fretboard.Fretboard;
+import se.nawroth.scales.fretboard.FretboardMatrix;
 import se.nawroth.scales.note.Notes;
 
 public class FretboardPanel extends JPanel
@@ -94,6 +98,19 @@ public class FretboardPanel extends JPanel
     private Notes notes;
     private Notes pinnedNotes;
     private Stroke[] strokes = new Stroke[30];
+    /**
+     * The strings, frets and inlays, for the current size and tuning.
+     */
+    private BufferedImage neckLayer;
+    /**
+     * The notes, for the current neck and the notes they were rendered from.
+     */
+    private BufferedImage noteLayer;
+    private double layerScale;
+    private Notes layerNotes;
+    private Notes layerPinnedNotes;
+    private boolean layerFlat;
+    private Color layerBackground;
 
     public FretboardPanel( Services services )
     {
@@ -157,22 +174,30 @@ public class FretboardPanel extends JPanel
     public void paint( Graphics g )
     {
         super.paint( g );
-        Graphics2D g2 = (Graphics2D) g;
-        g2.setPaint( Color.black );
-        g2.setRenderingHint( RenderingHints.KEY_ANTIALIASING,
-                RenderingHints.VALUE_ANTIALIAS_ON );
-
-        if ( tuning == null )
+        int width = getWidth();
+        int height = getHeight();
+        if ( tuning == null || width <= 0 || height <= 0 )
         {
             return;
         }
-        numberOfStrings = tuning.size();
-
-        calculateSizes();
-
-        g2.setStroke( getStroke( strokeWidth ) );
+        Graphics2D g2 = (Graphics2D) g;
+        double scale = g2.getTransform()
+                .getScaleX();
 
-        paintEmptyFretboard( g2 );
+        if ( neckLayer == null || layerScale != scale
+             || neckLayer.getWidth() != (int) Math.ceil( width * scale )
+             || neckLayer.getHeight() != (int) Math.ceil( height * scale ) )
+        {
+            numberOfStrings = tuning.size();
+            calculateSizes();
+            layerScale = scale;
+            neckLayer = createLayer( g2, width, height, scale );
+            Graphics2D neck = layerGraphics( neckLayer, scale );
+            paintEmptyFretboard( neck );
+            neck.dispose();
+            noteLayer = null;
+        }
+        g2.drawImage( neckLayer, 0, 0, width, height, null );
 
         if ( notes == null )
         {
@@ -180,35 +205,71 @@ public class FretboardPanel extends JPanel
         }
 
         boolean isFlat = notes.isFlat();
+        if ( noteLayer == null || layerNotes != notes
+             || layerPinnedNotes != pinnedNotes || layerFlat != isFlat
+             || !getBackground().equals( layerBackground ) )
+        {
+            layerNotes = notes;
+            layerPinnedNotes = pinnedNotes;
+            layerFlat = isFlat;
+            layerBackground = getBackground();
+            noteLayer = createLayer( g2, width, height, scale );
+            Graphics2D noteGraphics = layerGraphics( noteLayer, scale );
+            paintNotes( noteGraphics, isFlat );
+            noteGraphics.dispose();
+        }
+        g2.drawImage( noteLayer, 0, 0, width, height, null );
+    }
 
-        Iterator<Iterable<Note>> stringIter = getFretboardStringsIterator( notes );
+    private BufferedImage createLayer( Graphics2D g2, int width, int height,
+            double scale )
+    {
+        int layerWidth = (int) Math.ceil( width * scale );
+        int layerHeight = (int) Math.ceil( height * scale );
+        GraphicsConfiguration configuration = g2.getDeviceConfiguration();
+        if ( configuration != null )
+        {
+            return configuration.createCompatibleImage( layerWidth,
+                    layerHeight, Transparency.TRANSLUCENT );
+        }
+        return new BufferedImage( layerWidth, layerHeight,
+                BufferedImage.TYPE_INT_ARGB );
+    }
 
-        Iterator<Iterable<Note>> pinnedStringIter = null;
+    private Graphics2D layerGraphics( BufferedImage layer, double scale )
+    {
+        Graphics2D g2 = layer.createGraphics();
+        g2.setTransform( AffineTransform.getScaleInstance( scale, scale ) );
+        g2.setRenderingHint( RenderingHints.KEY_ANTIALIASING,
+                RenderingHints.VALUE_ANTIALIAS_ON );
+        g2.setStroke( getStroke( strokeWidth ) );
+        g2.setFont( font );
+        return g2;
+    }
+
+    private void paintNotes( Graphics2D g2, boolean isFlat )
+    {
+        FretboardMatrix matrix = getFretboardMatrix( notes );
+
+        FretboardMatrix pinnedMatrix = null;
         Note startNote = notes.getStartingNote();
         Note pinnedStartNote = null;
         if ( pinnedNotes != null )
         {
-            pinnedStringIter = getFretboardStringsIterator( pinnedNotes );
+            pinnedMatrix = getFretboardMatrix( pinnedNotes );
             pinnedStartNote = pinnedNotes.getStartingNote();
         }
 
         for ( int currentString = 0; currentString < numberOfStrings; currentString++ )
         {
-            Iterator<Note> noteIter = stringIter.next()
-                    .iterator();
-            Iterator<Note> pinnedNoteIter = null;
-            if ( pinnedStringIter != null )
-            {
-                pinnedNoteIter = pinnedStringIter.next()
-                        .iterator();
-            }
             for ( int currentFret = 0; currentFret < numberOfFrets; currentFret++ )
             {
-                Note note = noteIter.next();
+                Note note = matrix.scaleNoteAt( currentString, currentFret );
                 Note pinnedNote = null;
-                if ( pinnedNoteIter != null )
+                if ( pinnedMatrix != null )
                 {
-                    pinnedNote = pinnedNoteIter.next();
+                    pinnedNote = pinnedMatrix.scaleNoteAt( currentString,
+                            currentFret );
                 }
                 NotePinnedState state = NotePinnedState.getState( note,
                         pinnedNote );
@@ -299,14 +360,11 @@ public class FretboardPanel extends JPanel
         }
     }
 
-    private Iterator<Iterable<Note>> getFretboardStringsIterator(
-            Notes scaleNotes )
+    private FretboardMatrix getFretboardMatrix( Notes scaleNotes )
     {
         Fretboard neck = new Fretboard( tuning, scaleNotes );
-        Iterable<Iterable<Note>> stringNotes = services.getFretboardService()
-                .getStrings( neck );
-        Iterator<Iterable<Note>> stringIter = stringNotes.iterator();
-        return stringIter;
+        return services.getFretboardService()
+                .getMatrix( neck );
     }
 
     private void paintEmptyFretboard( Graphics2D g2 )
@@ -343,6 +401,7 @@ public class FretboardPanel extends JPanel
     public void setTuning( Tuning tuning )
     {
         this.tuning = tuning;
+        neckLayer = null;
         int size = tuning.size();
         for ( Note note : tuning )
         {
@@ -358,6 +417,7 @@ public class FretboardPanel extends JPanel
     public void setNumberOfFrets( int frets )
     {
         this.numberOfFrets = frets;
+        neckLayer = null;
     }
 
     public void pinCurrentScale()
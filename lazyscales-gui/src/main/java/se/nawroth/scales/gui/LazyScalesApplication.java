@@ -57,6 +57,7 @@ import javax.swing.tree.TreePath;
 
 import net.miginfocom.swing.MigLayout;
 
+import org.neo4j.graphdb.Transaction;
 import org.neo4j.kernel.impl.util.FileUtils;
 
 import se.nawroth.scales.LazyScales;
@@ -170,23 +171,9 @@ public class LazyScalesApplication
         File dir = new File( appdir + File.separator + ".LazyScales"
                              + File.separator + "db" );
 
-        if ( dir.exists() )
-        {
-            try
-            {
-                FileUtils.deleteRecursively( dir );
-            }
-            catch ( IOException e1 )
-            {
-                e1.printStackTrace();
-            }
-        }
-
-        lazy = new LazyScales( dir.getAbsolutePath() );
-        lazy.start();
-        lazy.init();
+        lazy = openDatabase( dir );
         services = lazy.getServices();
-        DataImport.populateDb( services );
+        addAllScales();
         initializeScaleFamilyTree();
         initializeScaleList();
         initializeTuningFamilyTree();
@@ -274,6 +261,64 @@ public class LazyScalesApplication
                 .add( pinCheckBox, "cell 2 2 1 2,alignx right,aligny bottom" );
     }
 
+    /**
+     * Open the database, importing the bundled catalog when the database is
+     * missing or was imported from another version of the catalog.
+     */
+    private static LazyScales openDatabase( final File dir )
+    {
+        String location = dir.getAbsolutePath();
+        try
+        {
+            String catalogVersion = DataImport.catalogVersion();
+            if ( dir.exists() )
+            {
+                LazyScales existing = new LazyScales( location );
+                existing.start();
+                if ( catalogVersion.equals( existing.getCatalogVersion() ) )
+                {
+                    existing.init();
+                    return existing;
+                }
+                existing.stop();
+                FileUtils.deleteRecursively( dir );
+            }
+            DataImport.importCatalog( dir );
+        }
+        catch ( IOException e )
+        {
+            throw new IllegalStateException( "Could not import the catalog.",
+                    e );
+        }
+        LazyScales imported = new LazyScales( location );
+        imported.start();
+        imported.init();
+        return imported;
+    }
+
+    /**
+     * Complete the catalog with every scale that fits in an octave, so that
+     * searches can find scales that have no name yet. Those scales don't
+     * belong to a family, so they don't show up in the family tree. Then
+     * compute the notes of every scale in the catalog at all roots.
+     */
+    private void addAllScales()
+    {
+        Transaction tx = services.beginTx();
+        try
+        {
+            services.getScaleService()
+                    .addAllScales();
+            tx.success();
+        }
+        finally
+        {
+            tx.finish();
+        }
+        services.getTranspositionAtlas()
+                .build();
+    }
+
     private void initializeScaleFamilyTree()
     {
         ScaleFamily rootScaleFamily = services.getScaleFamilyService()
@@ -398,7 +443,8 @@ public class LazyScalesApplication
         Note startingNote = noteMap.get( noteCombo.getItemAt( selectedNoteIndex ) );
 
         boolean isFlat = flatRadio.isSelected();
-        Notes scaleNotes = Notes.notes( startingNote, scale );
+        Notes scaleNotes = services.getTranspositionAtlas()
+                .getNotes( scale, startingNote );
         if ( isFlat )
         {
             scaleNotes.setFlat();
@@ -0,0 +1,586 @@
+/**
+ * Copyright (c) 2002-2013 "Neo Technology,"
+ * Network Engine for Objects in Lund AB [http://neotechnology.com]
+ *
+ * This file is part of Neo4j.
+ *
+ * Neo4j is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package se.nawroth.scales.server;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.UnsupportedEncodingException;
+import java.net.URLDecoder;
+import java.nio.charset.Charset;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import se.nawroth.scales.Services;
+import se.nawroth.scales.api.DiatonicInterval;
+import se.nawroth.scales.api.Interval;
+import se.nawroth.scales.api.Note;
+import se.nawroth.scales.api.PitchClassSet;
+import se.nawroth.scales.api.Scale;
+import se.nawroth.scales.api.ScaleFamily;
+import se.nawroth.scales.api.Tuning;
+import se.nawroth.scales.api.TuningFamily;
+import se.nawroth.scales.fretboard.Fretboard;
+import se.nawroth.scales.fretboard.FretboardMatrix;
+import se.nawroth.scales.note.Notes;
+
+import com.sun.net.httpserver.Headers;
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpHandler;
+
+/**
+ * Answers the requests of the server. Everything served is read from the
+ * catalog, without any transaction, so requests don't wait for each other.
+ * Responses are cached per catalog generation, and carry an ETag so clients
+ * can revalidate them cheaply.
+ * 
+ * @author Anders Nawroth
+ */
+final class ApiHandler implements HttpHandler
+{
+    private static final Charset UTF_8 = Charset.forName( "UTF-8" );
+    private static final String JSON = "application/json; charset=utf-8";
+    private static final int DEFAULT_FRETS = 12;
+    private static final int MAX_FRETS = 36;
+    private static final String[] NOTE_LETTERS = { "C", "D", "E", "F", "G",
+            "A", "B" };
+    private static final int[] NOTE_LETTER_PITCH_CLASSES = { 0, 2, 4, 5, 7,
+            9, 11 };
+
+    private final Services services;
+    private final CatalogIndex index;
+    private final ResponseCache cache;
+
+    /**
+     * Thrown when the requested resource doesn't exist.
+     */
+    private static final class NotFoundException extends RuntimeException
+    {
+        private static final long serialVersionUID = 1L;
+
+        private NotFoundException( final String message )
+        {
+            super( message );
+        }
+    }
+
+    ApiHandler( final Services services, final ResponseCache cache )
+    {
+        this.services = services;
+        this.index = new CatalogIndex( services );
+        this.cache = cache;
+    }
+
+    @Override
+    public void handle( final HttpExchange exchange ) throws IOException
+    {
+        try
+        {
+            String method = exchange.getRequestMethod();
+            if ( !"GET".equals( method ) && !"HEAD".equals( method ) )
+            {
+                exchange.getResponseHeaders()
+                        .set( "Allow", "GET, HEAD" );
+                sendError( exchange, 405, "Only GET and HEAD are supported." );
+                return;
+            }
+            String key = exchange.getRequestURI()
+                    .toString();
+            long generation = services.getGeneration();
+            ResponseCache.Entry entry = cache.get( key, generation );
+            if ( entry == null )
+            {
+                JsonWriter json;
+                try
+                {
+                    json = route( exchange );
+                }
+                catch ( NotFoundException e )
+                {
+                    sendError( exchange, 404, e.getMessage() );
+                    return;
+                }
+                catch ( IllegalArgumentException e )
+                {
+                    sendError( exchange, 400, e.getMessage() );
+                    return;
+                }
+                entry = cache.put( key, generation, json.toString()
+                        .getBytes( UTF_8 ) );
+            }
+            Headers headers = exchange.getResponseHeaders();
+            headers.set( "ETag", entry.getEtag() );
+            headers.set( "Cache-Control", "no-cache" );
+            if ( entry.getEtag()
+                    .equals( exchange.getRequestHeaders()
+                            .getFirst( "If-None-Match" ) ) )
+            {
+                exchange.sendResponseHeaders( 304, -1 );
+                return;
+            }
+            send( exchange, 200, entry.getBody() );
+        }
+        finally
+        {
+            exchange.close();
+        }
+    }
+
+    private JsonWriter route( final HttpExchange exchange )
+    {
+        String path = exchange.getRequestURI()
+                .getPath();
+        List<String> segments = new ArrayList<String>();
+        for ( String segment : path.split( "/" ) )
+        {
+            if ( segment.length() > 0 )
+            {
+                segments.add( segment );
+            }
+        }
+        Map<String, String> query = parseQuery( exchange.getRequestURI()
+                .getRawQuery() );
+        int count = segments.size();
+        String first = count > 0 ? segments.get( 0 ) : "";
+        if ( count == 2 && "families".equals( first ) )
+        {
+            if ( "scales".equals( segments.get( 1 ) ) )
+            {
+                JsonWriter json = new JsonWriter();
+                writeFamily( json, services.getScaleFamilyService()
+                        .getRootScaleFamily() );
+                return json;
+            }
+            if ( "tunings".equals( segments.get( 1 ) ) )
+            {
+                JsonWriter json = new JsonWriter();
+                writeFamily( json, services.getTuningFamilyService()
+                        .getRootTuningFamily() );
+                return json;
+            }
+        }
+        else if ( "scales".equals( first ) )
+        {
+            if ( count == 1 )
+            {
+                JsonWriter json = new JsonWriter().beginArray();
+                for ( Scale scale : index.getScales() )
+                {
+                    writeScale( json, scale );
+                }
+                return json.endArray();
+            }
+            Scale scale = scale( segments.get( 1 ) );
+            if ( count == 2 )
+            {
+                return writeScale( new JsonWriter(), scale );
+            }
+            if ( count == 3 && "notes".equals( segments.get( 2 ) ) )
+            {
+                return writeNotes( new JsonWriter(), notes( scale, query ) );
+            }
+        }
+        else if ( "tunings".equals( first ) )
+        {
+            if ( count == 1 )
+            {
+                JsonWriter json = new JsonWriter().beginArray();
+                for ( Tuning tuning : index.getTunings() )
+                {
+                    writeTuning( json, tuning );
+                }
+                return json.endArray();
+            }
+            Tuning tuning = tuning( segments.get( 1 ) );
+            if ( count == 2 )
+            {
+                return writeTuning( new JsonWriter(), tuning );
+            }
+            if ( count == 3 && "fretboard".equals( segments.get( 2 ) ) )
+            {
+                return writeFretboard( tuning, query );
+            }
+        }
+        else if ( count == 1 && "search".equals( first ) )
+        {
+            return search( query );
+        }
+        throw new NotFoundException( "There is no resource at " + path + "." );
+    }
+
+    private Scale scale( final String name )
+    {
+        Scale scale = index.getScale( name );
+        if ( scale == null )
+        {
+            throw new NotFoundException( "There is no scale named " + name
+                                         + "." );
+        }
+        return scale;
+    }
+
+    private Tuning tuning( final String name )
+    {
+        Tuning tuning = index.getTuning( name );
+        if ( tuning == null )
+        {
+            throw new NotFoundException( "There is no tuning named " + name
+                                         + "." );
+        }
+        return tuning;
+    }
+
+    private Notes notes( final Scale scale, final Map<String, String> query )
+    {
+        String rootName = query.get( "root" );
+        Note root = services.getNoteService()
+                .note( rootName == null ? 0 : pitchClass( rootName ) );
+        Notes notes = services.getTranspositionAtlas()
+                .getNotes( scale, root );
+        String signs = query.get( "signs" );
+        if ( "flat".equals( signs ) )
+        {
+            notes.setFlat();
+        }
+        else if ( "sharp".equals( signs ) )
+        {
+            notes.setSharp();
+        }
+        else if ( signs != null )
+        {
+            throw new IllegalArgumentException(
+                    "The signs have to be sharp or flat, not " + signs + "." );
+        }
+        return notes;
+    }
+
+    private JsonWriter writeFretboard( final Tuning tuning,
+            final Map<String, String> query )
+    {
+        String scaleName = query.get( "scale" );
+        if ( scaleName == null )
+        {
+            throw new IllegalArgumentException( "A scale has to be given." );
+        }
+        Notes notes = notes( scale( scaleName ), query );
+        int frets = DEFAULT_FRETS;
+        if ( query.containsKey( "frets" ) )
+        {
+            frets = parseInt( query.get( "frets" ) );
+            if ( frets < 0 || frets > MAX_FRETS )
+            {
+                throw new IllegalArgumentException(
+                        "The number of frets has to be between 0 and "
+                                + MAX_FRETS + "." );
+            }
+        }
+        FretboardMatrix matrix = services.getFretboardService()
+                .getMatrix( new Fretboard( tuning, notes ) );
+        JsonWriter json = new JsonWriter().beginObject();
+        json.name( "tuning" )
+                .value( tuning.getName() );
+        json.name( "notes" );
+        writeNotes( json, notes );
+        json.name( "strings" )
+                .beginArray();
+        for ( int string = 0; string < matrix.getStringCount(); string++ )
+        {
+            json.beginArray();
+            for ( int fret = 0; fret <= frets; fret++ )
+            {
+                Note note = matrix.scaleNoteAt( string, fret );
+                json.value( note == null ? null : notes.toString( note ) );
+            }
+            json.endArray();
+        }
+        return json.endArray()
+                .endObject();
+    }
+
+    private JsonWriter search( final Map<String, String> query )
+    {
+        String steps = query.get( "steps" );
+        if ( steps == null )
+        {
+            throw new IllegalArgumentException( "The steps have to be given." );
+        }
+        List<Interval> intervals = new ArrayList<Interval>();
+        for ( String step : steps.split( "," ) )
+        {
+            int semitones = parseInt( step.trim() );
+            if ( semitones < 1 || semitones >= PitchClassSet.PITCH_CLASSES )
+            {
+                throw new IllegalArgumentException(
+                        "A step has to be between 1 and "
+                                + ( PitchClassSet.PITCH_CLASSES - 1 ) + "." );
+            }
+            intervals.add( DiatonicInterval.getFromSemitones( semitones ) );
+        }
+        Scale scale = services.getScaleSearchService()
+                .find( intervals );
+        if ( scale == null )
+        {
+            throw new NotFoundException( "There is no scale with the steps "
+                                         + steps + "." );
+        }
+        return writeScale( new JsonWriter(), scale );
+    }
+
+    private static JsonWriter writeFamily( final JsonWriter json,
+            final ScaleFamily family )
+    {
+        json.beginObject()
+                .name( "name" )
+                .value( family.getName() );
+        json.name( "scales" )
+                .beginArray();
+        for ( Scale scale : family.getScales() )
+        {
+            json.value( scale.getName() );
+        }
+        json.endArray()
+                .name( "families" )
+                .beginArray();
+        for ( ScaleFamily subFamily : family.getSubFamilies() )
+        {
+            writeFamily( json, subFamily );
+        }
+        return json.endArray()
+                .endObject();
+    }
+
+    private static JsonWriter writeFamily( final JsonWriter json,
+            final TuningFamily family )
+    {
+        json.beginObject()
+                .name( "name" )
+                .value( family.getName() );
+        json.name( "tunings" )
+                .beginArray();
+        for ( Tuning tuning : family.getTunings() )
+        {
+            json.value( tuning.getName() );
+        }
+        json.endArray()
+                .name( "families" )
+                .beginArray();
+        for ( TuningFamily subFamily : family.getSubFamilies() )
+        {
+            writeFamily( json, subFamily );
+        }
+        return json.endArray()
+                .endObject();
+    }
+
+    private static JsonWriter writeScale( final JsonWriter json,
+            final Scale scale )
+    {
+        int mask = scale.getPitchClassSet()
+                .getRelativeMask();
+        json.beginObject()
+                .name( "name" )
+                .value( scale.getName() );
+        json.name( "pitchClasses" )
+                .beginArray();
+        for ( int pitchClass = 0; pitchClass < PitchClassSet.PITCH_CLASSES; pitchClass++ )
+        {
+            if ( PitchClassSet.contains( mask, pitchClass ) )
+            {
+                json.value( pitchClass );
+            }
+        }
+        json.endArray()
+                .name( "steps" )
+                .beginArray();
+        int previous = 0;
+        for ( int pitchClass = 1; pitchClass <= PitchClassSet.PITCH_CLASSES; pitchClass++ )
+        {
+            if ( pitchClass == PitchClassSet.PITCH_CLASSES
+                 || PitchClassSet.contains( mask, pitchClass ) )
+            {
+                json.value( pitchClass - previous );
+                previous = pitchClass;
+            }
+        }
+        return json.endArray()
+                .endObject();
+    }
+
+    private static JsonWriter writeTuning( final JsonWriter json,
+            final Tuning tuning )
+    {
+        json.beginObject()
+                .name( "name" )
+                .value( tuning.getName() );
+        json.name( "family" )
+                .value( tuning.getFamily()
+                        .getName() );
+        json.name( "strings" )
+                .beginArray();
+        for ( Note note : tuning )
+        {
+            json.value( note.toString( false ) );
+        }
+        return json.endArray()
+                .endObject();
+    }
+
+    private static JsonWriter writeNotes( final JsonWriter json,
+            final Notes notes )
+    {
+        json.beginObject()
+                .name( "scale" )
+                .value( notes.getScale()
+                        .getName() );
+        json.name( "root" )
+                .value( notes.toString( notes.getStartingNote() ) );
+        json.name( "notes" )
+                .beginArray();
+        for ( Note note : notes )
+        {
+            json.value( notes.toString( note ) );
+        }
+        return json.endArray()
+                .endObject();
+    }
+
+    /**
+     * Parse a note name like <code>C</code>, <code>F#</code>,
+     * <code>Bb</code> or <code>E♭</code>.
+     * 
+     * @param name the name of the note
+     * @return the pitch class of the note
+     */
+    static int pitchClass( final String name )
+    {
+        if ( name.length() > 0 )
+        {
+            String letter = name.substring( 0, 1 )
+                    .toUpperCase();
+            for ( int i = 0; i < NOTE_LETTERS.length; i++ )
+            {
+                if ( NOTE_LETTERS[i].equals( letter ) )
+                {
+                    int pitchClass = NOTE_LETTER_PITCH_CLASSES[i];
+                    for ( int j = 1; j < name.length(); j++ )
+                    {
+                        char sign = name.charAt( j );
+                        if ( sign == '#' || sign == '♯' )
+                        {
+                            pitchClass++;
+                        }
+                        else if ( sign == 'b' || sign == '♭' )
+                        {
+                            pitchClass--;
+                        }
+                        else
+                        {
+                            throw new IllegalArgumentException(
+                                    "Not a note: " + name );
+                        }
+                    }
+                    return PitchClassSet.normalize( pitchClass );
+                }
+            }
+        }
+        throw new IllegalArgumentException( "Not a note: " + name );
+    }
+
+    private static int parseInt( final String value )
+    {
+        try
+        {
+            return Integer.parseInt( value );
+        }
+        catch ( NumberFormatException e )
+        {
+            throw new IllegalArgumentException( "Not a number: " + value );
+        }
+    }
+
+    private static Map<String, String> parseQuery( final String rawQuery )
+    {
+        Map<String, String> query = new HashMap<String, String>();
+        if ( rawQuery == null )
+        {
+            return query;
+        }
+        for ( String parameter : rawQuery.split( "&" ) )
+        {
+            int split = parameter.indexOf( '=' );
+            if ( split < 0 )
+            {
+                query.put( decode( parameter ), "" );
+            }
+            else
+            {
+                query.put( decode( parameter.substring( 0, split ) ),
+                        decode( parameter.substring( split + 1 ) ) );
+            }
+        }
+        return query;
+    }
+
+    private static String decode( final String value )
+    {
+        try
+        {
+            return URLDecoder.decode( value, "UTF-8" );
+        }
+        catch ( UnsupportedEncodingException e )
+        {
+            throw new IllegalStateException( e );
+        }
+    }
+
+    private static void sendError( final HttpExchange exchange,
+            final int status, final String message ) throws IOException
+    {
+        send( exchange, status, new JsonWriter().beginObject()
+                .name( "error" )
+                .value( message )
+                .endObject()
+                .toString()
+                .getBytes( UTF_8 ) );
+    }
+
+    private static void send( final HttpExchange exchange, final int status,
+            final byte[] body ) throws IOException
+    {
+        exchange.getResponseHeaders()
+                .set( "Content-Type", JSON );
+        if ( "HEAD".equals( exchange.getRequestMethod() ) )
+        {
+            exchange.sendResponseHeaders( status, -1 );
+            return;
+        }
+        exchange.sendResponseHeaders( status, body.length );
+        OutputStream out = exchange.getResponseBody();
+        try
+        {
+            out.write( body );
+        }
+        finally
+        {
+            out.close();
+        }
+    }
+}
@@ -0,0 +1,147 @@
+/**
+ * Copyright (c) 2002-2013 "Neo Technology,"
+ * Network Engine for Objects in Lund AB [http://neotechnology.com]
+ *
+ * This file is part of Neo4j.
+ *
+ * Neo4j is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package se.nawroth.scales.server;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+import se.nawroth.scales.Services;
+import se.nawroth.scales.api.Scale;
+import se.nawroth.scales.api.ScaleFamily;
+import se.nawroth.scales.api.Tuning;
+import se.nawroth.scales.api.TuningFamily;
+
+/**
+ * Looks up scales and tunings by name. The lookup tables are built by walking
+ * the family trees, and built again when the catalog has changed.
+ * 
+ * @author Anders Nawroth
+ */
+final class CatalogIndex
+{
+    private final Services services;
+    private volatile Tables tables;
+
+    private static final class Tables
+    {
+        private final long generation;
+        private final Map<String, Scale> scales = new LinkedHashMap<String, Scale>();
+        private final Map<String, Tuning> tunings = new LinkedHashMap<String, Tuning>();
+
+        private Tables( final long generation )
+        {
+            this.generation = generation;
+        }
+
+        private void addScales( final ScaleFamily family )
+        {
+            for ( Scale scale : family.getScales() )
+            {
+                if ( !scales.containsKey( scale.getName() ) )
+                {
+                    scales.put( scale.getName(), scale );
+                }
+            }
+            for ( ScaleFamily subFamily : family.getSubFamilies() )
+            {
+                addScales( subFamily );
+            }
+        }
+
+        private void addTunings( final TuningFamily family )
+        {
+            for ( Tuning tuning : family.getTunings() )
+            {
+                if ( !tunings.containsKey( tuning.getName() ) )
+                {
+                    tunings.put( tuning.getName(), tuning );
+                }
+            }
+            for ( TuningFamily subFamily : family.getSubFamilies() )
+            {
+                addTunings( subFamily );
+            }
+        }
+    }
+
+    CatalogIndex( final Services services )
+    {
+        this.services = services;
+    }
+
+    /**
+     * Get a scale by name.
+     * 
+     * @param name the name of the scale
+     * @return the scale or <code>null</code> if there is no such scale
+     */
+    Scale getScale( final String name )
+    {
+        return getTables().scales.get( name );
+    }
+
+    /**
+     * Get all named scales, in the order of the family tree.
+     * 
+     * @return the scales
+     */
+    Iterable<Scale> getScales()
+    {
+        return getTables().scales.values();
+    }
+
+    /**
+     * Get a tuning by name.
+     * 
+     * @param name the name of the tuning
+     * @return the tuning or <code>null</code> if there is no such tuning
+     */
+    Tuning getTuning( final String name )
+    {
+        return getTables().tunings.get( name );
+    }
+
+    /**
+     * Get all tunings, in the order of the family tree.
+     * 
+     * @return the tunings
+     */
+    Iterable<Tuning> getTunings()
+    {
+        return getTables().tunings.values();
+    }
+
+    private Tables getTables()
+    {
+        long generation = services.getGeneration();
+        Tables current = tables;
+        if ( current == null || current.generation != generation )
+        {
+            // racing threads build equal tables, the last one wins
+            current = new Tables( generation );
+            current.addScales( services.getScaleFamilyService()
+                    .getRootScaleFamily() );
+            current.addTunings( services.getTuningFamilyService()
+                    .getRootTuningFamily() );
+            tables = current;
+        }
+        return current;
+    }
+}
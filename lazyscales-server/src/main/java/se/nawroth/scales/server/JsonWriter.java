@@ -0,0 +1,157 @@
+/**
+ * Copyright (c) 2002-2013 "Neo Technology,"
+ * Network Engine for Objects in Lund AB [http://neotechnology.com]
+ *
+ * This file is part of Neo4j.
+ *
+ * Neo4j is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package se.nawroth.scales.server;
+
+/**
+ * Writes JSON text. Commas are added between values, the caller is responsible
+ * for balancing the objects and arrays.
+ * 
+ * @author Anders Nawroth
+ */
+final class JsonWriter
+{
+    private static final String HEX = "0123456789abcdef";
+    private final StringBuilder builder = new StringBuilder( 256 );
+    private boolean first = true;
+
+    JsonWriter beginObject()
+    {
+        separate();
+        builder.append( '{' );
+        first = true;
+        return this;
+    }
+
+    JsonWriter endObject()
+    {
+        builder.append( '}' );
+        first = false;
+        return this;
+    }
+
+    JsonWriter beginArray()
+    {
+        separate();
+        builder.append( '[' );
+        first = true;
+        return this;
+    }
+
+    JsonWriter endArray()
+    {
+        builder.append( ']' );
+        first = false;
+        return this;
+    }
+
+    JsonWriter name( final String name )
+    {
+        separate();
+        string( name );
+        builder.append( ':' );
+        first = true;
+        return this;
+    }
+
+    JsonWriter value( final String value )
+    {
+        separate();
+        if ( value == null )
+        {
+            builder.append( "null" );
+        }
+        else
+        {
+            string( value );
+        }
+        first = false;
+        return this;
+    }
+
+    JsonWriter value( final long value )
+    {
+        separate();
+        builder.append( value );
+        first = false;
+        return this;
+    }
+
+    JsonWriter value( final boolean value )
+    {
+        separate();
+        builder.append( value );
+        first = false;
+        return this;
+    }
+
+    @Override
+    public String toString()
+    {
+        return builder.toString();
+    }
+
+    private void separate()
+    {
+        if ( !first )
+        {
+            builder.append( ',' );
+        }
+    }
+
+    private void string( final String value )
+    {
+        builder.append( '"' );
+        for ( int i = 0; i < value.length(); i++ )
+        {
+            char c = value.charAt( i );
+            switch ( c )
+            {
+            case '"':
+                builder.append( "\\\"" );
+                break;
+            case '\\':
+                builder.append( "\\\\" );
+                break;
+            case '\n':
+                builder.append( "\\n" );
+                break;
+            case '\r':
+                builder.append( "\\r" );
+                break;
+            case '\t':
+                builder.append( "\\t" );
+                break;
+            default:
+                if ( c < ' ' )
+                {
+                    builder.append( "\\u00" )
+                            .append( HEX.charAt( c >> 4 ) )
+                            .append( HEX.charAt( c & 0xf ) );
+                }
+                else
+                {
+                    builder.append( c );
+                }
+                break;
+            }
+        }
+        builder.append( '"' );
+    }
+}
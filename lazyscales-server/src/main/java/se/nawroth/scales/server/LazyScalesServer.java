@@ -0,0 +1,163 @@
+/**
+ * Copyright (c) 2002-2013 "Neo Technology,"
+ * Network Engine for Objects in Lund AB [http://neotechnology.com]
+ *
+ * This file is part of Neo4j.
+ *
+ * Neo4j is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package se.nawroth.scales.server;
+
+import java.io.IOException;
+import java.net.InetSocketAddress;
+import java.util.concurrent.ExecutorService;
+
+import se.nawroth.scales.LazyScales;
+
+import com.sun.net.httpserver.HttpServer;
+
+/**
+ * Serves the catalog of a {@link LazyScales} instance over HTTP, as JSON:
+ * 
+ * <ul>
+ * <li><code>/families/scales</code> and <code>/families/tunings</code>: the
+ * family trees</li>
+ * <li><code>/scales</code> and <code>/scales/{name}</code>: the scales</li>
+ * <li><code>/scales/{name}/notes?root=C&amp;signs=flat</code>: the notes of a
+ * scale</li>
+ * <li><code>/tunings</code> and <code>/tunings/{name}</code>: the tunings</li>
+ * <li><code>/tunings/{name}/fretboard?scale=Ionian&amp;root=G&amp;frets=15</code>:
+ * the notes of a scale on each string, from the highest string</li>
+ * <li><code>/search?steps=2,2,1,2,2,2,1</code>: find a scale by its steps</li>
+ * </ul>
+ * 
+ * Every request is handled on a thread of its own, which is a virtual thread
+ * when the running Java version has them.
+ * 
+ * @author Anders Nawroth
+ */
+public final class LazyScalesServer
+{
+    private static final int DEFAULT_PORT = 8080;
+    private static final int CACHED_RESPONSES = 4096;
+    private static final int STOP_DELAY_SECONDS = 1;
+
+    private final LazyScales lazyScales;
+    private final InetSocketAddress address;
+    private HttpServer server;
+    private ExecutorService executor;
+
+    /**
+     * Create a server. The {@link LazyScales} instance has to be started and
+     * initialized already.
+     * 
+     * @param lazyScales the application to serve
+     * @param address the address to listen to, use port <code>0</code> to get
+     *            any free port
+     */
+    public LazyScalesServer( final LazyScales lazyScales,
+            final InetSocketAddress address )
+    {
+        this.lazyScales = lazyScales;
+        this.address = address;
+    }
+
+    /**
+     * Start listening for requests.
+     * 
+     * @throws IOException if the server couldn't bind to the address
+     */
+    public synchronized void start() throws IOException
+    {
+        if ( server != null )
+        {
+            throw new IllegalStateException( "The server is already started." );
+        }
+        HttpServer created = HttpServer.create( address, 0 );
+        created.createContext( "/", new ApiHandler( lazyScales.getServices(),
+                new ResponseCache( CACHED_RESPONSES ) ) );
+        executor = VirtualThreads.newPerTaskExecutor( "lazyscales-server" );
+        created.setExecutor( executor );
+        created.start();
+        server = created;
+    }
+
+    /**
+     * Stop the server. The {@link LazyScales} instance isn't stopped.
+     */
+    public synchronized void stop()
+    {
+        if ( server == null )
+        {
+            return;
+        }
+        server.stop( STOP_DELAY_SECONDS );
+        executor.shutdown();
+        server = null;
+        executor = null;
+    }
+
+    /**
+     * Get the port the server listens to.
+     * 
+     * @return the port
+     */
+    public synchronized int getPort()
+    {
+        if ( server == null )
+        {
+            throw new IllegalStateException( "The server isn't started." );
+        }
+        return server.getAddress()
+                .getPort();
+    }
+
+    /**
+     * Serve an existing database, for example one created by the GUI.
+     * 
+     * @param args the database directory and optionally the port
+     * @throws IOException if the server couldn't bind to the port
+     */
+    public static void main( final String[] args ) throws IOException
+    {
+        if ( args.length < 1 || args.length > 2 )
+        {
+            System.err.println( "Usage: LazyScalesServer <database-directory> [port]" );
+            System.exit( 1 );
+        }
+        int port = args.length > 1 ? Integer.parseInt( args[1] ) : DEFAULT_PORT;
+        final LazyScales lazyScales = new LazyScales( args[0] );
+        lazyScales.start();
+        lazyScales.init();
+        lazyScales.getServices()
+                .getTranspositionAtlas()
+                .build();
+        final LazyScalesServer server = new LazyScalesServer( lazyScales,
+                new InetSocketAddress( port ) );
+        server.start();
+        Runtime.getRuntime()
+                .addShutdownHook( new Thread( "lazyscales-server-shutdown" )
+                {
+                    @Override
+                    public void run()
+                    {
+                        server.stop();
+                        lazyScales.stop();
+                    }
+                } );
+        System.out.println( "Serving " + args[0] + " on port "
+                            + server.getPort()
+                            + ( VirtualThreads.isAvailable() ? ", using virtual threads." : "." ) );
+    }
+}
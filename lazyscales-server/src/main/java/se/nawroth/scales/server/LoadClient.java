@@ -0,0 +1,374 @@
+/**
+ * Copyright (c) 2002-2013 "Neo Technology,"
+ * Network Engine for Objects in Lund AB [http://neotechnology.com]
+ *
+ * This file is part of Neo4j.
+ *
+ * Neo4j is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package se.nawroth.scales.server;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.UnsupportedEncodingException;
+import java.net.HttpURLConnection;
+import java.net.URL;
+import java.net.URLEncoder;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Random;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+/**
+ * Puts load on a running {@link LazyScalesServer}. A number of clients request
+ * paths in a random order for a while, revalidating the responses they have
+ * already seen by their ETags, and the throughput and latencies are reported
+ * at the end. When no paths are given, they're picked from the scales and
+ * tunings of the server.
+ * 
+ * @author Anders Nawroth
+ */
+public final class LoadClient
+{
+    private static final int DEFAULT_CLIENTS = 64;
+    private static final int DEFAULT_SECONDS = 10;
+    private static final int DISCOVERED_SCALES = 16;
+    private static final int INITIAL_LATENCIES = 1024;
+    private static final String[] ROOTS = { "C", "Db", "D", "Eb", "E", "F",
+            "F#", "G", "Ab", "A", "Bb", "B" };
+    private static final Pattern NAME = Pattern.compile( "\"name\":\"([^\"\\\\]*)\"" );
+
+    private final String baseUrl;
+    private final int clients;
+    private final long durationNanos;
+    private final List<String> paths;
+
+    /**
+     * The outcome of a load run.
+     */
+    static final class Report
+    {
+        private final long elapsedNanos;
+        private final int notModified;
+        private final int errors;
+        private final long[] latencies;
+
+        private Report( final long elapsedNanos, final int notModified,
+                final int errors, final long[] latencies )
+        {
+            this.elapsedNanos = elapsedNanos;
+            this.notModified = notModified;
+            this.errors = errors;
+            this.latencies = latencies;
+            Arrays.sort( this.latencies );
+        }
+
+        int getRequests()
+        {
+            return latencies.length;
+        }
+
+        int getNotModified()
+        {
+            return notModified;
+        }
+
+        int getErrors()
+        {
+            return errors;
+        }
+
+        private double percentileMillis( final double percentile )
+        {
+            if ( latencies.length == 0 )
+            {
+                return 0;
+            }
+            int index = (int) Math.ceil( percentile * latencies.length ) - 1;
+            return latencies[Math.max( 0, index )] / 1e6;
+        }
+
+        @Override
+        public String toString()
+        {
+            double seconds = elapsedNanos / 1e9;
+            return String.format( Locale.ROOT,
+                    "%d requests in %.1f s: %.0f requests/s, %d not modified, %d errors%n"
+                            + "latency ms: p50 %.2f, p90 %.2f, p99 %.2f, max %.2f",
+                    latencies.length, seconds, latencies.length / seconds,
+                    notModified, errors, percentileMillis( 0.5 ),
+                    percentileMillis( 0.9 ), percentileMillis( 0.99 ),
+                    percentileMillis( 1 ) );
+        }
+    }
+
+    /**
+     * The requests of a single client.
+     */
+    private final class Client implements Callable<Client>
+    {
+        private final Random random;
+        private final Map<String, String> etags = new HashMap<String, String>();
+        private long[] latencies = new long[INITIAL_LATENCIES];
+        private int requests;
+        private int notModified;
+        private int errors;
+
+        private Client( final long seed )
+        {
+            this.random = new Random( seed );
+        }
+
+        @Override
+        public Client call()
+        {
+            long deadline = System.nanoTime() + durationNanos;
+            long start;
+            while ( ( start = System.nanoTime() ) < deadline )
+            {
+                String path = paths.get( random.nextInt( paths.size() ) );
+                try
+                {
+                    int status = request( path );
+                    if ( status == HttpURLConnection.HTTP_NOT_MODIFIED )
+                    {
+                        notModified++;
+                    }
+                    else if ( status != HttpURLConnection.HTTP_OK )
+                    {
+                        errors++;
+                    }
+                }
+                catch ( IOException e )
+                {
+                    errors++;
+                }
+                if ( requests == latencies.length )
+                {
+                    latencies = Arrays.copyOf( latencies, requests * 2 );
+                }
+                latencies[requests++] = System.nanoTime() - start;
+            }
+            return this;
+        }
+
+        private int request( final String path ) throws IOException
+        {
+            HttpURLConnection connection = (HttpURLConnection) new URL(
+                    baseUrl + path ).openConnection();
+            String etag = etags.get( path );
+            if ( etag != null )
+            {
+                connection.setRequestProperty( "If-None-Match", etag );
+            }
+            int status = connection.getResponseCode();
+            drain( status < HttpURLConnection.HTTP_BAD_REQUEST ? connection.getInputStream()
+                    : connection.getErrorStream() );
+            String received = connection.getHeaderField( "ETag" );
+            if ( received != null )
+            {
+                etags.put( path, received );
+            }
+            return status;
+        }
+    }
+
+    /**
+     * Create a load client.
+     * 
+     * @param baseUrl the URL of the server, without a trailing slash
+     * @param clients the number of concurrent clients
+     * @param seconds how long to put load on the server
+     * @param paths the paths to request, or an empty list to pick paths from
+     *            the catalog of the server
+     */
+    LoadClient( final String baseUrl, final int clients, final int seconds,
+            final List<String> paths )
+    {
+        if ( clients < 1 || seconds < 1 )
+        {
+            throw new IllegalArgumentException(
+                    "There has to be at least one client running for at least one second." );
+        }
+        this.baseUrl = baseUrl.endsWith( "/" ) ? baseUrl.substring( 0,
+                baseUrl.length() - 1 ) : baseUrl;
+        this.clients = clients;
+        this.durationNanos = TimeUnit.SECONDS.toNanos( seconds );
+        this.paths = new ArrayList<String>( paths );
+    }
+
+    /**
+     * Run the clients and wait for them to finish.
+     * 
+     * @return the outcome
+     * @throws IOException if the paths couldn't be picked from the server
+     * @throws InterruptedException if interrupted while waiting
+     */
+    Report run() throws IOException, InterruptedException
+    {
+        if ( paths.isEmpty() )
+        {
+            discoverPaths();
+        }
+        ExecutorService executor = VirtualThreads.newPerTaskExecutor( "lazyscales-load" );
+        try
+        {
+            List<Future<Client>> futures = new ArrayList<Future<Client>>();
+            long start = System.nanoTime();
+            for ( int i = 0; i < clients; i++ )
+            {
+                futures.add( executor.submit( new Client( i ) ) );
+            }
+            int notModified = 0;
+            int errors = 0;
+            long[] latencies = new long[0];
+            for ( Future<Client> future : futures )
+            {
+                Client client = future.get();
+                notModified += client.notModified;
+                errors += client.errors;
+                int offset = latencies.length;
+                latencies = Arrays.copyOf( latencies, offset + client.requests );
+                System.arraycopy( client.latencies, 0, latencies, offset,
+                        client.requests );
+            }
+            return new Report( System.nanoTime() - start, notModified, errors,
+                    latencies );
+        }
+        catch ( ExecutionException e )
+        {
+            throw new IllegalStateException( e.getCause() );
+        }
+        finally
+        {
+            executor.shutdown();
+        }
+    }
+
+    private void discoverPaths() throws IOException
+    {
+        List<String> scales = names( "/scales" );
+        List<String> tunings = names( "/tunings" );
+        paths.add( "/families/scales" );
+        paths.add( "/families/tunings" );
+        paths.add( "/scales" );
+        paths.add( "/tunings" );
+        paths.add( "/search?steps=2,2,1,2,2,2,1" );
+        Random random = new Random( 0 );
+        for ( int i = 0; i < Math.min( DISCOVERED_SCALES, scales.size() ); i++ )
+        {
+            String scale = encode( scales.get( random.nextInt( scales.size() ) ) );
+            String root = encode( ROOTS[random.nextInt( ROOTS.length )] );
+            paths.add( "/scales/" + scale );
+            paths.add( "/scales/" + scale + "/notes?root=" + root );
+            if ( !tunings.isEmpty() )
+            {
+                paths.add( "/tunings/"
+                           + encode( tunings.get( random.nextInt( tunings.size() ) ) )
+                           + "/fretboard?scale=" + scale + "&root=" + root );
+            }
+        }
+    }
+
+    private List<String> names( final String path ) throws IOException
+    {
+        HttpURLConnection connection = (HttpURLConnection) new URL( baseUrl
+                                                                    + path ).openConnection();
+        if ( connection.getResponseCode() != HttpURLConnection.HTTP_OK )
+        {
+            throw new IOException( "Could not get " + path + ": "
+                                   + connection.getResponseCode() );
+        }
+        String body = new String( drain( connection.getInputStream() ), "UTF-8" );
+        List<String> names = new ArrayList<String>();
+        Matcher matcher = NAME.matcher( body );
+        while ( matcher.find() )
+        {
+            names.add( matcher.group( 1 ) );
+        }
+        return names;
+    }
+
+    private static String encode( final String value )
+    {
+        try
+        {
+            return URLEncoder.encode( value, "UTF-8" )
+                    .replace( "+", "%20" );
+        }
+        catch ( UnsupportedEncodingException e )
+        {
+            throw new IllegalStateException( e );
+        }
+    }
+
+    private static byte[] drain( final InputStream in ) throws IOException
+    {
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        if ( in == null )
+        {
+            return out.toByteArray();
+        }
+        try
+        {
+            byte[] buffer = new byte[4096];
+            int read;
+            while ( ( read = in.read( buffer ) ) != -1 )
+            {
+                out.write( buffer, 0, read );
+            }
+        }
+        finally
+        {
+            in.close();
+        }
+        return out.toByteArray();
+    }
+
+    /**
+     * Put load on a server.
+     * 
+     * @param args the URL of the server, optionally followed by the number of
+     *            clients, the number of seconds and the paths to request
+     * @throws Exception if the load run failed
+     */
+    public static void main( final String[] args ) throws Exception
+    {
+        if ( args.length < 1 )
+        {
+            System.err.println( "Usage: LoadClient <base-url> [clients] [seconds] [path...]" );
+            System.exit( 1 );
+        }
+        int clients = args.length > 1 ? Integer.parseInt( args[1] ) : DEFAULT_CLIENTS;
+        int seconds = args.length > 2 ? Integer.parseInt( args[2] ) : DEFAULT_SECONDS;
+        List<String> paths = new ArrayList<String>();
+        for ( int i = 3; i < args.length; i++ )
+        {
+            paths.add( args[i] );
+        }
+        LoadClient client = new LoadClient( args[0], clients, seconds, paths );
+        System.out.println( client.run() );
+    }
+}
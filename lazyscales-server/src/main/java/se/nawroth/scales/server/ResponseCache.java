@@ -0,0 +1,131 @@
+/**
+ * Copyright (c) 2002-2013 "Neo Technology,"
+ * Network Engine for Objects in Lund AB [http://neotechnology.com]
+ *
+ * This file is part of Neo4j.
+ *
+ * Neo4j is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package se.nawroth.scales.server;
+
+import java.util.Arrays;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Keeps the serialized responses for catalog data. The catalog only changes
+ * when something is written to the database, so every entry is tagged with the
+ * generation of the navigation cache it was created in, and entries from an
+ * older generation are treated as missing.
+ * 
+ * @author Anders Nawroth
+ */
+final class ResponseCache
+{
+    private final Map<String, Entry> entries = new ConcurrentHashMap<String, Entry>();
+    private final int maxEntries;
+
+    /**
+     * A cached response.
+     */
+    static final class Entry
+    {
+        private final long generation;
+        private final String etag;
+        private final byte[] body;
+
+        private Entry( final long generation, final byte[] body )
+        {
+            this.generation = generation;
+            this.body = body;
+            this.etag = "\"" + Long.toHexString( generation ) + "-"
+                        + Integer.toHexString( Arrays.hashCode( body ) ) + "\"";
+        }
+
+        String getEtag()
+        {
+            return etag;
+        }
+
+        byte[] getBody()
+        {
+            return body;
+        }
+    }
+
+    /**
+     * Create a response cache.
+     * 
+     * @param maxEntries the number of entries to keep before the cache is
+     *            cleared
+     */
+    ResponseCache( final int maxEntries )
+    {
+        if ( maxEntries < 1 )
+        {
+            throw new IllegalArgumentException(
+                    "The cache has to be able to hold at least one entry." );
+        }
+        this.maxEntries = maxEntries;
+    }
+
+    /**
+     * Get a response.
+     * 
+     * @param key the key of the response
+     * @param generation the current generation of the catalog
+     * @return the response or <code>null</code> if there is no response for
+     *         the current generation
+     */
+    Entry get( final String key, final long generation )
+    {
+        Entry entry = entries.get( key );
+        if ( entry == null || entry.generation != generation )
+        {
+            return null;
+        }
+        return entry;
+    }
+
+    /**
+     * Add a response.
+     * 
+     * @param key the key of the response
+     * @param generation the generation of the catalog the response was
+     *            created from
+     * @param body the body of the response
+     * @return the cached response
+     */
+    Entry put( final String key, final long generation, final byte[] body )
+    {
+        if ( entries.size() >= maxEntries )
+        {
+            // the catalog is small, there's no need for anything smarter
+            entries.clear();
+        }
+        Entry entry = new Entry( generation, body );
+        entries.put( key, entry );
+        return entry;
+    }
+
+    /**
+     * Get the number of cached responses.
+     * 
+     * @return the number of cached responses
+     */
+    int size()
+    {
+        return entries.size();
+    }
+}
@@ -0,0 +1,109 @@
+/**
+ * Copyright (c) 2002-2013 "Neo Technology,"
+ * Network Engine for Objects in Lund AB [http://neotechnology.com]
+ *
+ * This file is part of Neo4j.
+ *
+ * Neo4j is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package se.nawroth.scales.server;
+
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Method;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Creates executors that run every task on a thread of its own. Virtual
+ * threads are used when the running Java version has them, which is looked up
+ * by reflection so the module still builds and runs on older versions. There,
+ * a cached pool of daemon threads is used instead.
+ * 
+ * @author Anders Nawroth
+ */
+final class VirtualThreads
+{
+    private VirtualThreads()
+    {
+    }
+
+    /**
+     * Check if virtual threads are available.
+     * 
+     * @return <code>true</code> if virtual threads are available
+     */
+    static boolean isAvailable()
+    {
+        ExecutorService executor = virtualExecutor();
+        if ( executor == null )
+        {
+            return false;
+        }
+        executor.shutdown();
+        return true;
+    }
+
+    /**
+     * Create an executor running every task on a new thread.
+     * 
+     * @param name the name of the threads, when virtual threads are not
+     *            available
+     * @return the executor
+     */
+    static ExecutorService newPerTaskExecutor( final String name )
+    {
+        ExecutorService executor = virtualExecutor();
+        if ( executor != null )
+        {
+            return executor;
+        }
+        return Executors.newCachedThreadPool( new ThreadFactory()
+        {
+            private final AtomicInteger count = new AtomicInteger();
+
+            @Override
+            public Thread newThread( final Runnable task )
+            {
+                Thread thread = new Thread( task, name + "-"
+                                                  + count.incrementAndGet() );
+                thread.setDaemon( true );
+                return thread;
+            }
+        } );
+    }
+
+    private static ExecutorService virtualExecutor()
+    {
+        try
+        {
+            Method factory = Executors.class.getMethod( "newVirtualThreadPerTaskExecutor" );
+            return (ExecutorService) factory.invoke( null );
+        }
+        catch ( NoSuchMethodException e )
+        {
+            return null;
+        }
+        catch ( IllegalAccessException e )
+        {
+            return null;
+        }
+        catch ( InvocationTargetException e )
+        {
+            // a preview feature that is not enabled
+            return null;
+        }
+    }
+}
@@ -0,0 +1,202 @@
+/**
+ * Copyright (c) 2002-2013 "Neo Technology,"
+ * Network Engine for Objects in Lund AB [http://neotechnology.com]
+ *
+ * This file is part of Neo4j.
+ *
+ * Neo4j is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package se.nawroth.scales.server;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+import static se.nawroth.scales.api.DiatonicInterval.FOURTH;
+import static se.nawroth.scales.api.DiatonicInterval.MAJOR_SECOND;
+import static se.nawroth.scales.api.DiatonicInterval.MAJOR_THIRD;
+import static se.nawroth.scales.api.DiatonicInterval.MINOR_SECOND;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.net.HttpURLConnection;
+import java.net.InetSocketAddress;
+import java.net.URL;
+import java.util.Collections;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import org.neo4j.graphdb.Transaction;
+import org.neo4j.test.ImpermanentGraphDatabase;
+
+import se.nawroth.scales.LazyScales;
+import se.nawroth.scales.Services;
+import se.nawroth.scales.api.ScaleFamily;
+import se.nawroth.scales.api.TuningFamily;
+import se.nawroth.scales.note.NoteRepository;
+
+public class LazyScalesServerTest
+{
+    private LazyScales app;
+    private LazyScalesServer server;
+
+    @Before
+    public void setUp() throws IOException
+    {
+        app = new LazyScales( new ImpermanentGraphDatabase() );
+        app.start();
+        app.init();
+        Services services = app.getServices();
+        Transaction tx = services.beginTx();
+        try
+        {
+            ScaleFamily diatonic = services.getScaleFamilyService()
+                    .newScaleFamily( services.getScaleFamilyService()
+                            .getRootScaleFamily(), "Diatonic" );
+            services.getScaleService()
+                    .newScales( diatonic, new String[] { "Ionian", "Dorian" },
+                            MAJOR_SECOND, MAJOR_SECOND, MINOR_SECOND,
+                            MAJOR_SECOND, MAJOR_SECOND, MAJOR_SECOND,
+                            MINOR_SECOND );
+            TuningFamily guitar = services.getTuningFamilyService()
+                    .newTuningFamily( services.getTuningFamilyService()
+                            .getRootTuningFamily(), "Guitar" );
+            services.getTuningService()
+                    .newTuning( guitar, "Standard", services.getNoteService()
+                            .note( NoteRepository.E ), FOURTH, FOURTH,
+                            FOURTH, MAJOR_THIRD, FOURTH );
+            tx.success();
+        }
+        finally
+        {
+            tx.finish();
+        }
+        server = new LazyScalesServer( app, new InetSocketAddress(
+                "localhost", 0 ) );
+        server.start();
+    }
+
+    @After
+    public void tearDown()
+    {
+        server.stop();
+        app.stop();
+    }
+
+    @Test
+    public void servesCatalogData() throws IOException
+    {
+        assertEquals( "{\"name\":\"Dorian\",\"pitchClasses\":[0,2,3,5,7,9,10],"
+                      + "\"steps\":[2,1,2,2,2,1,2]}", get( "/scales/Dorian" ) );
+        assertEquals( "{\"scale\":\"Ionian\",\"root\":\"B♭\",\"notes\":"
+                      + "[\"B♭\",\"C\",\"D\",\"E♭\",\"F\",\"G\",\"A\"]}",
+                get( "/scales/Ionian/notes?root=Bb&signs=flat" ) );
+        assertEquals( "{\"name\":\"Dorian\",\"pitchClasses\":[0,2,3,5,7,9,10],"
+                      + "\"steps\":[2,1,2,2,2,1,2]}",
+                get( "/search?steps=2,1,2,2,2,1,2" ) );
+        String fretboard = get( "/tunings/Standard/fretboard?scale=Ionian&root=C&frets=3" );
+        assertTrue( fretboard, fretboard.endsWith( "\"strings\":[[\"E\",\"F\",null,\"G\"],"
+                                                   + "[\"B\",\"C\",null,\"D\"],"
+                                                   + "[\"G\",null,\"A\",null],"
+                                                   + "[\"D\",null,\"E\",\"F\"],"
+                                                   + "[\"A\",null,\"B\",\"C\"],"
+                                                   + "[\"E\",\"F\",null,\"G\"]]}" ) );
+    }
+
+    @Test
+    public void revalidatesByEtag() throws IOException
+    {
+        HttpURLConnection first = open( "/families/scales" );
+        assertEquals( 200, first.getResponseCode() );
+        String etag = first.getHeaderField( "ETag" );
+        read( first.getInputStream() );
+
+        HttpURLConnection second = open( "/families/scales" );
+        second.setRequestProperty( "If-None-Match", etag );
+        assertEquals( 304, second.getResponseCode() );
+
+        Services services = app.getServices();
+        Transaction tx = services.beginTx();
+        try
+        {
+            services.getScaleFamilyService()
+                    .newScaleFamily( services.getScaleFamilyService()
+                            .getRootScaleFamily(), "Pentatonic" );
+            tx.success();
+        }
+        finally
+        {
+            tx.finish();
+        }
+        HttpURLConnection third = open( "/families/scales" );
+        third.setRequestProperty( "If-None-Match", etag );
+        assertEquals( 200, third.getResponseCode() );
+        assertFalse( etag.equals( third.getHeaderField( "ETag" ) ) );
+        assertTrue( read( third.getInputStream() ).contains( "Pentatonic" ) );
+    }
+
+    @Test
+    public void reportsErrors() throws IOException
+    {
+        assertEquals( 404, open( "/scales/Lydian" ).getResponseCode() );
+        assertEquals( 404, open( "/search?steps=1,11" ).getResponseCode() );
+        assertEquals( 400, open( "/scales/Ionian/notes?root=H" ).getResponseCode() );
+        HttpURLConnection post = open( "/scales" );
+        post.setRequestMethod( "POST" );
+        assertEquals( 405, post.getResponseCode() );
+    }
+
+    @Test
+    public void servesConcurrentClients() throws Exception
+    {
+        LoadClient.Report report = new LoadClient( "http://localhost:"
+                                                   + server.getPort(), 8, 1,
+                Collections.<String>emptyList() ).run();
+        assertEquals( 0, report.getErrors() );
+        assertTrue( report.getNotModified() > 0 );
+    }
+
+    private HttpURLConnection open( final String path ) throws IOException
+    {
+        return (HttpURLConnection) new URL( "http://localhost:"
+                                            + server.getPort() + path ).openConnection();
+    }
+
+    private String get( final String path ) throws IOException
+    {
+        HttpURLConnection connection = open( path );
+        assertEquals( 200, connection.getResponseCode() );
+        return read( connection.getInputStream() );
+    }
+
+    private static String read( final InputStream in ) throws IOException
+    {
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        try
+        {
+            byte[] buffer = new byte[1024];
+            int read;
+            while ( ( read = in.read( buffer ) ) != -1 )
+            {
+                out.write( buffer, 0, read );
+            }
+        }
+        finally
+        {
+            in.close();
+        }
+        return out.toString( "UTF-8" );
+    }
+}
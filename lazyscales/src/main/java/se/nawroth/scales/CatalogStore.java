@@ -0,0 +1,264 @@
+/**
+ * Copyright (c) 2002-2013 "Neo Technology,"
+ * Network Engine for Objects in Lund AB [http://neotechnology.com]
+ *
+ * This file is part of Neo4j.
+ *
+ * Neo4j is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package se.nawroth.scales;
+
+import java.util.List;
+
+import org.neo4j.graphdb.Transaction;
+
+import se.nawroth.scales.api.Chord;
+import se.nawroth.scales.api.ChordFamily;
+import se.nawroth.scales.api.Interval;
+import se.nawroth.scales.api.Note;
+import se.nawroth.scales.api.Scale;
+import se.nawroth.scales.api.ScaleFamily;
+import se.nawroth.scales.api.Tuning;
+import se.nawroth.scales.api.TuningFamily;
+import se.nawroth.scales.util.StoreMetrics;
+
+/**
+ * Storage of the catalog: notes, rings of intervals for scales, tunings and
+ * chords, and the families they are put in, with their names. The families,
+ * scales, tunings and chords handed out are navigated through the API
+ * interfaces, but may only be passed back to the store that created them.
+ * <p>
+ * All of the {@link Services} are built on top of a store, so they work the
+ * same whatever the catalog is stored in. Every write runs in a transaction of
+ * its own, unless a transaction started by {@link #beginTx()} is already
+ * running.
+ * 
+ * @author Anders Nawroth
+ * @see GraphCatalogStore
+ * @see se.nawroth.scales.memory.MemoryCatalogStore
+ */
+public interface CatalogStore
+{
+    /**
+     * Start the store.
+     */
+    void start();
+
+    /**
+     * Initialize the store at first startup, and bring stores created by older
+     * versions up to date. Note: {@link #start()} needs to be called first.
+     */
+    void init();
+
+    /**
+     * Stop the store. For non-durable stores, the content is lost.
+     */
+    void stop();
+
+    /**
+     * Get the version of the catalog the store was loaded from.
+     * 
+     * @return the catalog version, or <code>null</code> if the store was not
+     *         loaded from a catalog
+     */
+    String getCatalogVersion();
+
+    /**
+     * Start a transaction, to make several writes at once. Note that a
+     * transaction must be marked as {@link Transaction#success() successful}
+     * and {@link Transaction#finish() finished} in order to persist data.
+     * Stores that don't support transactions apply every write at once.
+     * 
+     * @return the transaction, which belongs to the current thread
+     */
+    Transaction beginTx();
+
+    /**
+     * Get the generation of the catalog. It changes whenever the scales,
+     * tunings, chords or families of the store have changed, so anything read
+     * from the catalog can be cached for as long as the generation stays the
+     * same.
+     * 
+     * @return the current generation
+     */
+    long getGeneration();
+
+    /**
+     * Start an operation, for the metrics of the store.
+     * 
+     * @param operation the name of the operation, like
+     *            <code>FretboardService.getStrings</code>
+     * @return the call to exit when the operation is done
+     * @see StoreMetrics#enter(String)
+     */
+    StoreMetrics.Call enter( String operation );
+
+    /**
+     * Get the {@link Note} of a pitch class.
+     * 
+     * @param pitchClass the pitch class, counted in semitones from C
+     * @return the note
+     */
+    Note note( int pitchClass );
+
+    /**
+     * Get the root of the scale families.
+     * 
+     * @return the root scale family
+     */
+    ScaleFamily getRootScaleFamily();
+
+    /**
+     * Create a new scale family.
+     * 
+     * @param parentFamily the family to put the new family in
+     * @param name the name of the new family
+     * @return the new family
+     */
+    ScaleFamily newScaleFamily( ScaleFamily parentFamily, String name );
+
+    /**
+     * Create a set of modal {@link Scale}s from the given intervals. The ring
+     * of intervals is shared with existing scales using the same intervals in
+     * any rotation.
+     * 
+     * @param family the family of the scales
+     * @param names the names of the scales, the first name for the scale
+     *            starting on the first interval and so on
+     * @param intervals the intervals of the first scale
+     * @return the first scale
+     */
+    Scale newScales( ScaleFamily family, String[] names, Interval... intervals );
+
+    /**
+     * Find a scale from its intervals. Note that the returned scale may be
+     * nameless, when only other rotations of the ring have names.
+     * 
+     * @param intervals the intervals of the scale, including the interval
+     *            closing the ring
+     * @return the scale or <code>null</code> if no ring with these intervals
+     *         exists
+     */
+    Scale findScale( Interval... intervals );
+
+    /**
+     * Add the rings that don't exist yet, without giving them any name. They
+     * are tagged as unnamed until a scale using them is created by
+     * {@link #newScales(ScaleFamily, String[], Interval...)}.
+     * 
+     * @param scales interval sequences, in semitones
+     * @return the number of rings that were added
+     */
+    int addUnnamedScales( List<int[]> scales );
+
+    /**
+     * Get the rings that are tagged as unnamed.
+     * 
+     * @return the unnamed scales, starting from their canonical rotation
+     */
+    List<Scale> getUnnamedScales();
+
+    /**
+     * Get every rotation of every ring of at most twelve intervals, named or
+     * not.
+     * 
+     * @return the modes of all rings
+     */
+    List<Scale> getModes();
+
+    /**
+     * Get the root of the tuning families.
+     * 
+     * @return the root tuning family
+     */
+    TuningFamily getRootTuningFamily();
+
+    /**
+     * Create a new tuning family.
+     * 
+     * @param parentFamily the family to put the new family in
+     * @param name the name of the new family
+     * @return the new family
+     */
+    TuningFamily newTuningFamily( TuningFamily parentFamily, String name );
+
+    /**
+     * Create a new {@link Tuning}.
+     * 
+     * @param family the family it should belong to
+     * @param name the name of the tuning
+     * @param rootNote the note of the lowest string
+     * @param intervals the intervals between the strings, starting from the
+     *            lowest string
+     * @return the created tuning
+     */
+    Tuning newTuning( TuningFamily family, String name, Note rootNote,
+            Interval... intervals );
+
+    /**
+     * Create a new {@link Tuning} using the intervals of another tuning.
+     * 
+     * @param family the family it should belong to
+     * @param name the name of the tuning
+     * @param rootNote the note of the lowest string
+     * @param tuning the tuning to take the intervals from
+     * @return the created tuning
+     */
+    Tuning newTuning( TuningFamily family, String name, Note rootNote,
+            Tuning tuning );
+
+    /**
+     * Get the root of the chord families.
+     * 
+     * @return the root chord family
+     */
+    ChordFamily getRootChordFamily();
+
+    /**
+     * Create a new chord family.
+     * 
+     * @param parentFamily the family to put the new family in
+     * @param name the name of the new family
+     * @return the new family
+     */
+    ChordFamily newChordFamily( ChordFamily parentFamily, String name );
+
+    /**
+     * Create a new {@link Chord}. The caller has to make sure that the
+     * intervals give different pitch classes, and that there is no chord with
+     * the same pitch classes yet.
+     * 
+     * @param family the family of the chord
+     * @param name the name of the chord
+     * @param intervals the intervals of the chord, each one relative to the
+     *            tonic
+     * @return the created chord
+     */
+    Chord newChord( ChordFamily family, String name, Interval... intervals );
+
+    /**
+     * Find the chord with a set of pitch classes.
+     * 
+     * @param mask the pitch classes relative to the tonic, bit 0 set
+     * @return the chord or <code>null</code> if there is no such chord
+     */
+    Chord findChord( int mask );
+
+    /**
+     * Get all chords.
+     * 
+     * @return the chords
+     */
+    List<Chord> getChords();
+}
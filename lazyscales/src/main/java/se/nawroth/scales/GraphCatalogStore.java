@@ -0,0 +1,423 @@
+/**
+ * Copyright (c) 2002-2013 "Neo Technology,"
+ * Network Engine for Objects in Lund AB [http://neotechnology.com]
+ *
+ * This file is part of Neo4j.
+ *
+ * Neo4j is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package se.nawroth.scales;
+
+import static se.nawroth.scales.api.DiatonicInterval.MINOR_SECOND;
+
+import java.util.List;
+import java.util.function.Supplier;
+
+import org.neo4j.graphdb.GraphDatabaseService;
+import org.neo4j.graphdb.Transaction;
+import org.neo4j.kernel.EmbeddedGraphDatabase;
+
+import se.nawroth.scales.api.Chord;
+import se.nawroth.scales.api.ChordFamily;
+import se.nawroth.scales.api.Interval;
+import se.nawroth.scales.api.Note;
+import se.nawroth.scales.api.Scale;
+import se.nawroth.scales.api.ScaleFamily;
+import se.nawroth.scales.api.Tuning;
+import se.nawroth.scales.api.TuningFamily;
+import se.nawroth.scales.api.Types;
+import se.nawroth.scales.catalog.BatchCatalogLoader;
+import se.nawroth.scales.chord.GraphChordStore;
+import se.nawroth.scales.note.GraphNoteStore;
+import se.nawroth.scales.note.NoteService;
+import se.nawroth.scales.scale.GraphScaleStore;
+import se.nawroth.scales.tuning.GraphTuningStore;
+import se.nawroth.scales.util.GraphDb;
+import se.nawroth.scales.util.StoreMetrics;
+
+/**
+ * {@link CatalogStore} backed by a Neo4j database. The notes, scales, tunings
+ * and chords are kept by a graph store in their own package each, this class
+ * takes care of the life cycle of the database and of the transactions.
+ * <p>
+ * Reads don't need any transaction, but only see committed data. Every write
+ * runs in a transaction of its own, unless a transaction started by
+ * {@link #beginTx()} is already running.
+ * 
+ * @author Anders Nawroth
+ */
+public final class GraphCatalogStore implements CatalogStore
+{
+    private final String location;
+    private final StoreMetrics metrics;
+    private volatile Graph graph;
+
+    /**
+     * Create a store. In case the database doesn't already exist, an empty
+     * database will be created.
+     * 
+     * @param location the filesystem location of the database
+     */
+    public GraphCatalogStore( final String location )
+    {
+        this( location, null );
+    }
+
+    /**
+     * Create a store collecting metrics of the database use. In case the
+     * database doesn't already exist, an empty database will be created.
+     * 
+     * @param location the filesystem location of the database
+     * @param metrics where to collect the metrics, or <code>null</code> for
+     *            none
+     */
+    public GraphCatalogStore( final String location, final StoreMetrics metrics )
+    {
+        this.location = location;
+        this.metrics = metrics;
+        this.graph = null;
+    }
+
+    /**
+     * Create a store using a given underlying database.
+     * 
+     * @param graphDb the underlying database to use.
+     */
+    public GraphCatalogStore( final GraphDatabaseService graphDb )
+    {
+        this( graphDb, null );
+    }
+
+    /**
+     * Create a store using a given underlying database, collecting metrics of
+     * its use.
+     * 
+     * @param graphDb the underlying database to use.
+     * @param metrics where to collect the metrics, or <code>null</code> for
+     *            none
+     */
+    public GraphCatalogStore( final GraphDatabaseService graphDb,
+            final StoreMetrics metrics )
+    {
+        this.location = null;
+        this.metrics = metrics;
+        this.graph = new Graph( new GraphDb( graphDb, metrics ) );
+    }
+
+    /**
+     * Start the database.
+     */
+    @Override
+    public void start()
+    {
+        if ( graph == null )
+        {
+            graph = new Graph( new GraphDb( new EmbeddedGraphDatabase( location ),
+                    metrics ) );
+        }
+    }
+
+    /**
+     * Initialize the database at first startup, and bring databases created by
+     * older versions up to date.
+     */
+    @Override
+    public void init()
+    {
+        final Graph current = graph();
+        write( () ->
+        {
+            if ( current.notes.setupNotes() )
+            {
+                ScaleFamily chromaticFamily = current.scales.newScaleFamily(
+                        current.scales.getRootScaleFamily(),
+                        NoteService.CHROMATIC );
+                Scale chromatic = current.scales.newScales( chromaticFamily,
+                        new String[] { NoteService.CHROMATIC }, MINOR_SECOND,
+                        MINOR_SECOND, MINOR_SECOND, MINOR_SECOND,
+                        MINOR_SECOND, MINOR_SECOND, MINOR_SECOND,
+                        MINOR_SECOND, MINOR_SECOND, MINOR_SECOND,
+                        MINOR_SECOND, MINOR_SECOND );
+                current.graphDb.getReferenceNode()
+                        .createRelationshipTo( chromatic.getUnderlyingNode(),
+                                Types.CHROMATIC_SCALE );
+            }
+            new StoreMigration( this ).migrate();
+            // the roots are read without any transaction from now on
+            current.scales.getRootScaleFamily();
+            current.tunings.getRootTuningFamily();
+            current.chords.getRootChordFamily();
+            return null;
+        } );
+    }
+
+    /**
+     * Stop the database.
+     */
+    @Override
+    public void stop()
+    {
+        Graph stopped = graph;
+        graph = null;
+        stopped.graphDb.shutdown();
+    }
+
+    /**
+     * Get the database, wrapped.
+     * 
+     * @return the database
+     */
+    GraphDb getGraphDb()
+    {
+        return graph().graphDb;
+    }
+
+    /**
+     * Get the store of the notes.
+     * 
+     * @return the note store
+     */
+    GraphNoteStore getNotes()
+    {
+        return graph().notes;
+    }
+
+    /**
+     * Get the store of the scales.
+     * 
+     * @return the scale store
+     */
+    GraphScaleStore getScales()
+    {
+        return graph().scales;
+    }
+
+    /**
+     * Get the store of the tunings.
+     * 
+     * @return the tuning store
+     */
+    GraphTuningStore getTunings()
+    {
+        return graph().tunings;
+    }
+
+    @Override
+    public String getCatalogVersion()
+    {
+        return (String) graph().graphDb.getReferenceNode()
+                .getProperty( BatchCatalogLoader.CATALOG_VERSION, null );
+    }
+
+    /**
+     * Start a database transaction. Data can be read outside of transactions,
+     * but any data that is not yet committed will be invisible.
+     * 
+     * @return a Neo4j transaction
+     */
+    @Override
+    public Transaction beginTx()
+    {
+        return graph().graphDb.beginTx();
+    }
+
+    /**
+     * Get the generation of the catalog, which changes whenever a transaction
+     * has changed relationships in the database.
+     * 
+     * @return the current generation
+     */
+    @Override
+    public long getGeneration()
+    {
+        return graph().graphDb.getNavigationCache()
+                .getGeneration();
+    }
+
+    @Override
+    public StoreMetrics.Call enter( final String operation )
+    {
+        return graph().graphDb.enter( operation );
+    }
+
+    @Override
+    public Note note( final int pitchClass )
+    {
+        return graph().notes.note( pitchClass );
+    }
+
+    @Override
+    public ScaleFamily getRootScaleFamily()
+    {
+        return graph().scales.getRootScaleFamily();
+    }
+
+    @Override
+    public ScaleFamily newScaleFamily( final ScaleFamily parentFamily,
+            final String name )
+    {
+        final GraphScaleStore scales = graph().scales;
+        return write( () -> scales.newScaleFamily( parentFamily, name ) );
+    }
+
+    @Override
+    public Scale newScales( final ScaleFamily family, final String[] names,
+            final Interval... intervals )
+    {
+        final GraphScaleStore scales = graph().scales;
+        return write( () -> scales.newScales( family, names, intervals ) );
+    }
+
+    @Override
+    public Scale findScale( final Interval... intervals )
+    {
+        return graph().scales.findScale( intervals );
+    }
+
+    @Override
+    public int addUnnamedScales( final List<int[]> scales )
+    {
+        final GraphScaleStore current = graph().scales;
+        return write( () -> current.addUnnamedScales( scales ) );
+    }
+
+    @Override
+    public List<Scale> getUnnamedScales()
+    {
+        return graph().scales.getUnnamedScales();
+    }
+
+    @Override
+    public List<Scale> getModes()
+    {
+        return graph().scales.getModes();
+    }
+
+    @Override
+    public TuningFamily getRootTuningFamily()
+    {
+        return graph().tunings.getRootTuningFamily();
+    }
+
+    @Override
+    public TuningFamily newTuningFamily( final TuningFamily parentFamily,
+            final String name )
+    {
+        final GraphTuningStore tunings = graph().tunings;
+        return write( () -> tunings.newTuningFamily( parentFamily, name ) );
+    }
+
+    @Override
+    public Tuning newTuning( final TuningFamily family, final String name,
+            final Note rootNote, final Interval... intervals )
+    {
+        final GraphTuningStore tunings = graph().tunings;
+        return write( () -> tunings.newTuning( family, name, rootNote,
+                intervals ) );
+    }
+
+    @Override
+    public Tuning newTuning( final TuningFamily family, final String name,
+            final Note rootNote, final Tuning tuning )
+    {
+        final GraphTuningStore tunings = graph().tunings;
+        return write( () -> tunings.newTuning( family, name, rootNote, tuning ) );
+    }
+
+    @Override
+    public ChordFamily getRootChordFamily()
+    {
+        return graph().chords.getRootChordFamily();
+    }
+
+    @Override
+    public ChordFamily newChordFamily( final ChordFamily parentFamily,
+            final String name )
+    {
+        final GraphChordStore chords = graph().chords;
+        return write( () -> chords.newChordFamily( parentFamily, name ) );
+    }
+
+    @Override
+    public Chord newChord( final ChordFamily family, final String name,
+            final Interval... intervals )
+    {
+        final GraphChordStore chords = graph().chords;
+        return write( () -> chords.newChord( family, name, intervals ) );
+    }
+
+    @Override
+    public Chord findChord( final int mask )
+    {
+        return graph().chords.findChord( mask );
+    }
+
+    @Override
+    public List<Chord> getChords()
+    {
+        return graph().chords.getChords();
+    }
+
+    private Graph graph()
+    {
+        Graph current = graph;
+        if ( current == null )
+        {
+            throw new IllegalStateException( "The store is not started." );
+        }
+        return current;
+    }
+
+    /**
+     * Run a write in a transaction.
+     * 
+     * @param write the write to run
+     * @return the result of the write
+     */
+    private <T> T write( final Supplier<T> write )
+    {
+        Transaction tx = beginTx();
+        try
+        {
+            T result = write.get();
+            tx.success();
+            return result;
+        }
+        finally
+        {
+            tx.finish();
+        }
+    }
+
+    /**
+     * The stores of one started database.
+     */
+    private static final class Graph
+    {
+        private final GraphDb graphDb;
+        private final GraphNoteStore notes;
+        private final GraphScaleStore scales;
+        private final GraphTuningStore tunings;
+        private final GraphChordStore chords;
+
+        private Graph( final GraphDb graphDb )
+        {
+            this.graphDb = graphDb;
+            this.notes = new GraphNoteStore( graphDb );
+            this.scales = new GraphScaleStore( graphDb );
+            this.tunings = new GraphTuningStore( graphDb );
+            this.chords = new GraphChordStore( graphDb );
+        }
+    }
+}
@@ -20,7 +20,8 @@
 package se.nawroth.scales;
 
 import org.neo4j.graphdb.GraphDatabaseService;
-import org.neo4j.graphdb.Transaction;
+
+import se.nawroth.scales.catalog.BatchCatalogLoader;
 
 /**
  * LazyScales handles the life cycle of the server,
@@ -29,6 +30,7 @@ import org.neo4j.graphdb.Transaction;
  */
 public final class LazyScales
 {
+    private final CatalogStore store;
     private final Services services;
 
     /**
@@ -39,7 +41,7 @@ public final class LazyScales
      */
     public LazyScales( final String location )
     {
-        this.services = new Services( location );
+        this( new GraphCatalogStore( location ) );
     }
 
     /**
@@ -49,7 +51,31 @@ public final class LazyScales
      */
     public LazyScales( final GraphDatabaseService graphDb )
     {
-        this.services = new Services( graphDb );
+        this( new GraphCatalogStore( graphDb ) );
+    }
+
+    /**
+     * Create a LazyScales server using any kind of store.
+     * 
+     * @param store the store to use
+     */
+    public LazyScales( final CatalogStore store )
+    {
+        this.store = store;
+        this.services = new Services( store );
+    }
+
+    /**
+     * Get the version of the catalog the database was loaded from. Note:
+     * {@link #start()} needs to be called first.
+     * 
+     * @return the catalog version, or <code>null</code> if the database was
+     *         not loaded from a catalog
+     * @see BatchCatalogLoader
+     */
+    public String getCatalogVersion()
+    {
+        return store.getCatalogVersion();
     }
 
     /**
@@ -61,21 +87,13 @@ public final class LazyScales
     }
 
     /**
-     * Initialize the database at first startup. Note: {@link #start()} needs to
-     * be called first.
+     * Initialize the database at first startup, and bring databases created by
+     * older versions up to date. Note: {@link #start()} needs to be called
+     * first.
      */
     public void init()
     {
-        Transaction tx = services.beginTx();
-        try
-        {
-            services.getNoteService().setupNotes();
-            tx.success();
-        }
-        finally
-        {
-            tx.finish();
-        }
+        store.init();
     }
 
     /**
@@ -87,7 +105,18 @@ public final class LazyScales
     }
 
     /**
-     * Get the available services.
+     * Get the store of the catalog.
+     * 
+     * @return the store
+     */
+    public CatalogStore getCatalogStore()
+    {
+        return store;
+    }
+
+    /**
+     * Get the available services. Note: {@link #start()} needs to be called
+     * first.
      * 
      * @return the services
      */
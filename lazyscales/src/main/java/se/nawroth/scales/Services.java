@@ -19,115 +19,113 @@
  */
 package se.nawroth.scales;
 
-import org.neo4j.graphdb.GraphDatabaseService;
+import java.util.concurrent.atomic.AtomicReference;
+
 import org.neo4j.graphdb.Transaction;
-import org.neo4j.kernel.EmbeddedGraphDatabase;
 
+import se.nawroth.scales.api.Chord;
+import se.nawroth.scales.api.ChordFamily;
 import se.nawroth.scales.api.Note;
 import se.nawroth.scales.api.Scale;
 import se.nawroth.scales.api.ScaleFamily;
 import se.nawroth.scales.api.Tuning;
 import se.nawroth.scales.api.TuningFamily;
+import se.nawroth.scales.chord.ChordFamilyService;
+import se.nawroth.scales.chord.ChordService;
 import se.nawroth.scales.fretboard.Fretboard;
 import se.nawroth.scales.fretboard.FretboardService;
 import se.nawroth.scales.note.NoteService;
-import se.nawroth.scales.scale.RawScaleService;
+import se.nawroth.scales.note.Notes;
+import se.nawroth.scales.note.TranspositionAtlas;
 import se.nawroth.scales.scale.ScaleFamilyService;
 import se.nawroth.scales.scale.ScaleSearchService;
 import se.nawroth.scales.scale.ScaleService;
+import se.nawroth.scales.scale.ScaleSimilarityService;
 import se.nawroth.scales.tuning.TuningFamilyService;
 import se.nawroth.scales.tuning.TuningService;
-import se.nawroth.scales.util.GraphDb;
 
 /**
  * A simple dependency resolving class, using manual constructor injection. It
- * also gives access to database transaction control.
+ * also gives access to transaction control. The services are built on top of a
+ * {@link CatalogStore}, and work the same for every kind of store.
+ * <p>
+ * The services are created lazily, without locking, and are safe to share
+ * between threads. Once the services are started and the store has been
+ * initialized, the read path can be used by many threads at the same time
+ * without any transaction: getting notes, finding scales, navigating scale and
+ * tuning families, iterating over scales and tunings, and reading fretboards.
+ * With a {@link GraphCatalogStore}, reads outside of transactions only see
+ * committed data, and the results of family navigation are cached until a
+ * transaction changes them. Every write runs in a transaction of its own,
+ * several writes can be made at once in a transaction started by
+ * {@link #beginTx()}, which belongs to the thread that started it.
+ * <p>
+ * Starting and stopping must not happen concurrently with the use of the
+ * services; after a stop, the services of the previous start must not be used.
  * 
  * @author Anders Nawroth
  */
 public final class Services
 {
-    private String dir;
-    private GraphDb graphDb;
-    private ScaleService scaleService;
-    private NoteService noteService;
-    private ScaleFamilyService scaleFamilyService;
-    private TuningService tuningService;
-    private TuningFamilyService tuningFamilyService;
-    private ScaleSearchService scaleSearchService;
-    private RawScaleService rawScaleService;
-    private FretboardService fretboardService;
-
-    /**
-     * Prepare for services with database located at location.
-     * 
-     * @param location location of the database
-     */
-    Services( final String location )
-    {
-        this.dir = location;
-        this.graphDb = null;
-    }
+    private final CatalogStore store;
+    private volatile Container container;
 
     /**
-     * Prepare for testing of services using a given database.
+     * Prepare for services using a store.
      * 
-     * @param graphDatabase the underlying database to use
+     * @param store the store to use
      */
-    Services( final GraphDatabaseService graphDatabase )
+    Services( final CatalogStore store )
     {
-        graphDb = new GraphDb( graphDatabase );
+        this.store = store;
+        this.container = null;
     }
 
     /**
-     * Start the database server. Other services are started lazily as needed.
+     * Start the store. The services are started lazily as needed.
      */
     void start()
     {
-        if ( graphDb == null )
+        store.start();
+        if ( container == null )
         {
-            graphDb = new GraphDb( new EmbeddedGraphDatabase( dir ) );
+            container = new Container( store );
         }
     }
 
     /**
-     * Stop the database and invalidate all services.
+     * Stop the store and invalidate all services.
      */
     void stop()
     {
-        graphDb.shutdown();
-        graphDb = null;
-        scaleService = null;
-        noteService = null;
-        scaleFamilyService = null;
-        tuningService = null;
-        tuningFamilyService = null;
-        scaleSearchService = null;
-        rawScaleService = null;
-        fretboardService = null;
+        container = null;
+        store.stop();
     }
 
     /**
-     * Get the embedded database instance.
+     * Start a transaction. Note that a transaction must be marked as
+     * {@link Transaction#success() successful} and {@link Transaction#finish()
+     * finished} in order to persist data. Data can be read outside of
+     * transactions, but any data that is not yet committed will be invisible.
      * 
-     * @return
+     * @return a transaction
+     * @see CatalogStore#beginTx()
      */
-    private GraphDb getGraphDb()
+    public Transaction beginTx()
     {
-        return graphDb;
+        return container().store.beginTx();
     }
 
     /**
-     * Start a database transaction. Note that a transaction must be marked as
-     * {@link Transaction#success() successful} and {@link Transaction#finish()
-     * finished} in order to persist data. Data can be read outside of
-     * transactions, but any data that is not yet committed will be invisible.
+     * Get the generation of the catalog. It changes whenever the catalog has
+     * changed, so anything read from the catalog can be cached for as long as
+     * the generation stays the same.
      * 
-     * @return a Neo4j transaction
+     * @return the current generation
      */
-    public Transaction beginTx()
+    public long getGeneration()
     {
-        return getGraphDb().beginTx();
+        return container().store.getGeneration();
     }
 
     /**
@@ -137,12 +135,7 @@ public final class Services
      */
     public ScaleService getScaleService()
     {
-        if ( scaleService == null )
-        {
-            scaleService = new ScaleService( getGraphDb(),
-                    getScaleSearchService(), getRawScaleService() );
-        }
-        return scaleService;
+        return container().scaleService.get();
     }
 
     /**
@@ -152,12 +145,7 @@ public final class Services
      */
     public NoteService getNoteService()
     {
-        if ( noteService == null )
-        {
-            noteService = new NoteService( getGraphDb(), getScaleService(),
-                    getScaleFamilyService() );
-        }
-        return noteService;
+        return container().noteService.get();
     }
 
     /**
@@ -167,11 +155,7 @@ public final class Services
      */
     public ScaleFamilyService getScaleFamilyService()
     {
-        if ( scaleFamilyService == null )
-        {
-            scaleFamilyService = new ScaleFamilyService( getGraphDb() );
-        }
-        return scaleFamilyService;
+        return container().scaleFamilyService.get();
     }
 
     /**
@@ -181,11 +165,7 @@ public final class Services
      */
     public TuningFamilyService getTuningFamilyService()
     {
-        if ( tuningFamilyService == null )
-        {
-            tuningFamilyService = new TuningFamilyService( getGraphDb() );
-        }
-        return tuningFamilyService;
+        return container().tuningFamilyService.get();
     }
 
     /**
@@ -195,11 +175,7 @@ public final class Services
      */
     public TuningService getTuningService()
     {
-        if ( tuningService == null )
-        {
-            tuningService = new TuningService( getGraphDb() );
-        }
-        return tuningService;
+        return container().tuningService.get();
     }
 
     /**
@@ -209,25 +185,37 @@ public final class Services
      */
     public ScaleSearchService getScaleSearchService()
     {
-        if ( scaleSearchService == null )
-        {
-            scaleSearchService = new ScaleSearchService( getRawScaleService() );
-        }
-        return scaleSearchService;
+        return container().scaleSearchService.get();
     }
 
     /**
-     * Get the {@link RawScale} service.
+     * Get the {@link Scale} similarity service.
      * 
-     * @return the current {@link RawScaleService} instance
+     * @return the current {@link ScaleSimilarityService} instance
      */
-    RawScaleService getRawScaleService()
+    public ScaleSimilarityService getScaleSimilarityService()
     {
-        if ( rawScaleService == null )
-        {
-            rawScaleService = new RawScaleService( getGraphDb() );
-        }
-        return rawScaleService;
+        return container().scaleSimilarityService.get();
+    }
+
+    /**
+     * Get the {@link Chord} service.
+     * 
+     * @return the current {@link ChordService} instance
+     */
+    public ChordService getChordService()
+    {
+        return container().chordService.get();
+    }
+
+    /**
+     * Get the {@link ChordFamily} service.
+     * 
+     * @return the current {@link ChordFamilyService} instance
+     */
+    public ChordFamilyService getChordFamilyService()
+    {
+        return container().chordFamilyService.get();
     }
 
     /**
@@ -237,10 +225,154 @@ public final class Services
      */
     public FretboardService getFretboardService()
     {
-        if ( fretboardService == null )
+        return container().fretboardService.get();
+    }
+
+    /**
+     * Get the atlas of precomputed {@link Notes}.
+     * 
+     * @return the current {@link TranspositionAtlas} instance
+     */
+    public TranspositionAtlas getTranspositionAtlas()
+    {
+        return container().transpositionAtlas.get();
+    }
+
+    private Container container()
+    {
+        Container current = container;
+        if ( current == null )
+        {
+            throw new IllegalStateException( "The services are not started." );
+        }
+        return current;
+    }
+
+    /**
+     * A service which is created on first use. Threads racing to create it may
+     * each create an instance, but only the first one is kept and returned to
+     * all of them.
+     * 
+     * @param <T> the type of the service
+     */
+    private abstract static class LazyService<T>
+    {
+        private final AtomicReference<T> instance = new AtomicReference<T>();
+
+        final T get()
+        {
+            T service = instance.get();
+            if ( service == null )
+            {
+                T created = create();
+                service = instance.compareAndSet( null, created ) ? created
+                        : instance.get();
+            }
+            return service;
+        }
+
+        abstract T create();
+    }
+
+    /**
+     * The services of one started store.
+     */
+    private static final class Container
+    {
+        private final CatalogStore store;
+        private final LazyService<ScaleService> scaleService = new LazyService<ScaleService>()
+        {
+            @Override
+            ScaleService create()
+            {
+                return new ScaleService( store );
+            }
+        };
+        private final LazyService<NoteService> noteService = new LazyService<NoteService>()
+        {
+            @Override
+            NoteService create()
+            {
+                return new NoteService( store );
+            }
+        };
+        private final LazyService<ScaleFamilyService> scaleFamilyService = new LazyService<ScaleFamilyService>()
+        {
+            @Override
+            ScaleFamilyService create()
+            {
+                return new ScaleFamilyService( store );
+            }
+        };
+        private final LazyService<TuningFamilyService> tuningFamilyService = new LazyService<TuningFamilyService>()
+        {
+            @Override
+            TuningFamilyService create()
+            {
+                return new TuningFamilyService( store );
+            }
+        };
+        private final LazyService<TuningService> tuningService = new LazyService<TuningService>()
+        {
+            @Override
+            TuningService create()
+            {
+                return new TuningService( store );
+            }
+        };
+        private final LazyService<ScaleSearchService> scaleSearchService = new LazyService<ScaleSearchService>()
+        {
+            @Override
+            ScaleSearchService create()
+            {
+                return new ScaleSearchService( store );
+            }
+        };
+        private final LazyService<ScaleSimilarityService> scaleSimilarityService = new LazyService<ScaleSimilarityService>()
+        {
+            @Override
+            ScaleSimilarityService create()
+            {
+                return new ScaleSimilarityService( store );
+            }
+        };
+        private final LazyService<ChordService> chordService = new LazyService<ChordService>()
+        {
+            @Override
+            ChordService create()
+            {
+                return new ChordService( store );
+            }
+        };
+        private final LazyService<ChordFamilyService> chordFamilyService = new LazyService<ChordFamilyService>()
+        {
+            @Override
+            ChordFamilyService create()
+            {
+                return new ChordFamilyService( store );
+            }
+        };
+        private final LazyService<FretboardService> fretboardService = new LazyService<FretboardService>()
+        {
+            @Override
+            FretboardService create()
+            {
+                return new FretboardService( store );
+            }
+        };
+        private final LazyService<TranspositionAtlas> transpositionAtlas = new LazyService<TranspositionAtlas>()
+        {
+            @Override
+            TranspositionAtlas create()
+            {
+                return new TranspositionAtlas( store, noteService.get(),
+                        scaleFamilyService.get() );
+            }
+        };
+
+        private Container( final CatalogStore store )
         {
-            fretboardService = new FretboardService( getGraphDb() );
+            this.store = store;
         }
-        return fretboardService;
     }
 }
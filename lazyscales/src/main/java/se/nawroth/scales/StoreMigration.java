@@ -0,0 +1,124 @@
+/**
+ * Copyright (c) 2002-2013 "Neo Technology,"
+ * Network Engine for Objects in Lund AB [http://neotechnology.com]
+ *
+ * This file is part of Neo4j.
+ *
+ * Neo4j is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package se.nawroth.scales;
+
+import org.neo4j.graphdb.Node;
+
+/**
+ * Brings databases created by older versions up to date. The version of the
+ * database is stored on the reference node, and every migration step newer
+ * than that version is run in order. The steps only add what is missing, so
+ * running them on a new database is harmless.
+ * 
+ * @author Anders Nawroth
+ */
+final class StoreMigration
+{
+    private static final String STORE_VERSION = "store version";
+    private final GraphCatalogStore store;
+    private final Step[] steps = new Step[] {
+            // 1: index raw scales by rotation
+            new Step()
+            {
+                @Override
+                void run()
+                {
+                    store.getScales()
+                            .indexRawScales();
+                }
+            },
+            // 2: pitch classes of notes
+            new Step()
+            {
+                @Override
+                void run()
+                {
+                    store.getNotes()
+                            .addPitchClasses();
+                }
+            },
+            // 3: degree of scales and tunings
+            new Step()
+            {
+                @Override
+                void run()
+                {
+                    store.getScales()
+                            .addDegrees();
+                    store.getTunings()
+                            .addDegrees( store.getTunings()
+                                    .getRootTuningFamily() );
+                }
+            } };
+
+    /**
+     * Create the migration.
+     * 
+     * @param store the store to migrate
+     */
+    StoreMigration( final GraphCatalogStore store )
+    {
+        this.store = store;
+    }
+
+    /**
+     * Get the version of the database layout written by this version.
+     * 
+     * @return the current store version
+     */
+    int getCurrentVersion()
+    {
+        return steps.length;
+    }
+
+    /**
+     * Run the migration steps the database is missing. Has to be called inside
+     * a transaction.
+     * 
+     * @return the number of steps that were run
+     */
+    int migrate()
+    {
+        Node referenceNode = store.getGraphDb()
+                .getReferenceNode();
+        int version = ( (Number) referenceNode.getProperty( STORE_VERSION, 0 ) ).intValue();
+        if ( version > steps.length )
+        {
+            throw new IllegalStateException( "The database has store version "
+                                             + version
+                                             + ", which is newer than the supported version "
+                                             + steps.length + "." );
+        }
+        for ( int i = version; i < steps.length; i++ )
+        {
+            steps[i].run();
+            referenceNode.setProperty( STORE_VERSION, i + 1 );
+        }
+        return steps.length - version;
+    }
+
+    /**
+     * A single migration step.
+     */
+    private abstract static class Step
+    {
+        abstract void run();
+    }
+}
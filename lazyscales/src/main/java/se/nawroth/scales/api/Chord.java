@@ -31,5 +31,10 @@ import se.nawroth.scales.util.NamedEntity;
  */
 public interface Chord extends NamedEntity<Chord>, Collection<NamedInterval>
 {
-
+    /**
+     * Get the pitch classes of this chord, relative to the tonic.
+     * 
+     * @return the pitch classes, rooted at C
+     */
+    PitchClassSet getPitchClassSet();
 }
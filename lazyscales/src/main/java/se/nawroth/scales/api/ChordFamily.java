@@ -59,4 +59,14 @@ public interface ChordFamily extends NamedEntity<ChordFamily>
      *         it already was a chord included in this family.
      */
     boolean addChord( final Chord chord );
+
+    /**
+     * Add a chord to this family and give it a name.
+     * 
+     * @param chord a chord that should be owned by this family.
+     * @param name the name of the chord
+     * @return <code>true</code> if the chord was added, <code>false</code> if
+     *         it already was a chord included in this family.
+     */
+    boolean addChord( final Chord chord, final String name );
 }
@@ -26,6 +26,13 @@ package se.nawroth.scales.api;
  */
 public interface Note
 {
+    /**
+     * Get the pitch class of the {@link Note}, counted in semitones from C.
+     * 
+     * @return the pitch class, from <code>0</code> to <code>11</code>
+     */
+    int getPitchClass();
+
     /**
      * Get the {@link Note} to which the <code>interval</code> leads.
      * 
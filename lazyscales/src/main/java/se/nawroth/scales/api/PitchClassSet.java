@@ -0,0 +1,370 @@
+/**
+ * Copyright (c) 2002-2013 "Neo Technology,"
+ * Network Engine for Objects in Lund AB [http://neotechnology.com]
+ *
+ * This file is part of Neo4j.
+ *
+ * Neo4j is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package se.nawroth.scales.api;
+
+/**
+ * An immutable set of pitch classes, stored as a 12 bit mask where bit
+ * <i>n</i> represents the pitch class <i>n</i> semitones above C. The set also
+ * has a root, which decides the starting point of the iteration and of
+ * {@link #rotate(int) rotations}.
+ * <p>
+ * Membership and subset tests as well as iteration work directly on the mask
+ * and never allocate. To iterate over the set, starting at the root, use:
+ * 
+ * <pre>
+ * for ( int pc = set.first(); pc != -1; pc = set.next( pc ) )
+ * </pre>
+ * 
+ * The static methods operate on plain masks, for code that keeps masks in
+ * primitive arrays.
+ * 
+ * @author Anders Nawroth
+ */
+public final class PitchClassSet
+{
+    /**
+     * The number of pitch classes.
+     */
+    public static final int PITCH_CLASSES = 12;
+    /**
+     * Mask with all pitch classes set.
+     */
+    public static final int CHROMATIC_MASK = ( 1 << PITCH_CLASSES ) - 1;
+    /**
+     * The empty set.
+     */
+    public static final PitchClassSet EMPTY = new PitchClassSet( 0, 0 );
+
+    private final int mask;
+    private final int root;
+
+    private PitchClassSet( final int mask, final int root )
+    {
+        this.mask = mask;
+        this.root = root;
+    }
+
+    /**
+     * Create a set from a mask and a root.
+     * 
+     * @param mask the pitch classes, bit 0 representing C
+     * @param root the root pitch class
+     * @return the set
+     */
+    public static PitchClassSet of( final int mask, final int root )
+    {
+        if ( ( mask & ~CHROMATIC_MASK ) != 0 )
+        {
+            throw new IllegalArgumentException( "Not a pitch class mask: ["
+                                                + Integer.toHexString( mask )
+                                                + "]" );
+        }
+        return new PitchClassSet( mask, normalize( root ) );
+    }
+
+    /**
+     * Create a set from a root and the semitone steps between consecutive
+     * pitch classes. The root is always included.
+     * 
+     * @param root the root pitch class
+     * @param steps semitone steps, each step relative to the previous pitch
+     *            class
+     * @return the set
+     */
+    public static PitchClassSet fromSteps( final int root, final int... steps )
+    {
+        int pitchClass = normalize( root );
+        int mask = 1 << pitchClass;
+        for ( int step : steps )
+        {
+            pitchClass = normalize( pitchClass + step );
+            mask |= 1 << pitchClass;
+        }
+        return new PitchClassSet( mask, normalize( root ) );
+    }
+
+    /**
+     * Get the pitch classes as a mask.
+     * 
+     * @return the mask, bit 0 representing C
+     */
+    public int getMask()
+    {
+        return mask;
+    }
+
+    /**
+     * Get the root of this set.
+     * 
+     * @return the root pitch class
+     */
+    public int getRoot()
+    {
+        return root;
+    }
+
+    /**
+     * Get the mask of this set transposed so that the root becomes C. Sets
+     * that only differ by transposition have the same relative mask.
+     * 
+     * @return the mask relative to the root
+     */
+    public int getRelativeMask()
+    {
+        return transpose( mask, -root );
+    }
+
+    /**
+     * The number of pitch classes in this set.
+     * 
+     * @return the number of pitch classes
+     */
+    public int size()
+    {
+        return Integer.bitCount( mask );
+    }
+
+    /**
+     * Check if this set is empty.
+     * 
+     * @return <code>true</code> if there are no pitch classes in the set
+     */
+    public boolean isEmpty()
+    {
+        return mask == 0;
+    }
+
+    /**
+     * Check if a pitch class belongs to this set.
+     * 
+     * @param pitchClass the pitch class to check
+     * @return <code>true</code> if the pitch class is a member of the set
+     */
+    public boolean contains( final int pitchClass )
+    {
+        return contains( mask, pitchClass );
+    }
+
+    /**
+     * Check if all the pitch classes of this set are in the other set.
+     * 
+     * @param other the other set
+     * @return <code>true</code> if this set is a subset of the other set
+     */
+    public boolean isSubsetOf( final PitchClassSet other )
+    {
+        return isSubset( mask, other.mask );
+    }
+
+    /**
+     * Get the union of this set and another set, keeping the root of this
+     * set.
+     * 
+     * @param other the other set
+     * @return the union
+     */
+    public PitchClassSet union( final PitchClassSet other )
+    {
+        return new PitchClassSet( mask | other.mask, root );
+    }
+
+    /**
+     * Get the intersection of this set and another set, keeping the root of
+     * this set.
+     * 
+     * @param other the other set
+     * @return the intersection
+     */
+    public PitchClassSet intersection( final PitchClassSet other )
+    {
+        return new PitchClassSet( mask & other.mask, root );
+    }
+
+    /**
+     * Transpose the set, moving the root and all pitch classes.
+     * 
+     * @param semitones the number of semitones to move upwards, negative
+     *            values move downwards
+     * @return the transposed set
+     */
+    public PitchClassSet transpose( final int semitones )
+    {
+        return new PitchClassSet( transpose( mask, semitones ),
+                normalize( root + semitones ) );
+    }
+
+    /**
+     * Rotate the set, moving the root to another member of the set while
+     * keeping the pitch classes. This is how the modes of a scale relate to
+     * each other.
+     * 
+     * @param degrees the number of members to move the root upwards
+     * @return the rotated set
+     */
+    public PitchClassSet rotate( final int degrees )
+    {
+        int size = size();
+        if ( size == 0 )
+        {
+            return this;
+        }
+        int newRoot = first();
+        int moves = ( ( degrees % size ) + size ) % size;
+        for ( int i = 0; i < moves; i++ )
+        {
+            newRoot = next( newRoot );
+        }
+        return new PitchClassSet( mask, newRoot );
+    }
+
+    /**
+     * Get the first pitch class of the iteration: the root, or if the root is
+     * not a member, the closest member above it.
+     * 
+     * @return the first pitch class or <code>-1</code> for an empty set
+     */
+    public int first()
+    {
+        if ( mask == 0 )
+        {
+            return -1;
+        }
+        return normalize( root
+                          + Integer.numberOfTrailingZeros( getRelativeMask() ) );
+    }
+
+    /**
+     * Get the member following a pitch class, iterating upwards from the root.
+     * 
+     * @param pitchClass the current pitch class
+     * @return the next pitch class, or <code>-1</code> when the iteration
+     *         would pass the root again
+     */
+    public int next( final int pitchClass )
+    {
+        int distance = normalize( pitchClass - root );
+        int remaining = getRelativeMask() & ~( ( 2 << distance ) - 1 );
+        if ( remaining == 0 )
+        {
+            return -1;
+        }
+        return normalize( root + Integer.numberOfTrailingZeros( remaining ) );
+    }
+
+    /**
+     * Get the number of semitones from a pitch class up to the next member of
+     * the set, wrapping around at the octave.
+     * 
+     * @param pitchClass the pitch class to start from
+     * @return the distance in semitones, <code>12</code> if there are no other
+     *         members
+     */
+    public int stepFrom( final int pitchClass )
+    {
+        int rotated = transpose( mask, -pitchClass ) & ~1;
+        if ( rotated == 0 )
+        {
+            return PITCH_CLASSES;
+        }
+        return Integer.numberOfTrailingZeros( rotated );
+    }
+
+    /**
+     * Check if a pitch class is set in a mask.
+     * 
+     * @param mask the mask
+     * @param pitchClass the pitch class
+     * @return <code>true</code> if the pitch class is set
+     */
+    public static boolean contains( final int mask, final int pitchClass )
+    {
+        return ( mask & ( 1 << normalize( pitchClass ) ) ) != 0;
+    }
+
+    /**
+     * Check if all pitch classes of a mask are set in another mask.
+     * 
+     * @param mask the possible subset
+     * @param other the possible superset
+     * @return <code>true</code> if <code>mask</code> is a subset of
+     *         <code>other</code>
+     */
+    public static boolean isSubset( final int mask, final int other )
+    {
+        return ( mask & ~other ) == 0;
+    }
+
+    /**
+     * Transpose a mask.
+     * 
+     * @param mask the mask to transpose
+     * @param semitones the number of semitones to move upwards, negative
+     *            values move downwards
+     * @return the transposed mask
+     */
+    public static int transpose( final int mask, final int semitones )
+    {
+        int shift = normalize( semitones );
+        return ( ( mask << shift ) | ( mask >>> ( PITCH_CLASSES - shift ) ) )
+               & CHROMATIC_MASK;
+    }
+
+    /**
+     * Bring any semitone value into the range of pitch classes.
+     * 
+     * @param semitones the semitone value
+     * @return the corresponding pitch class
+     */
+    public static int normalize( final int semitones )
+    {
+        int pitchClass = semitones % PITCH_CLASSES;
+        return pitchClass < 0 ? pitchClass + PITCH_CLASSES : pitchClass;
+    }
+
+    @Override
+    public int hashCode()
+    {
+        return mask * PITCH_CLASSES + root;
+    }
+
+    @Override
+    public boolean equals( final Object obj )
+    {
+        return obj instanceof PitchClassSet
+               && ( (PitchClassSet) obj ).mask == mask
+               && ( (PitchClassSet) obj ).root == root;
+    }
+
+    @Override
+    public String toString()
+    {
+        StringBuilder builder = new StringBuilder( "PitchClassSet [" );
+        for ( int pc = first(); pc != -1; pc = next( pc ) )
+        {
+            if ( pc != first() )
+            {
+                builder.append( ' ' );
+            }
+            builder.append( pc );
+        }
+        return builder.append( "]" )
+                .toString();
+    }
+}
@@ -22,6 +22,7 @@ package se.nawroth.scales.api;
 import java.util.Collection;
 import java.util.Iterator;
 import java.util.List;
+import java.util.stream.Stream;
 
 import se.nawroth.scales.util.NamedEntity;
 
@@ -39,10 +40,25 @@ public interface Scale extends NamedEntity<Scale>, Collection<NamedInterval>
      */
     Iterator<NamedInterval> circularIterator();
 
+    /**
+     * Get a lazy, circular {@link Stream} over this {@link Scale}. It never
+     * ends for a scale that is a ring of intervals.
+     * 
+     * @return a circular stream
+     */
+    Stream<NamedInterval> circularStream();
+
     /**
      * The scale as intervals relative to the tonic.
      * 
      * @return absolute intervals of the scale
      */
     List<NamedInterval> asAbsoluteList();
+
+    /**
+     * The scale as a set of pitch classes, using C as the tonic.
+     * 
+     * @return the pitch classes of the scale
+     */
+    PitchClassSet getPitchClassSet();
 }
@@ -0,0 +1,454 @@
+/**
+ * Copyright (c) 2002-2013 "Neo Technology,"
+ * Network Engine for Objects in Lund AB [http://neotechnology.com]
+ *
+ * This file is part of Neo4j.
+ *
+ * Neo4j is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package se.nawroth.scales.catalog;
+
+import static org.neo4j.helpers.collection.MapUtil.map;
+import static org.neo4j.helpers.collection.MapUtil.stringMap;
+
+import java.io.FileInputStream;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.io.Reader;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.Map;
+
+import org.neo4j.graphdb.RelationshipType;
+import org.neo4j.index.lucene.unsafe.batchinsert.LuceneBatchInserterIndexProvider;
+import org.neo4j.unsafe.batchinsert.BatchInserter;
+import org.neo4j.unsafe.batchinsert.BatchInserterIndex;
+import org.neo4j.unsafe.batchinsert.BatchInserterIndexProvider;
+import org.neo4j.unsafe.batchinsert.BatchInserters;
+
+import se.nawroth.scales.api.DiatonicInterval;
+import se.nawroth.scales.api.LatinInterval;
+import se.nawroth.scales.api.PitchClassSet;
+import se.nawroth.scales.api.Types;
+import se.nawroth.scales.note.NoteImpl;
+import se.nawroth.scales.note.NoteRepository;
+import se.nawroth.scales.note.NoteService;
+import se.nawroth.scales.note.NoteTypes;
+import se.nawroth.scales.scale.RawScale.RawScales;
+import se.nawroth.scales.scale.RawScaleService;
+import se.nawroth.scales.scale.RawTypes;
+import se.nawroth.scales.scale.RotationKey;
+import se.nawroth.scales.scale.ScaleFamilyService;
+import se.nawroth.scales.scale.ScaleImpl;
+import se.nawroth.scales.scale.ScaleTypes;
+import se.nawroth.scales.tuning.TuningFamilyService;
+import se.nawroth.scales.tuning.TuningTypes;
+import se.nawroth.scales.util.NamedEntityImpl;
+
+/**
+ * Offline bulk loader, writing a catalog straight to the store files through a
+ * {@link BatchInserter}. The loader writes the same structures as the services
+ * do: the note circle, the interval rings of the scales, the raw scales and
+ * their rotation index, the families and the tunings. Rings are deduplicated in
+ * memory, so modes of an already written scale only add a relationship from
+ * their family.
+ * <p>
+ * The store has to be new, and must not be in use while loading. Always call
+ * {@link #shutdown()} when done, the store is not usable until then. The
+ * version of the catalog is only written to the store when {@link #load(Reader)}
+ * succeeds, so a store that failed to load never looks up to date.
+ * 
+ * @author Anders Nawroth
+ */
+public final class BatchCatalogLoader implements CatalogHandler
+{
+    /**
+     * Property on the reference node holding the version of the loaded
+     * catalog.
+     */
+    public static final String CATALOG_VERSION = "catalog version";
+    private static final String NAME = NamedEntityImpl.NAME;
+    private static final String PATH_SEPARATOR = "/";
+
+    private final BatchInserter inserter;
+    private final BatchInserterIndexProvider indexProvider;
+    private final BatchInserterIndex rotationIndex;
+    private final long referenceNode;
+    private final long[] notes = new long[PitchClassSet.PITCH_CLASSES];
+    private final long rawScalesNode;
+    private final Map<String, Long> scaleFamilies = new HashMap<String, Long>();
+    private final Map<String, Long> tuningFamilies = new HashMap<String, Long>();
+    private final Map<Long, long[]> rings = new HashMap<Long, long[]>();
+    private final Map<Integer, Long> rawScaleNodes = new HashMap<Integer, Long>();
+    private final Map<String, Long> tuningIntervals = new HashMap<String, Long>();
+    private int ringCount = 0;
+    private String catalogVersion = null;
+
+    /**
+     * Open a new store for loading. The notes and the chromatic scale are
+     * written right away.
+     * 
+     * @param storeDir the directory of the store
+     * @throws IllegalStateException if the store already has content
+     */
+    public BatchCatalogLoader( final String storeDir )
+    {
+        inserter = BatchInserters.inserter( storeDir );
+        referenceNode = inserter.getReferenceNode();
+        if ( inserter.getRelationshipIds( referenceNode ).iterator().hasNext() )
+        {
+            inserter.shutdown();
+            throw new IllegalStateException(
+                    "Catalogs can only be loaded into a new store, but found content in: ["
+                            + storeDir + "]" );
+        }
+        indexProvider = new LuceneBatchInserterIndexProvider( inserter );
+        rotationIndex = indexProvider.nodeIndex(
+                RawScaleService.ROTATION_INDEX, stringMap( "type", "exact" ) );
+        setupNotes();
+        rawScalesNode = createNode();
+        inserter.createRelationship( referenceNode, rawScalesNode,
+                RawTypes.RAW_SCALES, null );
+        scaleFamilies.put( "", rootFamily( ScaleTypes.SCALE_FAMILIES,
+                ScaleTypes.SCALE_FAMILY, ScaleFamilyService.ROOT_NAME ) );
+        tuningFamilies.put( "", rootFamily( TuningTypes.TUNING_FAMILIES,
+                TuningTypes.TUNING_FAMILY, TuningFamilyService.ROOT_NAME ) );
+        long chromaticFamily = family( scaleFamilies, ScaleTypes.SCALE_FAMILY,
+                new String[] { NoteService.CHROMATIC } );
+        int[] chromaticSteps = new int[PitchClassSet.PITCH_CLASSES];
+        Arrays.fill( chromaticSteps, DiatonicInterval.MINOR_SECOND.getSemitones() );
+        long chromatic = ring( chromaticSteps )[0];
+        inserter.createRelationship( chromaticFamily, chromatic,
+                ScaleTypes.SCALE, map( NAME, NoteService.CHROMATIC ) );
+        inserter.createRelationship( referenceNode, chromatic,
+                Types.CHROMATIC_SCALE, null );
+    }
+
+    /**
+     * Load a catalog.
+     * 
+     * @param catalog the catalog to load, will not be closed
+     * @return the number of records loaded
+     * @throws IOException if the catalog could not be read
+     * @throws IllegalArgumentException if the catalog is malformed
+     * @see CatalogReader
+     */
+    public int load( final Reader catalog ) throws IOException
+    {
+        int records = CatalogReader.read( catalog, this );
+        if ( catalogVersion != null )
+        {
+            inserter.setNodeProperty( referenceNode, CATALOG_VERSION,
+                    catalogVersion );
+        }
+        return records;
+    }
+
+    /**
+     * Get the number of distinct interval rings written so far, including the
+     * chromatic scale.
+     * 
+     * @return the number of rings
+     */
+    public int getRingCount()
+    {
+        return ringCount;
+    }
+
+    /**
+     * Flush the index and close the store.
+     */
+    public void shutdown()
+    {
+        indexProvider.shutdown();
+        inserter.shutdown();
+    }
+
+    @Override
+    public void version( final String version )
+    {
+        catalogVersion = version;
+    }
+
+    @Override
+    public void scaleFamily( final String[] path )
+    {
+        family( scaleFamilies, ScaleTypes.SCALE_FAMILY, path );
+    }
+
+    @Override
+    public void scales( final String[] family, final int[] steps,
+            final String[] names )
+    {
+        long familyNode = existingFamily( scaleFamilies, family );
+        int sum = 0;
+        for ( int step : steps )
+        {
+            sum += step;
+        }
+        if ( sum % LatinInterval.OCTAVE.getSemitones() != 0 )
+        {
+            throw new IllegalArgumentException(
+                    "The sum of the scale must be a multiple of twelve semitones, but was: ["
+                            + sum + "]" );
+        }
+        long[] ring = ring( steps );
+        for ( int i = 0; i < names.length; i++ )
+        {
+            inserter.createRelationship( familyNode, ring[i % ring.length],
+                    ScaleTypes.SCALE, map( NAME, names[i] ) );
+        }
+    }
+
+    @Override
+    public void tuningFamily( final String[] path )
+    {
+        family( tuningFamilies, TuningTypes.TUNING_FAMILY, path );
+    }
+
+    @Override
+    public void tuning( final String[] family, final String name,
+            final NoteRepository rootNote, final int[] steps )
+    {
+        long familyNode = existingFamily( tuningFamilies, family );
+        long tuning = createNode();
+        inserter.createRelationship( tuning,
+                notes[PitchClassSet.normalize( rootNote.interval()
+                        .getSemitones() )], TuningTypes.TUNING_ROOT_NOTE, null );
+        inserter.createRelationship( tuning, tuningIntervals( steps ),
+                TuningTypes.TUNING_INTERVAL_ROOT, null );
+        inserter.createRelationship( familyNode, tuning, TuningTypes.TUNING,
+                map( NAME, name ) );
+    }
+
+    private void setupNotes()
+    {
+        for ( int pitchClass = 0; pitchClass < notes.length; pitchClass++ )
+        {
+            notes[pitchClass] = inserter.createNode( map(
+                    NoteImpl.PITCH_CLASS, pitchClass, NoteImpl.SHARP_NAME,
+                    NoteService.sharpName( pitchClass ), NoteImpl.FLAT_NAME,
+                    NoteService.flatName( pitchClass ) ) );
+        }
+        inserter.createRelationship( referenceNode, notes[0],
+                NoteTypes.NOTES, null );
+        for ( int pitchClass = 0; pitchClass < notes.length; pitchClass++ )
+        {
+            inserter.createRelationship( notes[pitchClass],
+                    note( pitchClass + 1 ), LatinInterval.SEMITONE, null );
+            for ( DiatonicInterval interval : DiatonicInterval.values() )
+            {
+                if ( interval.equals( DiatonicInterval.UNISON ) )
+                {
+                    continue;
+                }
+                inserter.createRelationship( notes[pitchClass],
+                        note( pitchClass + interval.getSemitones() ), interval,
+                        null );
+            }
+        }
+    }
+
+    private long note( final int pitchClass )
+    {
+        return notes[PitchClassSet.normalize( pitchClass )];
+    }
+
+    private long rootFamily( final RelationshipType familiesType,
+            final RelationshipType familyType, final String name )
+    {
+        long familiesNode = createNode();
+        inserter.createRelationship( referenceNode, familiesNode,
+                familiesType, null );
+        long root = createNode();
+        inserter.createRelationship( familiesNode, root, familyType,
+                map( NAME, name ) );
+        return root;
+    }
+
+    private long family( final Map<String, Long> families,
+            final RelationshipType type, final String[] path )
+    {
+        String key = pathKey( path, path.length );
+        Long node = families.get( key );
+        if ( node == null )
+        {
+            long parent = existingFamily( families,
+                    Arrays.copyOf( path, path.length - 1 ) );
+            node = createNode();
+            inserter.createRelationship( parent, node, type,
+                    map( NAME, path[path.length - 1] ) );
+            families.put( key, node );
+        }
+        return node;
+    }
+
+    private static long existingFamily( final Map<String, Long> families,
+            final String[] path )
+    {
+        String key = pathKey( path, path.length );
+        Long node = families.get( key );
+        if ( node == null )
+        {
+            throw new IllegalArgumentException(
+                    "The family has to be declared before it is used: [" + key
+                            + "]" );
+        }
+        return node;
+    }
+
+    private static String pathKey( final String[] path, final int length )
+    {
+        StringBuilder key = new StringBuilder();
+        for ( int i = 0; i < length; i++ )
+        {
+            if ( i > 0 )
+            {
+                key.append( PATH_SEPARATOR );
+            }
+            key.append( path[i] );
+        }
+        return key.toString();
+    }
+
+    /**
+     * Get the nodes of the ring for a sequence of intervals, writing the ring
+     * if it does not exist yet.
+     * 
+     * @param steps the intervals, in semitones
+     * @return the nodes of the ring, where the node at a position starts on
+     *         the interval at the same position
+     */
+    private long[] ring( final int[] steps )
+    {
+        if ( !RotationKey.isPackable( steps ) )
+        {
+            return newRing( steps, 0 );
+        }
+        int rotation = RotationKey.canonicalRotation( steps );
+        long key = RotationKey.pack( steps, rotation );
+        long[] canonical = rings.get( key );
+        if ( canonical == null )
+        {
+            canonical = newRing( steps, rotation );
+            rings.put( key, canonical );
+            rotationIndex.add( canonical[0],
+                    map( RawScaleService.ROTATION_KEY, key ) );
+        }
+        int degree = steps.length;
+        long[] ring = new long[degree];
+        for ( int i = 0; i < degree; i++ )
+        {
+            ring[i] = canonical[( i - rotation + degree ) % degree];
+        }
+        return ring;
+    }
+
+    private long[] newRing( final int[] steps, final int rotation )
+    {
+        int degree = steps.length;
+        long[] ring = new long[degree];
+        for ( int i = 0; i < degree; i++ )
+        {
+            ring[i] = inserter.createNode( map( ScaleImpl.DEGREE, degree ) );
+        }
+        for ( int i = 0; i < degree; i++ )
+        {
+            inserter.createRelationship( ring[i], ring[( i + 1 ) % degree],
+                    interval( steps[( rotation + i ) % degree] ), null );
+        }
+        inserter.createRelationship( rawScaleNode( degree ), ring[0],
+                RawTypes.RAW_SCALE, null );
+        ringCount++;
+        return ring;
+    }
+
+    private long rawScaleNode( final int degree )
+    {
+        Long node = rawScaleNodes.get( degree );
+        if ( node == null )
+        {
+            node = createNode();
+            inserter.createRelationship( rawScalesNode, node,
+                    RawScales.getFromTones( degree ), null );
+            rawScaleNodes.put( degree, node );
+        }
+        return node;
+    }
+
+    private long tuningIntervals( final int[] steps )
+    {
+        String key = Arrays.toString( steps );
+        Long root = tuningIntervals.get( key );
+        if ( root == null )
+        {
+            root = inserter.createNode( map( ScaleImpl.DEGREE, steps.length + 1 ) );
+            long current = root;
+            for ( int step : steps )
+            {
+                long next = createNode();
+                inserter.createRelationship( current, next, interval( step ),
+                        null );
+                current = next;
+            }
+            tuningIntervals.put( key, root );
+        }
+        return root;
+    }
+
+    private static DiatonicInterval interval( final int semitones )
+    {
+        return DiatonicInterval.getFromSemitones( PitchClassSet.normalize( semitones ) );
+    }
+
+    private long createNode()
+    {
+        return inserter.createNode( null );
+    }
+
+    /**
+     * Load a catalog file into a new store.
+     * 
+     * @param args the store directory and the catalog file
+     * @throws IOException if the catalog could not be read
+     */
+    public static void main( final String[] args ) throws IOException
+    {
+        if ( args.length != 2 )
+        {
+            System.err.println( "Usage: BatchCatalogLoader <store directory> <catalog file>" );
+            return;
+        }
+        BatchCatalogLoader loader = new BatchCatalogLoader( args[0] );
+        try
+        {
+            Reader catalog = new InputStreamReader( new FileInputStream(
+                    args[1] ), "UTF-8" );
+            try
+            {
+                int records = loader.load( catalog );
+                System.out.println( "Loaded " + records + " records, "
+                                    + loader.getRingCount() + " rings." );
+            }
+            finally
+            {
+                catalog.close();
+            }
+        }
+        finally
+        {
+            loader.shutdown();
+        }
+    }
+}
@@ -0,0 +1,80 @@
+/**
+ * Copyright (c) 2002-2013 "Neo Technology,"
+ * Network Engine for Objects in Lund AB [http://neotechnology.com]
+ *
+ * This file is part of Neo4j.
+ *
+ * Neo4j is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package se.nawroth.scales.catalog;
+
+import se.nawroth.scales.note.NoteRepository;
+
+/**
+ * Receives the records of a catalog, in the order they appear in the catalog.
+ * Families are always declared before anything is put into them.
+ * 
+ * @author Anders Nawroth
+ * @see CatalogReader
+ */
+public interface CatalogHandler
+{
+    /**
+     * The version of the catalog.
+     * 
+     * @param version the version
+     */
+    void version( String version );
+
+    /**
+     * A scale family. The family is placed below the family given by the path
+     * without its last element, the root family when the path has one
+     * element.
+     * 
+     * @param path the names of the families leading to this family, including
+     *            the name of the family itself
+     */
+    void scaleFamily( String[] path );
+
+    /**
+     * A set of modal scales sharing the same intervals. The first name belongs
+     * to the scale starting on the first interval, the second name to the scale
+     * starting on the second interval and so on.
+     * 
+     * @param family the path of the family the scales belong to
+     * @param steps the intervals, in semitones
+     * @param names the names of the scales
+     */
+    void scales( String[] family, int[] steps, String[] names );
+
+    /**
+     * A tuning family, see {@link #scaleFamily(String[])}.
+     * 
+     * @param path the names of the families leading to this family, including
+     *            the name of the family itself
+     */
+    void tuningFamily( String[] path );
+
+    /**
+     * A tuning.
+     * 
+     * @param family the path of the family the tuning belongs to
+     * @param name the name of the tuning
+     * @param rootNote the note of the lowest string
+     * @param steps the intervals between the strings, in semitones, starting
+     *            from the lowest string
+     */
+    void tuning( String[] family, String name, NoteRepository rootNote,
+            int[] steps );
+}
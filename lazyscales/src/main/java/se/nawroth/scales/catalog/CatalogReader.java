@@ -0,0 +1,255 @@
+/**
+ * Copyright (c) 2002-2013 "Neo Technology,"
+ * Network Engine for Objects in Lund AB [http://neotechnology.com]
+ *
+ * This file is part of Neo4j.
+ *
+ * Neo4j is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package se.nawroth.scales.catalog;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.Reader;
+import java.util.regex.Pattern;
+
+import se.nawroth.scales.note.NoteRepository;
+
+/**
+ * Reads a catalog of scales and tunings, line by line, passing every record on
+ * to a {@link CatalogHandler}. The catalog is never held in memory as a whole.
+ * <p>
+ * Every line holds one record, with the fields separated by <code>|</code>.
+ * Empty lines and lines starting with <code>#</code> are ignored. Family paths
+ * are family names separated by <code>/</code>, intervals are semitones
+ * separated by spaces. The records are:
+ * 
+ * <pre>
+ * version | 1
+ * scale family | Diatonic/Major Scale Modes
+ * scales | Diatonic/Major Scale Modes | 2 2 1 2 2 2 1 | Ionian | Dorian | ...
+ * tuning family | Guitar
+ * tuning | Guitar | Standard | E | 5 5 5 4 5
+ * </pre>
+ * 
+ * The root note of a tuning is given by its {@link NoteRepository} name.
+ * 
+ * @author Anders Nawroth
+ */
+public final class CatalogReader
+{
+    private static final String VERSION = "version";
+    private static final String SCALE_FAMILY = "scale family";
+    private static final String SCALES = "scales";
+    private static final String TUNING_FAMILY = "tuning family";
+    private static final String TUNING = "tuning";
+    private static final String COMMENT = "#";
+    private static final Pattern FIELD_SEPARATOR = Pattern.compile( "\\|" );
+    private static final Pattern PATH_SEPARATOR = Pattern.compile( "/" );
+    private static final Pattern STEP_SEPARATOR = Pattern.compile( "\\s+" );
+
+    private CatalogReader()
+    {
+        // no instantiation
+    }
+
+    /**
+     * Read a catalog.
+     * 
+     * @param catalog the catalog to read, will not be closed
+     * @param handler the handler to pass the records to
+     * @return the number of records read
+     * @throws IOException if the catalog could not be read
+     * @throws IllegalArgumentException if the catalog is malformed, or the
+     *             handler rejected a record
+     */
+    public static int read( final Reader catalog, final CatalogHandler handler )
+            throws IOException
+    {
+        BufferedReader reader = new BufferedReader( catalog );
+        int lineNumber = 0;
+        int records = 0;
+        String line;
+        while ( ( line = reader.readLine() ) != null )
+        {
+            lineNumber++;
+            line = line.trim();
+            if ( line.length() == 0 || line.startsWith( COMMENT ) )
+            {
+                continue;
+            }
+            try
+            {
+                readRecord( fields( line ), handler );
+            }
+            catch ( IllegalArgumentException e )
+            {
+                throw new IllegalArgumentException( "Line [" + lineNumber
+                                                    + "]: " + e.getMessage(), e );
+            }
+            records++;
+        }
+        return records;
+    }
+
+    /**
+     * Read the version of a catalog. Reading stops at the version record, so
+     * this is cheap as long as the version is declared at the top.
+     * 
+     * @param catalog the catalog to read, will not be closed
+     * @return the version, or <code>null</code> if the catalog has no version
+     * @throws IOException if the catalog could not be read
+     */
+    public static String readVersion( final Reader catalog ) throws IOException
+    {
+        BufferedReader reader = new BufferedReader( catalog );
+        String line;
+        while ( ( line = reader.readLine() ) != null )
+        {
+            line = line.trim();
+            if ( line.length() == 0 || line.startsWith( COMMENT ) )
+            {
+                continue;
+            }
+            String[] fields = fields( line );
+            if ( VERSION.equals( fields[0] ) )
+            {
+                expectFields( fields, 2 );
+                return fields[1];
+            }
+        }
+        return null;
+    }
+
+    private static void readRecord( final String[] fields,
+            final CatalogHandler handler )
+    {
+        String type = fields[0];
+        if ( VERSION.equals( type ) )
+        {
+            expectFields( fields, 2 );
+            handler.version( fields[1] );
+        }
+        else if ( SCALE_FAMILY.equals( type ) )
+        {
+            expectFields( fields, 2 );
+            handler.scaleFamily( path( fields[1] ) );
+        }
+        else if ( SCALES.equals( type ) )
+        {
+            if ( fields.length < 4 )
+            {
+                throw new IllegalArgumentException(
+                        "Scales need a family, intervals and at least one name." );
+            }
+            String[] names = new String[fields.length - 3];
+            System.arraycopy( fields, 3, names, 0, names.length );
+            handler.scales( path( fields[1] ), steps( fields[2] ), names );
+        }
+        else if ( TUNING_FAMILY.equals( type ) )
+        {
+            expectFields( fields, 2 );
+            handler.tuningFamily( path( fields[1] ) );
+        }
+        else if ( TUNING.equals( type ) )
+        {
+            expectFields( fields, 5 );
+            handler.tuning( path( fields[1] ), fields[2], note( fields[3] ),
+                    steps( fields[4] ) );
+        }
+        else
+        {
+            throw new IllegalArgumentException( "Unknown record type: ["
+                                                + type + "]" );
+        }
+    }
+
+    private static String[] fields( final String line )
+    {
+        String[] fields = FIELD_SEPARATOR.split( line, -1 );
+        for ( int i = 0; i < fields.length; i++ )
+        {
+            fields[i] = fields[i].trim();
+            if ( fields[i].length() == 0 )
+            {
+                throw new IllegalArgumentException( "Empty field at position: ["
+                                                    + i + "]" );
+            }
+        }
+        return fields;
+    }
+
+    private static void expectFields( final String[] fields, final int count )
+    {
+        if ( fields.length != count )
+        {
+            throw new IllegalArgumentException( "Expected [" + count
+                                                + "] fields for " + fields[0]
+                                                + ", but found: ["
+                                                + fields.length + "]" );
+        }
+    }
+
+    private static String[] path( final String field )
+    {
+        String[] path = PATH_SEPARATOR.split( field );
+        for ( int i = 0; i < path.length; i++ )
+        {
+            path[i] = path[i].trim();
+            if ( path[i].length() == 0 )
+            {
+                throw new IllegalArgumentException( "Empty family name in: ["
+                                                    + field + "]" );
+            }
+        }
+        return path;
+    }
+
+    private static int[] steps( final String field )
+    {
+        String[] values = STEP_SEPARATOR.split( field );
+        int[] steps = new int[values.length];
+        for ( int i = 0; i < values.length; i++ )
+        {
+            try
+            {
+                steps[i] = Integer.parseInt( values[i] );
+            }
+            catch ( NumberFormatException e )
+            {
+                throw new IllegalArgumentException( "Not an interval: ["
+                                                    + values[i] + "]", e );
+            }
+            if ( steps[i] < 0 )
+            {
+                throw new IllegalArgumentException(
+                        "Intervals can not be negative: [" + steps[i] + "]" );
+            }
+        }
+        return steps;
+    }
+
+    private static NoteRepository note( final String field )
+    {
+        try
+        {
+            return NoteRepository.valueOf( field );
+        }
+        catch ( IllegalArgumentException e )
+        {
+            throw new IllegalArgumentException( "Unknown note: [" + field
+                                                + "]", e );
+        }
+    }
+}
@@ -25,9 +25,19 @@ import se.nawroth.scales.api.Chord;
 import se.nawroth.scales.api.ChordFamily;
 import se.nawroth.scales.util.CategoryImpl;
 
+/**
+ * Default implementation of {@link ChordFamily}.
+ * 
+ * @author Anders Nawroth
+ */
 public final class ChordFamilyImpl extends CategoryImpl<ChordFamily, Chord>
         implements ChordFamily
 {
+    /**
+     * Create instance from the underlying {@link Node}.
+     * 
+     * @param underlyingNode the underlying node
+     */
     public ChordFamilyImpl( final Node underlyingNode )
     {
         super( underlyingNode, ChordNavigation.getNavigation() );
@@ -64,6 +74,13 @@ public final class ChordFamilyImpl extends CategoryImpl<ChordFamily, Chord>
         return ChordNavigation.getNavigation().addItem( this, chord );
     }
 
+    @Override
+    public boolean addChord( final Chord chord, final String name )
+    {
+        return ChordNavigation.getNavigation().addItem( this, chord,
+                ChordImpl.NAME, name );
+    }
+
     @Override
     public String toString()
     {
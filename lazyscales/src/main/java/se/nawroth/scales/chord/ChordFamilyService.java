@@ -0,0 +1,87 @@
+/**
+ * Copyright (c) 2002-2013 "Neo Technology,"
+ * Network Engine for Objects in Lund AB [http://neotechnology.com]
+ *
+ * This file is part of Neo4j.
+ *
+ * Neo4j is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package se.nawroth.scales.chord;
+
+import se.nawroth.scales.CatalogStore;
+import se.nawroth.scales.api.ChordFamily;
+import se.nawroth.scales.util.StoreMetrics;
+
+/**
+ * Perform operations on {@link ChordFamily}s.
+ * 
+ * @author Anders Nawroth
+ */
+public final class ChordFamilyService
+{
+    /**
+     * The name of the root chord family.
+     */
+    public static final String ROOT_NAME = "Chord families";
+    private final CatalogStore store;
+
+    /**
+     * Create the service.
+     * 
+     * @param store the store to use
+     */
+    public ChordFamilyService( final CatalogStore store )
+    {
+        this.store = store;
+    }
+
+    /**
+     * Get the root {@link ChordFamily}.
+     * 
+     * @return the root chord family
+     */
+    public ChordFamily getRootChordFamily()
+    {
+        StoreMetrics.Call call = store.enter( "ChordFamilyService.getRootChordFamily" );
+        try
+        {
+            return store.getRootChordFamily();
+        }
+        finally
+        {
+            call.exit();
+        }
+    }
+
+    /**
+     * Create a new chord family.
+     * 
+     * @param parentFamily the parent family
+     * @param name the name of the chord family
+     * @return the created chord family
+     */
+    public ChordFamily newChordFamily( final ChordFamily parentFamily,
+            final String name )
+    {
+        StoreMetrics.Call call = store.enter( "ChordFamilyService.newChordFamily" );
+        try
+        {
+            return store.newChordFamily( parentFamily, name );
+        }
+        finally
+        {
+            call.exit();
+        }
+    }
+}
@@ -25,6 +25,7 @@ import org.neo4j.graphdb.Node;
 
 import se.nawroth.scales.api.Chord;
 import se.nawroth.scales.api.NamedInterval;
+import se.nawroth.scales.api.PitchClassSet;
 import se.nawroth.scales.util.collection.BaseCollection;
 
 /**
@@ -35,13 +36,25 @@ import se.nawroth.scales.util.collection.BaseCollection;
 public final class ChordImpl extends BaseCollection<NamedInterval, Node>
         implements Chord
 {
-    private static final String NAME = "name";
+    static final String NAME = "name";
+    static final String MASK = "mask";
 
-    protected ChordImpl( final Node start )
+    /**
+     * Create instance from the underlying {@link Node}.
+     * 
+     * @param start the underlying node
+     */
+    public ChordImpl( final Node start )
     {
         super( NamedInterval.class, start );
     }
 
+    @Override
+    public PitchClassSet getPitchClassSet()
+    {
+        return PitchClassSet.of( (Integer) getStart().getProperty( MASK ), 0 );
+    }
+
     @Override
     public String getName()
     {
@@ -60,16 +73,68 @@ public final class ChordImpl extends BaseCollection<NamedInterval, Node>
         return getStart();
     }
 
+    /**
+     * Compare by name first, with unnamed chords after the named ones, then by
+     * the start node, so only equal chords compare as <code>0</code>.
+     */
     @Override
     public int compareTo( final Chord other )
     {
-        return getName().compareTo( other.getName() );
+        String name = getName();
+        String otherName = other.getName();
+        if ( name == null || otherName == null )
+        {
+            if ( name != otherName )
+            {
+                return name == null ? 1 : -1;
+            }
+        }
+        else
+        {
+            int byName = name.compareTo( otherName );
+            if ( byName != 0 )
+            {
+                return byName;
+            }
+        }
+        if ( other instanceof ChordImpl )
+        {
+            return Long.compare( getStart().getId(), ( (ChordImpl) other ).getStart()
+                    .getId() );
+        }
+        return getClass().getName()
+                .compareTo( other.getClass()
+                        .getName() );
+    }
+
+    @Override
+    public int hashCode()
+    {
+        return getStart().hashCode();
+    }
+
+    @Override
+    public boolean equals( final Object obj )
+    {
+        return obj instanceof ChordImpl
+               && getStart().equals( ( (ChordImpl) obj ).getStart() );
     }
 
     @Override
     public Iterator<NamedInterval> iterator()
     {
-        // TODO Auto-generated method stub
-        return null;
+        return new ChordIterator( getStart() );
+    }
+
+    @Override
+    public String toString()
+    {
+        StringBuilder builder = new StringBuilder( String.valueOf( getName() ) ).append( ":" );
+        for ( NamedInterval interval : this )
+        {
+            builder.append( ' ' )
+                    .append( interval.getShortName() );
+        }
+        return builder.toString();
     }
 }
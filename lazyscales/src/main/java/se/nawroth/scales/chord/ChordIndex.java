@@ -0,0 +1,76 @@
+/**
+ * Copyright (c) 2002-2013 "Neo Technology,"
+ * Network Engine for Objects in Lund AB [http://neotechnology.com]
+ *
+ * This file is part of Neo4j.
+ *
+ * Neo4j is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package se.nawroth.scales.chord;
+
+import java.util.List;
+
+import se.nawroth.scales.api.Chord;
+import se.nawroth.scales.api.PitchClassSet;
+
+/**
+ * All distinct chords, held in a table indexed by their pitch class mask
+ * relative to the tonic. There is at most one chord for each mask, as
+ * {@link ChordService} refuses to create a chord with the pitch classes of an
+ * existing one.
+ * 
+ * @author Anders Nawroth
+ */
+final class ChordIndex
+{
+    private final long generation;
+    private final Chord[] chords = new Chord[PitchClassSet.CHROMATIC_MASK + 1];
+
+    /**
+     * Index the chords of a store.
+     * 
+     * @param generation the generation of the data that is read
+     * @param chords all chords of the store
+     */
+    ChordIndex( final long generation, final List<Chord> chords )
+    {
+        this.generation = generation;
+        for ( Chord chord : chords )
+        {
+            this.chords[chord.getPitchClassSet()
+                    .getRelativeMask()] = chord;
+        }
+    }
+
+    /**
+     * Get the generation of the data in this index.
+     * 
+     * @return the generation
+     */
+    long getGeneration()
+    {
+        return generation;
+    }
+
+    /**
+     * Get the chord with a set of pitch classes.
+     * 
+     * @param mask the pitch classes relative to the tonic, bit 0 set
+     * @return the chord, or <code>null</code> if there is no such chord
+     */
+    Chord get( final int mask )
+    {
+        return chords[mask];
+    }
+}
@@ -28,6 +28,12 @@ import se.nawroth.scales.api.NamedInterval;
 import se.nawroth.scales.util.collection.BaseIterator;
 import se.nawroth.scales.util.collection.IteratorInitializer;
 
+/**
+ * Iterate over the intervals of a {@link se.nawroth.scales.api.Chord}, from the
+ * tonic upwards. Every interval is relative to the tonic.
+ * 
+ * @author Anders Nawroth
+ */
 public class ChordIterator extends BaseIterator<NamedInterval, Node>
 {
     private static final IteratorInitializer<Node> INITIALIZER = new IteratorInitializer<Node>()
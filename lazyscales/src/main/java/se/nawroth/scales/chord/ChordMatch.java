@@ -0,0 +1,82 @@
+/**
+ * Copyright (c) 2002-2013 "Neo Technology,"
+ * Network Engine for Objects in Lund AB [http://neotechnology.com]
+ *
+ * This file is part of Neo4j.
+ *
+ * Neo4j is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package se.nawroth.scales.chord;
+
+import se.nawroth.scales.api.Chord;
+import se.nawroth.scales.api.Note;
+
+/**
+ * A chord identified from a set of notes: the chord, its root among the notes
+ * and the inversion given by the bass note.
+ * 
+ * @author Anders Nawroth
+ */
+public final class ChordMatch
+{
+    private final Chord chord;
+    private final Note root;
+    private final int inversion;
+
+    ChordMatch( final Chord chord, final Note root, final int inversion )
+    {
+        this.chord = chord;
+        this.root = root;
+        this.inversion = inversion;
+    }
+
+    /**
+     * Get the chord that matched.
+     * 
+     * @return the chord
+     */
+    public Chord getChord()
+    {
+        return chord;
+    }
+
+    /**
+     * Get the root of the chord.
+     * 
+     * @return the root note
+     */
+    public Note getRoot()
+    {
+        return root;
+    }
+
+    /**
+     * Get the inversion of the chord, which is the number of chord tones below
+     * the bass note when counting upwards from the root.
+     * 
+     * @return <code>0</code> for root position, <code>1</code> for the first
+     *         inversion and so on
+     */
+    public int getInversion()
+    {
+        return inversion;
+    }
+
+    @Override
+    public String toString()
+    {
+        return "ChordMatch [" + chord.getName() + ", root " + root
+               + ", inversion " + inversion + "]";
+    }
+}
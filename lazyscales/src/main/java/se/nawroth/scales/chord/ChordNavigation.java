@@ -25,6 +25,11 @@ import se.nawroth.scales.api.Chord;
 import se.nawroth.scales.api.ChordFamily;
 import se.nawroth.scales.util.CategoryWithPropertiesUtil;
 
+/**
+ * Navigation between {@link ChordFamily}s and their {@link Chord}s.
+ * 
+ * @author Anders Nawroth
+ */
 final class ChordNavigation
 {
     private static final CategoryWithPropertiesUtil<ChordFamily, Chord> NAVIGATION;
@@ -37,8 +42,7 @@ final class ChordNavigation
             @Override
             protected ChordFamily categoryFromNode( final Node node )
             {
-                // TODO Auto-generated method stub
-                return null;
+                return new ChordFamilyImpl( node );
             }
 
             @Override
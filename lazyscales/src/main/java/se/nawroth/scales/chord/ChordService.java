@@ -0,0 +1,177 @@
+/**
+ * Copyright (c) 2002-2013 "Neo Technology,"
+ * Network Engine for Objects in Lund AB [http://neotechnology.com]
+ *
+ * This file is part of Neo4j.
+ *
+ * Neo4j is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package se.nawroth.scales.chord;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import se.nawroth.scales.CatalogStore;
+import se.nawroth.scales.api.Chord;
+import se.nawroth.scales.api.ChordFamily;
+import se.nawroth.scales.api.DiatonicInterval;
+import se.nawroth.scales.api.Interval;
+import se.nawroth.scales.api.Note;
+import se.nawroth.scales.api.PitchClassSet;
+import se.nawroth.scales.util.StoreMetrics;
+
+/**
+ * Create {@link Chord}s and identify chords from notes.
+ * <p>
+ * Chords are identified using a table of all chords, indexed by their pitch
+ * classes relative to the tonic. The table is read on first use, and read
+ * again after the catalog has changed, so identifying a chord is a matter of
+ * at most twelve array lookups.
+ * 
+ * @author Anders Nawroth
+ */
+public final class ChordService
+{
+    private final CatalogStore store;
+    private volatile ChordIndex index = null;
+
+    /**
+     * Create the service.
+     * 
+     * @param store the store to use
+     */
+    public ChordService( final CatalogStore store )
+    {
+        this.store = store;
+    }
+
+    /**
+     * Create a new {@link Chord}.
+     * 
+     * @param family the family of the chord
+     * @param name the name of the chord
+     * @param intervals the intervals of the chord, each one relative to the
+     *            tonic
+     * @return the created chord
+     * @throws IllegalArgumentException if the intervals repeat a pitch class,
+     *             or if there already is a chord with the same pitch classes
+     */
+    public Chord newChord( final ChordFamily family, final String name,
+            final Interval... intervals )
+    {
+        StoreMetrics.Call call = store.enter( "ChordService.newChord" );
+        try
+        {
+            if ( intervals.length == 0 )
+            {
+                throw new IllegalArgumentException(
+                        "There can't be a chord without any interval!" );
+            }
+            int mask = 1;
+            DiatonicInterval[] tones = new DiatonicInterval[intervals.length];
+            for ( int i = 0; i < intervals.length; i++ )
+            {
+                tones[i] = DiatonicInterval.getFromInterval( intervals[i] );
+                int bit = 1 << tones[i].getSemitones();
+                if ( ( mask & bit ) != 0 )
+                {
+                    throw new IllegalArgumentException(
+                            "The intervals of a chord must give different pitch classes, but found a duplicate: ["
+                                    + intervals[i] + "]" );
+                }
+                mask |= bit;
+            }
+            Chord existing = store.findChord( mask );
+            if ( existing != null )
+            {
+                throw new IllegalArgumentException(
+                        "There is already a chord with these pitch classes: ["
+                                + existing + "]" );
+            }
+            return store.newChord( family, name, tones );
+        }
+        finally
+        {
+            call.exit();
+        }
+    }
+
+    /**
+     * Identify the chords that consist of a set of notes. The notes can be in
+     * any order, and any of them can be the root. The first note is taken to
+     * be the bass, which decides the inversion of the matches.
+     * 
+     * @param notes the notes to identify, bass note first
+     * @return the matching chords, root position first and then with the root
+     *         moving upwards from the bass
+     */
+    public List<ChordMatch> identify( final Note... notes )
+    {
+        StoreMetrics.Call call = store.enter( "ChordService.identify" );
+        try
+        {
+            if ( notes.length == 0 )
+            {
+                throw new IllegalArgumentException(
+                        "There has to be at least one note." );
+            }
+            Note[] byPitchClass = new Note[PitchClassSet.PITCH_CLASSES];
+            int mask = 0;
+            for ( Note note : notes )
+            {
+                byPitchClass[note.getPitchClass()] = note;
+                mask |= 1 << note.getPitchClass();
+            }
+            int bass = notes[0].getPitchClass();
+            ChordIndex chords = getIndex();
+            List<ChordMatch> matches = new ArrayList<ChordMatch>( 1 );
+            for ( int i = 0; i < PitchClassSet.PITCH_CLASSES; i++ )
+            {
+                int root = PitchClassSet.normalize( bass + i );
+                if ( !PitchClassSet.contains( mask, root ) )
+                {
+                    continue;
+                }
+                int relative = PitchClassSet.transpose( mask, -root );
+                Chord found = chords.get( relative );
+                if ( found == null )
+                {
+                    continue;
+                }
+                // the bass is i semitones below the root, count the tones under it
+                int inversion = Integer.bitCount( relative
+                                                  & ( ( 1 << PitchClassSet.normalize( -i ) ) - 1 ) );
+                matches.add( new ChordMatch( found,
+                        byPitchClass[root], inversion ) );
+            }
+            return matches;
+        }
+        finally
+        {
+            call.exit();
+        }
+    }
+
+    private ChordIndex getIndex()
+    {
+        long generation = store.getGeneration();
+        ChordIndex current = index;
+        if ( current == null || current.getGeneration() != generation )
+        {
+            current = new ChordIndex( generation, store.getChords() );
+            index = current;
+        }
+        return current;
+    }
+}
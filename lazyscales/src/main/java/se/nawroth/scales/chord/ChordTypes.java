@@ -34,5 +34,13 @@ enum ChordTypes implements RelationshipType
     /**
      * A concrete chord in a chord family.
      */
-    CHORD;
+    CHORD,
+    /**
+     * Entry point to all distinct chords.
+     */
+    CHORDS,
+    /**
+     * Points from the entry point to every distinct chord.
+     */
+    DISTINCT_CHORD;
 }
@@ -0,0 +1,176 @@
+/**
+ * Copyright (c) 2002-2013 "Neo Technology,"
+ * Network Engine for Objects in Lund AB [http://neotechnology.com]
+ *
+ * This file is part of Neo4j.
+ *
+ * Neo4j is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package se.nawroth.scales.chord;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import org.neo4j.graphdb.Direction;
+import org.neo4j.graphdb.Node;
+import org.neo4j.graphdb.Relationship;
+
+import se.nawroth.scales.api.Chord;
+import se.nawroth.scales.api.ChordFamily;
+import se.nawroth.scales.api.DiatonicInterval;
+import se.nawroth.scales.api.Interval;
+import se.nawroth.scales.util.GraphDb;
+import se.nawroth.scales.util.NamedEntityImpl;
+
+/**
+ * Keeps chords and chord families in the graph. A chord is a chain of
+ * interval relationships, with the pitch classes of the chord stored on its
+ * start node. All distinct chords are linked from one entry point. Writes
+ * have to be made inside a transaction.
+ * 
+ * @author Anders Nawroth
+ * @see se.nawroth.scales.GraphCatalogStore
+ */
+public final class GraphChordStore
+{
+    private final GraphDb graphDb;
+
+    /**
+     * Create the store.
+     * 
+     * @param graphDb the database to use
+     */
+    public GraphChordStore( final GraphDb graphDb )
+    {
+        this.graphDb = graphDb;
+    }
+
+    /**
+     * Get the root {@link ChordFamily}, creating it on first access.
+     * 
+     * @return the root chord family
+     */
+    public ChordFamily getRootChordFamily()
+    {
+        Node referenceNode = graphDb.getReferenceNode(
+                ChordTypes.CHORD_FAMILIES, ChordTypes.CHORD_FAMILY );
+        ChordFamilyImpl root = new ChordFamilyImpl( referenceNode );
+        String name = root.getName();
+        if ( name == null )
+        {
+            ChordNavigation.getNavigation().setCategoryRelationshipProperty(
+                    root, NamedEntityImpl.NAME, ChordFamilyService.ROOT_NAME );
+        }
+        return root;
+    }
+
+    /**
+     * Create a new chord family.
+     * 
+     * @param parentFamily the parent family
+     * @param name the name of the chord family
+     * @return the created chord family
+     */
+    public ChordFamily newChordFamily( final ChordFamily parentFamily,
+            final String name )
+    {
+        return new ChordFamilyImpl( parentFamily, graphDb.createNode(), name );
+    }
+
+    /**
+     * Create a new {@link Chord}. The intervals have to give different pitch
+     * classes, which no other chord has.
+     * 
+     * @param family the family of the chord
+     * @param name the name of the chord
+     * @param intervals the intervals of the chord, each one relative to the
+     *            tonic
+     * @return the created chord
+     */
+    public Chord newChord( final ChordFamily family, final String name,
+            final Interval... intervals )
+    {
+        int mask = 1;
+        for ( Interval interval : intervals )
+        {
+            mask |= 1 << interval.getSemitones();
+        }
+        Node start = graphDb.createNode();
+        start.setProperty( ChordImpl.MASK, mask );
+        Node current = start;
+        for ( Interval interval : intervals )
+        {
+            Node next = graphDb.createNode();
+            current.createRelationshipTo( next,
+                    DiatonicInterval.getFromInterval( interval ) );
+            current = next;
+        }
+        graphDb.getReferenceNode( ChordTypes.CHORDS )
+                .createRelationshipTo( start, ChordTypes.DISTINCT_CHORD );
+        Chord chord = new ChordImpl( start );
+        family.addChord( chord, name );
+        return chord;
+    }
+
+    /**
+     * Find the chord with a set of pitch classes.
+     * 
+     * @param mask the pitch classes relative to the tonic, bit 0 set
+     * @return the chord or <code>null</code> if there is no such chord
+     */
+    public Chord findChord( final int mask )
+    {
+        for ( Node start : getStartNodes() )
+        {
+            if ( (Integer) start.getProperty( ChordImpl.MASK ) == mask )
+            {
+                return new ChordImpl( start );
+            }
+        }
+        return null;
+    }
+
+    /**
+     * Get all chords. Never writes to the database.
+     * 
+     * @return the chords
+     */
+    public List<Chord> getChords()
+    {
+        List<Chord> chords = new ArrayList<Chord>();
+        for ( Node start : getStartNodes() )
+        {
+            chords.add( new ChordImpl( start ) );
+        }
+        return chords;
+    }
+
+    private List<Node> getStartNodes()
+    {
+        List<Node> startNodes = new ArrayList<Node>();
+        Relationship chordsRel = graphDb.getReferenceNode()
+                .getSingleRelationship( ChordTypes.CHORDS, Direction.OUTGOING );
+        if ( chordsRel == null )
+        {
+            return startNodes;
+        }
+        for ( Relationship rel : chordsRel.getEndNode()
+                .getRelationships( ChordTypes.DISTINCT_CHORD,
+                        Direction.OUTGOING ) )
+        {
+            startNodes.add( rel.getEndNode() );
+        }
+        return startNodes;
+    }
+}
@@ -0,0 +1,96 @@
+/**
+ * Copyright (c) 2002-2013 "Neo Technology,"
+ * Network Engine for Objects in Lund AB [http://neotechnology.com]
+ *
+ * This file is part of Neo4j.
+ *
+ * Neo4j is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package se.nawroth.scales.fretboard;
+
+/**
+ * The cost model used when finding position patterns. A hand covers a number
+ * of frets without effort; reaching outside of them costs a stretch per fret,
+ * and moving the hand costs a shift per fret.
+ * 
+ * @author Anders Nawroth
+ */
+public final class FingeringCost
+{
+    /**
+     * A hand covering four frets, a stretch costing twice a shift.
+     */
+    public static final FingeringCost DEFAULT = new FingeringCost( 4, 2, 1 );
+
+    private final int handSpan;
+    private final int stretchCost;
+    private final int shiftCost;
+
+    /**
+     * Create a cost model.
+     * 
+     * @param handSpan the number of frets covered by the hand
+     * @param stretchCost the cost of reaching one fret outside of the hand
+     * @param shiftCost the cost of moving the hand one fret
+     */
+    public FingeringCost( final int handSpan, final int stretchCost,
+            final int shiftCost )
+    {
+        if ( handSpan < 1 )
+        {
+            throw new IllegalArgumentException(
+                    "The hand has to cover at least one fret, but covered: ["
+                            + handSpan + "]" );
+        }
+        if ( stretchCost < 0 || shiftCost < 0 )
+        {
+            throw new IllegalArgumentException(
+                    "Costs can not be negative, but were: [" + stretchCost
+                            + ", " + shiftCost + "]" );
+        }
+        this.handSpan = handSpan;
+        this.stretchCost = stretchCost;
+        this.shiftCost = shiftCost;
+    }
+
+    /**
+     * Get the number of frets covered by the hand.
+     * 
+     * @return the number of frets
+     */
+    public int getHandSpan()
+    {
+        return handSpan;
+    }
+
+    /**
+     * Get the cost of reaching one fret outside of the hand.
+     * 
+     * @return the stretch cost
+     */
+    public int getStretchCost()
+    {
+        return stretchCost;
+    }
+
+    /**
+     * Get the cost of moving the hand one fret.
+     * 
+     * @return the shift cost
+     */
+    public int getShiftCost()
+    {
+        return shiftCost;
+    }
+}
@@ -0,0 +1,347 @@
+/**
+ * Copyright (c) 2002-2013 "Neo Technology,"
+ * Network Engine for Objects in Lund AB [http://neotechnology.com]
+ *
+ * This file is part of Neo4j.
+ *
+ * Neo4j is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package se.nawroth.scales.fretboard;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.SortedSet;
+import java.util.TreeSet;
+
+import se.nawroth.scales.api.PitchClassSet;
+
+/**
+ * Finds position patterns by dynamic programming. A pattern plays a run of
+ * scale notes, ascending from the lowest string to the highest, where every
+ * note either stays on the string of the previous note or moves to the next
+ * string. The states are the string of a note and the fret of the first
+ * finger, and the cheapest way to reach every state is kept, using the
+ * stretch and shift costs of a {@link FingeringCost}.
+ * <p>
+ * The optimizer only depends on the layout of the fretboard: the pitch classes
+ * of the open strings relative to the root note, and the scale. Every tuning,
+ * scale and root note with the same layout shares the same patterns.
+ * 
+ * @author Anders Nawroth
+ */
+final class FingeringOptimizer
+{
+    private static final int OCTAVE = PitchClassSet.PITCH_CLASSES;
+    private static final int NOTES_PER_STRING = 3;
+    private static final int UNREACHABLE = Integer.MAX_VALUE;
+    private static final int OPEN_POSITION = 2;
+    private final int scaleMask;
+    private final int[] openPitches;
+    private final FingeringCost cost;
+
+    /**
+     * Create an optimizer for a layout.
+     * 
+     * @param layout the layout, as given by {@link #getLayout(FretboardMatrix)}
+     * @param cost the cost model
+     */
+    FingeringOptimizer( final int[] layout, final FingeringCost cost )
+    {
+        this.cost = cost;
+        scaleMask = layout[0];
+        int strings = layout.length - 1;
+        openPitches = new int[strings];
+        // strings are assumed to ascend by less than an octave
+        openPitches[0] = layout[strings];
+        for ( int string = 1; string < strings; string++ )
+        {
+            openPitches[string] = openPitches[string - 1]
+                                  + ( layout[strings - string]
+                                      - layout[strings - string + 1] + OCTAVE )
+                                  % OCTAVE;
+        }
+    }
+
+    /**
+     * Get the layout of a fretboard: the relative mask of the scale, followed
+     * by the pitch classes of the open strings, relative to the root note and
+     * starting from the highest string.
+     * 
+     * @param matrix the fretboard
+     * @return the layout
+     */
+    static int[] getLayout( final FretboardMatrix matrix )
+    {
+        int strings = matrix.getStringCount();
+        int[] layout = new int[strings + 1];
+        for ( int fret = 0; fret < OCTAVE; fret++ )
+        {
+            if ( matrix.inScale( 0, fret ) )
+            {
+                layout[0] |= 1 << matrix.pitchClassAt( 0, fret );
+            }
+        }
+        for ( int string = 0; string < strings; string++ )
+        {
+            layout[string + 1] = matrix.pitchClassAt( string, 0 );
+        }
+        return layout;
+    }
+
+    /**
+     * Find the patterns of a style, ordered by their position.
+     * 
+     * @param style the style of the patterns
+     * @return the patterns
+     */
+    List<PositionPattern> getPatterns( final PatternStyle style )
+    {
+        List<PositionPattern> patterns = new ArrayList<PositionPattern>();
+        for ( int position : getPositions( style ) )
+        {
+            int[] pitches = getPitches( style, position );
+            if ( pitches.length > 0 )
+            {
+                PositionPattern pattern = fingering( style, position, pitches );
+                if ( pattern != null )
+                {
+                    patterns.add( pattern );
+                }
+            }
+        }
+        return patterns;
+    }
+
+    private SortedSet<Integer> getPositions( final PatternStyle style )
+    {
+        SortedSet<Integer> positions = new TreeSet<Integer>();
+        if ( style == PatternStyle.CAGED )
+        {
+            for ( int openPitch : openPitches )
+            {
+                int fret = ( OCTAVE - openPitch % OCTAVE ) % OCTAVE;
+                positions.add( fret == 0 ? OCTAVE : fret );
+            }
+        }
+        else
+        {
+            for ( int fret = 1; fret <= OCTAVE; fret++ )
+            {
+                if ( inScale( openPitches[0] + fret ) )
+                {
+                    positions.add( fret );
+                }
+            }
+        }
+        return positions;
+    }
+
+    /**
+     * Get the run of scale notes a pattern plays, as semitones above the root
+     * note below the lowest open string.
+     */
+    private int[] getPitches( final PatternStyle style, final int position )
+    {
+        int strings = openPitches.length;
+        int first = openPitches[0] + position;
+        int last = Integer.MAX_VALUE;
+        int count = NOTES_PER_STRING * strings;
+        if ( style != PatternStyle.THREE_NOTES_PER_STRING )
+        {
+            // from the lowest note under the hand on the lowest string to
+            // the highest note under the hand on the highest string
+            int top = position + cost.getHandSpan() - 1;
+            while ( first <= openPitches[0] + top && !inScale( first ) )
+            {
+                first++;
+            }
+            last = openPitches[strings - 1] + top;
+            while ( last >= first && !inScale( last ) )
+            {
+                last--;
+            }
+            count = Math.max( 0, last - first + 1 );
+        }
+        int[] pitches = new int[count];
+        int size = 0;
+        for ( int pitch = first; size < count && pitch <= last; pitch++ )
+        {
+            if ( inScale( pitch ) )
+            {
+                pitches[size++] = pitch;
+            }
+        }
+        return Arrays.copyOf( pitches, size );
+    }
+
+    /**
+     * Find the cheapest fingering of a run of notes, or <code>null</code> if
+     * the run can't be played.
+     */
+    private PositionPattern fingering( final PatternStyle style,
+            final int position, final int[] pitches )
+    {
+        int strings = openPitches.length;
+        boolean shifting = style == PatternStyle.THREE_NOTES_PER_STRING;
+        int lowestHand = position;
+        int highestHand = position;
+        if ( shifting )
+        {
+            lowestHand = Math.max( 1, position - 1 );
+            for ( int note = 0; note < pitches.length; note++ )
+            {
+                int fret = pitches[note]
+                           - openPitches[note / NOTES_PER_STRING];
+                highestHand = Math.max( highestHand, fret + 1 );
+            }
+        }
+        int hands = highestHand - lowestHand + 1;
+        int[][][] costs = new int[pitches.length][strings][hands];
+        int[][][] previous = new int[pitches.length][strings][hands];
+        for ( int[][] note : costs )
+        {
+            for ( int[] string : note )
+            {
+                Arrays.fill( string, UNREACHABLE );
+            }
+        }
+        for ( int hand = 0; hand < hands; hand++ )
+        {
+            int fret = pitches[0] - openPitches[0];
+            costs[0][0][hand] = noteCost( fret, hand + lowestHand );
+        }
+        for ( int note = 1; note < pitches.length; note++ )
+        {
+            for ( int string = 0; string < strings; string++ )
+            {
+                if ( shifting && string != note / NOTES_PER_STRING )
+                {
+                    continue;
+                }
+                int fret = pitches[note] - openPitches[string];
+                for ( int hand = 0; hand < hands; hand++ )
+                {
+                    int here = noteCost( fret, hand + lowestHand );
+                    if ( here == UNREACHABLE )
+                    {
+                        continue;
+                    }
+                    int best = UNREACHABLE;
+                    int from = -1;
+                    for ( int before = Math.max( 0, string - 1 ); before <= string; before++ )
+                    {
+                        for ( int last = 0; last < hands; last++ )
+                        {
+                            int reached = costs[note - 1][before][last];
+                            if ( reached == UNREACHABLE )
+                            {
+                                continue;
+                            }
+                            int total = reached + here + cost.getShiftCost()
+                                        * Math.abs( hand - last );
+                            if ( total < best )
+                            {
+                                best = total;
+                                from = before * hands + last;
+                            }
+                        }
+                    }
+                    costs[note][string][hand] = best;
+                    previous[note][string][hand] = from;
+                }
+            }
+        }
+        int end = pitches.length - 1;
+        int best = UNREACHABLE;
+        int hand = -1;
+        for ( int last = 0; last < hands; last++ )
+        {
+            if ( costs[end][strings - 1][last] < best )
+            {
+                best = costs[end][strings - 1][last];
+                hand = last;
+            }
+        }
+        if ( hand == -1 )
+        {
+            return null;
+        }
+        return new PositionPattern( style, position, best, trace( pitches,
+                previous, hand, hands ) );
+    }
+
+    /**
+     * Follow the cheapest fingering back from the last note, and collect the
+     * frets of every string.
+     */
+    private int[][] trace( final int[] pitches, final int[][][] previous,
+            final int lastHand, final int hands )
+    {
+        int strings = openPitches.length;
+        int[] stringOfNote = new int[pitches.length];
+        int[] notesOnString = new int[strings];
+        int string = strings - 1;
+        int hand = lastHand;
+        for ( int note = pitches.length - 1; note >= 0; note-- )
+        {
+            stringOfNote[note] = string;
+            notesOnString[string]++;
+            if ( note > 0 )
+            {
+                int from = previous[note][string][hand];
+                string = from / hands;
+                hand = from % hands;
+            }
+        }
+        int[][] frets = new int[strings][];
+        for ( int lowest = 0; lowest < strings; lowest++ )
+        {
+            frets[strings - 1 - lowest] = new int[notesOnString[lowest]];
+        }
+        int[] filled = new int[strings];
+        for ( int note = 0; note < pitches.length; note++ )
+        {
+            int lowest = stringOfNote[note];
+            int fret = pitches[note] - openPitches[lowest];
+            frets[strings - 1 - lowest][filled[lowest]++] = fret;
+        }
+        return frets;
+    }
+
+    /**
+     * The cost of playing a fret with the first finger at a fret. The hand
+     * reaches one fret outside of its span, and open strings are only played
+     * close to the nut.
+     */
+    private int noteCost( final int fret, final int hand )
+    {
+        if ( fret == 0 )
+        {
+            return hand <= OPEN_POSITION ? 0 : UNREACHABLE;
+        }
+        int top = hand + cost.getHandSpan() - 1;
+        if ( fret < hand - 1 || fret > top + 1 )
+        {
+            return UNREACHABLE;
+        }
+        return cost.getStretchCost()
+               * ( Math.max( 0, hand - fret ) + Math.max( 0, fret - top ) );
+    }
+
+    private boolean inScale( final int pitch )
+    {
+        return PitchClassSet.contains( scaleMask, pitch % OCTAVE );
+    }
+}
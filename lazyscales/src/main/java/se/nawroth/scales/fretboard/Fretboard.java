@@ -19,15 +19,12 @@
  */
 package se.nawroth.scales.fretboard;
 
-import java.util.ArrayDeque;
-import java.util.Deque;
-import java.util.Iterator;
+import java.util.ArrayList;
+import java.util.List;
 
 import se.nawroth.scales.api.LatinInterval;
 import se.nawroth.scales.api.Note;
-import se.nawroth.scales.api.Scale;
 import se.nawroth.scales.api.Tuning;
-import se.nawroth.scales.note.NoteService;
 import se.nawroth.scales.note.Notes;
 
 /**
@@ -70,19 +67,39 @@ public class Fretboard
         this.notes = notes;
     }
 
+    /**
+     * Get the tuning of the fretboard.
+     * 
+     * @return the tuning
+     */
+    final Tuning getTuning()
+    {
+        return tuning;
+    }
+
+    /**
+     * Get the notes shown on the fretboard.
+     * 
+     * @return the notes
+     */
+    final Notes getNotes()
+    {
+        return notes;
+    }
+
     /**
      * Get the strings of the fretboard.
      * 
-     * @param chromaticScale chromatic scale to use
+     * @param matrix the precomputed fretboard
      * @return the strings of the fretboard
      */
-    final Iterable<Iterable<Note>> getStrings( final Scale chromaticScale )
+    final Iterable<Iterable<Note>> getStrings( final FretboardMatrix matrix )
     {
-        Deque<Iterable<Note>> res = new ArrayDeque<Iterable<Note>>();
-        for ( Note baseNote : tuning )
+        List<Iterable<Note>> res = new ArrayList<Iterable<Note>>(
+                matrix.getStringCount() );
+        for ( int string = 0; string < matrix.getStringCount(); string++ )
         {
-            res.addFirst( new ScaleComparer( Notes.notes( baseNote,
-                    chromaticScale ), notes ) );
+            res.add( matrix.getString( string ) );
         }
         return res;
     }
@@ -91,19 +108,17 @@ public class Fretboard
      * Print a fretboard to a {@link String}.
      * 
      * @param frets the number of frets on the fretboard
-     * @param chromaticScale chromatic scale to use
+     * @param matrix the precomputed fretboard
      * @return the fretboard in text format
      */
-    final String printStrings( final int frets, final Scale chromaticScale )
+    final String printStrings( final int frets, final FretboardMatrix matrix )
     {
         StringBuilder s = new StringBuilder( INITIAL_STRINGBUILDER_SIZE );
-        for ( Iterable<Note> string : getStrings( chromaticScale ) )
+        for ( int string = 0; string < matrix.getStringCount(); string++ )
         {
-            Iterator<Note> stringIterator = string.iterator();
             for ( int i = 0; i <= frets; i++ )
             {
-                Note next = stringIterator.next();
-                if ( next == null )
+                if ( !matrix.inScale( string, i ) )
                 {
                     int fret = i % LatinInterval.OCTAVE.getSemitones();
                     char c;
@@ -126,7 +141,8 @@ public class Fretboard
                 }
                 else
                 {
-                    String noteStr = next.toString( notes.isFlat() );
+                    String noteStr = matrix.noteAt( string, i )
+                            .toString( notes.isFlat() );
                     s.append( noteStr );
                     s.append( TAB_SPACES[TAB_WIDTH - noteStr.length()] );
                 }
@@ -135,91 +151,4 @@ public class Fretboard
         }
         return s.toString();
     }
-
-    /**
-     * Helper class to keep two {@link Note} iterators in sync. The base notes
-     * are returned when they match the comparison iterator. In other cases,
-     * <code>null</code> is returned. The comparison iterator sets the "tempo"
-     * of the iteration.
-     * 
-     * @author Anders Nawroth
-     */
-    private static class ScaleComparer implements Iterable<Note>
-    {
-        private final Iterator<Note> baseIterator;
-        private final Iterator<Note> comparisonIterator;
-
-        /**
-         * Compare two {@link Note} iterators.
-         * 
-         * @param baseNotes the notes that will be returned
-         * @param comparisonNotes the notes that keep track of the position of
-         *            the iterator
-         */
-        public ScaleComparer( final Notes baseNotes, final Notes comparisonNotes )
-        {
-            baseIterator = baseNotes.circularIterator();
-            comparisonIterator = comparisonNotes.circularIterator();
-            Note baseStartNote = baseNotes.iterator().next();
-            // bring iterators in sync
-            int index = 0;
-            int maxSemitones = 0;
-            int maxIndex = 0;
-            for ( Note note : comparisonNotes )
-            {
-                index++;
-                int semitones = NoteService.findInterval( baseStartNote, note ).getSemitones();
-                if ( semitones > maxSemitones )
-                {
-                    maxIndex = index;
-                    maxSemitones = semitones;
-                }
-            }
-            for ( int i = 0; i < maxIndex; i++ )
-            {
-                comparisonIterator.next();
-            }
-        }
-
-        @Override
-        public Iterator<Note> iterator()
-        {
-            return new ComparingIterator();
-        }
-
-        /**
-         * Class to perform the actual iteration over the {@link Note}s. Returns
-         * the {@link Note} on hits and <code>null</code> on misses.
-         * 
-         * @author Anders Nawroth
-         */
-        private class ComparingIterator implements Iterator<Note>
-        {
-            private Note compNote = comparisonIterator.next();
-
-            @Override
-            public boolean hasNext()
-            {
-                return true;
-            }
-
-            @Override
-            public Note next()
-            {
-                Note baseNote = baseIterator.next();
-                if ( baseNote.equals( compNote ) )
-                {
-                    compNote = comparisonIterator.next();
-                    return baseNote;
-                }
-                return null;
-            }
-
-            @Override
-            public void remove()
-            {
-                throw new UnsupportedOperationException();
-            }
-        }
-    }
 }
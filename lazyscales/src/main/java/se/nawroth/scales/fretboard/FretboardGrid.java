@@ -0,0 +1,132 @@
+/**
+ * Copyright (c) 2002-2013 "Neo Technology,"
+ * Network Engine for Objects in Lund AB [http://neotechnology.com]
+ *
+ * This file is part of Neo4j.
+ *
+ * Neo4j is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package se.nawroth.scales.fretboard;
+
+import java.util.Collections;
+import java.util.List;
+
+import se.nawroth.scales.api.Note;
+import se.nawroth.scales.api.Scale;
+import se.nawroth.scales.api.Tuning;
+
+/**
+ * The {@link FretboardMatrix}es of every combination of some tunings, scales
+ * and root notes, as computed by
+ * {@link FretboardService#getMatrices(java.util.Collection, java.util.Collection, java.util.Collection)}.
+ * The matrices of the same tuning and root note share their strings, and all
+ * matrices of a root note share its notes.
+ * 
+ * @author Anders Nawroth
+ */
+public final class FretboardGrid
+{
+    private final List<Tuning> tunings;
+    private final List<Scale> scales;
+    private final List<Note> roots;
+    private final FretboardMatrix[][][] matrices;
+
+    FretboardGrid( final List<Tuning> tunings, final List<Scale> scales,
+            final List<Note> roots, final FretboardMatrix[][][] matrices )
+    {
+        this.tunings = Collections.unmodifiableList( tunings );
+        this.scales = Collections.unmodifiableList( scales );
+        this.roots = Collections.unmodifiableList( roots );
+        this.matrices = matrices;
+    }
+
+    /**
+     * Get the tunings of the grid, in the order they were given.
+     * 
+     * @return the tunings
+     */
+    public List<Tuning> getTunings()
+    {
+        return tunings;
+    }
+
+    /**
+     * Get the scales of the grid, in the order they were given.
+     * 
+     * @return the scales
+     */
+    public List<Scale> getScales()
+    {
+        return scales;
+    }
+
+    /**
+     * Get the root notes of the grid, in the order they were given.
+     * 
+     * @return the root notes
+     */
+    public List<Note> getRoots()
+    {
+        return roots;
+    }
+
+    /**
+     * Get the number of matrices in the grid.
+     * 
+     * @return the number of matrices
+     */
+    public int size()
+    {
+        return tunings.size() * scales.size() * roots.size();
+    }
+
+    /**
+     * Get a matrix by the positions of its tuning, scale and root note.
+     * 
+     * @param tuning the position of the tuning
+     * @param scale the position of the scale
+     * @param root the position of the root note
+     * @return the matrix
+     */
+    public FretboardMatrix get( final int tuning, final int scale,
+            final int root )
+    {
+        return matrices[tuning][root][scale];
+    }
+
+    /**
+     * Get the matrix of a tuning, scale and root note.
+     * 
+     * @param tuning the tuning
+     * @param scale the scale
+     * @param root the root note
+     * @return the matrix
+     */
+    public FretboardMatrix get( final Tuning tuning, final Scale scale,
+            final Note root )
+    {
+        return get( indexOf( tunings, tuning ), indexOf( scales, scale ),
+                indexOf( roots, root ) );
+    }
+
+    private static int indexOf( final List<?> list, final Object item )
+    {
+        int index = list.indexOf( item );
+        if ( index < 0 )
+        {
+            throw new IllegalArgumentException( item + " is not part of the grid." );
+        }
+        return index;
+    }
+}
@@ -0,0 +1,259 @@
+/**
+ * Copyright (c) 2002-2013 "Neo Technology,"
+ * Network Engine for Objects in Lund AB [http://neotechnology.com]
+ *
+ * This file is part of Neo4j.
+ *
+ * Neo4j is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package se.nawroth.scales.fretboard;
+
+import java.util.Iterator;
+
+import se.nawroth.scales.api.Note;
+import se.nawroth.scales.api.PitchClassSet;
+import se.nawroth.scales.api.Scale;
+import se.nawroth.scales.api.Tuning;
+import se.nawroth.scales.note.NoteService;
+import se.nawroth.scales.note.Notes;
+
+/**
+ * Precomputed representation of a {@link Fretboard}. The pitch class of every
+ * position is stored relative to the root note of the scale, so all queries
+ * are array lookups. As the notes repeat every octave, twelve frets are stored
+ * for each string and higher frets wrap around.
+ * <p>
+ * Strings are numbered from the highest string, which is string
+ * <code>0</code>.
+ * 
+ * @author Anders Nawroth
+ */
+public final class FretboardMatrix
+{
+    private static final int OCTAVE = PitchClassSet.PITCH_CLASSES;
+    private static final byte[][] ROWS = new byte[OCTAVE][OCTAVE];
+
+    private final byte[][] pitchClasses;
+    private final int[] stringMasks;
+    private final Note[] notes;
+
+    static
+    {
+        for ( int offset = 0; offset < OCTAVE; offset++ )
+        {
+            for ( int fret = 0; fret < OCTAVE; fret++ )
+            {
+                ROWS[offset][fret] = (byte) ( ( offset + fret ) % OCTAVE );
+            }
+        }
+    }
+
+    /**
+     * Compute the matrix of a fretboard.
+     * 
+     * @param fretboard the fretboard to compute
+     * @param chromaticScale chromatic scale to use
+     */
+    FretboardMatrix( final Fretboard fretboard, final Scale chromaticScale )
+    {
+        Tuning tuning = fretboard.getTuning();
+        Notes scaleNotes = fretboard.getNotes();
+        Note root = scaleNotes.getStartingNote();
+
+        notes = new Note[OCTAVE];
+        int pitchClass = 0;
+        for ( Note note : Notes.notes( root, chromaticScale ) )
+        {
+            notes[pitchClass++] = note;
+        }
+
+        pitchClasses = new byte[tuning.size()][];
+        int string = pitchClasses.length;
+        for ( Note baseNote : tuning )
+        {
+            string--;
+            pitchClasses[string] = ROWS[NoteService.findInterval( root,
+                    baseNote )
+                    .getSemitones() % OCTAVE];
+        }
+        stringMasks = getStringMasks( pitchClasses, scaleNotes.getPitchClassSet()
+                .getRelativeMask() );
+    }
+
+    /**
+     * Create the matrix of a fretboard from already computed parts. Matrices
+     * with the same tuning and root note share their strings.
+     * 
+     * @param strings the strings from {@link #getStrings(int[], int)}
+     * @param scaleMask the pitch classes of the scale, relative to its root
+     * @param notes the notes of the chromatic scale from the root note
+     */
+    FretboardMatrix( final byte[][] strings, final int scaleMask,
+            final Note[] notes )
+    {
+        this.pitchClasses = strings;
+        this.notes = notes;
+        this.stringMasks = getStringMasks( strings, scaleMask );
+    }
+
+    /**
+     * Get the strings of a tuning, relative to a root note.
+     * 
+     * @param openPitchClasses the pitch classes of the open strings, from the
+     *            highest string
+     * @param root the pitch class of the root note
+     * @return the strings, to share between matrices
+     */
+    static byte[][] getStrings( final int[] openPitchClasses, final int root )
+    {
+        byte[][] strings = new byte[openPitchClasses.length][];
+        for ( int string = 0; string < strings.length; string++ )
+        {
+            strings[string] = ROWS[PitchClassSet.normalize( openPitchClasses[string]
+                                                            - root )];
+        }
+        return strings;
+    }
+
+    private static int[] getStringMasks( final byte[][] strings,
+            final int scaleMask )
+    {
+        int[] masks = new int[strings.length];
+        for ( int string = 0; string < strings.length; string++ )
+        {
+            for ( int fret = 0; fret < OCTAVE; fret++ )
+            {
+                if ( PitchClassSet.contains( scaleMask, strings[string][fret] ) )
+                {
+                    masks[string] |= 1 << fret;
+                }
+            }
+        }
+        return masks;
+    }
+
+    /**
+     * Get the number of strings.
+     * 
+     * @return the number of strings
+     */
+    public int getStringCount()
+    {
+        return pitchClasses.length;
+    }
+
+    /**
+     * Get the pitch class at a position, relative to the root note of the
+     * scale.
+     * 
+     * @param string the string, <code>0</code> being the highest string
+     * @param fret the fret, <code>0</code> being the open string
+     * @return the relative pitch class
+     */
+    public int pitchClassAt( final int string, final int fret )
+    {
+        return pitchClasses[string][fret % OCTAVE];
+    }
+
+    /**
+     * Get the {@link Note} at a position.
+     * 
+     * @param string the string, <code>0</code> being the highest string
+     * @param fret the fret, <code>0</code> being the open string
+     * @return the note at the position
+     */
+    public Note noteAt( final int string, final int fret )
+    {
+        return notes[pitchClasses[string][fret % OCTAVE]];
+    }
+
+    /**
+     * Check if the note at a position belongs to the scale.
+     * 
+     * @param string the string, <code>0</code> being the highest string
+     * @param fret the fret, <code>0</code> being the open string
+     * @return <code>true</code> if the note belongs to the scale
+     */
+    public boolean inScale( final int string, final int fret )
+    {
+        return ( stringMasks[string] & ( 1 << ( fret % OCTAVE ) ) ) != 0;
+    }
+
+    /**
+     * Check if the note at a position is the root note of the scale.
+     * 
+     * @param string the string, <code>0</code> being the highest string
+     * @param fret the fret, <code>0</code> being the open string
+     * @return <code>true</code> if the note is the root note
+     */
+    public boolean isRoot( final int string, final int fret )
+    {
+        return pitchClasses[string][fret % OCTAVE] == 0;
+    }
+
+    /**
+     * Get the {@link Note} at a position, if it belongs to the scale.
+     * 
+     * @param string the string, <code>0</code> being the highest string
+     * @param fret the fret, <code>0</code> being the open string
+     * @return the note, or <code>null</code> if it doesn't belong to the
+     *         scale
+     */
+    public Note scaleNoteAt( final int string, final int fret )
+    {
+        return inScale( string, fret ) ? noteAt( string, fret ) : null;
+    }
+
+    /**
+     * Get the notes of a string. The iterator never ends, and returns
+     * <code>null</code> for positions that don't belong to the scale.
+     * 
+     * @param string the string, <code>0</code> being the highest string
+     * @return the notes of the string
+     */
+    Iterable<Note> getString( final int string )
+    {
+        return new Iterable<Note>()
+        {
+            @Override
+            public Iterator<Note> iterator()
+            {
+                return new Iterator<Note>()
+                {
+                    private int fret = 0;
+
+                    @Override
+                    public boolean hasNext()
+                    {
+                        return true;
+                    }
+
+                    @Override
+                    public Note next()
+                    {
+                        Note note = scaleNoteAt( string, fret );
+                        fret = ( fret + 1 ) % OCTAVE;
+                        return note;
+                    }
+
+                    @Override
+                    public void remove()
+                    {
+                        throw new UnsupportedOperationException();
+                    }
+                };
+            }
+        };
+    }
+}
@@ -19,33 +19,79 @@
  */
 package se.nawroth.scales.fretboard;
 
-import org.neo4j.graphdb.Direction;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.stream.IntStream;
 
+import se.nawroth.scales.CatalogStore;
+import se.nawroth.scales.api.Chord;
+import se.nawroth.scales.api.DiatonicInterval;
+import se.nawroth.scales.api.Interval;
 import se.nawroth.scales.api.Note;
+import se.nawroth.scales.api.PitchClassSet;
 import se.nawroth.scales.api.Scale;
-import se.nawroth.scales.api.Types;
-import se.nawroth.scales.scale.ScaleImpl;
-import se.nawroth.scales.util.GraphDb;
+import se.nawroth.scales.api.Tuning;
+import se.nawroth.scales.note.Notes;
+import se.nawroth.scales.util.StoreMetrics;
 
 /**
- * Perform operations on {@link Fretboard}s.
+ * Perform operations on {@link Fretboard}s. The {@link FretboardMatrix} of a
+ * fretboard is computed once for every combination of open strings, scale
+ * and root note pitch classes, and then kept in a small cache. Position
+ * patterns are kept for every layout of a fretboard, so a batch over the
+ * whole catalog computes each of them once. The open strings of a tuning
+ * never change, so they are read once per tuning. Matrices for many combinations
+ * at once are computed by
+ * {@link #getMatrices(Collection, Collection, Collection)}, bypassing the
+ * cache.
  * 
  * @author Anders Nawroth
  */
 public final class FretboardService
 {
+    private static final int MATRIX_CACHE_SIZE = 64;
+    private final CatalogStore store;
     private final Scale chromaticScale;
+    private final Map<CacheKey, FretboardMatrix> matrices = new LinkedHashMap<CacheKey, FretboardMatrix>(
+            MATRIX_CACHE_SIZE, 0.75f, true )
+    {
+        private static final long serialVersionUID = 1L;
+
+        @Override
+        protected boolean removeEldestEntry(
+                final Map.Entry<CacheKey, FretboardMatrix> eldest )
+        {
+            return size() > MATRIX_CACHE_SIZE;
+        }
+    };
+    private final ConcurrentMap<CacheKey, List<PositionPattern>> patterns = new ConcurrentHashMap<CacheKey, List<PositionPattern>>();
+    private final ConcurrentMap<Tuning, int[]> openStrings = new ConcurrentHashMap<Tuning, int[]>();
 
     /**
      * Create the fretboard service.
      * 
-     * @param graphDb the graphdb to use
+     * @param store the store to use, which has to be initialized
+     * @throws IllegalStateException if the store has no chromatic scale
      */
-    public FretboardService( final GraphDb graphDb )
+    public FretboardService( final CatalogStore store )
     {
-        chromaticScale = new ScaleImpl(
-                graphDb.getReferenceNode().getSingleRelationship(
-                        Types.CHROMATIC_SCALE, Direction.OUTGOING ).getEndNode() );
+        this.store = store;
+        Interval[] semitones = new Interval[PitchClassSet.PITCH_CLASSES];
+        Arrays.fill( semitones, DiatonicInterval.MINOR_SECOND );
+        chromaticScale = store.findScale( semitones );
+        if ( chromaticScale == null )
+        {
+            throw new IllegalStateException(
+                    "The store has no chromatic scale, it has to be initialized first." );
+        }
     }
 
     /**
@@ -57,7 +103,15 @@ public final class FretboardService
      */
     public String printStrings( final Fretboard fretboard, final int frets )
     {
-        return fretboard.printStrings( frets, chromaticScale );
+        StoreMetrics.Call call = store.enter( "FretboardService.printStrings" );
+        try
+        {
+            return fretboard.printStrings( frets, getMatrix( fretboard ) );
+        }
+        finally
+        {
+            call.exit();
+        }
     }
 
     /**
@@ -68,6 +122,271 @@ public final class FretboardService
      */
     public Iterable<Iterable<Note>> getStrings( final Fretboard fretboard )
     {
-        return fretboard.getStrings( chromaticScale );
+        StoreMetrics.Call call = store.enter( "FretboardService.getStrings" );
+        try
+        {
+            return fretboard.getStrings( getMatrix( fretboard ) );
+        }
+        finally
+        {
+            call.exit();
+        }
+    }
+
+    /**
+     * Get the playable voicings of a chord. Every voicing has one fret or a
+     * mute on every string, covers all the tones of the chord and fits in
+     * the stretch of the limits. The voicings are found in parallel, a few
+     * hand positions ahead of the returned iterator, from the open position
+     * and up the neck.
+     * 
+     * @param chord the chord to voice
+     * @param root the root note of the chord
+     * @param tuning the tuning to voice the chord in
+     * @param limits the limits of the voicings
+     * @return the voicings of the chord
+     */
+    public Iterator<Voicing> getVoicings( final Chord chord, final Note root,
+            final Tuning tuning, final VoicingLimits limits )
+    {
+        StoreMetrics.Call call = store.enter( "FretboardService.getVoicings" );
+        try
+        {
+            FretboardMatrix matrix = getMatrix( new Fretboard( tuning,
+                    Notes.notes( root, chromaticScale ) ) );
+            return new VoicingEnumerator( matrix, chord.getPitchClassSet()
+                    .getMask(), limits ).iterator();
+        }
+        finally
+        {
+            call.exit();
+        }
+    }
+
+    /**
+     * Get the playable position patterns of a scale. The patterns only depend
+     * on the intervals of the tuning, the scale and how the root note relates
+     * to the tuning, and are computed once for each of them.
+     * 
+     * @param notes the notes of the scale
+     * @param tuning the tuning to play the scale in
+     * @param style the style of the patterns
+     * @param cost the cost model to use
+     * @return the patterns, ordered by their position
+     */
+    public List<PositionPattern> getPatterns( final Notes notes,
+            final Tuning tuning, final PatternStyle style,
+            final FingeringCost cost )
+    {
+        StoreMetrics.Call call = store.enter( "FretboardService.getPatterns" );
+        try
+        {
+            int[] layout = FingeringOptimizer.getLayout( getMatrix( new Fretboard(
+                    tuning, notes ) ) );
+            long[] ids = new long[layout.length + 4];
+            for ( int i = 0; i < layout.length; i++ )
+            {
+                ids[i] = layout[i];
+            }
+            ids[layout.length] = style.ordinal();
+            ids[layout.length + 1] = cost.getHandSpan();
+            ids[layout.length + 2] = cost.getStretchCost();
+            ids[layout.length + 3] = cost.getShiftCost();
+            CacheKey key = new CacheKey( ids );
+            List<PositionPattern> found = patterns.get( key );
+            if ( found == null )
+            {
+                found = Collections.unmodifiableList( new FingeringOptimizer(
+                        layout, cost ).getPatterns( style ) );
+                List<PositionPattern> raced = patterns.putIfAbsent( key, found );
+                if ( raced != null )
+                {
+                    found = raced;
+                }
+            }
+            return found;
+        }
+        finally
+        {
+            call.exit();
+        }
+    }
+
+    /**
+     * Get the precomputed representation of a fretboard. The matrix is built
+     * outside of the cache lock, so threads building different matrices don't
+     * wait for each other.
+     * 
+     * @param fretboard the fretboard to use
+     * @return the fretboard matrix
+     */
+    public FretboardMatrix getMatrix( final Fretboard fretboard )
+    {
+        StoreMetrics.Call call = store.enter( "FretboardService.getMatrix" );
+        try
+        {
+            int[] openStrings = getOpenStrings( fretboard.getTuning() );
+            long[] ids = new long[openStrings.length + 2];
+            for ( int string = 0; string < openStrings.length; string++ )
+            {
+                ids[string] = openStrings[string];
+            }
+            Notes notes = fretboard.getNotes();
+            ids[openStrings.length] = notes.getPitchClassSet()
+                    .getRelativeMask();
+            ids[openStrings.length + 1] = notes.getStartingNote()
+                    .getPitchClass();
+            CacheKey key = new CacheKey( ids );
+            FretboardMatrix matrix;
+            synchronized ( matrices )
+            {
+                matrix = matrices.get( key );
+            }
+            if ( matrix == null )
+            {
+                FretboardMatrix created = new FretboardMatrix( fretboard,
+                        chromaticScale );
+                synchronized ( matrices )
+                {
+                    matrix = matrices.get( key );
+                    if ( matrix == null )
+                    {
+                        matrix = created;
+                        matrices.put( key, matrix );
+                    }
+                }
+            }
+            return matrix;
+        }
+        finally
+        {
+            call.exit();
+        }
+    }
+
+    /**
+     * Get the matrices of every combination of some tunings, scales and root
+     * notes. The parts that don't depend on the whole combination are read
+     * once, on the calling thread: the open strings of each tuning, the pitch
+     * classes of each scale and the chromatic notes from each root note. The
+     * matrices are then computed in parallel from those arrays alone, one
+     * tuning and root note at a time, with the strings shared between the
+     * scales.
+     * 
+     * @param tunings the tunings to use
+     * @param scales the scales to use
+     * @param roots the root notes to use
+     * @return the matrices
+     */
+    public FretboardGrid getMatrices( final Collection<? extends Tuning> tunings,
+            final Collection<? extends Scale> scales,
+            final Collection<? extends Note> roots )
+    {
+        StoreMetrics.Call call = store.enter( "FretboardService.getMatrices" );
+        try
+        {
+            List<Tuning> tuningList = new ArrayList<Tuning>( tunings );
+            List<Scale> scaleList = new ArrayList<Scale>( scales );
+            List<Note> rootList = new ArrayList<Note>( roots );
+
+            final int[][] openStrings = new int[tuningList.size()][];
+            for ( int tuning = 0; tuning < openStrings.length; tuning++ )
+            {
+                openStrings[tuning] = getOpenStrings( tuningList.get( tuning ) );
+            }
+            final int[] scaleMasks = new int[scaleList.size()];
+            for ( int scale = 0; scale < scaleMasks.length; scale++ )
+            {
+                scaleMasks[scale] = scaleList.get( scale )
+                        .getPitchClassSet()
+                        .getRelativeMask();
+            }
+            final int[] rootPitchClasses = new int[rootList.size()];
+            final Note[][] rootNotes = new Note[rootList.size()][];
+            Note[][] chromaticNotes = new Note[PitchClassSet.PITCH_CLASSES][];
+            for ( int root = 0; root < rootPitchClasses.length; root++ )
+            {
+                Note rootNote = rootList.get( root );
+                int pitchClass = rootNote.getPitchClass();
+                if ( chromaticNotes[pitchClass] == null )
+                {
+                    Note[] notes = new Note[PitchClassSet.PITCH_CLASSES];
+                    int position = 0;
+                    for ( Note note : Notes.notes( rootNote, chromaticScale ) )
+                    {
+                        notes[position++] = note;
+                    }
+                    chromaticNotes[pitchClass] = notes;
+                }
+                rootPitchClasses[root] = pitchClass;
+                rootNotes[root] = chromaticNotes[pitchClass];
+            }
+
+            final int rootCount = rootPitchClasses.length;
+            final FretboardMatrix[][][] matrices = new FretboardMatrix[openStrings.length][rootCount][scaleMasks.length];
+            IntStream.range( 0, openStrings.length * rootCount )
+                    .parallel()
+                    .forEach( cell ->
+                    {
+                        int tuning = cell / rootCount;
+                        int root = cell % rootCount;
+                        byte[][] strings = FretboardMatrix.getStrings(
+                                openStrings[tuning], rootPitchClasses[root] );
+                        FretboardMatrix[] row = matrices[tuning][root];
+                        for ( int scale = 0; scale < row.length; scale++ )
+                        {
+                            row[scale] = new FretboardMatrix( strings,
+                                    scaleMasks[scale], rootNotes[root] );
+                        }
+                    } );
+            return new FretboardGrid( tuningList, scaleList, rootList, matrices );
+        }
+        finally
+        {
+            call.exit();
+        }
+    }
+
+    private int[] getOpenStrings( final Tuning tuning )
+    {
+        int[] strings = openStrings.get( tuning );
+        if ( strings == null )
+        {
+            strings = new int[tuning.size()];
+            int string = strings.length;
+            for ( Note note : tuning )
+            {
+                strings[--string] = note.getPitchClass();
+            }
+            openStrings.putIfAbsent( tuning, strings );
+        }
+        return strings;
+    }
+
+    /**
+     * Identifies a cached value by a few numbers, like the pitch classes of
+     * the open strings, scale and root note.
+     */
+    private static final class CacheKey
+    {
+        private final long[] ids;
+
+        private CacheKey( final long... ids )
+        {
+            this.ids = ids;
+        }
+
+        @Override
+        public int hashCode()
+        {
+            return Arrays.hashCode( ids );
+        }
+
+        @Override
+        public boolean equals( final Object obj )
+        {
+            return obj instanceof CacheKey
+                   && Arrays.equals( ids, ( (CacheKey) obj ).ids );
+        }
     }
 }
@@ -0,0 +1,47 @@
+/**
+ * Copyright (c) 2002-2013 "Neo Technology,"
+ * Network Engine for Objects in Lund AB [http://neotechnology.com]
+ *
+ * This file is part of Neo4j.
+ *
+ * Neo4j is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package se.nawroth.scales.fretboard;
+
+/**
+ * The kinds of position patterns that
+ * {@link FretboardService#getPatterns(se.nawroth.scales.note.Notes, se.nawroth.scales.api.Tuning, PatternStyle, FingeringCost)}
+ * computes.
+ * 
+ * @author Anders Nawroth
+ */
+public enum PatternStyle
+{
+    /**
+     * One pattern for every note of the scale on the lowest string, with the
+     * first finger on that note and the hand staying in place.
+     */
+    BOX,
+    /**
+     * One pattern for every note of the scale on the lowest string, playing
+     * three notes on every string and shifting the hand as needed.
+     */
+    THREE_NOTES_PER_STRING,
+    /**
+     * One pattern for every string, with the first finger on the root note of
+     * that string and the hand staying in place. In standard tuning these are
+     * the five shapes of the CAGED system.
+     */
+    CAGED;
+}
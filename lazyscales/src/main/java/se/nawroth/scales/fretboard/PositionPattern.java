@@ -0,0 +1,139 @@
+/**
+ * Copyright (c) 2002-2013 "Neo Technology,"
+ * Network Engine for Objects in Lund AB [http://neotechnology.com]
+ *
+ * This file is part of Neo4j.
+ *
+ * Neo4j is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package se.nawroth.scales.fretboard;
+
+import java.util.Arrays;
+
+/**
+ * A playable position pattern of a scale: the frets to play on every string,
+ * ascending in pitch from the lowest string to the highest. Strings are
+ * numbered from the highest string, which is string <code>0</code>, like in
+ * {@link FretboardMatrix}.
+ * 
+ * @author Anders Nawroth
+ */
+public final class PositionPattern
+{
+    private final PatternStyle style;
+    private final int position;
+    private final int cost;
+    private final int[][] frets;
+
+    PositionPattern( final PatternStyle style, final int position,
+            final int cost, final int[][] frets )
+    {
+        this.style = style;
+        this.position = position;
+        this.cost = cost;
+        this.frets = frets;
+    }
+
+    /**
+     * Get the style of the pattern.
+     * 
+     * @return the style
+     */
+    public PatternStyle getStyle()
+    {
+        return style;
+    }
+
+    /**
+     * Get the fret of the first finger where the pattern starts.
+     * 
+     * @return the fret
+     */
+    public int getPosition()
+    {
+        return position;
+    }
+
+    /**
+     * Get the cost of the fingering, as given by the {@link FingeringCost}.
+     * 
+     * @return the cost
+     */
+    public int getCost()
+    {
+        return cost;
+    }
+
+    /**
+     * Get the number of strings.
+     * 
+     * @return the number of strings
+     */
+    public int getStringCount()
+    {
+        return frets.length;
+    }
+
+    /**
+     * Get the frets to play on a string, in the order they are played.
+     * 
+     * @param string the string, <code>0</code> being the highest string
+     * @return the frets
+     */
+    public int[] getFrets( final int string )
+    {
+        return frets[string].clone();
+    }
+
+    @Override
+    public int hashCode()
+    {
+        return Arrays.deepHashCode( frets );
+    }
+
+    @Override
+    public boolean equals( final Object obj )
+    {
+        if ( !( obj instanceof PositionPattern ) )
+        {
+            return false;
+        }
+        PositionPattern other = (PositionPattern) obj;
+        return style == other.style && position == other.position
+               && Arrays.deepEquals( frets, other.frets );
+    }
+
+    /**
+     * Write the pattern as one line of frets per string, from the highest
+     * string to the lowest.
+     */
+    @Override
+    public String toString()
+    {
+        StringBuilder builder = new StringBuilder();
+        for ( int string = 0; string < frets.length; string++ )
+        {
+            for ( int i = 0; i < frets[string].length; i++ )
+            {
+                if ( i > 0 )
+                {
+                    builder.append( ' ' );
+                }
+                builder.append( frets[string][i] );
+            }
+            builder.append( '\n' );
+        }
+        return builder.toString();
+    }
+}
@@ -0,0 +1,125 @@
+/**
+ * Copyright (c) 2002-2013 "Neo Technology,"
+ * Network Engine for Objects in Lund AB [http://neotechnology.com]
+ *
+ * This file is part of Neo4j.
+ *
+ * Neo4j is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package se.nawroth.scales.fretboard;
+
+import java.util.Arrays;
+
+import se.nawroth.scales.api.Note;
+
+/**
+ * A way to play a chord: one fret, or a mute, for every string.
+ * <p>
+ * Strings are numbered from the highest string, which is string
+ * <code>0</code>, like in {@link FretboardMatrix}.
+ * 
+ * @author Anders Nawroth
+ */
+public final class Voicing
+{
+    /**
+     * The fret of a muted string.
+     */
+    public static final int MUTED = -1;
+
+    private final int[] frets;
+    private final FretboardMatrix matrix;
+
+    Voicing( final int[] frets, final FretboardMatrix matrix )
+    {
+        this.frets = frets;
+        this.matrix = matrix;
+    }
+
+    /**
+     * Get the number of strings.
+     * 
+     * @return the number of strings
+     */
+    public int getStringCount()
+    {
+        return frets.length;
+    }
+
+    /**
+     * Get the fret to play on a string.
+     * 
+     * @param string the string, <code>0</code> being the highest string
+     * @return the fret, <code>0</code> for the open string or {@link #MUTED}
+     */
+    public int getFret( final int string )
+    {
+        return frets[string];
+    }
+
+    /**
+     * Get the note played on a string.
+     * 
+     * @param string the string, <code>0</code> being the highest string
+     * @return the note, or <code>null</code> if the string is muted
+     */
+    public Note getNote( final int string )
+    {
+        return frets[string] == MUTED ? null : matrix.noteAt( string,
+                frets[string] );
+    }
+
+    @Override
+    public int hashCode()
+    {
+        return Arrays.hashCode( frets );
+    }
+
+    @Override
+    public boolean equals( final Object obj )
+    {
+        return obj instanceof Voicing
+               && Arrays.equals( frets, ( (Voicing) obj ).frets );
+    }
+
+    /**
+     * Write the voicing as tablature, from the lowest string to the highest.
+     * Muted strings are written as <code>x</code>, frets above nine are
+     * enclosed in parentheses.
+     */
+    @Override
+    public String toString()
+    {
+        StringBuilder builder = new StringBuilder( frets.length );
+        for ( int string = frets.length - 1; string >= 0; string-- )
+        {
+            int fret = frets[string];
+            if ( fret == MUTED )
+            {
+                builder.append( 'x' );
+            }
+            else if ( fret > 9 )
+            {
+                builder.append( '(' )
+                        .append( fret )
+                        .append( ')' );
+            }
+            else
+            {
+                builder.append( fret );
+            }
+        }
+        return builder.toString();
+    }
+}
@@ -0,0 +1,236 @@
+/**
+ * Copyright (c) 2002-2013 "Neo Technology,"
+ * Network Engine for Objects in Lund AB [http://neotechnology.com]
+ *
+ * This file is part of Neo4j.
+ *
+ * Neo4j is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package se.nawroth.scales.fretboard;
+
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.Deque;
+import java.util.Iterator;
+import java.util.List;
+import java.util.NoSuchElementException;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.ForkJoinTask;
+import java.util.concurrent.RecursiveTask;
+
+import se.nawroth.scales.api.PitchClassSet;
+
+/**
+ * Enumerates the voicings of a chord on a {@link FretboardMatrix}.
+ * <p>
+ * The search is split by hand position: every position is the lowest fretted
+ * fret of its voicings, which makes the positions disjoint. Voicings using
+ * only open strings and mutes make up a position of their own. Within a
+ * position, the strings are searched from the lowest string up, and a branch
+ * is cut as soon as the remaining strings can't cover the missing chord tones
+ * or reach the fret of the position.
+ * <p>
+ * The positions are searched in a fork-join pool, a few positions ahead of
+ * the iterator, so that only those positions are held in memory however
+ * large the whole search space is.
+ * 
+ * @author Anders Nawroth
+ */
+final class VoicingEnumerator implements Iterable<Voicing>
+{
+    private static final ForkJoinPool POOL = new ForkJoinPool();
+    private static final int POSITIONS_AHEAD = POOL.getParallelism() * 2;
+    private final FretboardMatrix matrix;
+    private final int chordMask;
+    private final VoicingLimits limits;
+
+    /**
+     * Prepare the enumeration.
+     * 
+     * @param matrix the fretboard, relative to the root of the chord
+     * @param chordMask pitch classes of the chord, relative to its root
+     * @param limits the limits of the voicings
+     */
+    VoicingEnumerator( final FretboardMatrix matrix, final int chordMask,
+            final VoicingLimits limits )
+    {
+        if ( chordMask == 0 )
+        {
+            throw new IllegalArgumentException(
+                    "A chord needs at least one pitch class." );
+        }
+        this.matrix = matrix;
+        this.chordMask = chordMask;
+        this.limits = limits;
+    }
+
+    @Override
+    public Iterator<Voicing> iterator()
+    {
+        return new VoicingIterator();
+    }
+
+    /**
+     * Runs the searches of the positions ahead of the consumer, returning
+     * their voicings in the order of the positions.
+     */
+    private final class VoicingIterator implements Iterator<Voicing>
+    {
+        private final Deque<ForkJoinTask<List<Voicing>>> pending = new ArrayDeque<ForkJoinTask<List<Voicing>>>();
+        private int nextPosition = limits.isOpenStrings() ? 0 : 1;
+        private Iterator<Voicing> current = Collections.<Voicing>emptyList()
+                .iterator();
+
+        private VoicingIterator()
+        {
+            submit();
+        }
+
+        @Override
+        public boolean hasNext()
+        {
+            while ( !current.hasNext() )
+            {
+                ForkJoinTask<List<Voicing>> next = pending.poll();
+                if ( next == null )
+                {
+                    return false;
+                }
+                current = next.join()
+                        .iterator();
+                submit();
+            }
+            return true;
+        }
+
+        @Override
+        public Voicing next()
+        {
+            if ( !hasNext() )
+            {
+                throw new NoSuchElementException();
+            }
+            return current.next();
+        }
+
+        @Override
+        public void remove()
+        {
+            throw new UnsupportedOperationException();
+        }
+
+        private void submit()
+        {
+            while ( pending.size() < POSITIONS_AHEAD
+                    && nextPosition <= limits.getMaxFret() )
+            {
+                pending.add( POOL.submit( new Position( nextPosition++ ) ) );
+            }
+        }
+    }
+
+    /**
+     * Searches the voicings with the lowest fretted note at one fret, or the
+     * voicings without fretted notes for fret <code>0</code>.
+     */
+    private final class Position extends RecursiveTask<List<Voicing>>
+    {
+        private static final long serialVersionUID = 1L;
+        private final int fret;
+        private final int[][] options;
+        private final boolean[] reachesFret;
+        private final int[] frets;
+        private final List<Voicing> voicings = new ArrayList<Voicing>();
+
+        private Position( final int fret )
+        {
+            this.fret = fret;
+            int strings = matrix.getStringCount();
+            options = new int[strings][];
+            reachesFret = new boolean[strings];
+            frets = new int[strings];
+            // the open position has no fretted notes
+            int highest = fret == 0 ? 0 : Math.min( limits.getMaxFret(),
+                    fret + limits.getMaxStretch() - 1 );
+            for ( int string = 0; string < strings; string++ )
+            {
+                int[] stringOptions = new int[limits.getMaxStretch() + 2];
+                int count = 0;
+                stringOptions[count++] = Voicing.MUTED;
+                if ( limits.isOpenStrings() && inChord( string, 0 ) )
+                {
+                    stringOptions[count++] = 0;
+                }
+                for ( int option = Math.max( fret, 1 ); option <= highest; option++ )
+                {
+                    if ( inChord( string, option ) )
+                    {
+                        stringOptions[count++] = option;
+                    }
+                }
+                options[string] = Arrays.copyOf( stringOptions, count );
+                // can this string, or any string above it, play the fret?
+                reachesFret[string] = ( fret > 0 && inChord( string, fret ) )
+                                      || ( string > 0 && reachesFret[string - 1] );
+            }
+        }
+
+        @Override
+        protected List<Voicing> compute()
+        {
+            search( matrix.getStringCount() - 1, 0, fret == 0 );
+            return voicings;
+        }
+
+        private void search( final int string, final int covered,
+                final boolean atFret )
+        {
+            if ( string < 0 )
+            {
+                if ( covered == chordMask && atFret )
+                {
+                    voicings.add( new Voicing( frets.clone(), matrix ) );
+                }
+                return;
+            }
+            int missing = Integer.bitCount( chordMask & ~covered );
+            if ( missing > string + 1 || ( !atFret && !reachesFret[string] ) )
+            {
+                return;
+            }
+            for ( int option : options[string] )
+            {
+                frets[string] = option;
+                if ( option == Voicing.MUTED )
+                {
+                    search( string - 1, covered, atFret );
+                }
+                else
+                {
+                    int pitchClass = matrix.pitchClassAt( string, option );
+                    search( string - 1, covered | 1 << pitchClass, atFret
+                                                               || option == fret );
+                }
+            }
+        }
+
+        private boolean inChord( final int string, final int option )
+        {
+            return PitchClassSet.contains( chordMask,
+                    matrix.pitchClassAt( string, option ) );
+        }
+    }
+}
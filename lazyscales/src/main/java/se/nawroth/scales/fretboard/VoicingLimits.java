@@ -0,0 +1,97 @@
+/**
+ * Copyright (c) 2002-2013 "Neo Technology,"
+ * Network Engine for Objects in Lund AB [http://neotechnology.com]
+ *
+ * This file is part of Neo4j.
+ *
+ * Neo4j is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package se.nawroth.scales.fretboard;
+
+/**
+ * Limits for the chord voicings enumerated by
+ * {@link FretboardService#getVoicings(se.nawroth.scales.api.Chord, se.nawroth.scales.api.Note, se.nawroth.scales.api.Tuning, VoicingLimits)}
+ * .
+ * 
+ * @author Anders Nawroth
+ */
+public final class VoicingLimits
+{
+    /**
+     * Up to the twelfth fret, spanning at most four frets, using open strings.
+     */
+    public static final VoicingLimits DEFAULT = new VoicingLimits( 12, 4, true );
+
+    private final int maxFret;
+    private final int maxStretch;
+    private final boolean openStrings;
+
+    /**
+     * Create limits.
+     * 
+     * @param maxFret the highest fret to use
+     * @param maxStretch the largest number of frets the fretted notes may
+     *            span, counting both the lowest and the highest fret
+     * @param openStrings <code>true</code> if open strings may be used
+     */
+    public VoicingLimits( final int maxFret, final int maxStretch,
+            final boolean openStrings )
+    {
+        if ( maxFret < 0 )
+        {
+            throw new IllegalArgumentException(
+                    "The highest fret can not be negative, but was: ["
+                            + maxFret + "]" );
+        }
+        if ( maxStretch < 1 )
+        {
+            throw new IllegalArgumentException(
+                    "The stretch has to be at least one fret, but was: ["
+                            + maxStretch + "]" );
+        }
+        this.maxFret = maxFret;
+        this.maxStretch = maxStretch;
+        this.openStrings = openStrings;
+    }
+
+    /**
+     * Get the highest fret to use.
+     * 
+     * @return the highest fret
+     */
+    public int getMaxFret()
+    {
+        return maxFret;
+    }
+
+    /**
+     * Get the largest number of frets the fretted notes may span.
+     * 
+     * @return the largest stretch
+     */
+    public int getMaxStretch()
+    {
+        return maxStretch;
+    }
+
+    /**
+     * Check if open strings may be used.
+     * 
+     * @return <code>true</code> if open strings may be used
+     */
+    public boolean isOpenStrings()
+    {
+        return openStrings;
+    }
+}
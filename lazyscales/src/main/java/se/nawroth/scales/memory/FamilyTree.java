@@ -0,0 +1,93 @@
+/**
+ * Copyright (c) 2002-2013 "Neo Technology,"
+ * Network Engine for Objects in Lund AB [http://neotechnology.com]
+ *
+ * This file is part of Neo4j.
+ *
+ * Neo4j is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package se.nawroth.scales.memory;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * A tree of named families, each holding items identified by a
+ * <code>long</code>. Families are identified by their index, the root family
+ * has index <code>0</code>.
+ * 
+ * @author Anders Nawroth
+ */
+final class FamilyTree
+{
+    private final List<String> names = new ArrayList<String>();
+    private final List<List<Integer>> children = new ArrayList<List<Integer>>();
+    private final List<List<Long>> items = new ArrayList<List<Long>>();
+
+    FamilyTree( final String rootName )
+    {
+        add( rootName );
+    }
+
+    int newFamily( final int parent, final String name )
+    {
+        int family = add( name );
+        children.get( parent )
+                .add( family );
+        return family;
+    }
+
+    boolean addChild( final int parent, final int child )
+    {
+        List<Integer> siblings = children.get( parent );
+        if ( siblings.contains( child ) )
+        {
+            return false;
+        }
+        return siblings.add( child );
+    }
+
+    boolean addItem( final int family, final long item )
+    {
+        List<Long> familyItems = items.get( family );
+        if ( familyItems.contains( item ) )
+        {
+            return false;
+        }
+        return familyItems.add( item );
+    }
+
+    String name( final int family )
+    {
+        return names.get( family );
+    }
+
+    List<Integer> children( final int family )
+    {
+        return children.get( family );
+    }
+
+    List<Long> items( final int family )
+    {
+        return items.get( family );
+    }
+
+    private int add( final String name )
+    {
+        names.add( name );
+        children.add( new ArrayList<Integer>() );
+        items.add( new ArrayList<Long>() );
+        return names.size() - 1;
+    }
+}
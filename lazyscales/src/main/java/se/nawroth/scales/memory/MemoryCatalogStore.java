@@ -0,0 +1,796 @@
+/**
+ * Copyright (c) 2002-2013 "Neo Technology,"
+ * Network Engine for Objects in Lund AB [http://neotechnology.com]
+ *
+ * This file is part of Neo4j.
+ *
+ * Neo4j is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package se.nawroth.scales.memory;
+
+import java.io.IOException;
+import java.io.Reader;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.BitSet;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicLong;
+
+import org.neo4j.graphdb.Lock;
+import org.neo4j.graphdb.PropertyContainer;
+import org.neo4j.graphdb.Transaction;
+
+import se.nawroth.scales.CatalogStore;
+import se.nawroth.scales.api.Chord;
+import se.nawroth.scales.api.ChordFamily;
+import se.nawroth.scales.api.DiatonicInterval;
+import se.nawroth.scales.api.Interval;
+import se.nawroth.scales.api.LatinInterval;
+import se.nawroth.scales.api.Note;
+import se.nawroth.scales.api.PitchClassSet;
+import se.nawroth.scales.api.Scale;
+import se.nawroth.scales.api.ScaleFamily;
+import se.nawroth.scales.api.Tuning;
+import se.nawroth.scales.api.TuningFamily;
+import se.nawroth.scales.catalog.CatalogHandler;
+import se.nawroth.scales.catalog.CatalogReader;
+import se.nawroth.scales.chord.ChordFamilyService;
+import se.nawroth.scales.note.NoteRepository;
+import se.nawroth.scales.note.NoteService;
+import se.nawroth.scales.scale.RotationKey;
+import se.nawroth.scales.scale.ScaleFamilyService;
+import se.nawroth.scales.tuning.TuningFamilyService;
+import se.nawroth.scales.util.StoreMetrics;
+
+/**
+ * {@link CatalogStore} keeping everything in memory, without any database.
+ * Rings of intervals are kept as byte arrays and looked up by their
+ * {@link RotationKey}, a scale is a ring together with the interval it starts
+ * on. Chords are kept as their tones and looked up by their pitch classes.
+ * Nothing is persisted.
+ * <p>
+ * Transactions are not supported: every write is applied at once, and can't
+ * be rolled back. The store is not thread safe while it is being written to;
+ * once populated it can be read from multiple threads.
+ * 
+ * @author Anders Nawroth
+ */
+public final class MemoryCatalogStore implements CatalogStore
+{
+    private static final int ROTATION_BITS = 32;
+    private static final long ROTATION_MASK = 0xFFFFFFFFL;
+    private static final int TUNING_FAMILY = 0;
+    private static final int TUNING_ROOT_NOTE = 1;
+    private static final int TUNING_CHAIN = 2;
+    private static final Transaction NO_TRANSACTION = new Transaction()
+    {
+        @Override
+        public void success()
+        {
+            // writes are applied at once
+        }
+
+        @Override
+        public void failure()
+        {
+            // writes are applied at once
+        }
+
+        @Override
+        public void finish()
+        {
+            // writes are applied at once
+        }
+
+        @Override
+        public Lock acquireWriteLock( final PropertyContainer entity )
+        {
+            throw new UnsupportedOperationException(
+                    "There are no locks in memory." );
+        }
+
+        @Override
+        public Lock acquireReadLock( final PropertyContainer entity )
+        {
+            throw new UnsupportedOperationException(
+                    "There are no locks in memory." );
+        }
+    };
+    private final MemoryNote[] notes = new MemoryNote[PitchClassSet.PITCH_CLASSES];
+    private final List<byte[]> rings = new ArrayList<byte[]>();
+    private final Map<Long, Integer> ringsByKey = new HashMap<Long, Integer>();
+    private final Map<Long, String> scaleNames = new HashMap<Long, String>();
+    private final BitSet unnamedRings = new BitSet();
+    private final FamilyTree scaleFamilies = new FamilyTree( ScaleFamilyService.ROOT_NAME );
+    private final List<byte[]> chains = new ArrayList<byte[]>();
+    private final Map<String, Integer> chainsByIntervals = new HashMap<String, Integer>();
+    private final List<int[]> tunings = new ArrayList<int[]>();
+    private final List<String> tuningNames = new ArrayList<String>();
+    private final FamilyTree tuningFamilies = new FamilyTree( TuningFamilyService.ROOT_NAME );
+    private final List<byte[]> chords = new ArrayList<byte[]>();
+    private final List<Integer> chordMasks = new ArrayList<Integer>();
+    private final List<String> chordNames = new ArrayList<String>();
+    private final int[] chordsByMask = new int[PitchClassSet.CHROMATIC_MASK + 1];
+    private final FamilyTree chordFamilies = new FamilyTree( ChordFamilyService.ROOT_NAME );
+    private final AtomicLong generation = new AtomicLong();
+    private String catalogVersion = null;
+    private boolean initialized = false;
+
+    /**
+     * Create an empty store.
+     */
+    public MemoryCatalogStore()
+    {
+        for ( int pitchClass = 0; pitchClass < notes.length; pitchClass++ )
+        {
+            notes[pitchClass] = new MemoryNote( this, pitchClass );
+        }
+        Arrays.fill( chordsByMask, -1 );
+    }
+
+    /**
+     * Load a catalog into the store. Families that already exist are reused.
+     * 
+     * @param catalog the catalog to load, will not be closed
+     * @return the number of records loaded
+     * @throws IOException if the catalog could not be read
+     * @throws IllegalArgumentException if the catalog is malformed
+     * @see CatalogReader
+     */
+    public int load( final Reader catalog ) throws IOException
+    {
+        return CatalogReader.read( catalog, new Loader() );
+    }
+
+    @Override
+    public void start()
+    {
+        // nothing to start
+    }
+
+    @Override
+    public void init()
+    {
+        if ( initialized )
+        {
+            return;
+        }
+        initialized = true;
+        int[] chromatic = new int[PitchClassSet.PITCH_CLASSES];
+        Arrays.fill( chromatic, DiatonicInterval.MINOR_SECOND.getSemitones() );
+        newScales( newScaleFamily( getRootScaleFamily(), NoteService.CHROMATIC ),
+                new String[] { NoteService.CHROMATIC }, intervals( chromatic ) );
+    }
+
+    @Override
+    public void stop()
+    {
+        // nothing to stop
+    }
+
+    @Override
+    public String getCatalogVersion()
+    {
+        return catalogVersion;
+    }
+
+    /**
+     * Get a transaction that does nothing, as every write is applied at once.
+     * 
+     * @return a transaction without effect
+     */
+    @Override
+    public Transaction beginTx()
+    {
+        return NO_TRANSACTION;
+    }
+
+    @Override
+    public long getGeneration()
+    {
+        return generation.get();
+    }
+
+    @Override
+    public StoreMetrics.Call enter( final String operation )
+    {
+        return StoreMetrics.NO_CALL;
+    }
+
+    @Override
+    public Note note( final int pitchClass )
+    {
+        return notes[PitchClassSet.normalize( pitchClass )];
+    }
+
+    /**
+     * Get the concrete {@link Note} from a note representation.
+     * 
+     * @param noteRepresentation note to get
+     * @return the actual note
+     */
+    public Note note( final NoteRepository noteRepresentation )
+    {
+        return note( noteRepresentation.interval()
+                .getSemitones() );
+    }
+
+    @Override
+    public ScaleFamily getRootScaleFamily()
+    {
+        return new MemoryScaleFamily( this, 0 );
+    }
+
+    @Override
+    public ScaleFamily newScaleFamily( final ScaleFamily parentFamily,
+            final String name )
+    {
+        int family = scaleFamilies.newFamily( scaleFamilyIndex( parentFamily ),
+                name );
+        changed( true );
+        return new MemoryScaleFamily( this, family );
+    }
+
+    @Override
+    public Scale newScales( final ScaleFamily family, final String[] names,
+            final Interval... intervals )
+    {
+        if ( names.length < 1 )
+        {
+            throw new IllegalArgumentException(
+                    "There has to be at least one scale name." );
+        }
+        int familyIndex = scaleFamilyIndex( family );
+        int[] steps = steps( intervals );
+        int sum = 0;
+        for ( int step : steps )
+        {
+            sum += step;
+        }
+        if ( sum % LatinInterval.OCTAVE.getSemitones() != 0 )
+        {
+            throw new IllegalArgumentException(
+                    "The sum of the scale must be a multiple of twelve semitones, but was: ["
+                            + sum + "]" );
+        }
+        MemoryScale scale = locate( steps );
+        if ( scale == null )
+        {
+            scale = newRing( steps );
+        }
+        unnamedRings.clear( scale.ring );
+        for ( int i = 0; i < names.length; i++ )
+        {
+            long key = scaleKey( scale.ring, ( scale.rotation + i )
+                                             % steps.length );
+            scaleNames.put( key, names[i] );
+            scaleFamilies.addItem( familyIndex, key );
+        }
+        changed( true );
+        return scale;
+    }
+
+    @Override
+    public Scale findScale( final Interval... intervals )
+    {
+        return locate( steps( intervals ) );
+    }
+
+    @Override
+    public int addUnnamedScales( final List<int[]> scales )
+    {
+        int added = 0;
+        for ( int[] steps : scales )
+        {
+            if ( locate( steps ) == null )
+            {
+                unnamedRings.set( newRing( steps ).ring );
+                added++;
+            }
+        }
+        changed( added > 0 );
+        return added;
+    }
+
+    @Override
+    public List<Scale> getUnnamedScales()
+    {
+        List<Scale> scales = new ArrayList<Scale>();
+        for ( int degree = 2; degree <= RotationKey.MAX_DEGREE; degree++ )
+        {
+            for ( int ring = unnamedRings.nextSetBit( 0 ); ring >= 0; ring = unnamedRings.nextSetBit( ring + 1 ) )
+            {
+                if ( rings.get( ring ).length == degree )
+                {
+                    scales.add( new MemoryScale( this, ring, 0 ) );
+                }
+            }
+        }
+        return scales;
+    }
+
+    @Override
+    public List<Scale> getModes()
+    {
+        List<Scale> modes = new ArrayList<Scale>();
+        for ( int ring = 0; ring < rings.size(); ring++ )
+        {
+            int degree = rings.get( ring ).length;
+            if ( degree > RotationKey.MAX_DEGREE )
+            {
+                continue;
+            }
+            for ( int rotation = 0; rotation < degree; rotation++ )
+            {
+                modes.add( new MemoryScale( this, ring, rotation ) );
+            }
+        }
+        return modes;
+    }
+
+    @Override
+    public TuningFamily getRootTuningFamily()
+    {
+        return new MemoryTuningFamily( this, 0 );
+    }
+
+    @Override
+    public TuningFamily newTuningFamily( final TuningFamily parentFamily,
+            final String name )
+    {
+        int family = tuningFamilies.newFamily(
+                tuningFamilyIndex( parentFamily ), name );
+        changed( true );
+        return new MemoryTuningFamily( this, family );
+    }
+
+    @Override
+    public Tuning newTuning( final TuningFamily family, final String name,
+            final Note rootNote, final Interval... intervals )
+    {
+        byte[] steps = tones( intervals );
+        String key = Arrays.toString( steps );
+        Integer chain = chainsByIntervals.get( key );
+        if ( chain == null )
+        {
+            chain = chains.size();
+            chains.add( steps );
+            chainsByIntervals.put( key, chain );
+        }
+        return newTuning( tuningFamilyIndex( family ), name, rootNote, chain );
+    }
+
+    @Override
+    public Tuning newTuning( final TuningFamily family, final String name,
+            final Note rootNote, final Tuning tuning )
+    {
+        if ( !( tuning instanceof MemoryTuning )
+             || ( (MemoryTuning) tuning ).store != this )
+        {
+            throw new IllegalArgumentException(
+                    "The tuning does not belong to this store: [" + tuning
+                            + "]" );
+        }
+        return newTuning( tuningFamilyIndex( family ), name, rootNote,
+                tunings.get( ( (MemoryTuning) tuning ).index )[TUNING_CHAIN] );
+    }
+
+    @Override
+    public ChordFamily getRootChordFamily()
+    {
+        return new MemoryChordFamily( this, 0 );
+    }
+
+    @Override
+    public ChordFamily newChordFamily( final ChordFamily parentFamily,
+            final String name )
+    {
+        int family = chordFamilies.newFamily( chordFamilyIndex( parentFamily ),
+                name );
+        changed( true );
+        return new MemoryChordFamily( this, family );
+    }
+
+    @Override
+    public Chord newChord( final ChordFamily family, final String name,
+            final Interval... intervals )
+    {
+        int familyIndex = chordFamilyIndex( family );
+        byte[] tones = tones( intervals );
+        int mask = 1;
+        for ( byte tone : tones )
+        {
+            mask |= 1 << PitchClassSet.normalize( tone );
+        }
+        int chord = chords.size();
+        chords.add( tones );
+        chordMasks.add( mask );
+        chordNames.add( name );
+        chordsByMask[mask] = chord;
+        chordFamilies.addItem( familyIndex, chord );
+        changed( true );
+        return new MemoryChord( this, chord );
+    }
+
+    @Override
+    public Chord findChord( final int mask )
+    {
+        if ( mask < 0 || mask >= chordsByMask.length || chordsByMask[mask] == -1 )
+        {
+            return null;
+        }
+        return new MemoryChord( this, chordsByMask[mask] );
+    }
+
+    @Override
+    public List<Chord> getChords()
+    {
+        List<Chord> all = new ArrayList<Chord>( chords.size() );
+        for ( int chord = 0; chord < chords.size(); chord++ )
+        {
+            all.add( new MemoryChord( this, chord ) );
+        }
+        return all;
+    }
+
+    static long scaleKey( final int ring, final int rotation )
+    {
+        return ( (long) ring << ROTATION_BITS ) | rotation;
+    }
+
+    MemoryScale scale( final long key )
+    {
+        return new MemoryScale( this, (int) ( key >>> ROTATION_BITS ),
+                (int) ( key & ROTATION_MASK ) );
+    }
+
+    long scaleKey( final Scale scale )
+    {
+        if ( !( scale instanceof MemoryScale )
+             || ( (MemoryScale) scale ).store != this )
+        {
+            throw new IllegalArgumentException(
+                    "The scale does not belong to this store: [" + scale + "]" );
+        }
+        return ( (MemoryScale) scale ).key();
+    }
+
+    String scaleName( final long key )
+    {
+        return scaleNames.get( key );
+    }
+
+    byte[] ring( final int ring )
+    {
+        return rings.get( ring );
+    }
+
+    FamilyTree scaleFamilies()
+    {
+        return scaleFamilies;
+    }
+
+    int scaleFamilyIndex( final ScaleFamily family )
+    {
+        if ( !( family instanceof MemoryScaleFamily )
+             || ( (MemoryScaleFamily) family ).store != this )
+        {
+            throw new IllegalArgumentException(
+                    "The scale family does not belong to this store: ["
+                            + family + "]" );
+        }
+        return ( (MemoryScaleFamily) family ).index;
+    }
+
+    FamilyTree tuningFamilies()
+    {
+        return tuningFamilies;
+    }
+
+    int tuningFamilyIndex( final TuningFamily family )
+    {
+        if ( !( family instanceof MemoryTuningFamily )
+             || ( (MemoryTuningFamily) family ).store != this )
+        {
+            throw new IllegalArgumentException(
+                    "The tuning family does not belong to this store: ["
+                            + family + "]" );
+        }
+        return ( (MemoryTuningFamily) family ).index;
+    }
+
+    boolean addTuning( final int family, final Tuning tuning,
+            final String name )
+    {
+        if ( !( tuning instanceof MemoryTuning )
+             || ( (MemoryTuning) tuning ).store != this )
+        {
+            throw new IllegalArgumentException(
+                    "The tuning does not belong to this store: [" + tuning
+                            + "]" );
+        }
+        int index = ( (MemoryTuning) tuning ).index;
+        tuningNames.set( index, name );
+        return changed( tuningFamilies.addItem( family, index ) );
+    }
+
+    String tuningName( final int tuning )
+    {
+        return tuningNames.get( tuning );
+    }
+
+    int tuningFamily( final int tuning )
+    {
+        return tunings.get( tuning )[TUNING_FAMILY];
+    }
+
+    int tuningRootNote( final int tuning )
+    {
+        return tunings.get( tuning )[TUNING_ROOT_NOTE];
+    }
+
+    byte[] tuningIntervals( final int tuning )
+    {
+        return chains.get( tunings.get( tuning )[TUNING_CHAIN] );
+    }
+
+    FamilyTree chordFamilies()
+    {
+        return chordFamilies;
+    }
+
+    int chordFamilyIndex( final ChordFamily family )
+    {
+        if ( !( family instanceof MemoryChordFamily )
+             || ( (MemoryChordFamily) family ).store != this )
+        {
+            throw new IllegalArgumentException(
+                    "The chord family does not belong to this store: ["
+                            + family + "]" );
+        }
+        return ( (MemoryChordFamily) family ).index;
+    }
+
+    boolean addChord( final int family, final Chord chord, final String name )
+    {
+        if ( !( chord instanceof MemoryChord )
+             || ( (MemoryChord) chord ).store != this )
+        {
+            throw new IllegalArgumentException(
+                    "The chord does not belong to this store: [" + chord + "]" );
+        }
+        int index = ( (MemoryChord) chord ).index;
+        if ( name != null )
+        {
+            chordNames.set( index, name );
+        }
+        return changed( chordFamilies.addItem( family, index ) );
+    }
+
+    String chordName( final int chord )
+    {
+        return chordNames.get( chord );
+    }
+
+    int chordMask( final int chord )
+    {
+        return chordMasks.get( chord );
+    }
+
+    byte[] chordTones( final int chord )
+    {
+        return chords.get( chord );
+    }
+
+    /**
+     * Move on to the next generation if the catalog has changed.
+     * 
+     * @param changed whether the catalog has changed
+     * @return the <code>changed</code> argument
+     */
+    boolean changed( final boolean changed )
+    {
+        if ( changed )
+        {
+            generation.incrementAndGet();
+        }
+        return changed;
+    }
+
+    private Tuning newTuning( final int family, final String name,
+            final Note rootNote, final int chain )
+    {
+        int tuning = tunings.size();
+        tunings.add( new int[] { family, rootNote.getPitchClass(), chain } );
+        tuningNames.add( name );
+        tuningFamilies.addItem( family, tuning );
+        changed( true );
+        return new MemoryTuning( this, tuning );
+    }
+
+    /**
+     * Find the scale starting with a sequence of intervals.
+     * 
+     * @param steps the intervals, in semitones
+     * @return the scale or <code>null</code> if there is no such ring
+     */
+    private MemoryScale locate( final int[] steps )
+    {
+        int degree = steps.length;
+        if ( RotationKey.isPackable( steps ) )
+        {
+            int rotation = RotationKey.canonicalRotation( steps );
+            Integer ring = ringsByKey.get( RotationKey.pack( steps, rotation ) );
+            if ( ring == null )
+            {
+                return null;
+            }
+            return new MemoryScale( this, ring, ( degree - rotation ) % degree );
+        }
+        // too long for a key, compare to every rotation of every ring
+        for ( int ring = 0; ring < rings.size(); ring++ )
+        {
+            byte[] ringSteps = rings.get( ring );
+            if ( ringSteps.length != degree )
+            {
+                continue;
+            }
+            for ( int rotation = 0; rotation < degree; rotation++ )
+            {
+                int position = 0;
+                while ( position < degree
+                        && ringSteps[( rotation + position ) % degree] == steps[position] )
+                {
+                    position++;
+                }
+                if ( position == degree )
+                {
+                    return new MemoryScale( this, ring, rotation );
+                }
+            }
+        }
+        return null;
+    }
+
+    private MemoryScale newRing( final int[] steps )
+    {
+        int degree = steps.length;
+        int rotation = RotationKey.isPackable( steps ) ? RotationKey.canonicalRotation( steps )
+                : 0;
+        byte[] ringSteps = new byte[degree];
+        for ( int i = 0; i < degree; i++ )
+        {
+            ringSteps[i] = (byte) steps[( rotation + i ) % degree];
+        }
+        int ring = rings.size();
+        rings.add( ringSteps );
+        if ( RotationKey.isPackable( steps ) )
+        {
+            ringsByKey.put( RotationKey.pack( steps, rotation ), ring );
+        }
+        return new MemoryScale( this, ring, ( degree - rotation ) % degree );
+    }
+
+    private static int[] steps( final Interval... intervals )
+    {
+        if ( intervals.length == 0 )
+        {
+            throw new IllegalArgumentException(
+                    "There can't be a scale without any interval!" );
+        }
+        int[] steps = new int[intervals.length];
+        for ( int i = 0; i < intervals.length; i++ )
+        {
+            // enforce DiatonicInterval for scales
+            steps[i] = DiatonicInterval.getFromInterval( intervals[i] )
+                    .getSemitones();
+        }
+        return steps;
+    }
+
+    private static byte[] tones( final Interval... intervals )
+    {
+        byte[] tones = new byte[intervals.length];
+        for ( int i = 0; i < intervals.length; i++ )
+        {
+            tones[i] = (byte) DiatonicInterval.getFromInterval( intervals[i] )
+                    .getSemitones();
+        }
+        return tones;
+    }
+
+    private static Interval[] intervals( final int[] steps )
+    {
+        Interval[] intervals = new Interval[steps.length];
+        for ( int i = 0; i < steps.length; i++ )
+        {
+            intervals[i] = DiatonicInterval.getFromSemitones( PitchClassSet.normalize( steps[i] ) );
+        }
+        return intervals;
+    }
+
+    private static int family( final FamilyTree families, final String[] path,
+            final boolean create )
+    {
+        int family = 0;
+        for ( int depth = 0; depth < path.length; depth++ )
+        {
+            int child = -1;
+            for ( int candidate : families.children( family ) )
+            {
+                if ( path[depth].equals( families.name( candidate ) ) )
+                {
+                    child = candidate;
+                    break;
+                }
+            }
+            if ( child == -1 )
+            {
+                if ( !create || depth < path.length - 1 )
+                {
+                    throw new IllegalArgumentException(
+                            "The family has to be declared before it is used: ["
+                                    + Arrays.toString( path ) + "]" );
+                }
+                child = families.newFamily( family, path[depth] );
+            }
+            family = child;
+        }
+        return family;
+    }
+
+    /**
+     * Passes the records of a catalog on to the store.
+     */
+    private final class Loader implements CatalogHandler
+    {
+        @Override
+        public void version( final String version )
+        {
+            catalogVersion = version;
+        }
+
+        @Override
+        public void scaleFamily( final String[] path )
+        {
+            family( scaleFamilies, path, true );
+        }
+
+        @Override
+        public void scales( final String[] family, final int[] steps,
+                final String[] names )
+        {
+            newScales( new MemoryScaleFamily( MemoryCatalogStore.this,
+                    family( scaleFamilies, family, false ) ), names,
+                    intervals( steps ) );
+        }
+
+        @Override
+        public void tuningFamily( final String[] path )
+        {
+            family( tuningFamilies, path, true );
+        }
+
+        @Override
+        public void tuning( final String[] family, final String name,
+                final NoteRepository rootNote, final int[] steps )
+        {
+            newTuning( new MemoryTuningFamily( MemoryCatalogStore.this,
+                    family( tuningFamilies, family, false ) ), name,
+                    note( rootNote ), intervals( steps ) );
+        }
+    }
+}
@@ -0,0 +1,146 @@
+/**
+ * Copyright (c) 2002-2013 "Neo Technology,"
+ * Network Engine for Objects in Lund AB [http://neotechnology.com]
+ *
+ * This file is part of Neo4j.
+ *
+ * Neo4j is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package se.nawroth.scales.memory;
+
+import java.util.AbstractCollection;
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.List;
+
+import org.neo4j.graphdb.Node;
+
+import se.nawroth.scales.api.Chord;
+import se.nawroth.scales.api.DiatonicInterval;
+import se.nawroth.scales.api.NamedInterval;
+import se.nawroth.scales.api.PitchClassSet;
+
+/**
+ * A {@link Chord} of a {@link MemoryCatalogStore}.
+ * 
+ * @author Anders Nawroth
+ */
+final class MemoryChord extends AbstractCollection<NamedInterval> implements
+        Chord
+{
+    final MemoryCatalogStore store;
+    final int index;
+
+    MemoryChord( final MemoryCatalogStore store, final int index )
+    {
+        this.store = store;
+        this.index = index;
+    }
+
+    @Override
+    public String getName()
+    {
+        return store.chordName( index );
+    }
+
+    @Override
+    public PitchClassSet getPitchClassSet()
+    {
+        return PitchClassSet.of( store.chordMask( index ), 0 );
+    }
+
+    @Override
+    public Iterator<NamedInterval> iterator()
+    {
+        byte[] tones = store.chordTones( index );
+        List<NamedInterval> intervals = new ArrayList<NamedInterval>( tones.length );
+        for ( byte tone : tones )
+        {
+            intervals.add( DiatonicInterval.getFromSemitones( tone ) );
+        }
+        return intervals.iterator();
+    }
+
+    @Override
+    public int size()
+    {
+        return store.chordTones( index ).length;
+    }
+
+    @Override
+    public Node getUnderlyingNode()
+    {
+        throw new UnsupportedOperationException(
+                "Chords in memory have no underlying node." );
+    }
+
+    /**
+     * Compare by name first, with unnamed chords after the named ones, then by
+     * the order the chords were created in.
+     */
+    @Override
+    public int compareTo( final Chord other )
+    {
+        String name = getName();
+        String otherName = other.getName();
+        if ( name == null || otherName == null )
+        {
+            if ( name != otherName )
+            {
+                return name == null ? 1 : -1;
+            }
+        }
+        else
+        {
+            int byName = name.compareTo( otherName );
+            if ( byName != 0 )
+            {
+                return byName;
+            }
+        }
+        if ( other instanceof MemoryChord )
+        {
+            return Integer.compare( index, ( (MemoryChord) other ).index );
+        }
+        return getClass().getName()
+                .compareTo( other.getClass()
+                        .getName() );
+    }
+
+    @Override
+    public int hashCode()
+    {
+        return index;
+    }
+
+    @Override
+    public boolean equals( final Object obj )
+    {
+        return obj instanceof MemoryChord
+               && store == ( (MemoryChord) obj ).store
+               && index == ( (MemoryChord) obj ).index;
+    }
+
+    @Override
+    public String toString()
+    {
+        StringBuilder builder = new StringBuilder( String.valueOf( getName() ) ).append( ":" );
+        for ( NamedInterval interval : this )
+        {
+            builder.append( ' ' )
+                    .append( interval.getShortName() );
+        }
+        return builder.toString();
+    }
+}
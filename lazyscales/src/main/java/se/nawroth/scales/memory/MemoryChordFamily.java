@@ -0,0 +1,128 @@
+/**
+ * Copyright (c) 2002-2013 "Neo Technology,"
+ * Network Engine for Objects in Lund AB [http://neotechnology.com]
+ *
+ * This file is part of Neo4j.
+ *
+ * Neo4j is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package se.nawroth.scales.memory;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import org.neo4j.graphdb.Node;
+
+import se.nawroth.scales.api.Chord;
+import se.nawroth.scales.api.ChordFamily;
+
+/**
+ * A {@link ChordFamily} of a {@link MemoryCatalogStore}.
+ * 
+ * @author Anders Nawroth
+ */
+final class MemoryChordFamily implements ChordFamily
+{
+    final MemoryCatalogStore store;
+    final int index;
+
+    MemoryChordFamily( final MemoryCatalogStore store, final int index )
+    {
+        this.store = store;
+        this.index = index;
+    }
+
+    @Override
+    public String getName()
+    {
+        return store.chordFamilies()
+                .name( index );
+    }
+
+    @Override
+    public Iterable<ChordFamily> getSubFamilies()
+    {
+        List<ChordFamily> families = new ArrayList<ChordFamily>();
+        for ( int child : store.chordFamilies()
+                .children( index ) )
+        {
+            families.add( new MemoryChordFamily( store, child ) );
+        }
+        return families;
+    }
+
+    @Override
+    public Iterable<Chord> getChords()
+    {
+        List<Chord> chords = new ArrayList<Chord>();
+        for ( long chord : store.chordFamilies()
+                .items( index ) )
+        {
+            chords.add( new MemoryChord( store, (int) chord ) );
+        }
+        return chords;
+    }
+
+    @Override
+    public boolean addSubFamily( final ChordFamily family )
+    {
+        return store.changed( store.chordFamilies()
+                .addChild( index, store.chordFamilyIndex( family ) ) );
+    }
+
+    @Override
+    public boolean addChord( final Chord chord )
+    {
+        return store.addChord( index, chord, null );
+    }
+
+    @Override
+    public boolean addChord( final Chord chord, final String name )
+    {
+        return store.addChord( index, chord, name );
+    }
+
+    @Override
+    public Node getUnderlyingNode()
+    {
+        throw new UnsupportedOperationException(
+                "Chord families in memory have no underlying node." );
+    }
+
+    @Override
+    public int compareTo( final ChordFamily other )
+    {
+        return getName().compareTo( other.getName() );
+    }
+
+    @Override
+    public int hashCode()
+    {
+        return index;
+    }
+
+    @Override
+    public boolean equals( final Object obj )
+    {
+        return obj instanceof MemoryChordFamily
+               && store == ( (MemoryChordFamily) obj ).store
+               && index == ( (MemoryChordFamily) obj ).index;
+    }
+
+    @Override
+    public String toString()
+    {
+        return getName();
+    }
+}
@@ -0,0 +1,92 @@
+/**
+ * Copyright (c) 2002-2013 "Neo Technology,"
+ * Network Engine for Objects in Lund AB [http://neotechnology.com]
+ *
+ * This file is part of Neo4j.
+ *
+ * Neo4j is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package se.nawroth.scales.memory;
+
+import se.nawroth.scales.api.Scale;
+import se.nawroth.scales.scale.AbstractScale;
+
+/**
+ * A {@link Scale} of a {@link MemoryCatalogStore}: a ring of intervals
+ * together with the interval the scale starts on.
+ * 
+ * @author Anders Nawroth
+ */
+final class MemoryScale extends AbstractScale
+{
+    final MemoryCatalogStore store;
+    final int ring;
+    final int rotation;
+
+    MemoryScale( final MemoryCatalogStore store, final int ring,
+            final int rotation )
+    {
+        this.store = store;
+        this.ring = ring;
+        this.rotation = rotation;
+    }
+
+    long key()
+    {
+        return MemoryCatalogStore.scaleKey( ring, rotation );
+    }
+
+    @Override
+    public String getName()
+    {
+        return store.scaleName( key() );
+    }
+
+    @Override
+    protected int degree()
+    {
+        return store.ring( ring ).length;
+    }
+
+    @Override
+    protected int step( final int position )
+    {
+        byte[] steps = store.ring( ring );
+        return steps[( rotation + position ) % steps.length];
+    }
+
+    @Override
+    protected long identity()
+    {
+        return key();
+    }
+
+    @Override
+    public int hashCode()
+    {
+        return 31 * ring + rotation;
+    }
+
+    @Override
+    public boolean equals( final Object obj )
+    {
+        if ( !( obj instanceof MemoryScale ) )
+        {
+            return false;
+        }
+        MemoryScale other = (MemoryScale) obj;
+        return store == other.store && ring == other.ring
+               && rotation == other.rotation;
+    }
+}
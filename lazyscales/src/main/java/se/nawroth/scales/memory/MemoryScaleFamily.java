@@ -0,0 +1,123 @@
+/**
+ * Copyright (c) 2002-2013 "Neo Technology,"
+ * Network Engine for Objects in Lund AB [http://neotechnology.com]
+ *
+ * This file is part of Neo4j.
+ *
+ * Neo4j is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package se.nawroth.scales.memory;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import org.neo4j.graphdb.Node;
+
+import se.nawroth.scales.api.Scale;
+import se.nawroth.scales.api.ScaleFamily;
+
+/**
+ * A {@link ScaleFamily} of a {@link MemoryCatalogStore}.
+ * 
+ * @author Anders Nawroth
+ */
+final class MemoryScaleFamily implements ScaleFamily
+{
+    final MemoryCatalogStore store;
+    final int index;
+
+    MemoryScaleFamily( final MemoryCatalogStore store, final int index )
+    {
+        this.store = store;
+        this.index = index;
+    }
+
+    @Override
+    public String getName()
+    {
+        return store.scaleFamilies()
+                .name( index );
+    }
+
+    @Override
+    public Iterable<ScaleFamily> getSubFamilies()
+    {
+        List<ScaleFamily> families = new ArrayList<ScaleFamily>();
+        for ( int child : store.scaleFamilies()
+                .children( index ) )
+        {
+            families.add( new MemoryScaleFamily( store, child ) );
+        }
+        return families;
+    }
+
+    @Override
+    public Iterable<Scale> getScales()
+    {
+        List<Scale> scales = new ArrayList<Scale>();
+        for ( long key : store.scaleFamilies()
+                .items( index ) )
+        {
+            scales.add( store.scale( key ) );
+        }
+        return scales;
+    }
+
+    @Override
+    public boolean addSubFamily( final ScaleFamily family )
+    {
+        return store.changed( store.scaleFamilies()
+                .addChild( index, store.scaleFamilyIndex( family ) ) );
+    }
+
+    @Override
+    public boolean addScale( final Scale scale )
+    {
+        return store.changed( store.scaleFamilies()
+                .addItem( index, store.scaleKey( scale ) ) );
+    }
+
+    @Override
+    public Node getUnderlyingNode()
+    {
+        throw new UnsupportedOperationException(
+                "Scale families in memory have no underlying node." );
+    }
+
+    @Override
+    public int compareTo( final ScaleFamily other )
+    {
+        return getName().compareTo( other.getName() );
+    }
+
+    @Override
+    public int hashCode()
+    {
+        return index;
+    }
+
+    @Override
+    public boolean equals( final Object obj )
+    {
+        return obj instanceof MemoryScaleFamily
+               && store == ( (MemoryScaleFamily) obj ).store
+               && index == ( (MemoryScaleFamily) obj ).index;
+    }
+
+    @Override
+    public String toString()
+    {
+        return getName();
+    }
+}
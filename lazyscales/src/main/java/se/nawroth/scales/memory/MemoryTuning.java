@@ -0,0 +1,122 @@
+/**
+ * Copyright (c) 2002-2013 "Neo Technology,"
+ * Network Engine for Objects in Lund AB [http://neotechnology.com]
+ *
+ * This file is part of Neo4j.
+ *
+ * Neo4j is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package se.nawroth.scales.memory;
+
+import java.util.AbstractCollection;
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.List;
+
+import org.neo4j.graphdb.Node;
+
+import se.nawroth.scales.api.DiatonicInterval;
+import se.nawroth.scales.api.NamedInterval;
+import se.nawroth.scales.api.Note;
+import se.nawroth.scales.api.Tuning;
+import se.nawroth.scales.api.TuningFamily;
+import se.nawroth.scales.note.NoteIterator;
+
+/**
+ * A {@link Tuning} of a {@link MemoryCatalogStore}.
+ * 
+ * @author Anders Nawroth
+ */
+final class MemoryTuning extends AbstractCollection<Note> implements Tuning
+{
+    final MemoryCatalogStore store;
+    final int index;
+
+    MemoryTuning( final MemoryCatalogStore store, final int index )
+    {
+        this.store = store;
+        this.index = index;
+    }
+
+    @Override
+    public String getName()
+    {
+        return store.tuningName( index );
+    }
+
+    @Override
+    public TuningFamily getFamily()
+    {
+        return new MemoryTuningFamily( store, store.tuningFamily( index ) );
+    }
+
+    @Override
+    public int size()
+    {
+        return store.tuningIntervals( index ).length + 1;
+    }
+
+    @Override
+    public boolean isEmpty()
+    {
+        return false;
+    }
+
+    @Override
+    public Iterator<Note> iterator()
+    {
+        byte[] steps = store.tuningIntervals( index );
+        List<NamedInterval> intervals = new ArrayList<NamedInterval>(
+                steps.length );
+        for ( byte step : steps )
+        {
+            intervals.add( DiatonicInterval.getFromSemitones( step ) );
+        }
+        return NoteIterator.iterator( store.note( store.tuningRootNote( index ) ),
+                intervals.iterator() );
+    }
+
+    @Override
+    public Node getUnderlyingNode()
+    {
+        throw new UnsupportedOperationException(
+                "Tunings in memory have no underlying node." );
+    }
+
+    @Override
+    public int compareTo( final Tuning otherTuning )
+    {
+        return getName().compareTo( otherTuning.getName() );
+    }
+
+    @Override
+    public int hashCode()
+    {
+        return index;
+    }
+
+    @Override
+    public boolean equals( final Object obj )
+    {
+        return obj instanceof MemoryTuning
+               && store == ( (MemoryTuning) obj ).store
+               && index == ( (MemoryTuning) obj ).index;
+    }
+
+    @Override
+    public String toString()
+    {
+        return getName() + ": " + super.toString();
+    }
+}
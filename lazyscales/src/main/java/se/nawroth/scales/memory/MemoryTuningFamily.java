@@ -0,0 +1,122 @@
+/**
+ * Copyright (c) 2002-2013 "Neo Technology,"
+ * Network Engine for Objects in Lund AB [http://neotechnology.com]
+ *
+ * This file is part of Neo4j.
+ *
+ * Neo4j is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package se.nawroth.scales.memory;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import org.neo4j.graphdb.Node;
+
+import se.nawroth.scales.api.Tuning;
+import se.nawroth.scales.api.TuningFamily;
+
+/**
+ * A {@link TuningFamily} of a {@link MemoryCatalogStore}.
+ * 
+ * @author Anders Nawroth
+ */
+final class MemoryTuningFamily implements TuningFamily
+{
+    final MemoryCatalogStore store;
+    final int index;
+
+    MemoryTuningFamily( final MemoryCatalogStore store, final int index )
+    {
+        this.store = store;
+        this.index = index;
+    }
+
+    @Override
+    public String getName()
+    {
+        return store.tuningFamilies()
+                .name( index );
+    }
+
+    @Override
+    public Iterable<TuningFamily> getSubFamilies()
+    {
+        List<TuningFamily> families = new ArrayList<TuningFamily>();
+        for ( int child : store.tuningFamilies()
+                .children( index ) )
+        {
+            families.add( new MemoryTuningFamily( store, child ) );
+        }
+        return families;
+    }
+
+    @Override
+    public Iterable<Tuning> getTunings()
+    {
+        List<Tuning> tunings = new ArrayList<Tuning>();
+        for ( long tuning : store.tuningFamilies()
+                .items( index ) )
+        {
+            tunings.add( new MemoryTuning( store, (int) tuning ) );
+        }
+        return tunings;
+    }
+
+    @Override
+    public boolean addSubFamily( final TuningFamily family )
+    {
+        return store.changed( store.tuningFamilies()
+                .addChild( index, store.tuningFamilyIndex( family ) ) );
+    }
+
+    @Override
+    public boolean addTuning( final Tuning tuning, final String name )
+    {
+        return store.addTuning( index, tuning, name );
+    }
+
+    @Override
+    public Node getUnderlyingNode()
+    {
+        throw new UnsupportedOperationException(
+                "Tuning families in memory have no underlying node." );
+    }
+
+    @Override
+    public int compareTo( final TuningFamily other )
+    {
+        return getName().compareTo( other.getName() );
+    }
+
+    @Override
+    public int hashCode()
+    {
+        return index;
+    }
+
+    @Override
+    public boolean equals( final Object obj )
+    {
+        return obj instanceof MemoryTuningFamily
+               && store == ( (MemoryTuningFamily) obj ).store
+               && index == ( (MemoryTuningFamily) obj ).index;
+    }
+
+    @Override
+    public String toString()
+    {
+        return getName();
+    }
+}
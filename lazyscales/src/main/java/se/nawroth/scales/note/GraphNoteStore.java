@@ -0,0 +1,145 @@
+/**
+ * Copyright (c) 2002-2013 "Neo Technology,"
+ * Network Engine for Objects in Lund AB [http://neotechnology.com]
+ *
+ * This file is part of Neo4j.
+ *
+ * Neo4j is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package se.nawroth.scales.note;
+
+import org.neo4j.graphdb.Direction;
+import org.neo4j.graphdb.Node;
+
+import se.nawroth.scales.api.DiatonicInterval;
+import se.nawroth.scales.api.LatinInterval;
+import se.nawroth.scales.api.Note;
+import se.nawroth.scales.api.PitchClassSet;
+import se.nawroth.scales.util.GraphDb;
+
+/**
+ * Keeps the {@link Note}s in the graph, as a circle of semitone relationships
+ * with shortcuts for every other interval. The twelve notes are read once per
+ * database and kept in a table, so that notes can be looked up by pitch class
+ * without touching the database. Writes have to be made inside a transaction.
+ * 
+ * @author Anders Nawroth
+ * @see se.nawroth.scales.GraphCatalogStore
+ */
+public final class GraphNoteStore
+{
+    private final GraphDb graphDb;
+
+    /**
+     * Create the store.
+     * 
+     * @param graphDb the database to use
+     */
+    public GraphNoteStore( final GraphDb graphDb )
+    {
+        this.graphDb = graphDb;
+    }
+
+    /**
+     * Get the {@link Note} of a pitch class.
+     * 
+     * @param pitchClass the pitch class, counted in semitones from C
+     * @return the note
+     */
+    public Note note( final int pitchClass )
+    {
+        Note[] notes = graphDb.getNotes( () -> NoteImpl.readCircle( noteReferenceNode() ) );
+        return notes[PitchClassSet.normalize( pitchClass )];
+    }
+
+    /**
+     * Initialize the database with {@link Note}s. Does nothing if the notes
+     * already exist.
+     * 
+     * @return <code>true</code> if the notes were created
+     */
+    public boolean setupNotes()
+    {
+        Node notesNode = noteReferenceNode();
+        if ( notesNode.hasRelationship( LatinInterval.SEMITONE ) )
+        {
+            return false;
+        }
+        // create circle with note names by using semitones
+        Node currentNode = notesNode;
+        for ( int pitchClass = 0; pitchClass < PitchClassSet.PITCH_CLASSES; pitchClass++ )
+        {
+            currentNode.setProperty( NoteImpl.PITCH_CLASS, pitchClass );
+            currentNode.setProperty( NoteImpl.SHARP_NAME,
+                    NoteService.sharpName( pitchClass ) );
+            currentNode.setProperty( NoteImpl.FLAT_NAME,
+                    NoteService.flatName( pitchClass ) );
+            if ( pitchClass < PitchClassSet.PITCH_CLASSES - 1 )
+            {
+                Node nextNode = graphDb.createNode();
+                currentNode.createRelationshipTo( nextNode,
+                        LatinInterval.SEMITONE );
+                currentNode = nextNode;
+            }
+        }
+        currentNode.createRelationshipTo( notesNode, LatinInterval.SEMITONE );
+
+        // add other intervals
+        while ( !currentNode.hasRelationship( DiatonicInterval.MINOR_SECOND,
+                Direction.OUTGOING ) )
+        {
+            for ( DiatonicInterval interval : DiatonicInterval.values() )
+            {
+                if ( interval.equals( DiatonicInterval.UNISON ) )
+                {
+                    continue;
+                }
+                Node searchNode = currentNode;
+                for ( int i = 1; i <= interval.getSemitones(); i++ )
+                {
+                    searchNode = searchNode.getSingleRelationship(
+                            LatinInterval.SEMITONE, Direction.OUTGOING ).getEndNode();
+                }
+                currentNode.createRelationshipTo( searchNode, interval );
+            }
+            currentNode = currentNode.getSingleRelationship(
+                    LatinInterval.SEMITONE, Direction.OUTGOING ).getEndNode();
+        }
+        return true;
+    }
+
+    /**
+     * Add the pitch class to notes stored before the pitch class existed.
+     */
+    public void addPitchClasses()
+    {
+        Node notesNode = noteReferenceNode();
+        if ( notesNode.hasProperty( NoteImpl.PITCH_CLASS ) )
+        {
+            return;
+        }
+        Node currentNode = notesNode;
+        for ( int pitchClass = 0; pitchClass < PitchClassSet.PITCH_CLASSES; pitchClass++ )
+        {
+            currentNode.setProperty( NoteImpl.PITCH_CLASS, pitchClass );
+            currentNode = currentNode.getSingleRelationship(
+                    LatinInterval.SEMITONE, Direction.OUTGOING ).getEndNode();
+        }
+    }
+
+    private Node noteReferenceNode()
+    {
+        return graphDb.getReferenceNode( NoteTypes.NOTES );
+    }
+}
@@ -19,33 +19,112 @@
  */
 package se.nawroth.scales.note;
 
-import static se.nawroth.scales.api.DiatonicInterval.UNISON;
-
 import org.neo4j.graphdb.Direction;
 import org.neo4j.graphdb.Node;
 
 import se.nawroth.scales.api.Interval;
+import se.nawroth.scales.api.LatinInterval;
 import se.nawroth.scales.api.Note;
+import se.nawroth.scales.api.PitchClassSet;
+import se.nawroth.scales.util.GraphDb;
 
 /**
- * Default implementation of the {@link Note} interface.
+ * Default implementation of the {@link Note} interface. All notes that are
+ * reached from another note share a table of the twelve notes, so moving by
+ * intervals is plain arithmetic on the pitch class and never touches the
+ * database. The table is read from the semitone circle once per database,
+ * see {@link GraphDb#getNotes(java.util.function.Supplier)}.
  * 
  * @author Anders Nawroth
  */
 public class NoteImpl implements Note
 {
-    private static final String SHARP_NAME = "sharp name";
-    private static final String FLAT_NAME = "flat name";
+    /**
+     * Property holding the name of the note, using sharps.
+     */
+    public static final String SHARP_NAME = "sharp name";
+    /**
+     * Property holding the name of the note, using flats.
+     */
+    public static final String FLAT_NAME = "flat name";
+    /**
+     * Property holding the pitch class of the note.
+     */
+    public static final String PITCH_CLASS = "pitch class";
     private final Node underlying;
+    private final int pitchClass;
+    private final String flatName;
+    private final String sharpName;
+    private final Note[] circle;
 
     /**
-     * Crate a {@link Note} from an underlying {@link Node}.
+     * Crate a {@link Note} from an underlying {@link Node}. Prefer
+     * {@link #of(Node)}, which doesn't create a new instance.
      * 
      * @param node the underlying node
      */
     public NoteImpl( final Node node )
+    {
+        this( node, circle( node ) );
+    }
+
+    private NoteImpl( final Node node, final Note[] circle )
     {
         this.underlying = node;
+        this.pitchClass = readPitchClass( node );
+        this.flatName = (String) node.getProperty( FLAT_NAME );
+        this.sharpName = (String) node.getProperty( SHARP_NAME );
+        this.circle = circle;
+    }
+
+    /**
+     * Get the {@link Note} of an underlying {@link Node}, from the table shared
+     * by all notes of the database.
+     * 
+     * @param node the underlying node
+     * @return the note
+     */
+    public static Note of( final Node node )
+    {
+        return circle( node )[readPitchClass( node )];
+    }
+
+    /**
+     * Get the table of all twelve notes of a database, which is shared when
+     * the database is wrapped by a {@link GraphDb}.
+     * 
+     * @param node the underlying node of any note
+     * @return the notes indexed by pitch class
+     */
+    static Note[] circle( final Node node )
+    {
+        GraphDb graphDb = GraphDb.forDatabase( node.getGraphDatabase() );
+        if ( graphDb == null )
+        {
+            return readCircle( node );
+        }
+        return graphDb.getNotes( () -> readCircle( node ) );
+    }
+
+    /**
+     * Read all twelve notes from the semitone circle, starting from any note.
+     * The notes are indexed by pitch class and share the returned table.
+     * 
+     * @param node the underlying node of any note
+     * @return the notes indexed by pitch class
+     */
+    static Note[] readCircle( final Node node )
+    {
+        Note[] circle = new Note[PitchClassSet.PITCH_CLASSES];
+        Node current = node;
+        for ( int i = 0; i < PitchClassSet.PITCH_CLASSES; i++ )
+        {
+            NoteImpl note = new NoteImpl( current, circle );
+            circle[note.pitchClass] = note;
+            current = current.getSingleRelationship( LatinInterval.SEMITONE,
+                    Direction.OUTGOING ).getEndNode();
+        }
+        return circle;
     }
 
     /**
@@ -58,32 +137,30 @@ public class NoteImpl implements Note
         return underlying;
     }
 
+    @Override
+    public final int getPitchClass()
+    {
+        return pitchClass;
+    }
+
     @Override
     public final Note getFromInterval( final Interval interval )
     {
-        if ( UNISON.equivalent( interval ) )
-        {
-            return this;
-        }
-        return new NoteImpl( underlying.getSingleRelationship( interval,
-                Direction.OUTGOING ).getEndNode() );
+        return circle[PitchClassSet.normalize( pitchClass
+                                               + interval.getSemitones() )];
     }
 
     @Override
     public final Note getFromIntervalReversed( final Interval interval )
     {
-        if ( UNISON.equivalent( interval ) )
-        {
-            return this;
-        }
-        return new NoteImpl( underlying.getSingleRelationship( interval,
-                Direction.INCOMING ).getStartNode() );
+        return circle[PitchClassSet.normalize( pitchClass
+                                               - interval.getSemitones() )];
     }
 
     @Override
     public final String toString()
     {
-        return toStringFlat();
+        return flatName;
     }
 
     @Override
@@ -91,11 +168,11 @@ public class NoteImpl implements Note
     {
         if ( flat )
         {
-            return toStringFlat();
+            return flatName;
         }
         else
         {
-            return toStringSharp();
+            return sharpName;
         }
     }
 
@@ -108,6 +185,10 @@ public class NoteImpl implements Note
     @Override
     public final boolean equals( final Object obj )
     {
+        if ( obj == this )
+        {
+            return true;
+        }
         if ( obj instanceof NoteImpl )
         {
             return getUnderlying().equals( ( (NoteImpl) obj ).getUnderlying() );
@@ -115,13 +196,14 @@ public class NoteImpl implements Note
         return false;
     }
 
-    private String toStringFlat()
-    {
-        return (String) underlying.getProperty( FLAT_NAME );
-    }
-
-    private String toStringSharp()
+    private static int readPitchClass( final Node node )
     {
-        return (String) underlying.getProperty( SHARP_NAME );
+        Object pitchClass = node.getProperty( PITCH_CLASS, null );
+        if ( pitchClass == null )
+        {
+            throw new IllegalStateException(
+                    "The note has no pitch class, the database has to be initialized first." );
+        }
+        return ( (Number) pitchClass ).intValue();
     }
 }
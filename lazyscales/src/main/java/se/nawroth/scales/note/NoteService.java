@@ -19,53 +19,39 @@
  */
 package se.nawroth.scales.note;
 
-import static se.nawroth.scales.api.DiatonicInterval.MINOR_SECOND;
-
-import java.util.Arrays;
-import java.util.LinkedList;
-import java.util.Queue;
-
-import org.neo4j.graphdb.Direction;
-import org.neo4j.graphdb.Node;
-import org.neo4j.graphdb.Relationship;
-
+import se.nawroth.scales.CatalogStore;
 import se.nawroth.scales.api.DiatonicInterval;
-import se.nawroth.scales.api.LatinInterval;
 import se.nawroth.scales.api.NamedInterval;
 import se.nawroth.scales.api.Note;
-import se.nawroth.scales.api.Scale;
-import se.nawroth.scales.api.ScaleFamily;
-import se.nawroth.scales.api.Types;
-import se.nawroth.scales.scale.ScaleFamilyService;
-import se.nawroth.scales.scale.ScaleService;
-import se.nawroth.scales.util.GraphDb;
+import se.nawroth.scales.api.PitchClassSet;
+import se.nawroth.scales.util.StoreMetrics;
 
 /**
- * Operations on {@link Note}s.
+ * Operations on {@link Note}s. Notes are looked up by pitch class from the
+ * store, which keeps a table of the twelve notes.
  * 
  * @author Anders Nawroth
  */
 public final class NoteService
 {
-    private static final String SHARP_NAME = "sharp name";
-    private static final String FLAT_NAME = "flat name";
-    private final GraphDb graphDb;
-    private final ScaleService scaleService;
-    private final ScaleFamilyService scaleFamilyService;
+    /**
+     * The name of the chromatic scale and of its family.
+     */
+    public static final String CHROMATIC = "Chromatic";
+    private static final String[] SHARP_NAMES = { "C", "C♯", "D", "D♯", "E",
+            "F", "F♯", "G", "G♯", "A", "A♯", "B" };
+    private static final String[] FLAT_NAMES = { "C", "D♭", "D", "E♭", "E",
+            "F", "G♭", "G", "A♭", "A", "B♭", "B" };
+    private final CatalogStore store;
 
     /**
      * Create the service.
      * 
-     * @param graphDb the database to use
-     * @param scaleService the scale service to use
-     * @param scaleFamilyService the scale family service to use
+     * @param store the store to use
      */
-    public NoteService( final GraphDb graphDb, final ScaleService scaleService,
-            final ScaleFamilyService scaleFamilyService )
+    public NoteService( final CatalogStore store )
     {
-        this.graphDb = graphDb;
-        this.scaleService = scaleService;
-        this.scaleFamilyService = scaleFamilyService;
+        this.store = store;
     }
 
     /**
@@ -76,108 +62,62 @@ public final class NoteService
      */
     public Note note( final NoteRepository noteRepresentation )
     {
-        Node cNode = graphDb.getReferenceNode( NoteTypes.NOTES );
-        Note c = new NoteImpl( cNode );
-        return c.getFromInterval( noteRepresentation.interval() );
+        return note( noteRepresentation.interval().getSemitones() );
     }
 
     /**
-     * Get the interval between two {@link Note}s.
+     * Get the {@link Note} of a pitch class.
      * 
-     * @param first the starting {@link Note}
-     * @param second the target {@link Note}
-     * @return the interval between the {@link Note}s
+     * @param pitchClass the pitch class, counted in semitones from C
+     * @return the note
      */
-    public static NamedInterval findInterval( final Note first,
-            final Note second )
+    public Note note( final int pitchClass )
     {
-        if ( first.equals( second ) )
+        StoreMetrics.Call call = store.enter( "NoteService.note" );
+        try
         {
-            return DiatonicInterval.UNISON;
+            return store.note( pitchClass );
         }
-        for ( Relationship rel : ( (NoteImpl) first ).getUnderlying().getRelationships(
-                Direction.OUTGOING ) )
+        finally
         {
-            Node other = rel.getEndNode();
-            if ( other.equals( ( (NoteImpl) second ).getUnderlying() )
-                 && DiatonicInterval.isDiatonicInterval( rel.getType() ) )
-            {
-                return DiatonicInterval.valueOf( rel.getType().name() );
-            }
+            call.exit();
         }
-        return null;
     }
 
     /**
-     * Initialize the database with {@link Note}s. This should be executed once
-     * for every new database.
+     * Get the name of a pitch class, using sharps.
+     * 
+     * @param pitchClass the pitch class, counted in semitones from C
+     * @return the name of the note
      */
-    public void setupNotes()
+    public static String sharpName( final int pitchClass )
     {
-        Node notesNode = noteReferenceNode();
-        if ( notesNode.hasRelationship( LatinInterval.SEMITONE ) )
-        {
-            return;
-        }
-        // create circle with note names by using semitones
-        Queue<String> sharpNames = new LinkedList<String>(
-                Arrays.asList( new String[] { "C", "C♯", "D", "D♯", "E", "F",
-                        "F♯", "G", "G♯", "A", "A♯", "B" } ) );
-        Queue<String> flatNames = new LinkedList<String>(
-                Arrays.asList( new String[] { "C", "D♭", "D", "E♭", "E", "F",
-                        "G♭", "G", "A♭", "A", "B♭", "B" } ) );
-        Node currentNode = notesNode;
-        while ( !sharpNames.isEmpty() )
-        {
-            currentNode.setProperty( SHARP_NAME, sharpNames.poll() );
-            currentNode.setProperty( FLAT_NAME, flatNames.poll() );
-            if ( !sharpNames.isEmpty() )
-            {
-                Node nextNode = graphDb.createNode();
-                currentNode.createRelationshipTo( nextNode,
-                        LatinInterval.SEMITONE );
-                currentNode = nextNode;
-            }
-        }
-        currentNode.createRelationshipTo( notesNode, LatinInterval.SEMITONE );
-
-        // add other intervals
-        while ( !currentNode.hasRelationship( DiatonicInterval.MINOR_SECOND,
-                Direction.OUTGOING ) )
-        {
-            for ( DiatonicInterval interval : DiatonicInterval.values() )
-            {
-                if ( interval.equals( DiatonicInterval.UNISON ) )
-                {
-                    continue;
-                }
-                Node searchNode = currentNode;
-                for ( int i = 1; i <= interval.getSemitones(); i++ )
-                {
-                    searchNode = searchNode.getSingleRelationship(
-                            LatinInterval.SEMITONE, Direction.OUTGOING ).getEndNode();
-                }
-                currentNode.createRelationshipTo( searchNode, interval );
-            }
-            currentNode = currentNode.getSingleRelationship(
-                    LatinInterval.SEMITONE, Direction.OUTGOING ).getEndNode();
-        }
+        return SHARP_NAMES[PitchClassSet.normalize( pitchClass )];
+    }
 
-        // setup chromatic scale
-        ScaleFamily rootScaleFamily = scaleFamilyService.getRootScaleFamily();
-        ScaleFamily chromaticFamily = scaleFamilyService.newScaleFamily(
-                rootScaleFamily, "Chromatic" );
-        Scale chromatic = scaleService.newScale( chromaticFamily, "Chromatic",
-                MINOR_SECOND, MINOR_SECOND, MINOR_SECOND, MINOR_SECOND,
-                MINOR_SECOND, MINOR_SECOND, MINOR_SECOND, MINOR_SECOND,
-                MINOR_SECOND, MINOR_SECOND, MINOR_SECOND, MINOR_SECOND );
-        graphDb.getReferenceNode().createRelationshipTo(
-                chromatic.getUnderlyingNode(), Types.CHROMATIC_SCALE );
+    /**
+     * Get the name of a pitch class, using flats.
+     * 
+     * @param pitchClass the pitch class, counted in semitones from C
+     * @return the name of the note
+     */
+    public static String flatName( final int pitchClass )
+    {
+        return FLAT_NAMES[PitchClassSet.normalize( pitchClass )];
     }
 
-    private Node noteReferenceNode()
+    /**
+     * Get the interval between two {@link Note}s.
+     * 
+     * @param first the starting {@link Note}
+     * @param second the target {@link Note}
+     * @return the interval between the {@link Note}s
+     */
+    public static NamedInterval findInterval( final Note first,
+            final Note second )
     {
-        return graphDb.getReferenceNode( NoteTypes.NOTES );
+        return DiatonicInterval.getFromSemitones( PitchClassSet.normalize( second.getPitchClass()
+                                                                           - first.getPitchClass() ) );
     }
 
     /**
@@ -187,6 +127,6 @@ public final class NoteService
      */
     public Note referenceNote()
     {
-        return new NoteImpl( noteReferenceNode() );
+        return note( 0 );
     }
 }
@@ -23,7 +23,12 @@ import org.neo4j.graphdb.RelationshipType;
 
 import se.nawroth.scales.api.Note;
 
-enum NoteTypes implements RelationshipType
+/**
+ * {@link RelationshipType}s used by the graphdb.
+ * 
+ * @author Anders Nawroth
+ */
+public enum NoteTypes implements RelationshipType
 {
     /**
      * Entry point to the {@link Note}s.
@@ -19,14 +19,22 @@
  */
 package se.nawroth.scales.note;
 
+import java.util.Arrays;
 import java.util.Iterator;
+import java.util.Spliterator;
+import java.util.Spliterators;
 
+import se.nawroth.scales.api.Interval;
 import se.nawroth.scales.api.Note;
+import se.nawroth.scales.api.PitchClassSet;
 import se.nawroth.scales.api.Scale;
 import se.nawroth.scales.util.collection.CircularCollection;
+import se.nawroth.scales.util.collection.CircularSpliterator;
 
 /**
- * Apply a {@link Scale} from a specific root {@link Note}.
+ * Apply a {@link Scale} from a specific root {@link Note}. The notes are
+ * computed from the intervals of the scale on every iteration, unless they come
+ * precomputed from the {@link TranspositionAtlas}.
  * 
  * @author Anders Nawroth
  */
@@ -34,6 +42,8 @@ public final class Notes extends CircularCollection<Note, Note>
 {
     private static final int INITIAL_STRINGBUILDER_SIZE = 60;
     private final Scale scale;
+    private final Note[] sequence;
+    private final boolean ring;
     private boolean flat = true;
 
     /**
@@ -45,10 +55,26 @@ public final class Notes extends CircularCollection<Note, Note>
      */
     public static Notes notes( final Note startingNote, final Scale scale )
     {
-        return new Notes( startingNote, scale );
+        return new Notes( startingNote, scale, null, false );
     }
 
-    private Notes( final Note startingNote, final Scale scale )
+    /**
+     * Creates notes for a scale from precomputed notes.
+     * 
+     * @param startingNote the root note
+     * @param scale the scale to use
+     * @param sequence the notes of one iteration, which must not be changed
+     * @param ring <code>true</code> if the scale is a ring
+     * @return the notes of the scale
+     */
+    static Notes notes( final Note startingNote, final Scale scale,
+            final Note[] sequence, final boolean ring )
+    {
+        return new Notes( startingNote, scale, sequence, ring );
+    }
+
+    private Notes( final Note startingNote, final Scale scale,
+            final Note[] sequence, final boolean ring )
     {
         super( Note.class, startingNote );
         if ( startingNote == null )
@@ -57,6 +83,25 @@ public final class Notes extends CircularCollection<Note, Note>
                     "The starting note can not be null" );
         }
         this.scale = scale;
+        this.sequence = sequence;
+        this.ring = ring;
+    }
+
+    /**
+     * Check if a scale is a ring, where a circular iteration never ends. The
+     * intervals of one lap of a ring are one more than the size of the scale.
+     * 
+     * @param scale the scale to check
+     * @return <code>true</code> if the scale is a ring
+     */
+    static boolean isRing( final Scale scale )
+    {
+        Iterator<? extends Interval> intervals = scale.circularIterator();
+        for ( int i = 0; i <= scale.size() && intervals.hasNext(); i++ )
+        {
+            intervals.next();
+        }
+        return intervals.hasNext();
     }
 
     /**
@@ -105,6 +150,40 @@ public final class Notes extends CircularCollection<Note, Note>
         return getStart();
     }
 
+    /**
+     * Get the pitch classes of the notes, with the starting note as root.
+     * 
+     * @return the pitch classes
+     */
+    public PitchClassSet getPitchClassSet()
+    {
+        return scale.getPitchClassSet()
+                .transpose( getStart().getPitchClass() );
+    }
+
+    /**
+     * Check if the note at an interval above the starting note belongs to
+     * these notes.
+     * 
+     * @param interval the interval from the starting note
+     * @return <code>true</code> if the note is one of these notes
+     */
+    public boolean containsInterval( final Interval interval )
+    {
+        return scale.getPitchClassSet()
+                .contains( interval.getSemitones() );
+    }
+
+    @Override
+    public boolean contains( final Object obj )
+    {
+        return obj instanceof Note
+               && scale.getPitchClassSet()
+                       .contains(
+                               ( (Note) obj ).getPitchClass()
+                                       - getStart().getPitchClass() );
+    }
+
     @Override
     public int size()
     {
@@ -146,12 +225,45 @@ public final class Notes extends CircularCollection<Note, Note>
     @Override
     public Iterator<Note> circularIterator()
     {
-        return NoteIterator.iterator( getStart(), scale.circularIterator() );
+        if ( sequence == null )
+        {
+            return NoteIterator.iterator( getStart(), scale.circularIterator() );
+        }
+        return Spliterators.iterator( circularSpliterator() );
+    }
+
+    @Override
+    public Spliterator<Note> circularSpliterator()
+    {
+        if ( sequence == null ? isRing( scale ) : ring )
+        {
+            return new CircularSpliterator<Note>( getSequence() );
+        }
+        return spliterator();
+    }
+
+    @Override
+    public Spliterator<Note> spliterator()
+    {
+        return Spliterators.spliterator( getSequence(), Spliterator.ORDERED
+                                                        | Spliterator.IMMUTABLE
+                                                        | Spliterator.NONNULL );
     }
 
     @Override
     public Iterator<Note> iterator()
     {
-        return NoteIterator.iterator( getStart(), scale.iterator() );
+        if ( sequence == null )
+        {
+            return NoteIterator.iterator( getStart(), scale.iterator() );
+        }
+        return Arrays.asList( sequence )
+                .iterator();
+    }
+
+    private Note[] getSequence()
+    {
+        return sequence == null ? toArray( new Note[scale.size() + 1] )
+                : sequence;
     }
 }
@@ -0,0 +1,220 @@
+/**
+ * Copyright (c) 2002-2013 "Neo Technology,"
+ * Network Engine for Objects in Lund AB [http://neotechnology.com]
+ *
+ * This file is part of Neo4j.
+ *
+ * Neo4j is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package se.nawroth.scales.note;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+
+import se.nawroth.scales.CatalogStore;
+import se.nawroth.scales.api.Interval;
+import se.nawroth.scales.api.Note;
+import se.nawroth.scales.api.PitchClassSet;
+import se.nawroth.scales.api.Scale;
+import se.nawroth.scales.api.ScaleFamily;
+import se.nawroth.scales.scale.ScaleFamilyService;
+import se.nawroth.scales.util.StoreMetrics;
+
+/**
+ * Keeps the {@link Notes} of scales at all twelve roots. The notes of a scale
+ * are computed once for every root and kept in arrays, so getting the notes of
+ * a scale at a root is a lookup, and iterating them reads an array.
+ * <p>
+ * Scales are added on first use, or all at once for the whole catalog by
+ * {@link #build()}. The atlas is emptied after the catalog has changed.
+ * 
+ * @author Anders Nawroth
+ */
+public final class TranspositionAtlas
+{
+    private static final int OCTAVE = PitchClassSet.PITCH_CLASSES;
+    private final CatalogStore store;
+    private final NoteService noteService;
+    private final ScaleFamilyService scaleFamilyService;
+    private volatile Atlas atlas = null;
+
+    /**
+     * Create the atlas.
+     * 
+     * @param store the store to use
+     * @param noteService the note service to use
+     * @param scaleFamilyService the scale family service to use
+     */
+    public TranspositionAtlas( final CatalogStore store,
+            final NoteService noteService,
+            final ScaleFamilyService scaleFamilyService )
+    {
+        this.store = store;
+        this.noteService = noteService;
+        this.scaleFamilyService = scaleFamilyService;
+    }
+
+    /**
+     * Get the notes of a scale from a root note. The returned {@link Notes}
+     * is a new instance, so changing it to use ♯ or ♭ symbols doesn't affect
+     * other users.
+     * 
+     * @param scale the scale to use
+     * @param root the root note
+     * @return the notes of the scale
+     */
+    public Notes getNotes( final Scale scale, final Note root )
+    {
+        StoreMetrics.Call call = store.enter( "TranspositionAtlas.getNotes" );
+        try
+        {
+            return getAtlas().get( scale )
+                    .getNotes( scale, root );
+        }
+        finally
+        {
+            call.exit();
+        }
+    }
+
+    /**
+     * Add every scale of the catalog to the atlas, in parallel.
+     * 
+     * @return the number of scales in the catalog
+     */
+    public int build()
+    {
+        StoreMetrics.Call call = store.enter( "TranspositionAtlas.build" );
+        try
+        {
+            List<Scale> scales = new ArrayList<Scale>();
+            collect( scaleFamilyService.getRootScaleFamily(), scales );
+            final Atlas current = getAtlas();
+            scales.parallelStream()
+                    .forEach( current::get );
+            return scales.size();
+        }
+        finally
+        {
+            call.exit();
+        }
+    }
+
+    private Atlas getAtlas()
+    {
+        long generation = store.getGeneration();
+        Atlas current = atlas;
+        if ( current == null || current.generation != generation )
+        {
+            Note[] circle = new Note[OCTAVE];
+            for ( int pitchClass = 0; pitchClass < OCTAVE; pitchClass++ )
+            {
+                circle[pitchClass] = noteService.note( pitchClass );
+            }
+            current = new Atlas( generation, circle );
+            atlas = current;
+        }
+        return current;
+    }
+
+    private static void collect( final ScaleFamily family,
+            final List<Scale> scales )
+    {
+        for ( Scale scale : family.getScales() )
+        {
+            scales.add( scale );
+        }
+        for ( ScaleFamily subFamily : family.getSubFamilies() )
+        {
+            collect( subFamily, scales );
+        }
+    }
+
+    /**
+     * The transpositions of the scales, for one generation of the catalog.
+     */
+    private static final class Atlas
+    {
+        private final long generation;
+        private final Note[] circle;
+        private final ConcurrentMap<Scale, Transpositions> scales = new ConcurrentHashMap<Scale, Transpositions>();
+
+        private Atlas( final long generation, final Note[] circle )
+        {
+            this.generation = generation;
+            this.circle = circle;
+        }
+
+        private Transpositions get( final Scale scale )
+        {
+            Transpositions transpositions = scales.get( scale );
+            if ( transpositions == null )
+            {
+                transpositions = new Transpositions( scale, circle );
+                Transpositions raced = scales.putIfAbsent( scale,
+                        transpositions );
+                if ( raced != null )
+                {
+                    transpositions = raced;
+                }
+            }
+            return transpositions;
+        }
+    }
+
+    /**
+     * The notes of one scale at every root.
+     */
+    private static final class Transpositions
+    {
+        private final Note[] circle;
+        private final Note[][] roots;
+        private final boolean ring;
+
+        private Transpositions( final Scale scale, final Note[] circle )
+        {
+            this.circle = circle;
+            int[] offsets = new int[scale.size() + 1];
+            int position = 0;
+            for ( Interval interval : scale )
+            {
+                offsets[position + 1] = offsets[position]
+                                        + interval.getSemitones();
+                position++;
+            }
+            roots = new Note[OCTAVE][offsets.length];
+            for ( int root = 0; root < OCTAVE; root++ )
+            {
+                for ( int i = 0; i < offsets.length; i++ )
+                {
+                    roots[root][i] = circle[( root + offsets[i] ) % OCTAVE];
+                }
+            }
+            ring = Notes.isRing( scale );
+        }
+
+        private Notes getNotes( final Scale scale, final Note root )
+        {
+            int pitchClass = root.getPitchClass();
+            // notes from another store are not part of the circle
+            if ( !root.equals( circle[pitchClass] ) )
+            {
+                return Notes.notes( root, scale );
+            }
+            return Notes.notes( root, scale, roots[pitchClass], ring );
+        }
+    }
+}
@@ -0,0 +1,249 @@
+/**
+ * Copyright (c) 2002-2013 "Neo Technology,"
+ * Network Engine for Objects in Lund AB [http://neotechnology.com]
+ *
+ * This file is part of Neo4j.
+ *
+ * Neo4j is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package se.nawroth.scales.scale;
+
+import static se.nawroth.scales.api.DiatonicInterval.UNISON;
+
+import java.util.AbstractCollection;
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.List;
+import java.util.NoSuchElementException;
+import java.util.Spliterator;
+import java.util.Spliterators;
+import java.util.stream.Stream;
+import java.util.stream.StreamSupport;
+
+import org.neo4j.graphdb.Node;
+
+import se.nawroth.scales.api.DiatonicInterval;
+import se.nawroth.scales.api.NamedInterval;
+import se.nawroth.scales.api.PitchClassSet;
+import se.nawroth.scales.api.Scale;
+import se.nawroth.scales.util.collection.CircularSpliterator;
+
+/**
+ * Helper for implementing {@link Scale}s that are not stored in the database.
+ * Subclasses only give access to the ring of intervals, as seen from the start
+ * of the scale, and the name. Such scales have no underlying node.
+ * 
+ * @author Anders Nawroth
+ */
+public abstract class AbstractScale extends AbstractCollection<NamedInterval>
+        implements Scale
+{
+    private static final int INITIAL_STRINGBUILDER_SIZE = 60;
+
+    /**
+     * Get the number of intervals in the ring, including the interval closing
+     * the ring.
+     * 
+     * @return the number of intervals
+     */
+    protected abstract int degree();
+
+    /**
+     * Get an interval of the ring.
+     * 
+     * @param position the position counted from the start of the scale, from
+     *            <code>0</code> to {@link #degree()} - 1
+     * @return the interval, in semitones
+     */
+    protected abstract int step( int position );
+
+    /**
+     * Get a number identifying the scale among the scales of the same kind,
+     * which is the same for scales that are equal.
+     * 
+     * @return the identity of the scale
+     */
+    protected abstract long identity();
+
+    @Override
+    public int size()
+    {
+        return degree() - 1;
+    }
+
+    @Override
+    public boolean isEmpty()
+    {
+        return degree() == 0;
+    }
+
+    @Override
+    public Iterator<NamedInterval> iterator()
+    {
+        return new StepIterator( degree() - 1, false );
+    }
+
+    @Override
+    public Iterator<NamedInterval> circularIterator()
+    {
+        return new StepIterator( degree(), true );
+    }
+
+    @Override
+    public Spliterator<NamedInterval> spliterator()
+    {
+        return Spliterators.spliterator( intervals( size() ),
+                Spliterator.ORDERED | Spliterator.IMMUTABLE
+                        | Spliterator.NONNULL );
+    }
+
+    @Override
+    public Stream<NamedInterval> circularStream()
+    {
+        return StreamSupport.stream( new CircularSpliterator<NamedInterval>(
+                intervals( degree() ) ), false );
+    }
+
+    @Override
+    public List<NamedInterval> asAbsoluteList()
+    {
+        List<NamedInterval> list = new ArrayList<NamedInterval>( size() );
+        NamedInterval absolute = null;
+        for ( NamedInterval interval : this )
+        {
+            absolute = absolute == null ? interval : absolute.sum( interval );
+            list.add( absolute );
+        }
+        return list;
+    }
+
+    @Override
+    public PitchClassSet getPitchClassSet()
+    {
+        int[] steps = new int[size()];
+        for ( int i = 0; i < steps.length; i++ )
+        {
+            steps[i] = step( i );
+        }
+        return PitchClassSet.fromSteps( 0, steps );
+    }
+
+    @Override
+    public Node getUnderlyingNode()
+    {
+        throw new UnsupportedOperationException( getClass().getSimpleName()
+                                                 + " has no underlying node." );
+    }
+
+    /**
+     * Compare by name first, with unnamed scales after the named ones, then by
+     * {@link #identity()}, so only equal scales compare as <code>0</code>.
+     */
+    @Override
+    public int compareTo( final Scale other )
+    {
+        String name = getName();
+        String otherName = other.getName();
+        if ( name == null || otherName == null )
+        {
+            if ( name != otherName )
+            {
+                return name == null ? 1 : -1;
+            }
+        }
+        else
+        {
+            int byName = name.compareTo( otherName );
+            if ( byName != 0 )
+            {
+                return byName;
+            }
+        }
+        if ( getClass() == other.getClass() )
+        {
+            return Long.compare( identity(), ( (AbstractScale) other ).identity() );
+        }
+        return getClass().getName()
+                .compareTo( other.getClass()
+                        .getName() );
+    }
+
+    @Override
+    public String toString()
+    {
+        StringBuilder builder = new StringBuilder( INITIAL_STRINGBUILDER_SIZE );
+        builder.append( getName() ).append( ": " ).append(
+                UNISON.getShortName() ).append( " " );
+        String previousName = null;
+        for ( NamedInterval interval : asAbsoluteList() )
+        {
+            String shortName = interval.getShortName( previousName );
+            builder.append( shortName )
+                    .append( " " );
+            previousName = shortName;
+        }
+        return builder.toString();
+    }
+
+    private NamedInterval[] intervals( final int length )
+    {
+        NamedInterval[] intervals = new NamedInterval[length];
+        for ( int position = 0; position < length; position++ )
+        {
+            intervals[position] = DiatonicInterval.getFromSemitones( step( position ) );
+        }
+        return intervals;
+    }
+
+    private final class StepIterator implements Iterator<NamedInterval>
+    {
+        private final int length;
+        private final boolean circular;
+        private int position = 0;
+
+        private StepIterator( final int length, final boolean circular )
+        {
+            this.length = length;
+            this.circular = circular;
+        }
+
+        @Override
+        public boolean hasNext()
+        {
+            return position < length;
+        }
+
+        @Override
+        public NamedInterval next()
+        {
+            if ( position >= length )
+            {
+                throw new NoSuchElementException();
+            }
+            NamedInterval interval = DiatonicInterval.getFromSemitones( step( position++ ) );
+            if ( circular && position == length )
+            {
+                position = 0;
+            }
+            return interval;
+        }
+
+        @Override
+        public void remove()
+        {
+            throw new UnsupportedOperationException(
+                    "The iterator is immutable, no mutating operations are allowed." );
+        }
+    }
+}
@@ -0,0 +1,227 @@
+/**
+ * Copyright (c) 2002-2013 "Neo Technology,"
+ * Network Engine for Objects in Lund AB [http://neotechnology.com]
+ *
+ * This file is part of Neo4j.
+ *
+ * Neo4j is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package se.nawroth.scales.scale;
+
+import java.util.Arrays;
+
+/**
+ * A BK-tree of pitch class masks, answering nearest neighbour queries for a
+ * {@link ScaleDistance}. Every child is stored at its distance from the parent,
+ * so the triangle inequality limits the search to the children within the
+ * current search radius. Masks have to be unique within a tree.
+ * 
+ * @author Anders Nawroth
+ */
+final class BkTree
+{
+    private static final Entry[] NO_CHILDREN = new Entry[0];
+    private final ScaleDistance distance;
+    private Entry root = null;
+    private int size = 0;
+
+    /**
+     * Create an empty tree.
+     * 
+     * @param distance the distance to order the tree by
+     */
+    BkTree( final ScaleDistance distance )
+    {
+        this.distance = distance;
+    }
+
+    /**
+     * Add a mask to the tree.
+     * 
+     * @param mask the pitch class mask
+     * @param value the value to return for the mask
+     */
+    void add( final int mask, final int value )
+    {
+        Entry entry = new Entry( mask, value );
+        size++;
+        if ( root == null )
+        {
+            root = entry;
+            return;
+        }
+        Entry parent = root;
+        while ( true )
+        {
+            int d = distance.between( mask, parent.mask );
+            if ( d == 0 && mask == parent.mask )
+            {
+                throw new IllegalArgumentException( "Duplicate mask: ["
+                                                    + Integer.toHexString( mask )
+                                                    + "]" );
+            }
+            if ( d >= parent.children.length )
+            {
+                parent.children = Arrays.copyOf( parent.children, d + 1 );
+            }
+            Entry child = parent.children[d];
+            if ( child == null )
+            {
+                parent.children[d] = entry;
+                return;
+            }
+            parent = child;
+        }
+    }
+
+    /**
+     * Get the number of masks in the tree.
+     * 
+     * @return the size of the tree
+     */
+    int size()
+    {
+        return size;
+    }
+
+    /**
+     * Find the masks closest to a mask, leaving out the mask itself.
+     * 
+     * @param mask the mask to search from
+     * @param neighbours where to collect the result
+     */
+    void nearest( final int mask, final Neighbours neighbours )
+    {
+        if ( root != null )
+        {
+            search( root, mask, neighbours );
+        }
+    }
+
+    private void search( final Entry entry, final int mask,
+            final Neighbours neighbours )
+    {
+        int d = distance.between( mask, entry.mask );
+        if ( entry.mask != mask )
+        {
+            neighbours.offer( entry.mask, entry.value, d );
+        }
+        Entry[] children = entry.children;
+        // closest children first, so that the radius shrinks early
+        for ( int offset = 0; offset <= neighbours.radius(); offset++ )
+        {
+            int above = d + offset;
+            if ( above < children.length && children[above] != null )
+            {
+                search( children[above], mask, neighbours );
+            }
+            int below = d - offset;
+            if ( offset > 0 && below >= 0 && below < children.length
+                 && children[below] != null
+                 && offset <= neighbours.radius() )
+            {
+                search( children[below], mask, neighbours );
+            }
+            if ( above >= children.length && below <= 0 )
+            {
+                return;
+            }
+        }
+    }
+
+    /**
+     * The closest masks found so far, ordered by distance and then by mask.
+     */
+    static final class Neighbours
+    {
+        private final int[] masks;
+        private final int[] values;
+        private final int[] distances;
+        private int count = 0;
+
+        /**
+         * Create an empty result.
+         * 
+         * @param limit the number of neighbours to keep
+         */
+        Neighbours( final int limit )
+        {
+            masks = new int[limit];
+            values = new int[limit];
+            distances = new int[limit];
+        }
+
+        int size()
+        {
+            return count;
+        }
+
+        int value( final int index )
+        {
+            return values[index];
+        }
+
+        int distance( final int index )
+        {
+            return distances[index];
+        }
+
+        private int radius()
+        {
+            return count < masks.length ? Integer.MAX_VALUE
+                    : distances[count - 1];
+        }
+
+        private void offer( final int mask, final int value, final int d )
+        {
+            int position = count;
+            while ( position > 0
+                    && ( distances[position - 1] > d || ( distances[position - 1] == d && masks[position - 1] > mask ) ) )
+            {
+                position--;
+            }
+            if ( position == masks.length )
+            {
+                return;
+            }
+            int last = Math.min( count, masks.length - 1 );
+            System.arraycopy( masks, position, masks, position + 1, last
+                                                                    - position );
+            System.arraycopy( values, position, values, position + 1, last
+                                                                      - position );
+            System.arraycopy( distances, position, distances, position + 1,
+                    last - position );
+            masks[position] = mask;
+            values[position] = value;
+            distances[position] = d;
+            if ( count < masks.length )
+            {
+                count++;
+            }
+        }
+    }
+
+    private static final class Entry
+    {
+        private final int mask;
+        private final int value;
+        private Entry[] children = NO_CHILDREN;
+
+        private Entry( final int mask, final int value )
+        {
+            this.mask = mask;
+            this.value = value;
+        }
+    }
+}
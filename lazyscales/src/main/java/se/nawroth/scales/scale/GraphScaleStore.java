@@ -0,0 +1,281 @@
+/**
+ * Copyright (c) 2002-2013 "Neo Technology,"
+ * Network Engine for Objects in Lund AB [http://neotechnology.com]
+ *
+ * This file is part of Neo4j.
+ *
+ * Neo4j is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package se.nawroth.scales.scale;
+
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.List;
+
+import org.neo4j.graphdb.Direction;
+import org.neo4j.graphdb.Node;
+
+import se.nawroth.scales.api.Interval;
+import se.nawroth.scales.api.LatinInterval;
+import se.nawroth.scales.api.Scale;
+import se.nawroth.scales.api.ScaleFamily;
+import se.nawroth.scales.util.GraphDb;
+import se.nawroth.scales.util.NamedEntityImpl;
+
+/**
+ * Keeps scales and scale families in the graph. A scale is a node on a ring
+ * of interval relationships, and the rings are found through the rotation
+ * index of {@link RawScaleService}. The names of the scales are kept on the
+ * relationships from their families. Writes have to be made inside a
+ * transaction.
+ * 
+ * @author Anders Nawroth
+ * @see se.nawroth.scales.GraphCatalogStore
+ */
+public final class GraphScaleStore
+{
+    private static final String NAME = "name";
+    private final GraphDb graphDb;
+    private final RawScaleService rawScaleService;
+
+    /**
+     * Create the store.
+     * 
+     * @param graphDb the database to use
+     */
+    public GraphScaleStore( final GraphDb graphDb )
+    {
+        this.graphDb = graphDb;
+        this.rawScaleService = new RawScaleService( graphDb );
+    }
+
+    /**
+     * Get the root {@link ScaleFamily}, creating it on first access.
+     * 
+     * @return the root scale family
+     */
+    public ScaleFamily getRootScaleFamily()
+    {
+        Node referenceNode = graphDb.getReferenceNode(
+                ScaleTypes.SCALE_FAMILIES, ScaleTypes.SCALE_FAMILY );
+        ScaleFamily root = new ScaleFamilyImpl( referenceNode );
+        String name = root.getName();
+        if ( name == null )
+        {
+            ScaleNavigation.getNavigation().setCategoryRelationshipProperty(
+                    root, NamedEntityImpl.NAME, ScaleFamilyService.ROOT_NAME );
+        }
+        return root;
+    }
+
+    /**
+     * Create a new {@link ScaleFamily}.
+     * 
+     * @param parentFamily the parent family
+     * @param name the name of the family
+     * @return the created scale family
+     */
+    public ScaleFamily newScaleFamily( final ScaleFamily parentFamily,
+            final String name )
+    {
+        return new ScaleFamilyImpl( parentFamily, graphDb.createNode(), name );
+    }
+
+    /**
+     * Create a set of modal {@link Scale}s from the given intervals. The ring
+     * is created if no ring with these intervals exists, in any rotation.
+     * 
+     * @param family the family of the scales
+     * @param names the names of the scales, the first name for the scale
+     *            starting on the first interval and so on
+     * @param intervals the intervals of the first scale
+     * @return the first scale
+     */
+    public Scale newScales( final ScaleFamily family, final String[] names,
+            final Interval... intervals )
+    {
+        if ( names.length < 1 )
+        {
+            throw new IllegalArgumentException(
+                    "There has to be at least one scale name." );
+        }
+        int sum = 0;
+        for ( Interval interval : intervals )
+        {
+            sum += interval.getSemitones();
+        }
+        if ( sum % LatinInterval.OCTAVE.getSemitones() != 0 )
+        {
+            throw new IllegalArgumentException(
+                    "The sum of the scale must be a multiple of twelve semitones, but was: ["
+                            + sum + "]" );
+        }
+        Scale search = findScale( intervals );
+        Node startNode = search == null ? rawScaleService.newRawScale(
+                intervals ).getUnderlyingNode() : search.getUnderlyingNode();
+        // the ring is no longer unnamed after this
+        rawScaleService.removeUnnamed( startNode );
+        Node node = startNode;
+        for ( String name : names )
+        {
+            ScaleNavigation.getNavigation()
+                    .addItem( family, new ScaleImpl( node ), NAME, name );
+            node = next( node );
+        }
+        return new ScaleImpl( startNode );
+    }
+
+    /**
+     * Find a scale based on intervals. Will only find exact matches. Note that
+     * the returned scale may be undefined, that is nameless.
+     * 
+     * @param intervals the intervals of the scale, including the interval
+     *            closing the ring
+     * @return the scale or <code>null</code> if no ring with these intervals
+     *         exists
+     */
+    public Scale findScale( final Interval... intervals )
+    {
+        if ( intervals.length == 0 )
+        {
+            throw new IllegalArgumentException(
+                    "There can't be a scale without any interval!" );
+        }
+        if ( intervals.length > RotationKey.MAX_DEGREE )
+        {
+            return scan( intervals );
+        }
+        Node startNode = rawScaleService.findStartNode( intervals );
+        if ( startNode == null )
+        {
+            return null;
+        }
+        return new ScaleImpl( startNode );
+    }
+
+    /**
+     * Add the raw scales that don't exist yet, tagging them as unnamed.
+     * 
+     * @param scales interval sequences, in semitones
+     * @return the number of raw scales that were added
+     */
+    public int addUnnamedScales( final List<int[]> scales )
+    {
+        return rawScaleService.addRawScales( scales );
+    }
+
+    /**
+     * Get the raw scales that are tagged as unnamed.
+     * 
+     * @return the unnamed scales
+     */
+    public List<Scale> getUnnamedScales()
+    {
+        return rawScaleService.getUnnamedScales();
+    }
+
+    /**
+     * Get every node of every ring of at most {@link RotationKey#MAX_DEGREE}
+     * intervals, as scales. Never writes to the database.
+     * 
+     * @return the modes of all rings
+     */
+    public List<Scale> getModes()
+    {
+        List<Scale> modes = new ArrayList<Scale>();
+        for ( Node startNode : rawScaleService.getStartNodes() )
+        {
+            List<Scale> ring = new ArrayList<Scale>( RotationKey.MAX_DEGREE );
+            Node node = startNode;
+            do
+            {
+                ring.add( new ScaleImpl( node ) );
+                node = next( node );
+            }
+            while ( !node.equals( startNode )
+                    && ring.size() <= RotationKey.MAX_DEGREE );
+            // longer rings span more than an octave
+            if ( ring.size() > 1 && ring.size() <= RotationKey.MAX_DEGREE )
+            {
+                modes.addAll( ring );
+            }
+        }
+        return modes;
+    }
+
+    /**
+     * Add index entries for raw scales that were stored before the rotation
+     * index existed.
+     */
+    public void indexRawScales()
+    {
+        rawScaleService.indexRawScales();
+    }
+
+    /**
+     * Store the degree on the nodes of raw scales that were stored before the
+     * degree existed.
+     */
+    public void addDegrees()
+    {
+        rawScaleService.addDegrees();
+    }
+
+    /**
+     * Find a scale by comparing the intervals to every rotation of every raw
+     * scale of the same degree. Only used for interval sequences that are too
+     * long to be indexed.
+     * 
+     * @param intervals scale defined as a sequence of intervals.
+     * @return null or Scale that matches the intervals
+     */
+    private Scale scan( final Interval... intervals )
+    {
+        Iterable<Scale> rawScales = rawScaleService.getRawScales( intervals.length );
+        for ( Scale scale : rawScales )
+        {
+            Iterator<? extends Interval> scaleIterator = scale.circularIterator();
+            Node currentStart = scale.getUnderlyingNode();
+            for ( int i = 0; i < intervals.length; i++ )
+            {
+                Scale concreteScale = new ScaleImpl( currentStart );
+                Iterator<? extends Interval> concreteIterator = concreteScale.circularIterator();
+                int count = 0;
+                for ( Interval interval : intervals )
+                {
+                    if ( !interval.equals( concreteIterator.next() ) )
+                    {
+                        break;
+                    }
+                    count++;
+                }
+                if ( count == intervals.length )
+                {
+                    return new ScaleImpl( currentStart );
+                }
+                currentStart = currentStart.getSingleRelationship(
+                        scaleIterator.next(), Direction.OUTGOING ).getEndNode();
+            }
+        }
+        return null;
+    }
+
+    private static Node next( final Node node )
+    {
+        return node.getRelationships( Direction.OUTGOING )
+                .iterator()
+                .next()
+                .getEndNode();
+    }
+}
@@ -26,9 +26,9 @@ import se.nawroth.scales.api.Scale;
 import se.nawroth.scales.util.CategoryUtil;
 import se.nawroth.scales.util.Entity;
 
-final class RawScale
+public final class RawScale
 {
-    enum RawScales implements RelationshipType
+    public enum RawScales implements RelationshipType
     {
         ONE_TONE,
         TWO_TONE,
@@ -45,7 +45,14 @@ final class RawScale
 
         private static final RawScales[] RAW_SCALES = RawScales.values();
 
-        static RawScales getFromTones( final int tones )
+        /**
+         * Get the relationship type for the raw scales with a number of
+         * tones.
+         * 
+         * @param tones the number of tones
+         * @return the relationship type
+         */
+        public static RawScales getFromTones( final int tones )
         {
             return RAW_SCALES[tones % RAW_SCALES.length];
         }
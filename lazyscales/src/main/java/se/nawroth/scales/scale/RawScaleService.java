@@ -19,22 +19,43 @@
  */
 package se.nawroth.scales.scale;
 
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Iterator;
+import java.util.List;
+
 import org.neo4j.graphdb.Direction;
 import org.neo4j.graphdb.Node;
+import org.neo4j.graphdb.Relationship;
+import org.neo4j.graphdb.index.Index;
 
 import se.nawroth.scales.api.DiatonicInterval;
-import se.nawroth.scales.api.NamedInterval;
+import se.nawroth.scales.api.Interval;
 import se.nawroth.scales.api.Scale;
 import se.nawroth.scales.scale.RawScale.RawScales;
 import se.nawroth.scales.util.GraphDb;
 
 /**
- * Perform operations on raw scales.
+ * Perform operations on raw scales. Every raw scale is indexed by the
+ * {@link RotationKey} of its intervals, so that a scale can be found from any
+ * of its modes without looking at the other raw scales.
  * 
  * @author Anders Nawroth
  */
 public final class RawScaleService
 {
+    /**
+     * Name of the node index holding the canonical node of every raw scale.
+     */
+    public static final String ROTATION_INDEX = "raw scale rotations";
+    /**
+     * Key of the {@link RotationKey} in the rotation index.
+     */
+    public static final String ROTATION_KEY = "rotation";
+    /**
+     * Tag on the nodes of a generated ring that no scale has named yet.
+     */
+    static final String UNNAMED = "unnamed";
     private final GraphDb graphDb;
 
     /**
@@ -58,23 +79,239 @@ public final class RawScaleService
     {
         int degree = scale.size() + 1; // intervals -> notes
         Node startNode = scale.getUnderlyingNode();
-        Node currentNode = startNode;
-        for ( NamedInterval namedInterval : scale )
+        int[] steps = readSteps( startNode, degree );
+        if ( RotationKey.isPackable( steps ) )
         {
-            DiatonicInterval interval = DiatonicInterval.getFromInterval( namedInterval );
-            currentNode = currentNode.getSingleRelationship( interval,
-                    Direction.OUTGOING ).getEndNode();
-            if ( startNode.hasRelationship( RawTypes.RAW_SCALE,
-                    Direction.INCOMING ) )
+            Node canonicalNode = walk( startNode,
+                    RotationKey.canonicalRotation( steps ) );
+            long key = RotationKey.key( steps );
+            if ( getIndex().get( ROTATION_KEY, key ).getSingle() != null )
             {
                 return false;
             }
+            getIndex().add( canonicalNode, ROTATION_KEY, key );
+        }
+        else if ( startNode.hasRelationship( RawTypes.RAW_SCALE,
+                Direction.INCOMING ) )
+        {
+            return false;
         }
         getRawScaleReferenceNode( degree ).createRelationshipTo( startNode,
                 RawTypes.RAW_SCALE );
         return true;
     }
 
+    /**
+     * Create the ring of a new raw scale and add it. The caller has to make
+     * sure that no raw scale with the same intervals exists.
+     * 
+     * @param intervals the intervals of the scale
+     * @return the new scale, starting from the first interval
+     */
+    Scale newRawScale( final Interval... intervals )
+    {
+        Node newStartNode = graphDb.createNode();
+        Node currentNode = newStartNode;
+        Iterator<Interval> iter = Arrays.asList( intervals )
+                .iterator();
+        while ( iter.hasNext() )
+        {
+            // enforce DiatonicInterval for scales
+            DiatonicInterval interval = DiatonicInterval.getFromInterval( iter.next() );
+            Node newNode = iter.hasNext() ? graphDb.createNode()
+                    : newStartNode;
+            currentNode.setProperty( ScaleImpl.DEGREE, intervals.length );
+            currentNode.createRelationshipTo( newNode, interval );
+            currentNode = newNode;
+        }
+        Scale scale = new ScaleImpl( newStartNode );
+        addRawScale( scale );
+        return scale;
+    }
+
+    /**
+     * Add the raw scales that don't exist yet, tagging them as unnamed.
+     * 
+     * @param scales interval sequences, in semitones
+     * @return the number of raw scales that were added
+     */
+    int addRawScales( final List<int[]> scales )
+    {
+        int added = 0;
+        for ( int[] steps : scales )
+        {
+            DiatonicInterval[] intervals = new DiatonicInterval[steps.length];
+            for ( int i = 0; i < steps.length; i++ )
+            {
+                intervals[i] = DiatonicInterval.getFromSemitones( steps[i] );
+            }
+            if ( findStartNode( intervals ) != null )
+            {
+                continue;
+            }
+            Node node = newRawScale( intervals ).getUnderlyingNode();
+            for ( int i = 0; i < steps.length; i++ )
+            {
+                node.setProperty( UNNAMED, true );
+                node = walk( node, 1 );
+            }
+            added++;
+        }
+        return added;
+    }
+
+    /**
+     * Remove the unnamed tag from the ring of a scale.
+     * 
+     * @param node any node of the ring
+     */
+    void removeUnnamed( final Node node )
+    {
+        if ( !node.hasProperty( UNNAMED ) )
+        {
+            return;
+        }
+        Node current = node;
+        do
+        {
+            current.removeProperty( UNNAMED );
+            current = walk( current, 1 );
+        }
+        while ( current.hasProperty( UNNAMED ) );
+    }
+
+    /**
+     * Get the raw scales that are tagged as unnamed.
+     * 
+     * @return the unnamed scales
+     */
+    List<Scale> getUnnamedScales()
+    {
+        List<Scale> scales = new ArrayList<Scale>();
+        for ( int degree = 2; degree <= RotationKey.MAX_DEGREE; degree++ )
+        {
+            for ( Scale scale : getRawScales( degree ) )
+            {
+                if ( scale.getUnderlyingNode().hasProperty( UNNAMED ) )
+                {
+                    scales.add( scale );
+                }
+            }
+        }
+        return scales;
+    }
+
+    /**
+     * Find the start node of the ring matching a sequence of intervals. The
+     * ring is looked up using the rotation key of the intervals, then the
+     * start node is found by walking forward to the matching rotation.
+     * 
+     * @param intervals the intervals to look for
+     * @return the matching start node or <code>null</code> if no raw scale
+     *         with these intervals exists
+     */
+    Node findStartNode( final Interval... intervals )
+    {
+        int[] steps = new int[intervals.length];
+        for ( int i = 0; i < intervals.length; i++ )
+        {
+            steps[i] = intervals[i].getSemitones();
+        }
+        int rotation = RotationKey.canonicalRotation( steps );
+        Node canonicalNode = getIndex().get( ROTATION_KEY,
+                RotationKey.pack( steps, rotation ) ).getSingle();
+        if ( canonicalNode == null )
+        {
+            return null;
+        }
+        return walk( canonicalNode, ( steps.length - rotation ) % steps.length );
+    }
+
+    /**
+     * Add index entries for raw scales that were stored before the rotation
+     * index existed. Raw scales that are already indexed are left untouched.
+     */
+    public void indexRawScales()
+    {
+        Node rawScalesNode = graphDb.getReferenceNode( RawTypes.RAW_SCALES );
+        for ( Relationship degreeRel : rawScalesNode.getRelationships( Direction.OUTGOING ) )
+        {
+            for ( Relationship rawScaleRel : degreeRel.getEndNode()
+                    .getRelationships( RawTypes.RAW_SCALE, Direction.OUTGOING ) )
+            {
+                Node startNode = rawScaleRel.getEndNode();
+                int[] steps = new ScaleImpl( startNode ).getSteps();
+                if ( !RotationKey.isPackable( steps ) )
+                {
+                    continue;
+                }
+                long key = RotationKey.key( steps );
+                if ( getIndex().get( ROTATION_KEY, key ).getSingle() == null )
+                {
+                    getIndex().add(
+                            walk( startNode,
+                                    RotationKey.canonicalRotation( steps ) ),
+                            ROTATION_KEY, key );
+                }
+            }
+        }
+    }
+
+    /**
+     * Store the degree on the nodes of raw scales that were stored before the
+     * degree existed.
+     */
+    public void addDegrees()
+    {
+        Node rawScalesNode = graphDb.getReferenceNode( RawTypes.RAW_SCALES );
+        for ( Relationship degreeRel : rawScalesNode.getRelationships( Direction.OUTGOING ) )
+        {
+            for ( Relationship rawScaleRel : degreeRel.getEndNode()
+                    .getRelationships( RawTypes.RAW_SCALE, Direction.OUTGOING ) )
+            {
+                Node startNode = rawScaleRel.getEndNode();
+                if ( startNode.hasProperty( ScaleImpl.DEGREE ) )
+                {
+                    continue;
+                }
+                int degree = new ScaleImpl( startNode ).getSteps().length;
+                Node node = startNode;
+                for ( int i = 0; i < degree; i++ )
+                {
+                    node.setProperty( ScaleImpl.DEGREE, degree );
+                    node = walk( node, 1 );
+                }
+            }
+        }
+    }
+
+    /**
+     * Get the start nodes of all raw scales, of every degree. Unlike
+     * {@link #getRawScales(int)}, this never writes to the database.
+     * 
+     * @return the start nodes
+     */
+    List<Node> getStartNodes()
+    {
+        List<Node> startNodes = new ArrayList<Node>();
+        Relationship rawScalesRel = graphDb.getReferenceNode()
+                .getSingleRelationship( RawTypes.RAW_SCALES, Direction.OUTGOING );
+        if ( rawScalesRel == null )
+        {
+            return startNodes;
+        }
+        for ( Relationship degreeRel : rawScalesRel.getEndNode()
+                .getRelationships( Direction.OUTGOING ) )
+        {
+            for ( Relationship rawScaleRel : degreeRel.getEndNode()
+                    .getRelationships( RawTypes.RAW_SCALE, Direction.OUTGOING ) )
+            {
+                startNodes.add( rawScaleRel.getEndNode() );
+            }
+        }
+        return startNodes;
+    }
+
     Iterable<Scale> getRawScales( final int degree )
     {
         return RawScale.NAVIGATION.getAllItems( new RawScale.RawScaleEntity(
@@ -86,4 +323,34 @@ public final class RawScaleService
         return graphDb.getReferenceNode( RawTypes.RAW_SCALES,
                 RawScales.getFromTones( degree ) );
     }
+
+    private Index<Node> getIndex()
+    {
+        return graphDb.getNodeIndex( ROTATION_INDEX );
+    }
+
+    private static int[] readSteps( final Node startNode, final int degree )
+    {
+        int[] steps = new ScaleImpl( startNode ).getSteps();
+        if ( steps.length != degree )
+        {
+            throw new IllegalStateException( "Expected a ring of " + degree
+                                             + " intervals, found "
+                                             + steps.length + "." );
+        }
+        return steps;
+    }
+
+    private static Node walk( final Node startNode, final int steps )
+    {
+        Node node = startNode;
+        for ( int i = 0; i < steps; i++ )
+        {
+            node = node.getRelationships( Direction.OUTGOING )
+                    .iterator()
+                    .next()
+                    .getEndNode();
+        }
+        return node;
+    }
 }
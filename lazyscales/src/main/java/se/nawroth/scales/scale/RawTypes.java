@@ -21,7 +21,12 @@ package se.nawroth.scales.scale;
 
 import org.neo4j.graphdb.RelationshipType;
 
-enum RawTypes implements RelationshipType
+/**
+ * {@link RelationshipType}s used by the graphdb.
+ * 
+ * @author Anders Nawroth
+ */
+public enum RawTypes implements RelationshipType
 {
     /**
      * Used for the entry point to all raw scales.
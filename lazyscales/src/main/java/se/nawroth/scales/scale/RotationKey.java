@@ -0,0 +1,114 @@
+/**
+ * Copyright (c) 2002-2013 "Neo Technology,"
+ * Network Engine for Objects in Lund AB [http://neotechnology.com]
+ *
+ * This file is part of Neo4j.
+ *
+ * Neo4j is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package se.nawroth.scales.scale;
+
+/**
+ * Rotation invariant keys for interval sequences. All rotations (modes) of a
+ * sequence share the same key: the lexicographically smallest rotation, packed
+ * into a <code>long</code> together with the length of the sequence.
+ * 
+ * @author Anders Nawroth
+ */
+public final class RotationKey
+{
+    /**
+     * The longest interval sequence that can be packed into a key.
+     */
+    public static final int MAX_DEGREE = 12;
+    private static final int BITS_PER_INTERVAL = 4;
+    private static final int DEGREE_SHIFT = MAX_DEGREE * BITS_PER_INTERVAL;
+    private static final int SEMITONES_IN_OCTAVE = 12;
+
+    private RotationKey()
+    {
+        // no instantiation
+    }
+
+    /**
+     * Check if a sequence of intervals can be represented by a key.
+     * 
+     * @param steps the interval sequence, in semitones
+     * @return <code>true</code> if the sequence can be packed
+     */
+    public static boolean isPackable( final int[] steps )
+    {
+        return steps.length > 0 && steps.length <= MAX_DEGREE;
+    }
+
+    /**
+     * Find the rotation that gives the smallest packed value.
+     * 
+     * @param steps the interval sequence, in semitones
+     * @return the offset into <code>steps</code> where the canonical rotation
+     *         starts
+     */
+    public static int canonicalRotation( final int[] steps )
+    {
+        int best = 0;
+        long bestValue = pack( steps, 0 );
+        for ( int rotation = 1; rotation < steps.length; rotation++ )
+        {
+            long value = pack( steps, rotation );
+            if ( value < bestValue )
+            {
+                bestValue = value;
+                best = rotation;
+            }
+        }
+        return best;
+    }
+
+    /**
+     * Get the key of an interval sequence.
+     * 
+     * @param steps the interval sequence, in semitones
+     * @return the key shared by all rotations of the sequence
+     */
+    public static long key( final int[] steps )
+    {
+        return pack( steps, canonicalRotation( steps ) );
+    }
+
+    /**
+     * Pack a rotation of an interval sequence, first interval in the most
+     * significant position.
+     * 
+     * @param steps the interval sequence, in semitones
+     * @param rotation the index to start from
+     * @return the packed sequence
+     */
+    public static long pack( final int[] steps, final int rotation )
+    {
+        if ( !isPackable( steps ) )
+        {
+            throw new IllegalArgumentException(
+                    "Can not pack interval sequences of length: ["
+                            + steps.length + "]" );
+        }
+        long value = 0;
+        for ( int i = 0; i < steps.length; i++ )
+        {
+            int step = steps[( rotation + i ) % steps.length]
+                       % SEMITONES_IN_OCTAVE;
+            value = ( value << BITS_PER_INTERVAL ) | step;
+        }
+        return ( (long) steps.length << DEGREE_SHIFT ) | value;
+    }
+}
@@ -0,0 +1,189 @@
+/**
+ * Copyright (c) 2002-2013 "Neo Technology,"
+ * Network Engine for Objects in Lund AB [http://neotechnology.com]
+ *
+ * This file is part of Neo4j.
+ *
+ * Neo4j is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package se.nawroth.scales.scale;
+
+import se.nawroth.scales.api.PitchClassSet;
+
+/**
+ * Distances between scales, measured on their pitch class masks relative to
+ * the root. Every distance is a metric (modes may be at distance zero from
+ * each other), which is what the {@link BkTree} index relies on.
+ * 
+ * @author Anders Nawroth
+ */
+public enum ScaleDistance
+{
+    /**
+     * The number of pitch classes that are in one of the scales only.
+     */
+    HAMMING( PitchClassSet.PITCH_CLASSES )
+    {
+        @Override
+        public int between( final int mask, final int other )
+        {
+            return Integer.bitCount( mask ^ other );
+        }
+    },
+    /**
+     * The least number of single semitone moves of the notes needed to turn
+     * one scale into the other. Only scales with the same number of notes
+     * have a distance; scales of different sizes are never neighbours.
+     */
+    SEMITONE_MOVES( PitchClassSet.PITCH_CLASSES / 2
+                    * PitchClassSet.PITCH_CLASSES )
+    {
+        @Override
+        public int between( final int mask, final int other )
+        {
+            int size = Integer.bitCount( mask );
+            if ( size != Integer.bitCount( other ) )
+            {
+                throw new IllegalArgumentException(
+                        "Semitone moves need scales of the same size, but got: ["
+                                + size + "] and ["
+                                + Integer.bitCount( other ) + "]" );
+            }
+            int[] from = pitchClasses( mask, size );
+            int[] to = pitchClasses( other, size );
+            // an optimal matching on a circle never crosses, so it is one
+            // of the rotations of the sorted pitch classes
+            int best = Integer.MAX_VALUE;
+            for ( int shift = 0; shift < size; shift++ )
+            {
+                int moves = 0;
+                for ( int i = 0; i < size && moves < best; i++ )
+                {
+                    int difference = Math.abs( from[i]
+                                               - to[( i + shift ) % size] );
+                    moves += Math.min( difference, PitchClassSet.PITCH_CLASSES
+                                                   - difference );
+                }
+                best = Math.min( best, moves );
+            }
+            return best;
+        }
+
+        @Override
+        int partition( final int mask )
+        {
+            return Integer.bitCount( mask );
+        }
+    },
+    /**
+     * The sum of the differences between the interval class vectors of the
+     * scales. Scales sharing the same intervals, like modes, have distance
+     * zero.
+     */
+    INTERVAL_VECTOR( PitchClassSet.PITCH_CLASSES * PitchClassSet.PITCH_CLASSES )
+    {
+        @Override
+        public int between( final int mask, final int other )
+        {
+            long vector = VECTORS[mask];
+            long otherVector = VECTORS[other];
+            int sum = 0;
+            for ( int intervalClass = 0; intervalClass < INTERVAL_CLASSES; intervalClass++ )
+            {
+                int shift = intervalClass * BITS_PER_CLASS;
+                sum += Math.abs( (int) ( ( vector >>> shift ) & CLASS_MASK )
+                                 - (int) ( ( otherVector >>> shift ) & CLASS_MASK ) );
+            }
+            return sum;
+        }
+    };
+
+    private static final int INTERVAL_CLASSES = PitchClassSet.PITCH_CLASSES / 2;
+    private static final int BITS_PER_CLASS = 8;
+    private static final long CLASS_MASK = ( 1 << BITS_PER_CLASS ) - 1;
+    private static final long[] VECTORS = new long[PitchClassSet.CHROMATIC_MASK + 1];
+
+    static
+    {
+        for ( int mask = 0; mask < VECTORS.length; mask++ )
+        {
+            long vector = 0;
+            for ( int low = 0; low < PitchClassSet.PITCH_CLASSES; low++ )
+            {
+                for ( int high = low + 1; high < PitchClassSet.PITCH_CLASSES; high++ )
+                {
+                    if ( PitchClassSet.contains( mask, low )
+                         && PitchClassSet.contains( mask, high ) )
+                    {
+                        int difference = high - low;
+                        int intervalClass = Math.min( difference,
+                                PitchClassSet.PITCH_CLASSES - difference );
+                        vector += 1L << ( ( intervalClass - 1 ) * BITS_PER_CLASS );
+                    }
+                }
+            }
+            VECTORS[mask] = vector;
+        }
+    }
+
+    private final int maximum;
+
+    private ScaleDistance( final int maximum )
+    {
+        this.maximum = maximum;
+    }
+
+    /**
+     * Get the distance between two scales.
+     * 
+     * @param mask pitch classes of one scale, relative to its root
+     * @param other pitch classes of the other scale, relative to its root
+     * @return the distance
+     */
+    public abstract int between( int mask, int other );
+
+    /**
+     * Get an upper bound of the distance between two scales.
+     * 
+     * @return the largest possible distance
+     */
+    int getMaximum()
+    {
+        return maximum;
+    }
+
+    /**
+     * Get the group of scales a scale can have a distance to. Scales in
+     * different partitions are never compared.
+     * 
+     * @param mask pitch classes of the scale
+     * @return the partition of the scale
+     */
+    int partition( final int mask )
+    {
+        return 0;
+    }
+
+    private static int[] pitchClasses( final int mask, final int size )
+    {
+        int[] pitchClasses = new int[size];
+        int rest = mask;
+        for ( int i = 0; i < size; i++ )
+        {
+            pitchClasses[i] = Integer.numberOfTrailingZeros( rest );
+            rest &= rest - 1;
+        }
+        return pitchClasses;
+    }
+}
@@ -19,11 +19,9 @@
  */
 package se.nawroth.scales.scale;
 
-import org.neo4j.graphdb.Node;
-
+import se.nawroth.scales.CatalogStore;
 import se.nawroth.scales.api.ScaleFamily;
-import se.nawroth.scales.util.GraphDb;
-import se.nawroth.scales.util.NamedEntityImpl;
+import se.nawroth.scales.util.StoreMetrics;
 
 /**
  * Perform operations on {@link ScaleFamily}s.
@@ -32,16 +30,20 @@ import se.nawroth.scales.util.NamedEntityImpl;
  */
 public class ScaleFamilyService
 {
-    private final GraphDb graphDb;
+    /**
+     * The name of the root scale family.
+     */
+    public static final String ROOT_NAME = "Scale families";
+    private final CatalogStore store;
 
     /**
      * Create the service.
      * 
-     * @param graphDb the database to use
+     * @param store the store to use
      */
-    public ScaleFamilyService( final GraphDb graphDb )
+    public ScaleFamilyService( final CatalogStore store )
     {
-        this.graphDb = graphDb;
+        this.store = store;
     }
 
     /**
@@ -51,16 +53,15 @@ public class ScaleFamilyService
      */
     public final ScaleFamily getRootScaleFamily()
     {
-        Node referenceNode = graphDb.getReferenceNode(
-                ScaleTypes.SCALE_FAMILIES, ScaleTypes.SCALE_FAMILY );
-        ScaleFamily root = new ScaleFamilyImpl( referenceNode );
-        String name = root.getName();
-        if ( name == null )
+        StoreMetrics.Call call = store.enter( "ScaleFamilyService.getRootScaleFamily" );
+        try
+        {
+            return store.getRootScaleFamily();
+        }
+        finally
         {
-            ScaleNavigation.getNavigation().setCategoryRelationshipProperty(
-                    root, NamedEntityImpl.NAME, "Scale families" );
+            call.exit();
         }
-        return root;
     }
 
     /**
@@ -73,7 +74,14 @@ public class ScaleFamilyService
     public final ScaleFamily newScaleFamily( final ScaleFamily parentFamily,
             final String name )
     {
-        Node node = graphDb.createNode();
-        return new ScaleFamilyImpl( parentFamily, node, name );
+        StoreMetrics.Call call = store.enter( "ScaleFamilyService.newScaleFamily" );
+        try
+        {
+            return store.newScaleFamily( parentFamily, name );
+        }
+        finally
+        {
+            call.exit();
+        }
     }
 }
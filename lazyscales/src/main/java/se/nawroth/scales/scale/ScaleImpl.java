@@ -24,17 +24,25 @@ import static se.nawroth.scales.api.DiatonicInterval.UNISON;
 import java.util.ArrayList;
 import java.util.Iterator;
 import java.util.List;
+import java.util.Spliterator;
+import java.util.Spliterators;
 
 import org.neo4j.graphdb.Direction;
 import org.neo4j.graphdb.Node;
+import org.neo4j.graphdb.Relationship;
 
+import se.nawroth.scales.api.DiatonicInterval;
 import se.nawroth.scales.api.NamedInterval;
+import se.nawroth.scales.api.PitchClassSet;
 import se.nawroth.scales.api.Scale;
 import se.nawroth.scales.util.NamedEntity;
 import se.nawroth.scales.util.collection.CircularCollection;
+import se.nawroth.scales.util.collection.CircularSpliterator;
 
 /**
- * Default implementation of the {@link Scale} interface.
+ * Default implementation of the {@link Scale} interface. The intervals are read
+ * from the database the first time they are needed, after that all read
+ * operations use the in-memory copy.
  * 
  * @author Anders Nawroth
  */
@@ -43,6 +51,12 @@ public final class ScaleImpl extends CircularCollection<NamedInterval, Node>
 {
     private static final int INITIAL_STRINGBUILDER_SIZE = 60;
     private static final String NAME = "name";
+    /**
+     * Property holding the number of notes of the ring or chain. Shared by the
+     * interval chains of the tunings.
+     */
+    public static final String DEGREE = "degree";
+    private Intervals intervals = null;
 
     /**
      * Create instance from the underlying {@link Node}.
@@ -67,7 +81,44 @@ public final class ScaleImpl extends CircularCollection<NamedInterval, Node>
     @Override
     public boolean isEmpty()
     {
-        return !getStart().getRelationships( Direction.OUTGOING ).iterator().hasNext();
+        return getIntervals().all.length == 0;
+    }
+
+    @Override
+    public int size()
+    {
+        if ( intervals == null )
+        {
+            Object degree = getStart().getProperty( DEGREE, null );
+            if ( degree != null )
+            {
+                return ( (Number) degree ).intValue() - 1;
+            }
+        }
+        return getIntervals().size;
+    }
+
+    @Override
+    public PitchClassSet getPitchClassSet()
+    {
+        return getIntervals().pitchClassSet;
+    }
+
+    /**
+     * Get the semitones of all intervals of this scale. For a scale that is a
+     * ring, this includes the interval leading back to the start node.
+     * 
+     * @return the semitones of the intervals
+     */
+    int[] getSteps()
+    {
+        NamedInterval[] all = getIntervals().all;
+        int[] steps = new int[all.length];
+        for ( int i = 0; i < all.length; i++ )
+        {
+            steps[i] = all[i].getSemitones();
+        }
+        return steps;
     }
 
     @Override
@@ -102,31 +153,48 @@ public final class ScaleImpl extends CircularCollection<NamedInterval, Node>
     @Override
     public Iterator<NamedInterval> iterator()
     {
-        return ScaleIterator.iterator( getStart(), false );
+        Intervals current = getIntervals();
+        return ScaleIterator.iterator( current.all, current.size, false );
     }
 
     @Override
     public Iterator<NamedInterval> circularIterator()
     {
-        return ScaleIterator.iterator( getStart(), true );
+        Intervals current = getIntervals();
+        return ScaleIterator.iterator( current.all, current.all.length,
+                current.ring );
+    }
+
+    @Override
+    public Spliterator<NamedInterval> spliterator()
+    {
+        Intervals current = getIntervals();
+        return Spliterators.spliterator( current.all, 0, current.size,
+                Spliterator.ORDERED | Spliterator.IMMUTABLE
+                        | Spliterator.NONNULL );
+    }
+
+    @Override
+    public Spliterator<NamedInterval> circularSpliterator()
+    {
+        Intervals current = getIntervals();
+        if ( current.ring )
+        {
+            return new CircularSpliterator<NamedInterval>( current.all );
+        }
+        return Spliterators.spliterator( current.all, Spliterator.ORDERED
+                                                      | Spliterator.IMMUTABLE
+                                                      | Spliterator.NONNULL );
     }
 
     @Override
     public List<NamedInterval> asAbsoluteList()
     {
-        NamedInterval current = null;
-        List<NamedInterval> list = new ArrayList<NamedInterval>();
-        for ( NamedInterval interval : this )
+        Intervals current = getIntervals();
+        List<NamedInterval> list = new ArrayList<NamedInterval>( current.size );
+        for ( int i = 0; i < current.size; i++ )
         {
-            if ( current == null )
-            {
-                current = interval;
-            }
-            else
-            {
-                current = current.sum( interval );
-            }
-            list.add( current );
+            list.add( current.absolute[i] );
         }
         return list;
     }
@@ -137,22 +205,105 @@ public final class ScaleImpl extends CircularCollection<NamedInterval, Node>
         return getStartNode();
     }
 
+    /**
+     * Compare by name first, with unnamed scales after the named ones, then by
+     * the start node, so only equal scales compare as <code>0</code>.
+     */
     @Override
     public int compareTo( final Scale other )
     {
-        return getName().compareTo( other.getName() );
+        String name = getName();
+        String otherName = other.getName();
+        if ( name == null || otherName == null )
+        {
+            if ( name != otherName )
+            {
+                return name == null ? 1 : -1;
+            }
+        }
+        else
+        {
+            int byName = name.compareTo( otherName );
+            if ( byName != 0 )
+            {
+                return byName;
+            }
+        }
+        if ( other instanceof ScaleImpl )
+        {
+            return Long.compare( getStart().getId(), ( (ScaleImpl) other ).getStart()
+                    .getId() );
+        }
+        return getClass().getName()
+                .compareTo( other.getClass()
+                        .getName() );
     }
 
     @Override
     public int hashCode()
     {
-        return getName().hashCode();
+        return getStart().hashCode();
     }
 
     @Override
     public boolean equals( final Object obj )
     {
-        return obj instanceof Scale
-               && getName().equals( ( (Scale) obj ).getName() );
+        return obj instanceof ScaleImpl
+               && getStart().equals( ( (ScaleImpl) obj ).getStart() );
+    }
+
+    private Intervals getIntervals()
+    {
+        if ( intervals == null )
+        {
+            intervals = new Intervals( getStart() );
+        }
+        return intervals;
+    }
+
+    /**
+     * The intervals of a scale as read from the database. A scale is either a
+     * ring, where the last interval leads back to the start node, or a chain.
+     * Iteration over a ring leaves out the last interval, as it only closes
+     * the ring.
+     */
+    private static final class Intervals
+    {
+        private final NamedInterval[] all;
+        private final NamedInterval[] absolute;
+        private final int size;
+        private final boolean ring;
+        private final PitchClassSet pitchClassSet;
+
+        private Intervals( final Node start )
+        {
+            List<NamedInterval> list = new ArrayList<NamedInterval>();
+            boolean isRing = false;
+            Node current = start;
+            while ( !isRing )
+            {
+                Iterator<Relationship> relationships = current.getRelationships(
+                        Direction.OUTGOING ).iterator();
+                if ( !relationships.hasNext() )
+                {
+                    break;
+                }
+                Relationship rel = relationships.next();
+                list.add( DiatonicInterval.valueOf( rel.getType().name() ) );
+                current = rel.getEndNode();
+                isRing = start.equals( current );
+            }
+            all = list.toArray( new NamedInterval[list.size()] );
+            ring = isRing;
+            size = ring ? all.length - 1 : all.length;
+            absolute = new NamedInterval[size];
+            int[] steps = new int[size];
+            for ( int i = 0; i < size; i++ )
+            {
+                absolute[i] = i == 0 ? all[0] : absolute[i - 1].sum( all[i] );
+                steps[i] = all[i].getSemitones();
+            }
+            pitchClassSet = PitchClassSet.fromSteps( 0, steps );
+        }
     }
 }
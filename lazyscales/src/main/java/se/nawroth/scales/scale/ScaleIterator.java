@@ -19,88 +19,71 @@
  */
 package se.nawroth.scales.scale;
 
-import org.neo4j.graphdb.Direction;
-import org.neo4j.graphdb.Node;
-import org.neo4j.graphdb.Relationship;
+import java.util.Iterator;
+import java.util.NoSuchElementException;
 
-import se.nawroth.scales.api.DiatonicInterval;
 import se.nawroth.scales.api.NamedInterval;
-import se.nawroth.scales.util.collection.CircularIterator;
-import se.nawroth.scales.util.collection.IteratorInitializer;
 
-final class ScaleIterator extends CircularIterator<NamedInterval, Node>
+/**
+ * Iterates over intervals that have already been read from the database.
+ * 
+ * @author Anders Nawroth
+ */
+final class ScaleIterator implements Iterator<NamedInterval>
 {
-    private static final IteratorInitializer<Node> INITIALIZER = new IteratorInitializer<Node>()
-    {
-        @Override
-        public Node getCurrent( final Node start )
-        {
-            return start;
-        }
-    };
+    private final NamedInterval[] intervals;
+    private final int length;
+    private final boolean circular;
+    private int position = 0;
 
-    public static ScaleIterator iterator( final Node node )
+    /**
+     * Iterate over the first intervals of an array.
+     * 
+     * @param intervals the intervals to iterate over
+     * @param length the number of intervals to use, when circular the
+     *            iteration restarts after this number of intervals
+     * @param circular <code>true</code> if the iteration never ends
+     * @return the iterator
+     */
+    static ScaleIterator iterator( final NamedInterval[] intervals,
+            final int length, final boolean circular )
     {
-        return new ScaleIterator( node, false );
+        return new ScaleIterator( intervals, length, circular );
     }
 
-    public static ScaleIterator iterator( final Node node,
-            final boolean isCircular )
+    private ScaleIterator( final NamedInterval[] intervals, final int length,
+            final boolean circular )
     {
-        return new ScaleIterator( node, isCircular );
+        this.intervals = intervals;
+        this.length = length;
+        this.circular = circular;
     }
 
-    public static ScaleIterator iterator( final Node node, final int index,
-            final boolean isCircular )
-    {
-        return new ScaleIterator( node, index, isCircular );
-    }
-
-    private ScaleIterator( final Node node )
-    {
-        this( node, false );
-    }
-
-    private ScaleIterator( final Node node, final boolean isCircular )
-    {
-        super( INITIALIZER, node, isCircular );
-    }
-
-    private ScaleIterator( final Node node, final int index,
-            final boolean isCircular )
+    @Override
+    public boolean hasNext()
     {
-        super( INITIALIZER, node, index, isCircular );
+        return position < length;
     }
 
     @Override
-    public boolean hasNext()
+    public NamedInterval next()
     {
-        if ( !getCurrent().hasRelationship( Direction.OUTGOING ) )
+        if ( position >= length )
         {
-            return false;
+            throw new NoSuchElementException();
         }
-        if ( isCircular() )
+        NamedInterval interval = intervals[position++];
+        if ( circular && position == length )
         {
-            return true;
+            position = 0;
         }
-        return !getStart().equals( getNextRelationship().getEndNode() );
+        return interval;
     }
 
     @Override
-    public NamedInterval next()
-    {
-        Relationship rel = getNextRelationship();
-        setCurrent( rel.getEndNode() );
-        return getInterval( rel );
-    }
-
-    private Relationship getNextRelationship()
-    {
-        return getCurrent().getRelationships( Direction.OUTGOING ).iterator().next();
-    }
-
-    private static NamedInterval getInterval( final Relationship rel )
+    public void remove()
     {
-        return DiatonicInterval.valueOf( rel.getType().name() );
+        throw new UnsupportedOperationException(
+                "ScaleIterator is immutable, no mutating operations are allowed." );
     }
 }
@@ -21,33 +21,32 @@ package se.nawroth.scales.scale;
 
 import java.util.ArrayList;
 import java.util.Collection;
-import java.util.Iterator;
 import java.util.List;
 
-import org.neo4j.graphdb.Direction;
-import org.neo4j.graphdb.Node;
-
+import se.nawroth.scales.CatalogStore;
 import se.nawroth.scales.api.Interval;
 import se.nawroth.scales.api.LatinInterval;
 import se.nawroth.scales.api.Scale;
+import se.nawroth.scales.util.StoreMetrics;
 
 /**
- * Scale finding tools.
+ * Scale finding tools. Once {@link ScaleService#addAllScales()} has run, the
+ * searches also return scales that have no name.
  * 
  * @author Anders Nawroth
  */
 public final class ScaleSearchService
 {
-    private final RawScaleService rawScaleService;
+    private final CatalogStore store;
 
     /**
      * Create the service.
      * 
-     * @param rawScaleService the raw scale service to use
+     * @param store the store to use
      */
-    public ScaleSearchService( final RawScaleService rawScaleService )
+    public ScaleSearchService( final CatalogStore store )
     {
-        this.rawScaleService = rawScaleService;
+        this.store = store;
     }
 
     /**
@@ -59,38 +58,15 @@ public final class ScaleSearchService
      */
     public Scale find( final Interval... intervals )
     {
-        if ( intervals.length == 0 )
+        StoreMetrics.Call call = store.enter( "ScaleSearchService.find" );
+        try
         {
-            throw new IllegalArgumentException(
-                    "There can't be a scale without any interval!" );
+            return store.findScale( intervals );
         }
-        Iterable<Scale> rawScales = rawScaleService.getRawScales( intervals.length );
-        for ( Scale scale : rawScales )
+        finally
         {
-            Iterator<? extends Interval> scaleIterator = scale.circularIterator();
-            Node currentStart = scale.getUnderlyingNode();
-            for ( int i = 0; i < intervals.length; i++ )
-            {
-                Scale concreteScale = new ScaleImpl( currentStart );
-                Iterator<? extends Interval> concreteIterator = concreteScale.circularIterator();
-                int count = 0;
-                for ( Interval interval : intervals )
-                {
-                    if ( !interval.equals( concreteIterator.next() ) )
-                    {
-                        break;
-                    }
-                    count++;
-                }
-                if ( count == intervals.length )
-                {
-                    return new ScaleImpl( currentStart );
-                }
-                currentStart = currentStart.getSingleRelationship(
-                        scaleIterator.next(), Direction.OUTGOING ).getEndNode();
-            }
+            call.exit();
         }
-        return null;
     }
 
     /**
@@ -19,18 +19,14 @@
  */
 package se.nawroth.scales.scale;
 
-import java.util.Arrays;
 import java.util.Iterator;
+import java.util.List;
 
-import org.neo4j.graphdb.Direction;
-import org.neo4j.graphdb.Node;
-
-import se.nawroth.scales.api.DiatonicInterval;
+import se.nawroth.scales.CatalogStore;
 import se.nawroth.scales.api.Interval;
-import se.nawroth.scales.api.LatinInterval;
 import se.nawroth.scales.api.Scale;
 import se.nawroth.scales.api.ScaleFamily;
-import se.nawroth.scales.util.GraphDb;
+import se.nawroth.scales.util.StoreMetrics;
 
 /**
  * Create and delete scales.
@@ -39,25 +35,16 @@ import se.nawroth.scales.util.GraphDb;
  */
 public final class ScaleService
 {
-    private static final String NAME = "name";
-    private final GraphDb graphDb;
-    private final ScaleSearchService scaleSearchService;
-    private final RawScaleService rawScaleService;
+    private final CatalogStore store;
 
     /**
      * Create the service.
      * 
-     * @param graphDb the database to use
-     * @param scaleSearchService the scale search service to use
-     * @param rawScaleService the raw scale service to use
+     * @param store the store to use
      */
-    public ScaleService( final GraphDb graphDb,
-            final ScaleSearchService scaleSearchService,
-            final RawScaleService rawScaleService )
+    public ScaleService( final CatalogStore store )
     {
-        this.graphDb = graphDb;
-        this.scaleSearchService = scaleSearchService;
-        this.rawScaleService = rawScaleService;
+        this.store = store;
     }
 
     /**
@@ -71,60 +58,49 @@ public final class ScaleService
     public Scale newScale( final ScaleFamily family, final String name,
             final Interval... intervals )
     {
-        int sum = scaleSum( intervals );
-        if ( sum % LatinInterval.OCTAVE.getSemitones() != 0 )
-        {
-            throw new IllegalArgumentException(
-                    "The sum of the scale must be a multiple of twelve semitones, but was: ["
-                            + sum + "]" );
-        }
-        Scale scale;
-        // check if the scale already exists
-        Scale search = scaleSearchService.find( intervals );
-        if ( search == null )
+        StoreMetrics.Call call = store.enter( "ScaleService.newScale" );
+        try
         {
-            Node newStartNode = graphDb.createNode();
-            Node currentNode = newStartNode;
-            Iterator<Interval> iter = Arrays.asList( intervals )
-                    .iterator();
-            while ( iter.hasNext() )
-            {
-                // enforce DiatonicInterval for scales
-                DiatonicInterval interval = DiatonicInterval.getFromInterval( iter.next() );
-                Node newNode = iter.hasNext() ? graphDb.createNode()
-                        : newStartNode;
-                currentNode.createRelationshipTo( newNode, interval );
-                currentNode = newNode;
-            }
-            scale = linkScale( family, name, newStartNode );
-            rawScaleService.addRawScale( scale );
+            return store.newScales( family, new String[] { name }, intervals );
         }
-        else
+        finally
         {
-            scale = linkScale( family, name, search.getUnderlyingNode() );
+            call.exit();
         }
-        return scale;
     }
 
     /**
      * Create a {@link Scale} from the intervals of another scale.
      * 
      * @param family the family of the scale
+     * @param sourceScale the scale to take the intervals from
+     * @param degree the degree of the source scale to start from, the first
+     *            degree being the source scale itself
      * @param name the name of the scale
      * @return the created scale
      */
     public Scale newScale( final ScaleFamily family, final Scale sourceScale,
             final int degree, final String name )
     {
-        Node node = ( (ScaleImpl) sourceScale ).getStartNode();
-        for ( int i = 1; i < degree; i++ )
+        StoreMetrics.Call call = store.enter( "ScaleService.newScale" );
+        try
+        {
+            Interval[] intervals = new Interval[sourceScale.size() + 1];
+            Iterator<? extends Interval> ring = sourceScale.circularIterator();
+            for ( int i = 1; i < degree; i++ )
+            {
+                ring.next();
+            }
+            for ( int i = 0; i < intervals.length; i++ )
+            {
+                intervals[i] = ring.next();
+            }
+            return store.newScales( family, new String[] { name }, intervals );
+        }
+        finally
         {
-            node = node.getRelationships( Direction.OUTGOING )
-                    .iterator()
-                    .next()
-                    .getEndNode();
+            call.exit();
         }
-        return linkScale( family, name, node );
     }
 
     /**
@@ -137,63 +113,62 @@ public final class ScaleService
     public Scale newScales( final ScaleFamily family, final String[] names,
             final Interval... intervals )
     {
-        if ( names.length < 1 )
+        StoreMetrics.Call call = store.enter( "ScaleService.newScales" );
+        try
         {
-            throw new IllegalArgumentException(
-                    "There has to be at least one scale name." );
+            return store.newScales( family, names, intervals );
         }
-        Scale baseScale = newScale( family, names[0], intervals );
-        for ( int i = 1; i < names.length; i++ )
+        finally
         {
-            newScale( family, baseScale, i + 1, names[i] );
+            call.exit();
         }
-        return baseScale;
     }
 
     /**
-     * Delete a {@link Scale} from the database. Note that the name of the scale
-     * is needed, to distinguish it from other scales using the same intervals.
+     * Add every scale that fits in an octave and is not yet in the store, as
+     * enumerated by {@link ScaleUniverse}. The added scales don't belong to
+     * any family and are tagged as unnamed, until they get a name through one
+     * of the <code>newScale</code> methods. From then on the searches in
+     * {@link ScaleSearchService} also return these scales, and their
+     * {@link Scale#getName()} is <code>null</code>.
      * 
-     * @param scale the scale to delete
-     * @param name the name of the scale
+     * @return the number of scales that were added
      */
-    public static void deleteScale( final Scale scale, final String name )
+    public int addAllScales()
     {
-        // TODO remember: check for other uses!
-        throw new UnsupportedOperationException(
-                "Delete operation is not implemented for scales yet." );
+        StoreMetrics.Call call = store.enter( "ScaleService.addAllScales" );
+        try
+        {
+            return store.addUnnamedScales( ScaleUniverse.enumerate() );
+        }
+        finally
+        {
+            call.exit();
+        }
     }
 
     /**
-     * Create the link to add the scale.
+     * Get the scales that were added by {@link #addAllScales()} and have not
+     * been named yet.
      * 
-     * @param family the family of the scale
-     * @param name the name of the scale
-     * @param newStartNode the start node of the scale
-     * @return the new scale
+     * @return the unnamed scales, starting from their canonical rotation
      */
-    private static Scale linkScale( final ScaleFamily family,
-            final String name, final Node newStartNode )
+    public List<Scale> getUnnamedScales()
     {
-        Scale scale = new ScaleImpl( newStartNode );
-        ScaleNavigation.getNavigation()
-                .addItem( family, scale, NAME, name );
-        return scale;
+        return store.getUnnamedScales();
     }
 
     /**
-     * Calculate the semitone sum of a scale.
+     * Delete a {@link Scale} from the database. Note that the name of the scale
+     * is needed, to distinguish it from other scales using the same intervals.
      * 
-     * @param intervals the intervals to sum
-     * @return the sum of the interval semitones
+     * @param scale the scale to delete
+     * @param name the name of the scale
      */
-    private static int scaleSum( final Interval... intervals )
+    public static void deleteScale( final Scale scale, final String name )
     {
-        int sum = 0;
-        for ( Interval interval : intervals )
-        {
-            sum += interval.getSemitones();
-        }
-        return sum;
+        // TODO remember: check for other uses!
+        throw new UnsupportedOperationException(
+                "Delete operation is not implemented for scales yet." );
     }
 }
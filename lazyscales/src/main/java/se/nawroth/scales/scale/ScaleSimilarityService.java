@@ -0,0 +1,175 @@
+/**
+ * Copyright (c) 2002-2013 "Neo Technology,"
+ * Network Engine for Objects in Lund AB [http://neotechnology.com]
+ *
+ * This file is part of Neo4j.
+ *
+ * Neo4j is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package se.nawroth.scales.scale;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+import se.nawroth.scales.CatalogStore;
+import se.nawroth.scales.api.PitchClassSet;
+import se.nawroth.scales.api.Scale;
+import se.nawroth.scales.util.StoreMetrics;
+
+/**
+ * Finds the scales closest to a scale. Every mode of every raw scale is put
+ * into a {@link BkTree} per {@link ScaleDistance}, keyed by its pitch classes
+ * relative to the root, so that a search doesn't have to walk any scale rings.
+ * <p>
+ * The index is built on first use, and built again after the catalog has
+ * changed. It only holds scales of at most {@link RotationKey#MAX_DEGREE}
+ * notes. To search among every possible scale,
+ * add them first using {@link ScaleService#addAllScales()}.
+ * 
+ * @author Anders Nawroth
+ */
+public final class ScaleSimilarityService
+{
+    private final CatalogStore store;
+    private volatile SimilarityIndex index = null;
+
+    /**
+     * Create the service.
+     * 
+     * @param store the store to use
+     */
+    public ScaleSimilarityService( final CatalogStore store )
+    {
+        this.store = store;
+    }
+
+    /**
+     * Find the scales closest to a scale. The scale itself, and other modes
+     * with the same pitch classes, are not part of the result.
+     * 
+     * @param scale the scale to search from
+     * @param distance the distance to use
+     * @param limit the largest number of scales to return
+     * @return the closest scales, ordered by distance
+     */
+    public List<SimilarScale> findSimilar( final Scale scale,
+            final ScaleDistance distance, final int limit )
+    {
+        return findSimilar( scale.getPitchClassSet(), distance, limit );
+    }
+
+    /**
+     * Find the scales closest to a set of pitch classes. Scales with exactly
+     * the same pitch classes, relative to the root, are not part of the result.
+     * 
+     * @param pitchClasses the pitch classes to search from
+     * @param distance the distance to use
+     * @param limit the largest number of scales to return
+     * @return the closest scales, ordered by distance
+     */
+    public List<SimilarScale> findSimilar( final PitchClassSet pitchClasses,
+            final ScaleDistance distance, final int limit )
+    {
+        if ( limit < 1 )
+        {
+            throw new IllegalArgumentException(
+                    "The limit has to be at least 1, but was: [" + limit + "]" );
+        }
+        StoreMetrics.Call call = store.enter( "ScaleSimilarityService.findSimilar" );
+        try
+        {
+            return getIndex().findSimilar( pitchClasses.getRelativeMask(),
+                    distance, limit );
+        }
+        finally
+        {
+            call.exit();
+        }
+    }
+
+    private SimilarityIndex getIndex()
+    {
+        long generation = store.getGeneration();
+        SimilarityIndex current = index;
+        if ( current == null || current.generation != generation )
+        {
+            current = new SimilarityIndex( generation, store.getModes() );
+            index = current;
+        }
+        return current;
+    }
+
+    /**
+     * The trees of all distances, for one generation of the catalog.
+     */
+    private static final class SimilarityIndex
+    {
+        private final long generation;
+        private final Scale[] scales;
+        private final BkTree[][] trees;
+
+        private SimilarityIndex( final long generation, final List<Scale> modes )
+        {
+            this.generation = generation;
+            ScaleDistance[] distances = ScaleDistance.values();
+            trees = new BkTree[distances.length][PitchClassSet.PITCH_CLASSES + 1];
+            List<Scale> kept = new ArrayList<Scale>( modes.size() );
+            boolean[] seen = new boolean[PitchClassSet.CHROMATIC_MASK + 1];
+            for ( Scale mode : modes )
+            {
+                int mask = mode.getPitchClassSet()
+                        .getRelativeMask();
+                // the modes of symmetric scales repeat the same pitch classes
+                if ( seen[mask] )
+                {
+                    continue;
+                }
+                seen[mask] = true;
+                for ( ScaleDistance distance : distances )
+                {
+                    BkTree[] partitions = trees[distance.ordinal()];
+                    int partition = distance.partition( mask );
+                    if ( partitions[partition] == null )
+                    {
+                        partitions[partition] = new BkTree( distance );
+                    }
+                    partitions[partition].add( mask, kept.size() );
+                }
+                kept.add( mode );
+            }
+            scales = kept.toArray( new Scale[kept.size()] );
+        }
+
+        private List<SimilarScale> findSimilar( final int mask,
+                final ScaleDistance distance, final int limit )
+        {
+            BkTree tree = trees[distance.ordinal()][distance.partition( mask )];
+            if ( tree == null )
+            {
+                return Collections.emptyList();
+            }
+            BkTree.Neighbours neighbours = new BkTree.Neighbours( limit );
+            tree.nearest( mask, neighbours );
+            List<SimilarScale> similar = new ArrayList<SimilarScale>(
+                    neighbours.size() );
+            for ( int i = 0; i < neighbours.size(); i++ )
+            {
+                similar.add( new SimilarScale( scales[neighbours.value( i )],
+                        neighbours.distance( i ) ) );
+            }
+            return similar;
+        }
+    }
+}
@@ -21,7 +21,12 @@ package se.nawroth.scales.scale;
 
 import org.neo4j.graphdb.RelationshipType;
 
-enum ScaleTypes implements RelationshipType
+/**
+ * {@link RelationshipType}s used by the graphdb.
+ * 
+ * @author Anders Nawroth
+ */
+public enum ScaleTypes implements RelationshipType
 {
     /**
      * Points from a scale family to another scale family.
@@ -0,0 +1,160 @@
+/**
+ * Copyright (c) 2002-2013 "Neo Technology,"
+ * Network Engine for Objects in Lund AB [http://neotechnology.com]
+ *
+ * This file is part of Neo4j.
+ *
+ * Neo4j is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package se.nawroth.scales.scale;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.List;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveTask;
+
+/**
+ * Enumerates every scale that fits in an octave. Each of the 2<sup>11</sup>
+ * pitch class sets containing the root is turned into its interval sequence,
+ * and only the canonical rotation (see {@link RotationKey}) is kept, so every
+ * mode class shows up exactly once. Sets of a single note are left out, as
+ * they don't make a ring of intervals.
+ * 
+ * @author Anders Nawroth
+ */
+public final class ScaleUniverse
+{
+    private static final int SEMITONES_IN_OCTAVE = 12;
+    private static final int ROOTED_SETS = 1 << ( SEMITONES_IN_OCTAVE - 1 );
+    private static final int SETS_PER_TASK = 256;
+    private static final Comparator<int[]> BY_KEY = new Comparator<int[]>()
+    {
+        @Override
+        public int compare( final int[] one, final int[] other )
+        {
+            long oneKey = RotationKey.pack( one, 0 );
+            long otherKey = RotationKey.pack( other, 0 );
+            return oneKey < otherKey ? -1 : ( oneKey == otherKey ? 0 : 1 );
+        }
+    };
+
+    private ScaleUniverse()
+    {
+        // no instantiation
+    }
+
+    /**
+     * Enumerate all scales, using a pool of its own.
+     * 
+     * @return the canonical interval sequences, in semitones, ordered by
+     *         degree and then by rotation key
+     */
+    public static List<int[]> enumerate()
+    {
+        ForkJoinPool pool = new ForkJoinPool();
+        try
+        {
+            return enumerate( pool );
+        }
+        finally
+        {
+            pool.shutdown();
+        }
+    }
+
+    /**
+     * Enumerate all scales.
+     * 
+     * @param pool the pool to run the enumeration in
+     * @return the canonical interval sequences, in semitones, ordered by
+     *         degree and then by rotation key
+     */
+    public static List<int[]> enumerate( final ForkJoinPool pool )
+    {
+        List<int[]> scales = pool.invoke( new Enumeration( 0, ROOTED_SETS ) );
+        Collections.sort( scales, BY_KEY );
+        return scales;
+    }
+
+    /**
+     * Get the interval sequence of a pitch class set.
+     * 
+     * @param mask the pitch classes, root in the lowest bit
+     * @return the intervals between the pitch classes, in semitones
+     */
+    static int[] steps( final int mask )
+    {
+        int[] steps = new int[Integer.bitCount( mask )];
+        int previous = Integer.numberOfTrailingZeros( mask );
+        int rest = mask & ( mask - 1 );
+        for ( int i = 0; i < steps.length - 1; i++ )
+        {
+            int next = Integer.numberOfTrailingZeros( rest );
+            steps[i] = next - previous;
+            previous = next;
+            rest &= rest - 1;
+        }
+        steps[steps.length - 1] = SEMITONES_IN_OCTAVE - previous;
+        return steps;
+    }
+
+    /**
+     * Enumerates a range of the pitch class sets containing the root, split in
+     * halves until the range is small enough.
+     */
+    private static final class Enumeration extends RecursiveTask<List<int[]>>
+    {
+        private static final long serialVersionUID = 1L;
+        private final int from;
+        private final int to;
+
+        private Enumeration( final int from, final int to )
+        {
+            this.from = from;
+            this.to = to;
+        }
+
+        @Override
+        protected List<int[]> compute()
+        {
+            if ( to - from <= SETS_PER_TASK )
+            {
+                List<int[]> scales = new ArrayList<int[]>();
+                for ( int upper = from; upper < to; upper++ )
+                {
+                    // the root is always part of the set
+                    int mask = ( upper << 1 ) | 1;
+                    if ( Integer.bitCount( mask ) < 2 )
+                    {
+                        continue;
+                    }
+                    int[] steps = steps( mask );
+                    if ( RotationKey.canonicalRotation( steps ) == 0 )
+                    {
+                        scales.add( steps );
+                    }
+                }
+                return scales;
+            }
+            int middle = ( from + to ) >>> 1;
+            Enumeration lower = new Enumeration( from, middle );
+            lower.fork();
+            List<int[]> scales = new Enumeration( middle, to ).compute();
+            scales.addAll( 0, lower.join() );
+            return scales;
+        }
+    }
+}
@@ -0,0 +1,66 @@
+/**
+ * Copyright (c) 2002-2013 "Neo Technology,"
+ * Network Engine for Objects in Lund AB [http://neotechnology.com]
+ *
+ * This file is part of Neo4j.
+ *
+ * Neo4j is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package se.nawroth.scales.scale;
+
+import se.nawroth.scales.api.Scale;
+
+/**
+ * A scale found by a similarity search, together with its distance from the
+ * scale that was searched for.
+ * 
+ * @author Anders Nawroth
+ */
+public final class SimilarScale
+{
+    private final Scale scale;
+    private final int distance;
+
+    SimilarScale( final Scale scale, final int distance )
+    {
+        this.scale = scale;
+        this.distance = distance;
+    }
+
+    /**
+     * Get the scale that was found.
+     * 
+     * @return the scale
+     */
+    public Scale getScale()
+    {
+        return scale;
+    }
+
+    /**
+     * Get the distance from the scale that was searched for.
+     * 
+     * @return the distance
+     */
+    public int getDistance()
+    {
+        return distance;
+    }
+
+    @Override
+    public String toString()
+    {
+        return scale + " (" + distance + ")";
+    }
+}
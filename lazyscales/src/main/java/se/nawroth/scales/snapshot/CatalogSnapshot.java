@@ -0,0 +1,298 @@
+/**
+ * Copyright (c) 2002-2013 "Neo Technology,"
+ * Network Engine for Objects in Lund AB [http://neotechnology.com]
+ *
+ * This file is part of Neo4j.
+ *
+ * Neo4j is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package se.nawroth.scales.snapshot;
+
+import static se.nawroth.scales.snapshot.SnapshotFormat.FAMILY_FIELDS;
+import static se.nawroth.scales.snapshot.SnapshotFormat.FORMAT_VERSION;
+import static se.nawroth.scales.snapshot.SnapshotFormat.HEADER_CATALOG_VERSION;
+import static se.nawroth.scales.snapshot.SnapshotFormat.HEADER_FORMAT_VERSION;
+import static se.nawroth.scales.snapshot.SnapshotFormat.HEADER_MAGIC;
+import static se.nawroth.scales.snapshot.SnapshotFormat.HEADER_SIZE;
+import static se.nawroth.scales.snapshot.SnapshotFormat.INT_SIZE;
+import static se.nawroth.scales.snapshot.SnapshotFormat.MAGIC;
+import static se.nawroth.scales.snapshot.SnapshotFormat.NOTES;
+import static se.nawroth.scales.snapshot.SnapshotFormat.NOTE_FIELDS;
+import static se.nawroth.scales.snapshot.SnapshotFormat.NO_ENTRY;
+import static se.nawroth.scales.snapshot.SnapshotFormat.SCALES;
+import static se.nawroth.scales.snapshot.SnapshotFormat.SCALE_FAMILIES;
+import static se.nawroth.scales.snapshot.SnapshotFormat.SCALE_FIELDS;
+import static se.nawroth.scales.snapshot.SnapshotFormat.STRINGS;
+import static se.nawroth.scales.snapshot.SnapshotFormat.TUNINGS;
+import static se.nawroth.scales.snapshot.SnapshotFormat.TUNING_FAMILIES;
+import static se.nawroth.scales.snapshot.SnapshotFormat.TUNING_FIELDS;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.Charset;
+
+import se.nawroth.scales.api.Note;
+import se.nawroth.scales.api.PitchClassSet;
+import se.nawroth.scales.api.ScaleFamily;
+import se.nawroth.scales.api.TuningFamily;
+import se.nawroth.scales.note.NoteRepository;
+
+/**
+ * Read-only catalog backed by a memory mapped snapshot file. The notes,
+ * scales, tunings and families of the snapshot implement the API interfaces
+ * directly on top of the mapped file, nothing is read into the heap except
+ * for names, which are decoded when asked for.
+ * <p>
+ * Entities from a snapshot have no underlying node, and can not be modified.
+ * A snapshot can safely be read from multiple threads.
+ * 
+ * @author Anders Nawroth
+ * @see SnapshotExporter
+ */
+public final class CatalogSnapshot
+{
+    private static final Charset UTF_8 = Charset.forName( "UTF-8" );
+    private final ByteBuffer buffer;
+    private final int[] header = new int[HEADER_SIZE];
+    private final SnapshotNote[] notes = new SnapshotNote[PitchClassSet.PITCH_CLASSES];
+
+    private CatalogSnapshot( final ByteBuffer buffer )
+    {
+        this.buffer = buffer;
+        if ( buffer.capacity() < HEADER_SIZE * INT_SIZE
+             || buffer.getInt( HEADER_MAGIC * INT_SIZE ) != MAGIC )
+        {
+            throw new IllegalArgumentException( "Not a catalog snapshot." );
+        }
+        for ( int i = 0; i < HEADER_SIZE; i++ )
+        {
+            header[i] = buffer.getInt( i * INT_SIZE );
+        }
+        if ( header[HEADER_FORMAT_VERSION] != FORMAT_VERSION )
+        {
+            throw new IllegalArgumentException(
+                    "Unsupported snapshot format version: ["
+                            + header[HEADER_FORMAT_VERSION] + "]" );
+        }
+        for ( int pitchClass = 0; pitchClass < notes.length; pitchClass++ )
+        {
+            notes[pitchClass] = new SnapshotNote( this, pitchClass );
+        }
+    }
+
+    /**
+     * Map a snapshot file. The file must not be modified while it is mapped.
+     * 
+     * @param file the snapshot file
+     * @return the snapshot
+     * @throws IOException if the file could not be mapped
+     * @throws IllegalArgumentException if the file is not a snapshot of a
+     *             supported format version
+     */
+    public static CatalogSnapshot open( final File file ) throws IOException
+    {
+        RandomAccessFile input = new RandomAccessFile( file, "r" );
+        try
+        {
+            FileChannel channel = input.getChannel();
+            // the mapping stays valid after the channel is closed
+            return new CatalogSnapshot( channel.map(
+                    FileChannel.MapMode.READ_ONLY, 0, channel.size() ) );
+        }
+        finally
+        {
+            input.close();
+        }
+    }
+
+    /**
+     * Wrap a snapshot that is already in memory.
+     * 
+     * @param buffer the snapshot
+     * @return the snapshot
+     * @throws IllegalArgumentException if the buffer is not a snapshot of a
+     *             supported format version
+     */
+    public static CatalogSnapshot wrap( final ByteBuffer buffer )
+    {
+        return new CatalogSnapshot( buffer );
+    }
+
+    /**
+     * Get the version of the catalog the snapshot was exported from.
+     * 
+     * @return the catalog version, or <code>null</code> if the database was
+     *         not loaded from a catalog
+     */
+    public String getCatalogVersion()
+    {
+        return string( header[HEADER_CATALOG_VERSION] );
+    }
+
+    /**
+     * Get the {@link Note} of a pitch class.
+     * 
+     * @param pitchClass the pitch class, counted in semitones from C
+     * @return the note
+     */
+    public Note note( final int pitchClass )
+    {
+        return notes[PitchClassSet.normalize( pitchClass )];
+    }
+
+    /**
+     * Get the concrete {@link Note} from a note representation.
+     * 
+     * @param noteRepresentation note to get
+     * @return the actual note
+     */
+    public Note note( final NoteRepository noteRepresentation )
+    {
+        return note( noteRepresentation.interval()
+                .getSemitones() );
+    }
+
+    /**
+     * Get the root of the scale families.
+     * 
+     * @return the root scale family
+     */
+    public ScaleFamily getRootScaleFamily()
+    {
+        return new SnapshotScaleFamily( this, 0 );
+    }
+
+    /**
+     * Get the root of the tuning families.
+     * 
+     * @return the root tuning family
+     */
+    public TuningFamily getRootTuningFamily()
+    {
+        return new SnapshotTuningFamily( this, 0 );
+    }
+
+    /**
+     * Get the number of scales in the snapshot. As in the database, modes
+     * count as scales of their own.
+     * 
+     * @return the number of scales
+     */
+    public int getScaleCount()
+    {
+        return count( SCALES );
+    }
+
+    /**
+     * Get the number of tunings in the snapshot.
+     * 
+     * @return the number of tunings
+     */
+    public int getTuningCount()
+    {
+        return count( TUNINGS );
+    }
+
+    SnapshotNote snapshotNote( final int pitchClass )
+    {
+        return notes[PitchClassSet.normalize( pitchClass )];
+    }
+
+    int noteField( final int pitchClass, final int field )
+    {
+        return field( NOTES, NOTE_FIELDS, pitchClass, field );
+    }
+
+    int scaleField( final int scale, final int field )
+    {
+        return field( SCALES, SCALE_FIELDS, scale, field );
+    }
+
+    int scaleFamilyField( final int family, final int field )
+    {
+        return field( SCALE_FAMILIES, FAMILY_FIELDS, family, field );
+    }
+
+    int tuningField( final int tuning, final int field )
+    {
+        return field( TUNINGS, TUNING_FIELDS, tuning, field );
+    }
+
+    int tuningFamilyField( final int family, final int field )
+    {
+        return field( TUNING_FAMILIES, FAMILY_FIELDS, family, field );
+    }
+
+    /**
+     * Get the position of an entry in a table section.
+     * 
+     * @param section the table section
+     * @param index the index of the entry
+     * @return the absolute position of the first byte of the entry
+     */
+    int entryStart( final int section, final int index )
+    {
+        int offsets = header[section] + INT_SIZE;
+        int data = offsets + ( count( section ) + 1 ) * INT_SIZE;
+        return data + buffer.getInt( offsets + index * INT_SIZE );
+    }
+
+    /**
+     * Get the number of bytes of an entry in a table section.
+     * 
+     * @param section the table section
+     * @param index the index of the entry
+     * @return the length of the entry
+     */
+    int entryLength( final int section, final int index )
+    {
+        int offset = header[section] + INT_SIZE + index * INT_SIZE;
+        return buffer.getInt( offset + INT_SIZE ) - buffer.getInt( offset );
+    }
+
+    byte byteAt( final int position )
+    {
+        return buffer.get( position );
+    }
+
+    String string( final int index )
+    {
+        if ( index == NO_ENTRY )
+        {
+            return null;
+        }
+        int start = entryStart( STRINGS, index );
+        byte[] bytes = new byte[entryLength( STRINGS, index )];
+        for ( int i = 0; i < bytes.length; i++ )
+        {
+            bytes[i] = buffer.get( start + i );
+        }
+        return new String( bytes, UTF_8 );
+    }
+
+    private int count( final int section )
+    {
+        return buffer.getInt( header[section] );
+    }
+
+    private int field( final int section, final int fieldCount,
+            final int record, final int field )
+    {
+        return buffer.getInt( header[section] + INT_SIZE
+                              + ( record * fieldCount + field ) * INT_SIZE );
+    }
+}
@@ -0,0 +1,97 @@
+/**
+ * Copyright (c) 2002-2013 "Neo Technology,"
+ * Network Engine for Objects in Lund AB [http://neotechnology.com]
+ *
+ * This file is part of Neo4j.
+ *
+ * Neo4j is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package se.nawroth.scales.snapshot;
+
+import java.util.Iterator;
+import java.util.NoSuchElementException;
+
+import se.nawroth.scales.api.DiatonicInterval;
+import se.nawroth.scales.api.NamedInterval;
+
+/**
+ * Iterates over the intervals of a table entry, one byte per interval, read
+ * straight from the snapshot.
+ * 
+ * @author Anders Nawroth
+ */
+final class IntervalIterator implements Iterator<NamedInterval>
+{
+    private final CatalogSnapshot snapshot;
+    private final int start;
+    private final int degree;
+    private final int rotation;
+    private final int length;
+    private final boolean circular;
+    private int position = 0;
+
+    /**
+     * Iterate over intervals.
+     * 
+     * @param snapshot the snapshot to read from
+     * @param start the position of the first interval of the entry
+     * @param degree the number of intervals in the entry
+     * @param rotation the interval to start from
+     * @param length the number of intervals to use, when circular the
+     *            iteration restarts after this number of intervals
+     * @param circular <code>true</code> if the iteration never ends
+     */
+    IntervalIterator( final CatalogSnapshot snapshot, final int start,
+            final int degree, final int rotation, final int length,
+            final boolean circular )
+    {
+        this.snapshot = snapshot;
+        this.start = start;
+        this.degree = degree;
+        this.rotation = rotation;
+        this.length = length;
+        this.circular = circular;
+    }
+
+    @Override
+    public boolean hasNext()
+    {
+        return position < length;
+    }
+
+    @Override
+    public NamedInterval next()
+    {
+        if ( position >= length )
+        {
+            throw new NoSuchElementException();
+        }
+        int offset = ( rotation + position ) % degree;
+        NamedInterval interval = DiatonicInterval.getFromSemitones( snapshot.byteAt( start
+                                                                                     + offset ) );
+        position++;
+        if ( circular && position == length )
+        {
+            position = 0;
+        }
+        return interval;
+    }
+
+    @Override
+    public void remove()
+    {
+        throw new UnsupportedOperationException(
+                "IntervalIterator is immutable, no mutating operations are allowed." );
+    }
+}
@@ -0,0 +1,343 @@
+/**
+ * Copyright (c) 2002-2013 "Neo Technology,"
+ * Network Engine for Objects in Lund AB [http://neotechnology.com]
+ *
+ * This file is part of Neo4j.
+ *
+ * Neo4j is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package se.nawroth.scales.snapshot;
+
+import static se.nawroth.scales.snapshot.SnapshotFormat.FAMILY_CHILD_COUNT;
+import static se.nawroth.scales.snapshot.SnapshotFormat.FAMILY_FIELDS;
+import static se.nawroth.scales.snapshot.SnapshotFormat.FAMILY_FIRST_CHILD;
+import static se.nawroth.scales.snapshot.SnapshotFormat.FAMILY_FIRST_ITEM;
+import static se.nawroth.scales.snapshot.SnapshotFormat.FAMILY_ITEM_COUNT;
+import static se.nawroth.scales.snapshot.SnapshotFormat.FAMILY_NAME;
+import static se.nawroth.scales.snapshot.SnapshotFormat.FAMILY_PARENT;
+import static se.nawroth.scales.snapshot.SnapshotFormat.NO_ENTRY;
+
+import java.io.BufferedOutputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataOutputStream;
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+import se.nawroth.scales.CatalogStore;
+import se.nawroth.scales.LazyScales;
+import se.nawroth.scales.api.NamedInterval;
+import se.nawroth.scales.api.Note;
+import se.nawroth.scales.api.PitchClassSet;
+import se.nawroth.scales.api.Scale;
+import se.nawroth.scales.api.ScaleFamily;
+import se.nawroth.scales.api.Tuning;
+import se.nawroth.scales.api.TuningFamily;
+import se.nawroth.scales.scale.RotationKey;
+
+/**
+ * Exports the whole catalog of a database to a snapshot file, to be read by
+ * {@link CatalogSnapshot}. Scales sharing the same ring of intervals share the
+ * ring in the snapshot as well, and so do tunings with the same intervals.
+ * 
+ * @author Anders Nawroth
+ * @see SnapshotFormat
+ */
+public final class SnapshotExporter
+{
+    private static final String UTF_8 = "UTF-8";
+    private final Map<String, Integer> strings = new LinkedHashMap<String, Integer>();
+    private final List<int[]> rings = new ArrayList<int[]>();
+    private final Map<Long, Integer> ringsByKey = new HashMap<Long, Integer>();
+    private final List<int[]> scales = new ArrayList<int[]>();
+    private final List<int[]> scaleFamilies = new ArrayList<int[]>();
+    private final List<int[]> chains = new ArrayList<int[]>();
+    private final Map<String, Integer> chainsByIntervals = new HashMap<String, Integer>();
+    private final List<int[]> tunings = new ArrayList<int[]>();
+    private final List<int[]> tuningFamilies = new ArrayList<int[]>();
+    private final int[][] notes = new int[PitchClassSet.PITCH_CLASSES][];
+
+    /**
+     * Export the catalog of a database. The database has to be started and
+     * initialized.
+     * 
+     * @param lazyScales the database to export
+     * @param file the file to write the snapshot to, will be overwritten
+     * @throws IOException if the file could not be written
+     */
+    public static void export( final LazyScales lazyScales, final File file )
+            throws IOException
+    {
+        CatalogStore store = lazyScales.getCatalogStore();
+        SnapshotExporter exporter = new SnapshotExporter();
+        int catalogVersion = exporter.string( lazyScales.getCatalogVersion() );
+        for ( int pitchClass = 0; pitchClass < PitchClassSet.PITCH_CLASSES; pitchClass++ )
+        {
+            Note note = store.note( pitchClass );
+            exporter.notes[pitchClass] = new int[] {
+                    exporter.string( note.toString( false ) ),
+                    exporter.string( note.toString( true ) ) };
+        }
+        exporter.addScaleFamilies( store.getRootScaleFamily() );
+        exporter.addTuningFamilies( store.getRootTuningFamily() );
+        exporter.write( file, catalogVersion );
+    }
+
+    private void addScaleFamilies( final ScaleFamily root )
+    {
+        // breadth first, to keep children and items of a family together
+        List<ScaleFamily> families = new ArrayList<ScaleFamily>();
+        families.add( root );
+        scaleFamilies.add( familyRecord( root.getName(), NO_ENTRY ) );
+        for ( int index = 0; index < families.size(); index++ )
+        {
+            int[] record = scaleFamilies.get( index );
+            record[FAMILY_FIRST_CHILD] = families.size();
+            for ( ScaleFamily subFamily : families.get( index )
+                    .getSubFamilies() )
+            {
+                families.add( subFamily );
+                scaleFamilies.add( familyRecord( subFamily.getName(), index ) );
+            }
+            record[FAMILY_CHILD_COUNT] = families.size()
+                                         - record[FAMILY_FIRST_CHILD];
+            record[FAMILY_FIRST_ITEM] = scales.size();
+            for ( Scale scale : families.get( index )
+                    .getScales() )
+            {
+                addScale( scale, index );
+            }
+            record[FAMILY_ITEM_COUNT] = scales.size()
+                                        - record[FAMILY_FIRST_ITEM];
+        }
+    }
+
+    private void addTuningFamilies( final TuningFamily root )
+    {
+        List<TuningFamily> families = new ArrayList<TuningFamily>();
+        families.add( root );
+        tuningFamilies.add( familyRecord( root.getName(), NO_ENTRY ) );
+        for ( int index = 0; index < families.size(); index++ )
+        {
+            int[] record = tuningFamilies.get( index );
+            record[FAMILY_FIRST_CHILD] = families.size();
+            for ( TuningFamily subFamily : families.get( index )
+                    .getSubFamilies() )
+            {
+                families.add( subFamily );
+                tuningFamilies.add( familyRecord( subFamily.getName(), index ) );
+            }
+            record[FAMILY_CHILD_COUNT] = families.size()
+                                         - record[FAMILY_FIRST_CHILD];
+            record[FAMILY_FIRST_ITEM] = tunings.size();
+            for ( Tuning tuning : families.get( index )
+                    .getTunings() )
+            {
+                addTuning( tuning, index );
+            }
+            record[FAMILY_ITEM_COUNT] = tunings.size()
+                                        - record[FAMILY_FIRST_ITEM];
+        }
+    }
+
+    private int[] familyRecord( final String name, final int parent )
+    {
+        int[] record = new int[FAMILY_FIELDS];
+        record[FAMILY_NAME] = string( name );
+        record[FAMILY_PARENT] = parent;
+        return record;
+    }
+
+    private void addScale( final Scale scale, final int family )
+    {
+        int degree = scale.size() + 1; // the interval closing the ring
+        int[] steps = new int[degree];
+        Iterator<NamedInterval> intervals = scale.circularIterator();
+        for ( int i = 0; i < degree; i++ )
+        {
+            steps[i] = intervals.next()
+                    .getSemitones();
+        }
+        int ring;
+        int rotation = 0;
+        if ( RotationKey.isPackable( steps ) )
+        {
+            int canonical = RotationKey.canonicalRotation( steps );
+            long key = RotationKey.pack( steps, canonical );
+            Integer existing = ringsByKey.get( key );
+            if ( existing == null )
+            {
+                int[] canonicalSteps = new int[degree];
+                for ( int i = 0; i < degree; i++ )
+                {
+                    canonicalSteps[i] = steps[( canonical + i ) % degree];
+                }
+                existing = rings.size();
+                rings.add( canonicalSteps );
+                ringsByKey.put( key, existing );
+            }
+            ring = existing;
+            rotation = ( degree - canonical ) % degree;
+        }
+        else
+        {
+            ring = rings.size();
+            rings.add( steps );
+        }
+        scales.add( new int[] { ring, rotation, string( scale.getName() ),
+                family } );
+    }
+
+    private void addTuning( final Tuning tuning, final int family )
+    {
+        Iterator<Note> notes = tuning.iterator();
+        Note rootNote = notes.next();
+        int[] steps = new int[tuning.size() - 1];
+        Note previous = rootNote;
+        for ( int i = 0; i < steps.length; i++ )
+        {
+            Note current = notes.next();
+            steps[i] = PitchClassSet.normalize( current.getPitchClass()
+                                                - previous.getPitchClass() );
+            previous = current;
+        }
+        String key = Arrays.toString( steps );
+        Integer chain = chainsByIntervals.get( key );
+        if ( chain == null )
+        {
+            chain = chains.size();
+            chains.add( steps );
+            chainsByIntervals.put( key, chain );
+        }
+        tunings.add( new int[] { string( tuning.getName() ), family,
+                rootNote.getPitchClass(), chain } );
+    }
+
+    private int string( final String value )
+    {
+        if ( value == null )
+        {
+            return NO_ENTRY;
+        }
+        Integer index = strings.get( value );
+        if ( index == null )
+        {
+            index = strings.size();
+            strings.put( value, index );
+        }
+        return index;
+    }
+
+    private void write( final File file, final int catalogVersion )
+            throws IOException
+    {
+        List<byte[]> stringBytes = new ArrayList<byte[]>( strings.size() );
+        for ( String value : strings.keySet() )
+        {
+            stringBytes.add( value.getBytes( UTF_8 ) );
+        }
+        byte[][] sections = new byte[SnapshotFormat.HEADER_SIZE][];
+        sections[SnapshotFormat.STRINGS] = table( stringBytes );
+        sections[SnapshotFormat.NOTES] = records( Arrays.asList( notes ) );
+        sections[SnapshotFormat.RINGS] = table( asBytes( rings ) );
+        sections[SnapshotFormat.SCALES] = records( scales );
+        sections[SnapshotFormat.SCALE_FAMILIES] = records( scaleFamilies );
+        sections[SnapshotFormat.CHAINS] = table( asBytes( chains ) );
+        sections[SnapshotFormat.TUNINGS] = records( tunings );
+        sections[SnapshotFormat.TUNING_FAMILIES] = records( tuningFamilies );
+
+        DataOutputStream out = new DataOutputStream( new BufferedOutputStream(
+                new FileOutputStream( file ) ) );
+        try
+        {
+            out.writeInt( SnapshotFormat.MAGIC );
+            out.writeInt( SnapshotFormat.FORMAT_VERSION );
+            out.writeInt( catalogVersion );
+            int offset = SnapshotFormat.HEADER_SIZE * SnapshotFormat.INT_SIZE;
+            for ( int section = SnapshotFormat.STRINGS; section < SnapshotFormat.HEADER_SIZE; section++ )
+            {
+                out.writeInt( offset );
+                offset += sections[section].length;
+            }
+            for ( int section = SnapshotFormat.STRINGS; section < SnapshotFormat.HEADER_SIZE; section++ )
+            {
+                out.write( sections[section] );
+            }
+        }
+        finally
+        {
+            out.close();
+        }
+    }
+
+    private static List<byte[]> asBytes( final List<int[]> entries )
+    {
+        List<byte[]> bytes = new ArrayList<byte[]>( entries.size() );
+        for ( int[] entry : entries )
+        {
+            byte[] entryBytes = new byte[entry.length];
+            for ( int i = 0; i < entry.length; i++ )
+            {
+                entryBytes[i] = (byte) entry[i];
+            }
+            bytes.add( entryBytes );
+        }
+        return bytes;
+    }
+
+    private static byte[] table( final List<byte[]> entries )
+            throws IOException
+    {
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        DataOutputStream out = new DataOutputStream( bytes );
+        out.writeInt( entries.size() );
+        int offset = 0;
+        out.writeInt( offset );
+        for ( byte[] entry : entries )
+        {
+            offset += entry.length;
+            out.writeInt( offset );
+        }
+        for ( byte[] entry : entries )
+        {
+            out.write( entry );
+        }
+        out.close();
+        return bytes.toByteArray();
+    }
+
+    private static byte[] records( final List<int[]> records )
+            throws IOException
+    {
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        DataOutputStream out = new DataOutputStream( bytes );
+        out.writeInt( records.size() );
+        for ( int[] record : records )
+        {
+            for ( int field : record )
+            {
+                out.writeInt( field );
+            }
+        }
+        out.close();
+        return bytes.toByteArray();
+    }
+}
@@ -0,0 +1,84 @@
+/**
+ * Copyright (c) 2002-2013 "Neo Technology,"
+ * Network Engine for Objects in Lund AB [http://neotechnology.com]
+ *
+ * This file is part of Neo4j.
+ *
+ * Neo4j is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package se.nawroth.scales.snapshot;
+
+/**
+ * Layout of a catalog snapshot file. All numbers are big-endian
+ * <code>int</code>s, except for the contents of tables, which are bytes.
+ * <p>
+ * The file starts with a header of {@link #HEADER_SIZE} ints, holding the
+ * magic number, the format version, the catalog version and the offsets of
+ * all sections. Sections are either record sections, holding a count followed
+ * by fixed size records, or table sections, holding a count, count + 1 offsets
+ * into the data and then the data itself. Strings are stored UTF-8 encoded in
+ * a table and referenced by their index, the intervals of rings and tunings
+ * are stored as one byte per interval.
+ * 
+ * @author Anders Nawroth
+ */
+final class SnapshotFormat
+{
+    static final int MAGIC = 0x4C5A5343; // LZSC
+    static final int FORMAT_VERSION = 1;
+    static final int NO_ENTRY = -1;
+    static final int INT_SIZE = 4;
+
+    static final int HEADER_MAGIC = 0;
+    static final int HEADER_FORMAT_VERSION = 1;
+    static final int HEADER_CATALOG_VERSION = 2;
+    static final int STRINGS = 3;
+    static final int NOTES = 4;
+    static final int RINGS = 5;
+    static final int SCALES = 6;
+    static final int SCALE_FAMILIES = 7;
+    static final int CHAINS = 8;
+    static final int TUNINGS = 9;
+    static final int TUNING_FAMILIES = 10;
+    static final int HEADER_SIZE = 11;
+
+    static final int NOTE_SHARP_NAME = 0;
+    static final int NOTE_FLAT_NAME = 1;
+    static final int NOTE_FIELDS = 2;
+
+    static final int SCALE_RING = 0;
+    static final int SCALE_ROTATION = 1;
+    static final int SCALE_NAME = 2;
+    static final int SCALE_FAMILY = 3;
+    static final int SCALE_FIELDS = 4;
+
+    static final int FAMILY_NAME = 0;
+    static final int FAMILY_PARENT = 1;
+    static final int FAMILY_FIRST_CHILD = 2;
+    static final int FAMILY_CHILD_COUNT = 3;
+    static final int FAMILY_FIRST_ITEM = 4;
+    static final int FAMILY_ITEM_COUNT = 5;
+    static final int FAMILY_FIELDS = 6;
+
+    static final int TUNING_NAME = 0;
+    static final int TUNING_FAMILY = 1;
+    static final int TUNING_ROOT_NOTE = 2;
+    static final int TUNING_CHAIN = 3;
+    static final int TUNING_FIELDS = 4;
+
+    private SnapshotFormat()
+    {
+        // no instantiation
+    }
+}
@@ -0,0 +1,73 @@
+/**
+ * Copyright (c) 2002-2013 "Neo Technology,"
+ * Network Engine for Objects in Lund AB [http://neotechnology.com]
+ *
+ * This file is part of Neo4j.
+ *
+ * Neo4j is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package se.nawroth.scales.snapshot;
+
+import se.nawroth.scales.api.Interval;
+import se.nawroth.scales.api.Note;
+
+/**
+ * A {@link Note} of a {@link CatalogSnapshot}. There is one instance per pitch
+ * class and snapshot, so identity is equality.
+ * 
+ * @author Anders Nawroth
+ */
+final class SnapshotNote implements Note
+{
+    private final CatalogSnapshot snapshot;
+    private final int pitchClass;
+
+    SnapshotNote( final CatalogSnapshot snapshot, final int pitchClass )
+    {
+        this.snapshot = snapshot;
+        this.pitchClass = pitchClass;
+    }
+
+    @Override
+    public int getPitchClass()
+    {
+        return pitchClass;
+    }
+
+    @Override
+    public Note getFromInterval( final Interval interval )
+    {
+        return snapshot.snapshotNote( pitchClass + interval.getSemitones() );
+    }
+
+    @Override
+    public Note getFromIntervalReversed( final Interval interval )
+    {
+        return snapshot.snapshotNote( pitchClass - interval.getSemitones() );
+    }
+
+    @Override
+    public String toString()
+    {
+        return toString( true );
+    }
+
+    @Override
+    public String toString( final boolean flat )
+    {
+        return snapshot.string( snapshot.noteField( pitchClass,
+                flat ? SnapshotFormat.NOTE_FLAT_NAME
+                        : SnapshotFormat.NOTE_SHARP_NAME ) );
+    }
+}
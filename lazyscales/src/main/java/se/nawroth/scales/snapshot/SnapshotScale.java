@@ -0,0 +1,100 @@
+/**
+ * Copyright (c) 2002-2013 "Neo Technology,"
+ * Network Engine for Objects in Lund AB [http://neotechnology.com]
+ *
+ * This file is part of Neo4j.
+ *
+ * Neo4j is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package se.nawroth.scales.snapshot;
+
+import se.nawroth.scales.api.Scale;
+import se.nawroth.scales.scale.AbstractScale;
+
+/**
+ * A {@link Scale} of a {@link CatalogSnapshot}: a ring of intervals together
+ * with the interval the scale starts on. Scales are equal when they start on
+ * the same interval of the same ring, like scales starting on the same node in
+ * the database.
+ * 
+ * @author Anders Nawroth
+ */
+final class SnapshotScale extends AbstractScale
+{
+    private final CatalogSnapshot snapshot;
+    private final int index;
+
+    SnapshotScale( final CatalogSnapshot snapshot, final int index )
+    {
+        this.snapshot = snapshot;
+        this.index = index;
+    }
+
+    @Override
+    public String getName()
+    {
+        return snapshot.string( snapshot.scaleField( index,
+                SnapshotFormat.SCALE_NAME ) );
+    }
+
+    @Override
+    protected int degree()
+    {
+        return snapshot.entryLength( SnapshotFormat.RINGS, ring() );
+    }
+
+    @Override
+    protected int step( final int position )
+    {
+        int ring = ring();
+        int offset = ( rotation() + position )
+                     % snapshot.entryLength( SnapshotFormat.RINGS, ring );
+        return snapshot.byteAt( snapshot.entryStart( SnapshotFormat.RINGS,
+                ring ) + offset );
+    }
+
+    @Override
+    protected long identity()
+    {
+        return ( (long) ring() << Integer.SIZE ) | rotation();
+    }
+
+    @Override
+    public int hashCode()
+    {
+        return 31 * ring() + rotation();
+    }
+
+    @Override
+    public boolean equals( final Object obj )
+    {
+        if ( !( obj instanceof SnapshotScale ) )
+        {
+            return false;
+        }
+        SnapshotScale other = (SnapshotScale) obj;
+        return snapshot == other.snapshot && ring() == other.ring()
+               && rotation() == other.rotation();
+    }
+
+    private int ring()
+    {
+        return snapshot.scaleField( index, SnapshotFormat.SCALE_RING );
+    }
+
+    private int rotation()
+    {
+        return snapshot.scaleField( index, SnapshotFormat.SCALE_ROTATION );
+    }
+}
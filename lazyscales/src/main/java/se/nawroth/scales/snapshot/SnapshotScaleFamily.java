@@ -0,0 +1,128 @@
+/**
+ * Copyright (c) 2002-2013 "Neo Technology,"
+ * Network Engine for Objects in Lund AB [http://neotechnology.com]
+ *
+ * This file is part of Neo4j.
+ *
+ * Neo4j is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package se.nawroth.scales.snapshot;
+
+import static se.nawroth.scales.snapshot.SnapshotFormat.FAMILY_CHILD_COUNT;
+import static se.nawroth.scales.snapshot.SnapshotFormat.FAMILY_FIRST_CHILD;
+import static se.nawroth.scales.snapshot.SnapshotFormat.FAMILY_FIRST_ITEM;
+import static se.nawroth.scales.snapshot.SnapshotFormat.FAMILY_ITEM_COUNT;
+import static se.nawroth.scales.snapshot.SnapshotFormat.FAMILY_NAME;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import org.neo4j.graphdb.Node;
+
+import se.nawroth.scales.api.Scale;
+import se.nawroth.scales.api.ScaleFamily;
+
+/**
+ * A {@link ScaleFamily} of a {@link CatalogSnapshot}.
+ * 
+ * @author Anders Nawroth
+ */
+final class SnapshotScaleFamily implements ScaleFamily
+{
+    private final CatalogSnapshot snapshot;
+    private final int index;
+
+    SnapshotScaleFamily( final CatalogSnapshot snapshot, final int index )
+    {
+        this.snapshot = snapshot;
+        this.index = index;
+    }
+
+    @Override
+    public String getName()
+    {
+        return snapshot.string( snapshot.scaleFamilyField( index, FAMILY_NAME ) );
+    }
+
+    @Override
+    public Iterable<ScaleFamily> getSubFamilies()
+    {
+        int first = snapshot.scaleFamilyField( index, FAMILY_FIRST_CHILD );
+        int count = snapshot.scaleFamilyField( index, FAMILY_CHILD_COUNT );
+        List<ScaleFamily> families = new ArrayList<ScaleFamily>( count );
+        for ( int i = first; i < first + count; i++ )
+        {
+            families.add( new SnapshotScaleFamily( snapshot, i ) );
+        }
+        return families;
+    }
+
+    @Override
+    public Iterable<Scale> getScales()
+    {
+        int first = snapshot.scaleFamilyField( index, FAMILY_FIRST_ITEM );
+        int count = snapshot.scaleFamilyField( index, FAMILY_ITEM_COUNT );
+        List<Scale> scales = new ArrayList<Scale>( count );
+        for ( int i = first; i < first + count; i++ )
+        {
+            scales.add( new SnapshotScale( snapshot, i ) );
+        }
+        return scales;
+    }
+
+    @Override
+    public boolean addSubFamily( final ScaleFamily family )
+    {
+        throw new UnsupportedOperationException( "Snapshots are read-only." );
+    }
+
+    @Override
+    public boolean addScale( final Scale scale )
+    {
+        throw new UnsupportedOperationException( "Snapshots are read-only." );
+    }
+
+    @Override
+    public Node getUnderlyingNode()
+    {
+        throw new UnsupportedOperationException(
+                "Scale families of a snapshot have no underlying node." );
+    }
+
+    @Override
+    public int compareTo( final ScaleFamily other )
+    {
+        return getName().compareTo( other.getName() );
+    }
+
+    @Override
+    public int hashCode()
+    {
+        return index;
+    }
+
+    @Override
+    public boolean equals( final Object obj )
+    {
+        return obj instanceof SnapshotScaleFamily
+               && snapshot == ( (SnapshotScaleFamily) obj ).snapshot
+               && index == ( (SnapshotScaleFamily) obj ).index;
+    }
+
+    @Override
+    public String toString()
+    {
+        return getName();
+    }
+}
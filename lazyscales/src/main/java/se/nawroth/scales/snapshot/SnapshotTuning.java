@@ -0,0 +1,127 @@
+/**
+ * Copyright (c) 2002-2013 "Neo Technology,"
+ * Network Engine for Objects in Lund AB [http://neotechnology.com]
+ *
+ * This file is part of Neo4j.
+ *
+ * Neo4j is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package se.nawroth.scales.snapshot;
+
+import static se.nawroth.scales.snapshot.SnapshotFormat.CHAINS;
+import static se.nawroth.scales.snapshot.SnapshotFormat.TUNING_CHAIN;
+import static se.nawroth.scales.snapshot.SnapshotFormat.TUNING_FAMILY;
+import static se.nawroth.scales.snapshot.SnapshotFormat.TUNING_NAME;
+import static se.nawroth.scales.snapshot.SnapshotFormat.TUNING_ROOT_NOTE;
+
+import java.util.AbstractCollection;
+import java.util.Iterator;
+
+import org.neo4j.graphdb.Node;
+
+import se.nawroth.scales.api.Note;
+import se.nawroth.scales.api.Tuning;
+import se.nawroth.scales.api.TuningFamily;
+import se.nawroth.scales.note.NoteIterator;
+
+/**
+ * A {@link Tuning} of a {@link CatalogSnapshot}.
+ * 
+ * @author Anders Nawroth
+ */
+final class SnapshotTuning extends AbstractCollection<Note> implements Tuning
+{
+    private final CatalogSnapshot snapshot;
+    private final int index;
+
+    SnapshotTuning( final CatalogSnapshot snapshot, final int index )
+    {
+        this.snapshot = snapshot;
+        this.index = index;
+    }
+
+    @Override
+    public String getName()
+    {
+        return snapshot.string( snapshot.tuningField( index, TUNING_NAME ) );
+    }
+
+    @Override
+    public TuningFamily getFamily()
+    {
+        return new SnapshotTuningFamily( snapshot, snapshot.tuningField(
+                index, TUNING_FAMILY ) );
+    }
+
+    @Override
+    public int size()
+    {
+        return snapshot.entryLength( CHAINS, chain() ) + 1;
+    }
+
+    @Override
+    public boolean isEmpty()
+    {
+        return false;
+    }
+
+    @Override
+    public Iterator<Note> iterator()
+    {
+        int chain = chain();
+        int degree = snapshot.entryLength( CHAINS, chain );
+        return NoteIterator.iterator(
+                snapshot.note( snapshot.tuningField( index, TUNING_ROOT_NOTE ) ),
+                new IntervalIterator( snapshot, snapshot.entryStart( CHAINS,
+                        chain ), degree, 0, degree, false ) );
+    }
+
+    @Override
+    public Node getUnderlyingNode()
+    {
+        throw new UnsupportedOperationException(
+                "Tunings of a snapshot have no underlying node." );
+    }
+
+    @Override
+    public int compareTo( final Tuning otherTuning )
+    {
+        return getName().compareTo( otherTuning.getName() );
+    }
+
+    @Override
+    public int hashCode()
+    {
+        return index;
+    }
+
+    @Override
+    public boolean equals( final Object obj )
+    {
+        return obj instanceof SnapshotTuning
+               && snapshot == ( (SnapshotTuning) obj ).snapshot
+               && index == ( (SnapshotTuning) obj ).index;
+    }
+
+    @Override
+    public String toString()
+    {
+        return getName() + ": " + super.toString();
+    }
+
+    private int chain()
+    {
+        return snapshot.tuningField( index, TUNING_CHAIN );
+    }
+}
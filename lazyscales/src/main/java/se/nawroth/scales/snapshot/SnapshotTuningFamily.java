@@ -0,0 +1,128 @@
+/**
+ * Copyright (c) 2002-2013 "Neo Technology,"
+ * Network Engine for Objects in Lund AB [http://neotechnology.com]
+ *
+ * This file is part of Neo4j.
+ *
+ * Neo4j is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package se.nawroth.scales.snapshot;
+
+import static se.nawroth.scales.snapshot.SnapshotFormat.FAMILY_CHILD_COUNT;
+import static se.nawroth.scales.snapshot.SnapshotFormat.FAMILY_FIRST_CHILD;
+import static se.nawroth.scales.snapshot.SnapshotFormat.FAMILY_FIRST_ITEM;
+import static se.nawroth.scales.snapshot.SnapshotFormat.FAMILY_ITEM_COUNT;
+import static se.nawroth.scales.snapshot.SnapshotFormat.FAMILY_NAME;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import org.neo4j.graphdb.Node;
+
+import se.nawroth.scales.api.Tuning;
+import se.nawroth.scales.api.TuningFamily;
+
+/**
+ * A {@link TuningFamily} of a {@link CatalogSnapshot}.
+ * 
+ * @author Anders Nawroth
+ */
+final class SnapshotTuningFamily implements TuningFamily
+{
+    private final CatalogSnapshot snapshot;
+    private final int index;
+
+    SnapshotTuningFamily( final CatalogSnapshot snapshot, final int index )
+    {
+        this.snapshot = snapshot;
+        this.index = index;
+    }
+
+    @Override
+    public String getName()
+    {
+        return snapshot.string( snapshot.tuningFamilyField( index, FAMILY_NAME ) );
+    }
+
+    @Override
+    public Iterable<TuningFamily> getSubFamilies()
+    {
+        int first = snapshot.tuningFamilyField( index, FAMILY_FIRST_CHILD );
+        int count = snapshot.tuningFamilyField( index, FAMILY_CHILD_COUNT );
+        List<TuningFamily> families = new ArrayList<TuningFamily>( count );
+        for ( int i = first; i < first + count; i++ )
+        {
+            families.add( new SnapshotTuningFamily( snapshot, i ) );
+        }
+        return families;
+    }
+
+    @Override
+    public Iterable<Tuning> getTunings()
+    {
+        int first = snapshot.tuningFamilyField( index, FAMILY_FIRST_ITEM );
+        int count = snapshot.tuningFamilyField( index, FAMILY_ITEM_COUNT );
+        List<Tuning> tunings = new ArrayList<Tuning>( count );
+        for ( int i = first; i < first + count; i++ )
+        {
+            tunings.add( new SnapshotTuning( snapshot, i ) );
+        }
+        return tunings;
+    }
+
+    @Override
+    public boolean addSubFamily( final TuningFamily family )
+    {
+        throw new UnsupportedOperationException( "Snapshots are read-only." );
+    }
+
+    @Override
+    public boolean addTuning( final Tuning tuning, final String name )
+    {
+        throw new UnsupportedOperationException( "Snapshots are read-only." );
+    }
+
+    @Override
+    public Node getUnderlyingNode()
+    {
+        throw new UnsupportedOperationException(
+                "Tuning families of a snapshot have no underlying node." );
+    }
+
+    @Override
+    public int compareTo( final TuningFamily other )
+    {
+        return getName().compareTo( other.getName() );
+    }
+
+    @Override
+    public int hashCode()
+    {
+        return index;
+    }
+
+    @Override
+    public boolean equals( final Object obj )
+    {
+        return obj instanceof SnapshotTuningFamily
+               && snapshot == ( (SnapshotTuningFamily) obj ).snapshot
+               && index == ( (SnapshotTuningFamily) obj ).index;
+    }
+
+    @Override
+    public String toString()
+    {
+        return getName();
+    }
+}
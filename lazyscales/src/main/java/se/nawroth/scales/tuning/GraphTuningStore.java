@@ -0,0 +1,165 @@
+/**
+ * Copyright (c) 2002-2013 "Neo Technology,"
+ * Network Engine for Objects in Lund AB [http://neotechnology.com]
+ *
+ * This file is part of Neo4j.
+ *
+ * Neo4j is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package se.nawroth.scales.tuning;
+
+import org.neo4j.graphdb.Node;
+
+import se.nawroth.scales.api.DiatonicInterval;
+import se.nawroth.scales.api.Interval;
+import se.nawroth.scales.api.Note;
+import se.nawroth.scales.api.Tuning;
+import se.nawroth.scales.api.TuningFamily;
+import se.nawroth.scales.note.NoteImpl;
+import se.nawroth.scales.scale.ScaleImpl;
+import se.nawroth.scales.util.GraphDb;
+import se.nawroth.scales.util.NamedEntityImpl;
+
+/**
+ * Keeps tunings and tuning families in the graph. A tuning links to its root
+ * note and to a chain of interval relationships, which can be shared by
+ * tunings with different root notes. Writes have to be made inside a
+ * transaction.
+ * 
+ * @author Anders Nawroth
+ * @see se.nawroth.scales.GraphCatalogStore
+ */
+public final class GraphTuningStore
+{
+    private final GraphDb graphDb;
+
+    /**
+     * Create the store.
+     * 
+     * @param graphDb the database to use
+     */
+    public GraphTuningStore( final GraphDb graphDb )
+    {
+        this.graphDb = graphDb;
+    }
+
+    /**
+     * Get the root {@link TuningFamily}, creating it on first access.
+     * 
+     * @return the root tuning family
+     */
+    public TuningFamily getRootTuningFamily()
+    {
+        Node referenceNode = graphDb.getReferenceNode(
+                TuningTypes.TUNING_FAMILIES, TuningTypes.TUNING_FAMILY );
+        TuningFamilyImpl root = new TuningFamilyImpl( referenceNode );
+        String name = root.getName();
+        if ( name == null )
+        {
+            TuningFamilyImpl.NAVIGATION.setCategoryRelationshipProperty( root,
+                    NamedEntityImpl.NAME, TuningFamilyService.ROOT_NAME );
+        }
+        return root;
+    }
+
+    /**
+     * Create a new tuning family.
+     * 
+     * @param parentFamily the parent family
+     * @param name the name of the tuning family
+     * @return the created tuning family
+     */
+    public TuningFamily newTuningFamily( final TuningFamily parentFamily,
+            final String name )
+    {
+        return new TuningFamilyImpl( parentFamily, graphDb.createNode(), name );
+    }
+
+    /**
+     * Create a new {@link Tuning}.
+     * 
+     * @param family the family it should belong to
+     * @param name the name of the tuning
+     * @param rootNote the root note of the tuning
+     * @param intervals the intervals of the tuning
+     * @return the created tuning
+     */
+    public Tuning newTuning( final TuningFamily family, final String name,
+            final Note rootNote, final Interval... intervals )
+    {
+        Node node = graphDb.createNode();
+        node.createRelationshipTo( ( (NoteImpl) rootNote ).getUnderlying(),
+                TuningTypes.TUNING_ROOT_NOTE );
+        Node intervalNode = graphDb.createNode();
+        intervalNode.setProperty( ScaleImpl.DEGREE, intervals.length + 1 );
+        node.createRelationshipTo( intervalNode,
+                TuningTypes.TUNING_INTERVAL_ROOT );
+        Node current = intervalNode;
+        for ( Interval interval : intervals )
+        {
+            Node next = graphDb.createNode();
+            current.createRelationshipTo( next,
+                    DiatonicInterval.getFromInterval( interval ) );
+            current = next;
+        }
+        TuningImpl tuning = new TuningImpl( node );
+        family.addTuning( tuning, name );
+        return tuning;
+    }
+
+    /**
+     * Create a new {@link Tuning} sharing the intervals of another tuning.
+     * 
+     * @param family the family it should belong to
+     * @param name the name of the tuning
+     * @param rootNote the root note of the tuning
+     * @param tuning the source tuning to use
+     * @return the created tuning
+     */
+    public Tuning newTuning( final TuningFamily family, final String name,
+            final Note rootNote, final Tuning tuning )
+    {
+        Node node = graphDb.createNode();
+        node.createRelationshipTo( ( (NoteImpl) rootNote ).getUnderlying(),
+                TuningTypes.TUNING_ROOT_NOTE );
+        node.createRelationshipTo( ( (TuningImpl) tuning ).intervalRoot(),
+                TuningTypes.TUNING_INTERVAL_ROOT );
+        Tuning newTuning = new TuningImpl( node );
+        family.addTuning( newTuning, name );
+        return newTuning;
+    }
+
+    /**
+     * Store the degree on tunings that were stored before the degree existed.
+     * 
+     * @param family the tuning family to start from, sub-families are
+     *            included
+     */
+    public void addDegrees( final TuningFamily family )
+    {
+        for ( Tuning tuning : family.getTunings() )
+        {
+            Node intervalRoot = ( (TuningImpl) tuning ).intervalRoot();
+            if ( !intervalRoot.hasProperty( ScaleImpl.DEGREE ) )
+            {
+                intervalRoot.setProperty( ScaleImpl.DEGREE,
+                        new ScaleImpl( intervalRoot ).size() + 1 );
+            }
+        }
+        for ( TuningFamily subFamily : family.getSubFamilies() )
+        {
+            addDegrees( subFamily );
+        }
+    }
+}
@@ -19,11 +19,9 @@
  */
 package se.nawroth.scales.tuning;
 
-import org.neo4j.graphdb.Node;
-
+import se.nawroth.scales.CatalogStore;
 import se.nawroth.scales.api.TuningFamily;
-import se.nawroth.scales.util.GraphDb;
-import se.nawroth.scales.util.NamedEntityImpl;
+import se.nawroth.scales.util.StoreMetrics;
 
 /**
  * Perform operations on {@link TuningFamily}s.
@@ -32,16 +30,20 @@ import se.nawroth.scales.util.NamedEntityImpl;
  */
 public final class TuningFamilyService
 {
-    private final GraphDb graphDb;
+    /**
+     * The name of the root tuning family.
+     */
+    public static final String ROOT_NAME = "Tuning families";
+    private final CatalogStore store;
 
     /**
      * Create the service.
      * 
-     * @param graphDb the database to use
+     * @param store the store to use
      */
-    public TuningFamilyService( final GraphDb graphDb )
+    public TuningFamilyService( final CatalogStore store )
     {
-        this.graphDb = graphDb;
+        this.store = store;
     }
 
     /**
@@ -51,16 +53,15 @@ public final class TuningFamilyService
      */
     public TuningFamily getRootTuningFamily()
     {
-        Node referenceNode = graphDb.getReferenceNode(
-                TuningTypes.TUNING_FAMILIES, TuningTypes.TUNING_FAMILY );
-        TuningFamilyImpl root = new TuningFamilyImpl( referenceNode );
-        String name = root.getName();
-        if ( name == null )
+        StoreMetrics.Call call = store.enter( "TuningFamilyService.getRootTuningFamily" );
+        try
+        {
+            return store.getRootTuningFamily();
+        }
+        finally
         {
-            TuningFamilyImpl.NAVIGATION.setCategoryRelationshipProperty( root,
-                    NamedEntityImpl.NAME, "Tuning families" );
+            call.exit();
         }
-        return root;
     }
 
     /**
@@ -73,7 +74,14 @@ public final class TuningFamilyService
     public TuningFamily newTuningFamily( final TuningFamily parentFamily,
             final String name )
     {
-        Node node = graphDb.createNode();
-        return new TuningFamilyImpl( parentFamily, node, name );
+        StoreMetrics.Call call = store.enter( "TuningFamilyService.newTuningFamily" );
+        try
+        {
+            return store.newTuningFamily( parentFamily, name );
+        }
+        finally
+        {
+            call.exit();
+        }
     }
 }
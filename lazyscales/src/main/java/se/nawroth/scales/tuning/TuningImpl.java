@@ -40,6 +40,8 @@ import se.nawroth.scales.util.collection.BaseCollection;
 public class TuningImpl extends BaseCollection<Note, Node> implements Tuning
 {
     static final String NAME = "name";
+    private Note rootNote = null;
+    private int size = -1;
 
     /**
      * Get instance from underlying node.
@@ -57,23 +59,50 @@ public class TuningImpl extends BaseCollection<Note, Node> implements Tuning
         return getStart();
     }
 
+    /**
+     * Compare by name first, then by the start node, so only equal tunings
+     * compare as <code>0</code>.
+     */
     @Override
     public final int compareTo( final Tuning otherTuning )
     {
-        return getName().compareTo( otherTuning.getName() );
+        int byName = getName().compareTo( otherTuning.getName() );
+        if ( byName != 0 )
+        {
+            return byName;
+        }
+        if ( otherTuning instanceof TuningImpl )
+        {
+            return Long.compare( getStart().getId(), ( (TuningImpl) otherTuning ).getStart()
+                    .getId() );
+        }
+        return getClass().getName()
+                .compareTo( otherTuning.getClass()
+                        .getName() );
     }
 
     @Override
     public final boolean equals( final Object obj )
     {
         return obj instanceof TuningImpl
-               && getName().equals( ( (TuningImpl) obj ).getName() );
+               && getStart().equals( ( (TuningImpl) obj ).getStart() );
     }
 
     @Override
     public final int hashCode()
     {
-        return getName().hashCode();
+        return getStart().hashCode();
+    }
+
+    @Override
+    public final int size()
+    {
+        if ( size == -1 )
+        {
+            Object degree = intervalRoot().getProperty( ScaleImpl.DEGREE, null );
+            size = degree == null ? super.size() : ( (Number) degree ).intValue();
+        }
+        return size;
     }
 
     @Override
@@ -110,8 +139,12 @@ public class TuningImpl extends BaseCollection<Note, Node> implements Tuning
 
     private Note rootNote()
     {
-        return new NoteImpl( getUnderlyingNode().getSingleRelationship(
-                TuningTypes.TUNING_ROOT_NOTE, Direction.OUTGOING ).getEndNode() );
+        if ( rootNote == null )
+        {
+            rootNote = NoteImpl.of( getUnderlyingNode().getSingleRelationship(
+                    TuningTypes.TUNING_ROOT_NOTE, Direction.OUTGOING ).getEndNode() );
+        }
+        return rootNote;
     }
 
     final Node intervalRoot()
@@ -19,15 +19,13 @@
  */
 package se.nawroth.scales.tuning;
 
-import org.neo4j.graphdb.Node;
-
+import se.nawroth.scales.CatalogStore;
 import se.nawroth.scales.api.DiatonicInterval;
 import se.nawroth.scales.api.Interval;
 import se.nawroth.scales.api.Note;
 import se.nawroth.scales.api.Tuning;
 import se.nawroth.scales.api.TuningFamily;
-import se.nawroth.scales.note.NoteImpl;
-import se.nawroth.scales.util.GraphDb;
+import se.nawroth.scales.util.StoreMetrics;
 
 /**
  * Perform operations on {@link Tuning}s.
@@ -36,16 +34,16 @@ import se.nawroth.scales.util.GraphDb;
  */
 public final class TuningService
 {
-    private final GraphDb graphDb;
+    private final CatalogStore store;
 
     /**
      * Create the service.
      * 
-     * @param graphDb the database to use
+     * @param store the store to use
      */
-    public TuningService( final GraphDb graphDb )
+    public TuningService( final CatalogStore store )
     {
-        this.graphDb = graphDb;
+        this.store = store;
     }
 
     /**
@@ -60,23 +58,15 @@ public final class TuningService
     public Tuning newTuning( final TuningFamily family, final String name,
             final Note rootNote, final Interval... intervals )
     {
-        Node node = graphDb.createNode();
-        node.createRelationshipTo( ( (NoteImpl) rootNote ).getUnderlying(),
-                TuningTypes.TUNING_ROOT_NOTE );
-        Node intervalNode = graphDb.createNode();
-        node.createRelationshipTo( intervalNode,
-                TuningTypes.TUNING_INTERVAL_ROOT );
-        Node current = intervalNode;
-        for ( Interval interval : intervals )
+        StoreMetrics.Call call = store.enter( "TuningService.newTuning" );
+        try
+        {
+            return store.newTuning( family, name, rootNote, intervals );
+        }
+        finally
         {
-            Node next = graphDb.createNode();
-            current.createRelationshipTo( next,
-                    DiatonicInterval.getFromInterval( interval ) );
-            current = next;
+            call.exit();
         }
-        TuningImpl tuning = new TuningImpl( node );
-        family.addTuning( tuning, name );
-        return tuning;
     }
 
     /**
@@ -92,13 +82,14 @@ public final class TuningService
     public Tuning newTuning( final TuningFamily family, final String name,
             final Note rootNote, final Tuning tuning )
     {
-        Node node = graphDb.createNode();
-        node.createRelationshipTo( ( (NoteImpl) rootNote ).getUnderlying(),
-                TuningTypes.TUNING_ROOT_NOTE );
-        node.createRelationshipTo( ( (TuningImpl) tuning ).intervalRoot(),
-                TuningTypes.TUNING_INTERVAL_ROOT );
-        Tuning newTuning = new TuningImpl( node );
-        family.addTuning( newTuning, name );
-        return newTuning;
+        StoreMetrics.Call call = store.enter( "TuningService.newTuning" );
+        try
+        {
+            return store.newTuning( family, name, rootNote, tuning );
+        }
+        finally
+        {
+            call.exit();
+        }
     }
 }
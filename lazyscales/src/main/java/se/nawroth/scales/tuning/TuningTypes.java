@@ -29,7 +29,7 @@ import se.nawroth.scales.api.TuningFamily;
  * 
  * @author Anders Nawroth
  */
-enum TuningTypes implements RelationshipType
+public enum TuningTypes implements RelationshipType
 {
     /**
      * Points from a tuning family to a tuning.
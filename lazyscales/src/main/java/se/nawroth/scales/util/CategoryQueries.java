@@ -0,0 +1,79 @@
+/**
+ * Copyright (c) 2002-2013 "Neo Technology,"
+ * Network Engine for Objects in Lund AB [http://neotechnology.com]
+ *
+ * This file is part of Neo4j.
+ *
+ * Neo4j is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package se.nawroth.scales.util;
+
+import org.neo4j.graphdb.Node;
+
+/**
+ * The read queries of a {@link CategoryUtil}, all starting from a single node
+ * and returning the nodes found.
+ * 
+ * @author Anders Nawroth
+ */
+interface CategoryQueries
+{
+    /**
+     * Get the direct sub-categories of a category.
+     * 
+     * @param category the category node
+     * @return the sub-category nodes
+     */
+    Iterable<Node> subCategories( Node category );
+
+    /**
+     * Get all sub-categories of a category, at any depth.
+     * 
+     * @param category the category node
+     * @return the sub-category nodes
+     */
+    Iterable<Node> allSubCategories( Node category );
+
+    /**
+     * Get the parent categories of a category.
+     * 
+     * @param category the category node
+     * @return the parent category nodes
+     */
+    Iterable<Node> parentCategories( Node category );
+
+    /**
+     * Get the categories that an item or category belongs to.
+     * 
+     * @param item the item node
+     * @return the category nodes
+     */
+    Iterable<Node> categoriesOfItem( Node item );
+
+    /**
+     * Get the items of a category.
+     * 
+     * @param category the category node
+     * @return the item nodes
+     */
+    Iterable<Node> directItems( Node category );
+
+    /**
+     * Get the items and sub-categories of a category.
+     * 
+     * @param category the category node
+     * @return the item and sub-category nodes
+     */
+    Iterable<Node> allItems( Node category );
+}
@@ -21,18 +21,15 @@ package se.nawroth.scales.util;
 
 import static org.neo4j.graphdb.Direction.INCOMING;
 
-import org.neo4j.cypher.javacompat.ExecutionEngine;
-import org.neo4j.cypher.javacompat.ExecutionResult;
-import org.neo4j.graphdb.GraphDatabaseService;
 import org.neo4j.graphdb.Node;
 import org.neo4j.graphdb.Relationship;
 import org.neo4j.graphdb.RelationshipType;
 import org.neo4j.helpers.collection.IterableWrapper;
-import org.neo4j.helpers.collection.IteratorUtil;
-import org.neo4j.helpers.collection.MapUtil;
 
 /**
  * Helper class to simplify navigating category/item (parent/child) structures.
+ * The read operations are run by a {@link QueryEngine}, which can be chosen
+ * for each instance, and their results are cached outside of transactions.
  * 
  * @author Anders Nawroth
  * 
@@ -41,48 +38,97 @@ import org.neo4j.helpers.collection.MapUtil;
  */
 public abstract class CategoryUtil<C extends Entity, I extends Entity>
 {
+    /**
+     * The ways to run the read queries of a {@link CategoryUtil}.
+     */
+    public enum QueryEngine
+    {
+        /**
+         * Run the queries through Cypher.
+         */
+        CYPHER
+        {
+            @Override
+            CategoryQueries create( final RelationshipType category,
+                    final RelationshipType item )
+            {
+                return new CypherCategoryQueries( category, item );
+            }
+        },
+        /**
+         * Run the queries by expanding relationships using the core API.
+         */
+        TRAVERSAL
+        {
+            @Override
+            CategoryQueries create( final RelationshipType category,
+                    final RelationshipType item )
+            {
+                return new TraversalCategoryQueries( category, item );
+            }
+        };
+
+        abstract CategoryQueries create( RelationshipType category,
+                RelationshipType item );
+    }
+
     private final RelationshipType categoryType;
     private final RelationshipType itemType;
-    private final String subCategoriesInCategory;
-    private final String allCategoriesForItem;
-    private final String parentCategoriesOfCategory;
-    private final String directItemsFromCategory;
-    private final String allItemsFromCategory;
-    private final String allCategoriesInCategory;
-    private static ExecutionEngine executionEngine;
+    private volatile QueryEngine queryEngine;
+    private volatile CategoryQueries queries;
 
     /**
-     * Create instance from {@link RelationshipType}s.
+     * Create instance from {@link RelationshipType}s, using the
+     * {@link QueryEngine#TRAVERSAL traversal} query engine.
      * 
      * @param category relationship type between categories
      * @param item relationship type from a category to its items
      */
     protected CategoryUtil( final RelationshipType category,
             final RelationshipType item )
+    {
+        this( category, item, QueryEngine.TRAVERSAL );
+    }
+
+    /**
+     * Create instance from {@link RelationshipType}s.
+     * 
+     * @param category relationship type between categories
+     * @param item relationship type from a category to its items
+     * @param engine the query engine to use
+     */
+    protected CategoryUtil( final RelationshipType category,
+            final RelationshipType item, final QueryEngine engine )
     {
         this.categoryType = category;
         this.itemType = item;
+        setQueryEngine( engine );
+    }
 
-        // set up queries
-        subCategoriesInCategory = "start category=node({startingNode}) match category-[:"
-                                  + categoryType
-                                  + "]->categories return categories";
-        allCategoriesInCategory = "start category=node({startingNode}) match category-[:"
-                                  + categoryType
-                                  + "*1..]->categories return categories";
-        parentCategoriesOfCategory = "start category=node({startingNode}) match category<-[:"
-                                     + categoryType
-                                     + "]-categories return categories";
-        allCategoriesForItem = "start item=node({startingNode}) match item<-[:"
-                               + categoryType + "|" + itemType
-                               + "]-categories return categories";
-        directItemsFromCategory = "start category=node({startingNode}) match category-[:"
-                                  + itemType + "]->items return items";
-        allItemsFromCategory = "start category=node({startingNode}) match category-[:"
-                               + categoryType
-                               + "|"
-                               + itemType
-                               + "]->items return items";
+    /**
+     * Get the query engine used for read operations.
+     * 
+     * @return the query engine
+     */
+    public final QueryEngine getQueryEngine()
+    {
+        return queryEngine;
+    }
+
+    /**
+     * Set the query engine to use for read operations.
+     * 
+     * @param engine the query engine
+     */
+    public final synchronized void setQueryEngine( final QueryEngine engine )
+    {
+        if ( engine == null )
+        {
+            throw new IllegalArgumentException(
+                    "The query engine can not be null." );
+        }
+        queries = engine.create( categoryType, itemType );
+        queryEngine = engine;
     }
 
     /**
@@ -119,8 +165,7 @@ public abstract class CategoryUtil<C extends Entity, I extends Entity>
      */
     public final Iterable<C> getSubCategories( final C category )
     {
-        return getCategoriesFromQuery( subCategoriesInCategory,
-                category.getUnderlyingNode() );
+        return toCategories( read( NavigationCache.Query.SUB_CATEGORIES, category ) );
     }
 
     /**
@@ -131,8 +176,7 @@ public abstract class CategoryUtil<C extends Entity, I extends Entity>
      */
     public final Iterable<C> getParentCategories( final C category )
     {
-        return getCategoriesFromQuery( parentCategoriesOfCategory,
-                category.getUnderlyingNode() );
+        return toCategories( read( NavigationCache.Query.PARENT_CATEGORIES, category ) );
     }
 
     /**
@@ -144,28 +188,33 @@ public abstract class CategoryUtil<C extends Entity, I extends Entity>
      */
     public final Iterable<C> getCategories( final I item )
     {
-        return getCategoriesFromQuery( allCategoriesForItem,
-                item.getUnderlyingNode() );
+        return toCategories( read( NavigationCache.Query.CATEGORIES_OF_ITEM, item ) );
     }
 
-    private ExecutionResult executeQuery( final String query,
-            final Node startingPoint )
+    /**
+     * Run a read query. Outside of transactions, the results are cached by the
+     * {@link NavigationCache} of the database.
+     * 
+     * @param query the query to run
+     * @param entity the entity to start from
+     * @return the resulting nodes
+     */
+    private Iterable<Node> read( final NavigationCache.Query query,
+            final Entity entity )
     {
-        if ( executionEngine == null )
+        Node node = entity.getUnderlyingNode();
+        GraphDb graphDb = GraphDb.forDatabase( node.getGraphDatabase() );
+        if ( graphDb == null || graphDb.isInTransaction() )
         {
-            GraphDatabaseService database = startingPoint.getGraphDatabase();
-            executionEngine = new ExecutionEngine( database );
+            return query.run( queries, node );
         }
-        return executionEngine.execute( query,
-                MapUtil.map( "startingNode", startingPoint ) );
+        return graphDb.getNavigationCache()
+                .get( query, node, categoryType, itemType, queries );
     }
 
-    private Iterable<C> getCategoriesFromQuery( final String query,
-            final Node startingPoint )
+    private Iterable<C> toCategories( final Iterable<Node> nodes )
     {
-        ExecutionResult result = executeQuery( query, startingPoint );
-        return new IterableWrapper<C, Node>(
-                IteratorUtil.<Node>loop( result.<Node>columnAs( "categories" ) ) )
+        return new IterableWrapper<C, Node>( nodes )
         {
             @Override
             protected C underlyingObjectToObject( final Node node )
@@ -175,12 +224,9 @@ public abstract class CategoryUtil<C extends Entity, I extends Entity>
         };
     }
 
-    private Iterable<I> getItemsFromQuery( final String query,
-            final Node startingPoint )
+    private Iterable<I> toItems( final Iterable<Node> nodes )
     {
-        ExecutionResult result = executeQuery( query, startingPoint );
-        return new IterableWrapper<I, Node>(
-                IteratorUtil.<Node>loop( result.<Node>columnAs( "items" ) ) )
+        return new IterableWrapper<I, Node>( nodes )
         {
             @Override
             protected I underlyingObjectToObject( final Node node )
@@ -199,8 +245,7 @@ public abstract class CategoryUtil<C extends Entity, I extends Entity>
      */
     public final Iterable<I> getDirectItems( final C category )
     {
-        final Node node = category.getUnderlyingNode();
-        return getItemsFromQuery( directItemsFromCategory, node );
+        return toItems( read( NavigationCache.Query.DIRECT_ITEMS, category ) );
     }
 
     /**
@@ -211,8 +256,7 @@ public abstract class CategoryUtil<C extends Entity, I extends Entity>
      */
     public final Iterable<I> getAllItems( final C category )
     {
-        final Node node = category.getUnderlyingNode();
-        return getItemsFromQuery( allItemsFromCategory, node );
+        return toItems( read( NavigationCache.Query.ALL_ITEMS, category ) );
     }
 
     /**
@@ -223,8 +267,7 @@ public abstract class CategoryUtil<C extends Entity, I extends Entity>
      */
     public final Iterable<C> getAllSubCategories( final C category )
     {
-        return getCategoriesFromQuery( allCategoriesInCategory,
-                category.getUnderlyingNode() );
+        return toCategories( read( NavigationCache.Query.ALL_SUB_CATEGORIES, category ) );
     }
 
     /**
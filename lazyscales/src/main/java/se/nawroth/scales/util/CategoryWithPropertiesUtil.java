@@ -186,6 +186,27 @@ public abstract class CategoryWithPropertiesUtil<C extends Entity, I extends Ent
             final Entity entity, final String key )
     {
         Node node = entity.getUnderlyingNode();
+        GraphDb graphDb = GraphDb.forDatabase( node.getGraphDatabase() );
+        if ( graphDb == null || graphDb.isInTransaction() )
+        {
+            return readSingleProperty( node, type, key );
+        }
+        return graphDb.getNavigationCache()
+                .getSingleProperty( node, type, key );
+    }
+
+    /**
+     * Read a property value from the single incoming relationship of a type.
+     * 
+     * @param node the node to read the property for
+     * @param type the type of the incoming relationship
+     * @param key the key of the property
+     * @return the value or <code>null</code> if there is no such relationship
+     *         or property
+     */
+    static Object readSingleProperty( final Node node,
+            final RelationshipType type, final String key )
+    {
         Relationship rel;
         try
         {
@@ -0,0 +1,127 @@
+/**
+ * Copyright (c) 2002-2013 "Neo Technology,"
+ * Network Engine for Objects in Lund AB [http://neotechnology.com]
+ *
+ * This file is part of Neo4j.
+ *
+ * Neo4j is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package se.nawroth.scales.util;
+
+import java.util.Map;
+
+import org.neo4j.cypher.javacompat.ExecutionEngine;
+import org.neo4j.graphdb.GraphDatabaseService;
+import org.neo4j.graphdb.Node;
+import org.neo4j.graphdb.RelationshipType;
+import org.neo4j.helpers.collection.IteratorUtil;
+import org.neo4j.helpers.collection.MapUtil;
+
+/**
+ * {@link CategoryQueries} implemented by Cypher queries. The execution engine
+ * is owned by the {@link GraphDb} wrapping the database of the starting node.
+ * 
+ * @author Anders Nawroth
+ */
+final class CypherCategoryQueries implements CategoryQueries
+{
+    private static final String RESULT = "nodes";
+    private final String subCategoriesInCategory;
+    private final String allCategoriesForItem;
+    private final String parentCategoriesOfCategory;
+    private final String directItemsFromCategory;
+    private final String allItemsFromCategory;
+    private final String allCategoriesInCategory;
+
+    /**
+     * Create the queries from {@link RelationshipType}s.
+     * 
+     * @param categoryType relationship type between categories
+     * @param itemType relationship type from a category to its items
+     */
+    CypherCategoryQueries( final RelationshipType categoryType,
+            final RelationshipType itemType )
+    {
+        subCategoriesInCategory = "start category=node({startingNode}) match category-[:"
+                                  + categoryType.name()
+                                  + "]->nodes return nodes";
+        allCategoriesInCategory = "start category=node({startingNode}) match category-[:"
+                                  + categoryType.name()
+                                  + "*1..]->nodes return nodes";
+        parentCategoriesOfCategory = "start category=node({startingNode}) match category<-[:"
+                                     + categoryType.name()
+                                     + "]-nodes return nodes";
+        allCategoriesForItem = "start item=node({startingNode}) match item<-[:"
+                               + categoryType.name()
+                               + "|"
+                               + itemType.name() + "]-nodes return nodes";
+        directItemsFromCategory = "start category=node({startingNode}) match category-[:"
+                                  + itemType.name() + "]->nodes return nodes";
+        allItemsFromCategory = "start category=node({startingNode}) match category-[:"
+                               + categoryType.name()
+                               + "|"
+                               + itemType.name() + "]->nodes return nodes";
+    }
+
+    @Override
+    public Iterable<Node> subCategories( final Node category )
+    {
+        return execute( subCategoriesInCategory, category );
+    }
+
+    @Override
+    public Iterable<Node> allSubCategories( final Node category )
+    {
+        return execute( allCategoriesInCategory, category );
+    }
+
+    @Override
+    public Iterable<Node> parentCategories( final Node category )
+    {
+        return execute( parentCategoriesOfCategory, category );
+    }
+
+    @Override
+    public Iterable<Node> categoriesOfItem( final Node item )
+    {
+        return execute( allCategoriesForItem, item );
+    }
+
+    @Override
+    public Iterable<Node> directItems( final Node category )
+    {
+        return execute( directItemsFromCategory, category );
+    }
+
+    @Override
+    public Iterable<Node> allItems( final Node category )
+    {
+        return execute( allItemsFromCategory, category );
+    }
+
+    private static Iterable<Node> execute( final String query,
+            final Node startingPoint )
+    {
+        Map<String, Object> params = MapUtil.map( "startingNode", startingPoint );
+        GraphDatabaseService database = startingPoint.getGraphDatabase();
+        GraphDb graphDb = GraphDb.forDatabase( database );
+        if ( graphDb == null )
+        {
+            return IteratorUtil.<Node>loop( new ExecutionEngine( database ).execute(
+                    query, params )
+                    .<Node>columnAs( RESULT ) );
+        }
+        return IteratorUtil.loop( graphDb.<Node>execute( query, params, RESULT ) );
+    }
+}
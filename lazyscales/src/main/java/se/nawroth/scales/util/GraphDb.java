@@ -19,22 +19,49 @@
  */
 package se.nawroth.scales.util;
 
+import java.util.Iterator;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.function.Supplier;
+
+import javax.transaction.SystemException;
+
+import org.neo4j.cypher.javacompat.ExecutionEngine;
 import org.neo4j.graphdb.Direction;
 import org.neo4j.graphdb.GraphDatabaseService;
 import org.neo4j.graphdb.Node;
 import org.neo4j.graphdb.RelationshipType;
 import org.neo4j.graphdb.Transaction;
+import org.neo4j.graphdb.index.Index;
+import org.neo4j.kernel.GraphDatabaseAPI;
+
+import se.nawroth.scales.api.Note;
 
 /**
  * A simplified wrapper around the Neo4j graph database. It always adds a
  * shutdown hook for the database, in case the program is aborted. It also adds
  * a different handling of reference nodes on top of the Neo4j engine.
+ * <p>
+ * Every wrapped database is registered until it is shut down, so that
+ * resources belonging to a database, like the Cypher execution engine, can be
+ * found from its nodes. Each database also gets a {@link NavigationCache} for
+ * category navigation, and one table of the twelve notes.
+ * <p>
+ * When created with {@link StoreMetrics}, the database is instrumented and
+ * the store access is counted.
  * 
  * @author Anders Nawroth
  */
 public final class GraphDb
 {
+    private static final ConcurrentMap<GraphDatabaseService, GraphDb> DATABASES = new ConcurrentHashMap<GraphDatabaseService, GraphDb>();
     private final GraphDatabaseService underlying;
+    private final GraphDatabaseService database;
+    private final StoreMetrics metrics;
+    private final NavigationCache navigationCache = new NavigationCache();
+    private volatile ExecutionEngine executionEngine = null;
+    private volatile Note[] notes = null;
 
     /**
      * Wrap a simplified graph database around a real
@@ -44,8 +71,170 @@ public final class GraphDb
      */
     public GraphDb( final GraphDatabaseService graphDb )
     {
-        this.underlying = graphDb;
+        this( graphDb, null );
+    }
+
+    /**
+     * Wrap a simplified graph database around a real
+     * {@link GraphDatabaseService}, collecting metrics of its use.
+     * 
+     * @param graphDb the database implementation
+     * @param metrics where to collect the metrics, or <code>null</code> to
+     *            not instrument the database
+     */
+    public GraphDb( final GraphDatabaseService graphDb,
+            final StoreMetrics metrics )
+    {
+        this.database = graphDb;
+        this.metrics = metrics;
+        this.underlying = metrics == null ? graphDb
+                : InstrumentedStore.instrument( graphDb, metrics );
         registerShutdownHook( graphDb );
+        graphDb.registerTransactionEventHandler( navigationCache );
+        DATABASES.put( graphDb, this );
+        DATABASES.put( underlying, this );
+        if ( metrics != null )
+        {
+            metrics.register( graphDb instanceof GraphDatabaseAPI ? ( (GraphDatabaseAPI) graphDb ).getStoreDir()
+                    : graphDb.toString() );
+        }
+    }
+
+    /**
+     * Get the wrapper of a database.
+     * 
+     * @param graphDb the database implementation
+     * @return the wrapper, or <code>null</code> if the database isn't wrapped
+     *         or has been shut down
+     */
+    public static GraphDb forDatabase( final GraphDatabaseService graphDb )
+    {
+        return DATABASES.get( graphDb );
+    }
+
+    /**
+     * Get the Cypher execution engine of this database. The engine is created
+     * on first use and dropped when the database is shut down. Once created,
+     * the engine is handed out without locking.
+     * 
+     * @return the execution engine
+     */
+    ExecutionEngine getExecutionEngine()
+    {
+        ExecutionEngine engine = executionEngine;
+        if ( engine == null )
+        {
+            synchronized ( this )
+            {
+                engine = executionEngine;
+                if ( engine == null )
+                {
+                    engine = new ExecutionEngine( database );
+                    executionEngine = engine;
+                }
+            }
+        }
+        return engine;
+    }
+
+    /**
+     * Get the notes of this database, indexed by pitch class. The notes are
+     * read on first use and then shared by everything reading the database,
+     * without locking. Notes are never removed, so the table stays valid.
+     * 
+     * @param reader reads the notes
+     * @return the notes indexed by pitch class
+     */
+    public Note[] getNotes( final Supplier<? extends Note[]> reader )
+    {
+        Note[] table = notes;
+        if ( table == null )
+        {
+            synchronized ( this )
+            {
+                table = notes;
+                if ( table == null )
+                {
+                    table = reader.get();
+                    notes = table;
+                }
+            }
+        }
+        return table;
+    }
+
+    /**
+     * Execute a Cypher query.
+     * 
+     * @param query the query
+     * @param params the parameters of the query
+     * @param column the column to return
+     * @return the values of the column
+     */
+    <T> Iterator<T> execute( final String query,
+            final Map<String, Object> params, final String column )
+    {
+        if ( metrics == null )
+        {
+            return getExecutionEngine().execute( query, params )
+                    .columnAs( column );
+        }
+        metrics.count( StoreMetrics.Counter.CYPHER_EXECUTIONS );
+        for ( Map.Entry<String, Object> param : params.entrySet() )
+        {
+            param.setValue( InstrumentedStore.unwrap( param.getValue() ) );
+        }
+        Iterator<T> result = getExecutionEngine().execute( query, params )
+                .columnAs( column );
+        return InstrumentedStore.instrument( result, underlying );
+    }
+
+    /**
+     * Start an operation, for the metrics of the database.
+     * 
+     * @param operation the name of the operation, like
+     *            <code>FretboardService.getStrings</code>
+     * @return the call to exit when the operation is done
+     * @see StoreMetrics#enter(String)
+     */
+    public StoreMetrics.Call enter( final String operation )
+    {
+        return metrics == null ? StoreMetrics.NO_CALL
+                : metrics.enter( operation );
+    }
+
+    /**
+     * Get the cache used for category navigation.
+     * 
+     * @return the navigation cache
+     */
+    public NavigationCache getNavigationCache()
+    {
+        return navigationCache;
+    }
+
+    /**
+     * Check if the current thread has an active transaction. Reads inside a
+     * transaction can see uncommitted changes, so they must not be cached.
+     * 
+     * @return <code>true</code> if there is a transaction, or if it can't be
+     *         decided
+     */
+    boolean isInTransaction()
+    {
+        if ( !( database instanceof GraphDatabaseAPI ) )
+        {
+            return true;
+        }
+        try
+        {
+            return ( (GraphDatabaseAPI) database ).getTxManager()
+                    .getTransaction() != null;
+        }
+        catch ( SystemException e )
+        {
+            return true;
+        }
     }
 
     /**
@@ -99,12 +288,36 @@ public final class GraphDb
         return node;
     }
 
+    /**
+     * Get a node index. If the index does not exist, it will be created.
+     * 
+     * @param name the name of the index
+     * @return the node index
+     */
+    public Index<Node> getNodeIndex( final String name )
+    {
+        return underlying.index().forNodes( name );
+    }
+
     /**
      * Shut down the database.
      */
     public void shutdown()
     {
-        underlying.shutdown();
+        DATABASES.remove( underlying, this );
+        DATABASES.remove( database, this );
+        if ( metrics != null )
+        {
+            metrics.unregister();
+        }
+        database.unregisterTransactionEventHandler( navigationCache );
+        navigationCache.clear();
+        synchronized ( this )
+        {
+            executionEngine = null;
+            notes = null;
+        }
+        database.shutdown();
     }
 
     /**
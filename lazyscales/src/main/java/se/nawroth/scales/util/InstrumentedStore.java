@@ -0,0 +1,232 @@
+/**
+ * Copyright (c) 2002-2013 "Neo Technology,"
+ * Network Engine for Objects in Lund AB [http://neotechnology.com]
+ *
+ * This file is part of Neo4j.
+ *
+ * Neo4j is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package se.nawroth.scales.util;
+
+import java.lang.reflect.InvocationHandler;
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Method;
+import java.lang.reflect.Modifier;
+import java.lang.reflect.Proxy;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashSet;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+
+import org.neo4j.graphdb.GraphDatabaseService;
+import org.neo4j.graphdb.Node;
+import org.neo4j.graphdb.PropertyContainer;
+import org.neo4j.graphdb.Relationship;
+import org.neo4j.graphdb.index.Index;
+import org.neo4j.graphdb.index.IndexManager;
+
+/**
+ * Dynamic proxy around a database and everything read from it, counting the
+ * store access in {@link StoreMetrics}. Nodes, relationships, indexes and
+ * iterables returned by a proxy are proxies themselves, and proxies passed as
+ * arguments are unwrapped before they reach the database.
+ * 
+ * @author Anders Nawroth
+ */
+final class InstrumentedStore implements InvocationHandler
+{
+    private static final Set<String> PROPERTY_READS = new HashSet<String>(
+            Arrays.asList( "getProperty", "hasProperty", "getPropertyKeys",
+                    "getPropertyValues" ) );
+    private static final String CREATE_PREFIX = "create";
+    private static final ConcurrentMap<Class<?>, Class<?>[]> INTERFACES = new ConcurrentHashMap<Class<?>, Class<?>[]>();
+    private final Object target;
+    private final StoreMetrics metrics;
+    private GraphDatabaseService database;
+
+    private InstrumentedStore( final Object target, final StoreMetrics metrics,
+            final GraphDatabaseService database )
+    {
+        this.target = target;
+        this.metrics = metrics;
+        this.database = database;
+    }
+
+    /**
+     * Instrument a database.
+     * 
+     * @param database the database to instrument
+     * @param metrics where to count the store access
+     * @return the instrumented database
+     */
+    static GraphDatabaseService instrument(
+            final GraphDatabaseService database, final StoreMetrics metrics )
+    {
+        InstrumentedStore handler = new InstrumentedStore( database, metrics,
+                null );
+        handler.database = (GraphDatabaseService) proxy( database, handler );
+        return handler.database;
+    }
+
+    /**
+     * Instrument results that were read from a database without going through
+     * its proxy, like the results of Cypher queries.
+     * 
+     * @param result the result to instrument
+     * @param database the instrumented database
+     * @return the instrumented result
+     */
+    @SuppressWarnings( "unchecked" )
+    static <T> T instrument( final T result,
+            final GraphDatabaseService database )
+    {
+        return (T) handler( database ).wrap( result, true );
+    }
+
+    /**
+     * Get the object behind a proxy.
+     * 
+     * @param object a proxy, or any other object
+     * @return the proxied object, or the object itself if it isn't a proxy
+     */
+    static Object unwrap( final Object object )
+    {
+        InstrumentedStore handler = handler( object );
+        return handler == null ? object : handler.target;
+    }
+
+    @Override
+    public Object invoke( final Object proxy, final Method method,
+            final Object[] args ) throws Throwable
+    {
+        String name = method.getName();
+        if ( target instanceof PropertyContainer
+             && PROPERTY_READS.contains( name ) )
+        {
+            metrics.count( StoreMetrics.Counter.PROPERTY_READS );
+        }
+        else if ( name.equals( "hasRelationship" ) )
+        {
+            metrics.count( StoreMetrics.Counter.RELATIONSHIP_READS );
+        }
+        else if ( name.equals( "beginTx" ) )
+        {
+            metrics.count( StoreMetrics.Counter.TRANSACTIONS );
+        }
+        if ( args != null )
+        {
+            for ( int i = 0; i < args.length; i++ )
+            {
+                args[i] = unwrap( args[i] );
+            }
+        }
+        Object result;
+        try
+        {
+            result = method.invoke( target, args );
+        }
+        catch ( InvocationTargetException e )
+        {
+            throw e.getCause();
+        }
+        return wrap( result, !name.startsWith( CREATE_PREFIX ) );
+    }
+
+    private Object wrap( final Object result, final boolean read )
+    {
+        if ( result == null || handler( result ) != null )
+        {
+            return result;
+        }
+        if ( result instanceof GraphDatabaseService )
+        {
+            return database;
+        }
+        if ( result instanceof Node )
+        {
+            if ( read )
+            {
+                metrics.count( StoreMetrics.Counter.NODE_READS );
+            }
+        }
+        else if ( result instanceof Relationship )
+        {
+            if ( read )
+            {
+                metrics.count( StoreMetrics.Counter.RELATIONSHIP_READS );
+            }
+        }
+        else if ( !( result instanceof Iterable || result instanceof Iterator
+                     || result instanceof IndexManager || result instanceof Index ) )
+        {
+            return result;
+        }
+        return proxy( result, new InstrumentedStore( result, metrics, database ) );
+    }
+
+    private static InstrumentedStore handler( final Object object )
+    {
+        if ( object == null || !Proxy.isProxyClass( object.getClass() ) )
+        {
+            return null;
+        }
+        InvocationHandler handler = Proxy.getInvocationHandler( object );
+        return handler instanceof InstrumentedStore ? (InstrumentedStore) handler
+                : null;
+    }
+
+    private static Object proxy( final Object target,
+            final InstrumentedStore handler )
+    {
+        Class<?> type = target.getClass();
+        ClassLoader loader = type.getClassLoader();
+        return Proxy.newProxyInstance(
+                loader == null ? InstrumentedStore.class.getClassLoader()
+                        : loader, interfaces( type ), handler );
+    }
+
+    private static Class<?>[] interfaces( final Class<?> type )
+    {
+        Class<?>[] interfaces = INTERFACES.get( type );
+        if ( interfaces == null )
+        {
+            Set<Class<?>> found = new HashSet<Class<?>>();
+            List<Class<?>> publicInterfaces = new ArrayList<Class<?>>();
+            List<Class<?>> candidates = new ArrayList<Class<?>>();
+            for ( Class<?> c = type; c != null; c = c.getSuperclass() )
+            {
+                candidates.addAll( Arrays.asList( c.getInterfaces() ) );
+            }
+            while ( !candidates.isEmpty() )
+            {
+                Class<?> candidate = candidates.remove( candidates.size() - 1 );
+                if ( found.add( candidate ) )
+                {
+                    if ( Modifier.isPublic( candidate.getModifiers() ) )
+                    {
+                        publicInterfaces.add( candidate );
+                    }
+                    candidates.addAll( Arrays.asList( candidate.getInterfaces() ) );
+                }
+            }
+            interfaces = publicInterfaces.toArray( new Class<?>[publicInterfaces.size()] );
+            INTERFACES.putIfAbsent( type, interfaces );
+        }
+        return interfaces;
+    }
+}
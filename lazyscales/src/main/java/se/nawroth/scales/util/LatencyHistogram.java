@@ -0,0 +1,103 @@
+/**
+ * Copyright (c) 2002-2013 "Neo Technology,"
+ * Network Engine for Objects in Lund AB [http://neotechnology.com]
+ *
+ * This file is part of Neo4j.
+ *
+ * Neo4j is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package se.nawroth.scales.util;
+
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+
+/**
+ * Histogram of latencies, in nanoseconds, with buckets for every power of two.
+ * Percentiles are reported as the upper bound of their bucket, so they are off
+ * by at most a factor of two.
+ * 
+ * @author Anders Nawroth
+ */
+final class LatencyHistogram
+{
+    private static final int BUCKETS = Long.SIZE + 1;
+    private final AtomicLongArray buckets = new AtomicLongArray( BUCKETS );
+    private final AtomicLong count = new AtomicLong();
+    private final AtomicLong total = new AtomicLong();
+    private final AtomicLong max = new AtomicLong();
+
+    void record( final long nanos )
+    {
+        long value = Math.max( 0, nanos );
+        buckets.incrementAndGet( Long.SIZE - Long.numberOfLeadingZeros( value ) );
+        count.incrementAndGet();
+        total.addAndGet( value );
+        long current = max.get();
+        while ( value > current && !max.compareAndSet( current, value ) )
+        {
+            current = max.get();
+        }
+    }
+
+    long getCount()
+    {
+        return count.get();
+    }
+
+    long getMean()
+    {
+        long calls = count.get();
+        return calls == 0 ? 0 : total.get() / calls;
+    }
+
+    long getMax()
+    {
+        return max.get();
+    }
+
+    /**
+     * Get the latency below which a fraction of the calls fall.
+     * 
+     * @param fraction the fraction of calls, between 0 and 1
+     * @return the latency in nanoseconds
+     */
+    long getPercentile( final double fraction )
+    {
+        long target = (long) Math.ceil( fraction * count.get() );
+        long seen = 0;
+        for ( int bucket = 0; bucket < BUCKETS; bucket++ )
+        {
+            seen += buckets.get( bucket );
+            if ( seen > 0 && seen >= target )
+            {
+                long upperBound = bucket == 0 ? 0
+                        : bucket >= Long.SIZE - 1 ? Long.MAX_VALUE
+                                : ( 1L << bucket ) - 1;
+                return Math.min( upperBound, max.get() );
+            }
+        }
+        return 0;
+    }
+
+    void reset()
+    {
+        for ( int bucket = 0; bucket < BUCKETS; bucket++ )
+        {
+            buckets.set( bucket, 0 );
+        }
+        count.set( 0 );
+        total.set( 0 );
+        max.set( 0 );
+    }
+}
@@ -0,0 +1,100 @@
+/**
+ * Copyright (c) 2002-2013 "Neo Technology,"
+ * Network Engine for Objects in Lund AB [http://neotechnology.com]
+ *
+ * This file is part of Neo4j.
+ *
+ * Neo4j is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package se.nawroth.scales.util;
+
+import java.util.Collections;
+import java.util.Map;
+
+/**
+ * The metrics of a store at some point in time.
+ * 
+ * @author Anders Nawroth
+ */
+public final class MetricsSnapshot
+{
+    private final Map<String, OperationMetrics> operations;
+    private final OperationMetrics unattributed;
+    private final OperationMetrics total;
+
+    MetricsSnapshot( final Map<String, OperationMetrics> operations,
+            final OperationMetrics unattributed, final OperationMetrics total )
+    {
+        this.operations = Collections.unmodifiableMap( operations );
+        this.unattributed = unattributed;
+        this.total = total;
+    }
+
+    /**
+     * Get the metrics of every operation that has been called.
+     * 
+     * @return the metrics by operation name, sorted by name
+     */
+    public Map<String, OperationMetrics> getOperations()
+    {
+        return operations;
+    }
+
+    /**
+     * Get the metrics of an operation.
+     * 
+     * @param operation the name of the operation, like
+     *            <code>FretboardService.getStrings</code>
+     * @return the metrics, or <code>null</code> if it hasn't been called
+     */
+    public OperationMetrics getOperation( final String operation )
+    {
+        return operations.get( operation );
+    }
+
+    /**
+     * Get the store access that happened outside of any operation.
+     * 
+     * @return the unattributed store access
+     */
+    public OperationMetrics getUnattributed()
+    {
+        return unattributed;
+    }
+
+    /**
+     * Get the sum of all operations and the unattributed store access.
+     * 
+     * @return the total
+     */
+    public OperationMetrics getTotal()
+    {
+        return total;
+    }
+
+    @Override
+    public String toString()
+    {
+        StringBuilder s = new StringBuilder();
+        for ( OperationMetrics operation : operations.values() )
+        {
+            s.append( operation )
+                    .append( '\n' );
+        }
+        s.append( unattributed )
+                .append( '\n' )
+                .append( total );
+        return s.toString();
+    }
+}
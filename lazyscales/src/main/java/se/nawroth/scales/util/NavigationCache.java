@@ -0,0 +1,554 @@
+/**
+ * Copyright (c) 2002-2013 "Neo Technology,"
+ * Network Engine for Objects in Lund AB [http://neotechnology.com]
+ *
+ * This file is part of Neo4j.
+ *
+ * Neo4j is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package se.nawroth.scales.util;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicLong;
+
+import org.neo4j.graphdb.Node;
+import org.neo4j.graphdb.NotFoundException;
+import org.neo4j.graphdb.Relationship;
+import org.neo4j.graphdb.RelationshipType;
+import org.neo4j.graphdb.event.PropertyEntry;
+import org.neo4j.graphdb.event.TransactionData;
+import org.neo4j.graphdb.event.TransactionEventHandler;
+
+/**
+ * Caches the results of {@link CategoryUtil} read queries for a database. The
+ * results are keyed by the starting node, the kind of query and the
+ * relationship types of the {@link CategoryUtil}. Property values read from
+ * the single incoming relationship of a node, like the names of items, are
+ * cached as well. The least recently used entries are evicted when the cache
+ * is full.
+ * <p>
+ * The cache is registered as a {@link TransactionEventHandler} by
+ * {@link GraphDb}. When a transaction creates or deletes relationships, or
+ * changes their properties, the entries that depend on them are evicted after
+ * the commit. Results of transitive queries are evicted whenever a
+ * relationship of their category type changes.
+ * 
+ * @author Anders Nawroth
+ */
+public final class NavigationCache implements
+        TransactionEventHandler<List<NavigationCache.Change>>
+{
+    /**
+     * The read queries that can be cached.
+     */
+    enum Query
+    {
+        SUB_CATEGORIES( false )
+        {
+            @Override
+            Iterable<Node> run( final CategoryQueries queries, final Node node )
+            {
+                return queries.subCategories( node );
+            }
+        },
+        ALL_SUB_CATEGORIES( true )
+        {
+            @Override
+            Iterable<Node> run( final CategoryQueries queries, final Node node )
+            {
+                return queries.allSubCategories( node );
+            }
+        },
+        PARENT_CATEGORIES( false )
+        {
+            @Override
+            Iterable<Node> run( final CategoryQueries queries, final Node node )
+            {
+                return queries.parentCategories( node );
+            }
+        },
+        CATEGORIES_OF_ITEM( false )
+        {
+            @Override
+            Iterable<Node> run( final CategoryQueries queries, final Node node )
+            {
+                return queries.categoriesOfItem( node );
+            }
+        },
+        DIRECT_ITEMS( false )
+        {
+            @Override
+            Iterable<Node> run( final CategoryQueries queries, final Node node )
+            {
+                return queries.directItems( node );
+            }
+        },
+        ALL_ITEMS( false )
+        {
+            @Override
+            Iterable<Node> run( final CategoryQueries queries, final Node node )
+            {
+                return queries.allItems( node );
+            }
+        };
+
+        private final boolean transitive;
+
+        private Query( final boolean transitive )
+        {
+            this.transitive = transitive;
+        }
+
+        abstract Iterable<Node> run( CategoryQueries queries, Node node );
+    }
+
+    /**
+     * The default maximum number of cached results.
+     */
+    public static final int DEFAULT_CAPACITY = 1024;
+
+    private static final Object NO_VALUE = new Object();
+    private final Map<Key, List<Node>> results;
+    private final Map<PropertyKey, Object> properties;
+    private final AtomicLong generation = new AtomicLong();
+    private final AtomicLong hits = new AtomicLong();
+    private final AtomicLong misses = new AtomicLong();
+    private final AtomicLong evictions = new AtomicLong();
+
+    /**
+     * Create a cache holding at most {@link #DEFAULT_CAPACITY} results.
+     */
+    NavigationCache()
+    {
+        this( DEFAULT_CAPACITY );
+    }
+
+    /**
+     * Create a cache.
+     * 
+     * @param capacity the maximum number of cached results
+     */
+    NavigationCache( final int capacity )
+    {
+        if ( capacity < 1 )
+        {
+            throw new IllegalArgumentException(
+                    "The capacity has to be at least 1." );
+        }
+        results = new LinkedHashMap<Key, List<Node>>( 16, 0.75f, true )
+        {
+            private static final long serialVersionUID = 1L;
+
+            @Override
+            protected boolean removeEldestEntry(
+                    final Map.Entry<Key, List<Node>> eldest )
+            {
+                return size() > capacity;
+            }
+        };
+        properties = new LinkedHashMap<PropertyKey, Object>( 16, 0.75f, true )
+        {
+            private static final long serialVersionUID = 1L;
+
+            @Override
+            protected boolean removeEldestEntry(
+                    final Map.Entry<PropertyKey, Object> eldest )
+            {
+                return size() > capacity;
+            }
+        };
+    }
+
+    /**
+     * Get the result of a query, running the query if it isn't cached.
+     * 
+     * @param query the kind of query
+     * @param node the starting node
+     * @param categoryType relationship type between categories
+     * @param itemType relationship type from a category to its items
+     * @param queries the queries to run on a cache miss
+     * @return the resulting nodes
+     */
+    Iterable<Node> get( final Query query, final Node node,
+            final RelationshipType categoryType,
+            final RelationshipType itemType, final CategoryQueries queries )
+    {
+        Key key = new Key( node.getId(), query, categoryType.name(),
+                itemType.name() );
+        List<Node> result;
+        synchronized ( results )
+        {
+            result = results.get( key );
+        }
+        if ( result != null )
+        {
+            hits.incrementAndGet();
+            return result;
+        }
+        misses.incrementAndGet();
+        // a commit during the query could make the result stale
+        long start = generation.get();
+        List<Node> nodes = new ArrayList<Node>();
+        for ( Node resultNode : query.run( queries, node ) )
+        {
+            nodes.add( resultNode );
+        }
+        result = Collections.unmodifiableList( nodes );
+        synchronized ( results )
+        {
+            if ( generation.get() == start )
+            {
+                results.put( key, result );
+            }
+        }
+        return result;
+    }
+
+    /**
+     * Get a property value from the single incoming relationship of a type,
+     * reading it if it isn't cached.
+     * 
+     * @param node the node to read the property for
+     * @param type the type of the incoming relationship
+     * @param key the key of the property
+     * @return the value or <code>null</code> if there is no such relationship
+     *         or property
+     */
+    Object getSingleProperty( final Node node, final RelationshipType type,
+            final String key )
+    {
+        PropertyKey propertyKey = new PropertyKey( node.getId(), type.name(),
+                key );
+        Object value;
+        synchronized ( results )
+        {
+            value = properties.get( propertyKey );
+        }
+        if ( value != null )
+        {
+            hits.incrementAndGet();
+            return value == NO_VALUE ? null : value;
+        }
+        misses.incrementAndGet();
+        long start = generation.get();
+        value = CategoryWithPropertiesUtil.readSingleProperty( node, type, key );
+        synchronized ( results )
+        {
+            if ( generation.get() == start )
+            {
+                properties.put( propertyKey, value == null ? NO_VALUE : value );
+            }
+        }
+        return value;
+    }
+
+    /**
+     * Get the generation of the cache, which changes every time cached data
+     * may have become stale. Other caches of data read from the database can
+     * compare generations to know when to read again.
+     * 
+     * @return the current generation
+     */
+    public long getGeneration()
+    {
+        return generation.get();
+    }
+
+    /**
+     * Get the number of queries answered from the cache.
+     * 
+     * @return the number of hits
+     */
+    public long getHits()
+    {
+        return hits.get();
+    }
+
+    /**
+     * Get the number of queries that had to be run.
+     * 
+     * @return the number of misses
+     */
+    public long getMisses()
+    {
+        return misses.get();
+    }
+
+    /**
+     * Get the number of results evicted because the data they depend on
+     * changed.
+     * 
+     * @return the number of evictions
+     */
+    public long getEvictions()
+    {
+        return evictions.get();
+    }
+
+    /**
+     * Get the number of cached results and property values.
+     * 
+     * @return the number of cached entries
+     */
+    public int size()
+    {
+        synchronized ( results )
+        {
+            return results.size() + properties.size();
+        }
+    }
+
+    /**
+     * Remove all cached results.
+     */
+    public void clear()
+    {
+        synchronized ( results )
+        {
+            generation.incrementAndGet();
+            results.clear();
+            properties.clear();
+        }
+    }
+
+    @Override
+    public List<Change> beforeCommit( final TransactionData data )
+    {
+        List<Change> changes = new ArrayList<Change>();
+        addChanges( changes, data.createdRelationships() );
+        addChanges( changes, data.deletedRelationships() );
+        addPropertyChanges( changes, data.assignedRelationshipProperties() );
+        addPropertyChanges( changes, data.removedRelationshipProperties() );
+        return changes;
+    }
+
+    @Override
+    public void afterCommit( final TransactionData data,
+            final List<Change> changes )
+    {
+        if ( changes == null || changes.isEmpty() )
+        {
+            return;
+        }
+        synchronized ( results )
+        {
+            generation.incrementAndGet();
+            Iterator<Key> keys = results.keySet()
+                    .iterator();
+            while ( keys.hasNext() )
+            {
+                if ( isAffected( keys.next(), changes ) )
+                {
+                    keys.remove();
+                    evictions.incrementAndGet();
+                }
+            }
+            Iterator<PropertyKey> propertyKeys = properties.keySet()
+                    .iterator();
+            while ( propertyKeys.hasNext() )
+            {
+                if ( isAffected( propertyKeys.next(), changes ) )
+                {
+                    propertyKeys.remove();
+                    evictions.incrementAndGet();
+                }
+            }
+        }
+    }
+
+    @Override
+    public void afterRollback( final TransactionData data,
+            final List<Change> changes )
+    {
+        // nothing was changed
+    }
+
+    private static void addChanges( final List<Change> changes,
+            final Iterable<Relationship> relationships )
+    {
+        for ( Relationship rel : relationships )
+        {
+            try
+            {
+                changes.add( new Change( rel.getType().name(),
+                        rel.getStartNode().getId(), rel.getEndNode().getId() ) );
+            }
+            catch ( NotFoundException e )
+            {
+                // can't tell what changed, evict everything
+                changes.add( Change.UNKNOWN );
+            }
+        }
+    }
+
+    private static void addPropertyChanges( final List<Change> changes,
+            final Iterable<PropertyEntry<Relationship>> entries )
+    {
+        for ( PropertyEntry<Relationship> entry : entries )
+        {
+            Relationship rel = entry.entity();
+            try
+            {
+                changes.add( new Change( rel.getType().name(),
+                        rel.getStartNode().getId(), rel.getEndNode().getId() ) );
+            }
+            catch ( NotFoundException e )
+            {
+                changes.add( Change.UNKNOWN );
+            }
+        }
+    }
+
+    private static boolean isAffected( final PropertyKey key,
+            final List<Change> changes )
+    {
+        for ( Change change : changes )
+        {
+            if ( change == Change.UNKNOWN
+                 || ( change.type.equals( key.type ) && ( change.startNode == key.node || change.endNode == key.node ) ) )
+            {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    private static boolean isAffected( final Key key, final List<Change> changes )
+    {
+        for ( Change change : changes )
+        {
+            if ( change == Change.UNKNOWN )
+            {
+                return true;
+            }
+            if ( key.query.transitive )
+            {
+                if ( change.type.equals( key.categoryType ) )
+                {
+                    return true;
+                }
+            }
+            else if ( ( change.type.equals( key.categoryType ) || change.type.equals( key.itemType ) )
+                      && ( change.startNode == key.node || change.endNode == key.node ) )
+            {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    /**
+     * A created or deleted relationship.
+     */
+    static final class Change
+    {
+        private static final Change UNKNOWN = new Change( "", -1, -1 );
+        private final String type;
+        private final long startNode;
+        private final long endNode;
+
+        private Change( final String type, final long startNode,
+                final long endNode )
+        {
+            this.type = type;
+            this.startNode = startNode;
+            this.endNode = endNode;
+        }
+    }
+
+    /**
+     * Identifies a cached result.
+     */
+    private static final class Key
+    {
+        private final long node;
+        private final Query query;
+        private final String categoryType;
+        private final String itemType;
+
+        private Key( final long node, final Query query,
+                final String categoryType, final String itemType )
+        {
+            this.node = node;
+            this.query = query;
+            this.categoryType = categoryType;
+            this.itemType = itemType;
+        }
+
+        @Override
+        public int hashCode()
+        {
+            int result = (int) ( node ^ ( node >>> 32 ) );
+            result = 31 * result + query.hashCode();
+            result = 31 * result + categoryType.hashCode();
+            return 31 * result + itemType.hashCode();
+        }
+
+        @Override
+        public boolean equals( final Object obj )
+        {
+            if ( !( obj instanceof Key ) )
+            {
+                return false;
+            }
+            Key other = (Key) obj;
+            return node == other.node && query == other.query
+                   && categoryType.equals( other.categoryType )
+                   && itemType.equals( other.itemType );
+        }
+    }
+
+    /**
+     * Identifies a cached property value.
+     */
+    private static final class PropertyKey
+    {
+        private final long node;
+        private final String type;
+        private final String key;
+
+        private PropertyKey( final long node, final String type,
+                final String key )
+        {
+            this.node = node;
+            this.type = type;
+            this.key = key;
+        }
+
+        @Override
+        public int hashCode()
+        {
+            int result = (int) ( node ^ ( node >>> 32 ) );
+            result = 31 * result + type.hashCode();
+            return 31 * result + key.hashCode();
+        }
+
+        @Override
+        public boolean equals( final Object obj )
+        {
+            if ( !( obj instanceof PropertyKey ) )
+            {
+                return false;
+            }
+            PropertyKey other = (PropertyKey) obj;
+            return node == other.node && type.equals( other.type )
+                   && key.equals( other.key );
+        }
+    }
+}
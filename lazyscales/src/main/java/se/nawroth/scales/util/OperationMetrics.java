@@ -0,0 +1,223 @@
+/**
+ * Copyright (c) 2002-2013 "Neo Technology,"
+ * Network Engine for Objects in Lund AB [http://neotechnology.com]
+ *
+ * This file is part of Neo4j.
+ *
+ * Neo4j is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package se.nawroth.scales.util;
+
+import java.beans.ConstructorProperties;
+
+/**
+ * The metrics of one operation at some point in time. Latencies are given in
+ * microseconds.
+ * 
+ * @author Anders Nawroth
+ */
+public final class OperationMetrics
+{
+    private static final double NANOS_PER_MICRO = 1000.0;
+    private final String operation;
+    private final long calls;
+    private final long nodeReads;
+    private final long relationshipReads;
+    private final long propertyReads;
+    private final long cypherExecutions;
+    private final long transactions;
+    private final double meanLatency;
+    private final double medianLatency;
+    private final double p99Latency;
+    private final double maxLatency;
+
+    /**
+     * Create the metrics of an operation.
+     * 
+     * @param operation the name of the operation
+     * @param calls the number of calls
+     * @param nodeReads the number of nodes read
+     * @param relationshipReads the number of relationships read
+     * @param propertyReads the number of property reads
+     * @param cypherExecutions the number of Cypher queries executed
+     * @param transactions the number of transactions started
+     * @param meanLatency the mean latency of a call
+     * @param medianLatency the median latency of a call
+     * @param p99Latency the 99th percentile latency of a call
+     * @param maxLatency the maximum latency of a call
+     */
+    @ConstructorProperties( { "operation", "calls", "nodeReads",
+            "relationshipReads", "propertyReads", "cypherExecutions",
+            "transactions", "meanLatency", "medianLatency", "p99Latency",
+            "maxLatency" } )
+    public OperationMetrics( final String operation, final long calls,
+            final long nodeReads, final long relationshipReads,
+            final long propertyReads, final long cypherExecutions,
+            final long transactions, final double meanLatency,
+            final double medianLatency, final double p99Latency,
+            final double maxLatency )
+    {
+        this.operation = operation;
+        this.calls = calls;
+        this.nodeReads = nodeReads;
+        this.relationshipReads = relationshipReads;
+        this.propertyReads = propertyReads;
+        this.cypherExecutions = cypherExecutions;
+        this.transactions = transactions;
+        this.meanLatency = meanLatency;
+        this.medianLatency = medianLatency;
+        this.p99Latency = p99Latency;
+        this.maxLatency = maxLatency;
+    }
+
+    static OperationMetrics create( final String operation, final long calls,
+            final long[] counts, final LatencyHistogram latency )
+    {
+        return new OperationMetrics( operation, calls,
+                counts[StoreMetrics.Counter.NODE_READS.ordinal()],
+                counts[StoreMetrics.Counter.RELATIONSHIP_READS.ordinal()],
+                counts[StoreMetrics.Counter.PROPERTY_READS.ordinal()],
+                counts[StoreMetrics.Counter.CYPHER_EXECUTIONS.ordinal()],
+                counts[StoreMetrics.Counter.TRANSACTIONS.ordinal()],
+                latency.getMean() / NANOS_PER_MICRO,
+                latency.getPercentile( 0.5 ) / NANOS_PER_MICRO,
+                latency.getPercentile( 0.99 ) / NANOS_PER_MICRO,
+                latency.getMax() / NANOS_PER_MICRO );
+    }
+
+    /**
+     * Get a counter by its kind.
+     * 
+     * @param counter the counter to get
+     * @return the value of the counter
+     */
+    public long getCount( final StoreMetrics.Counter counter )
+    {
+        switch ( counter )
+        {
+        case NODE_READS:
+            return nodeReads;
+        case RELATIONSHIP_READS:
+            return relationshipReads;
+        case PROPERTY_READS:
+            return propertyReads;
+        case CYPHER_EXECUTIONS:
+            return cypherExecutions;
+        case TRANSACTIONS:
+            return transactions;
+        default:
+            throw new IllegalArgumentException( "Unknown counter: [" + counter
+                                                + "]" );
+        }
+    }
+
+    /**
+     * @return the name of the operation
+     */
+    public String getOperation()
+    {
+        return operation;
+    }
+
+    /**
+     * @return the number of calls
+     */
+    public long getCalls()
+    {
+        return calls;
+    }
+
+    /**
+     * @return the number of nodes read
+     */
+    public long getNodeReads()
+    {
+        return nodeReads;
+    }
+
+    /**
+     * @return the number of relationships read
+     */
+    public long getRelationshipReads()
+    {
+        return relationshipReads;
+    }
+
+    /**
+     * @return the number of property reads
+     */
+    public long getPropertyReads()
+    {
+        return propertyReads;
+    }
+
+    /**
+     * @return the number of Cypher queries executed
+     */
+    public long getCypherExecutions()
+    {
+        return cypherExecutions;
+    }
+
+    /**
+     * @return the number of transactions started
+     */
+    public long getTransactions()
+    {
+        return transactions;
+    }
+
+    /**
+     * @return the mean latency of a call, in microseconds
+     */
+    public double getMeanLatency()
+    {
+        return meanLatency;
+    }
+
+    /**
+     * @return the median latency of a call, in microseconds
+     */
+    public double getMedianLatency()
+    {
+        return medianLatency;
+    }
+
+    /**
+     * @return the 99th percentile latency of a call, in microseconds
+     */
+    public double getP99Latency()
+    {
+        return p99Latency;
+    }
+
+    /**
+     * @return the maximum latency of a call, in microseconds
+     */
+    public double getMaxLatency()
+    {
+        return maxLatency;
+    }
+
+    @Override
+    public String toString()
+    {
+        return String.format(
+                "%s: %d calls, %d nodes, %d relationships, %d properties, %d cypher, %d tx, "
+                        + "latency mean %.1f median %.1f p99 %.1f max %.1f us",
+                operation, calls, nodeReads, relationshipReads, propertyReads,
+                cypherExecutions, transactions, meanLatency, medianLatency,
+                p99Latency, maxLatency );
+    }
+}
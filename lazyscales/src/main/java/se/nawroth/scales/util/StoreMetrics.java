@@ -0,0 +1,364 @@
+/**
+ * Copyright (c) 2002-2013 "Neo Technology,"
+ * Network Engine for Objects in Lund AB [http://neotechnology.com]
+ *
+ * This file is part of Neo4j.
+ *
+ * Neo4j is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package se.nawroth.scales.util;
+
+import java.lang.management.ManagementFactory;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+
+import javax.management.JMException;
+import javax.management.ObjectName;
+
+/**
+ * Counts the store access of a database and measures the latency of its
+ * service operations. Metrics are only collected for a database created with
+ * an instance of this class, other databases are not instrumented at all.
+ * <p>
+ * An operation is a call to a public service method. Store access is
+ * attributed to the outermost operation running on the current thread, access
+ * outside of operations, like iterating over lazily read results, is counted as
+ * unattributed. While the database is instrumented, every node and
+ * relationship is wrapped in a dynamic proxy, which makes store access
+ * noticeably slower.
+ * <p>
+ * The metrics are published as an MXBean while the database is running, named
+ * <code>se.nawroth.scales:type=StoreMetrics,store=...,instance=...</code>.
+ * 
+ * @author Anders Nawroth
+ */
+public final class StoreMetrics implements StoreMetricsMXBean
+{
+    /**
+     * The kinds of store access that are counted.
+     */
+    public enum Counter
+    {
+        /**
+         * Nodes read, by lookup or by following a relationship.
+         */
+        NODE_READS,
+        /**
+         * Relationships read, including checks for their existence.
+         */
+        RELATIONSHIP_READS,
+        /**
+         * Property reads, including checks for their existence.
+         */
+        PROPERTY_READS,
+        /**
+         * Cypher queries executed.
+         */
+        CYPHER_EXECUTIONS,
+        /**
+         * Transactions started.
+         */
+        TRANSACTIONS
+    }
+
+    /**
+     * A running operation.
+     */
+    public interface Call
+    {
+        /**
+         * End the operation. Must be called exactly once, in a
+         * <code>finally</code> block.
+         */
+        void exit();
+    }
+
+    /**
+     * A call that doesn't measure anything, for code running without metrics.
+     */
+    public static final Call NO_CALL = new Call()
+    {
+        @Override
+        public void exit()
+        {
+            // nothing was started
+        }
+    };
+    private static final String UNATTRIBUTED = "(unattributed)";
+    private static final String TOTAL = "(total)";
+    private static final String DOMAIN = "se.nawroth.scales";
+    private static final AtomicInteger INSTANCES = new AtomicInteger();
+    private static final int COUNTERS = Counter.values().length;
+    private final ConcurrentMap<String, Stats> operations = new ConcurrentHashMap<String, Stats>();
+    private final Stats unattributed = new Stats();
+    private final LatencyHistogram totalLatency = new LatencyHistogram();
+    private final ThreadLocal<Context> contexts = new ThreadLocal<Context>()
+    {
+        @Override
+        protected Context initialValue()
+        {
+            return new Context();
+        }
+    };
+    private ObjectName objectName = null;
+
+    /**
+     * Start an operation on the current thread. Operations started while
+     * another one is running on the same thread are part of the outer one.
+     * 
+     * @param operation the name of the operation, like
+     *            <code>FretboardService.getStrings</code>
+     * @return the call to exit when the operation is done
+     */
+    public Call enter( final String operation )
+    {
+        Context context = contexts.get();
+        if ( context.operation != null )
+        {
+            return NO_CALL;
+        }
+        context.operation = operation;
+        context.start = System.nanoTime();
+        return context;
+    }
+
+    /**
+     * Count one store access.
+     * 
+     * @param counter the kind of access
+     */
+    void count( final Counter counter )
+    {
+        Context context = contexts.get();
+        if ( context.operation == null )
+        {
+            unattributed.counts.incrementAndGet( counter.ordinal() );
+        }
+        else
+        {
+            context.counts[counter.ordinal()]++;
+        }
+    }
+
+    /**
+     * Get the current metrics.
+     * 
+     * @return a snapshot of the metrics
+     */
+    public MetricsSnapshot snapshot()
+    {
+        Map<String, OperationMetrics> metrics = new TreeMap<String, OperationMetrics>();
+        long calls = 0;
+        long[] totalCounts = unattributed.counts();
+        for ( Map.Entry<String, Stats> entry : operations.entrySet() )
+        {
+            Stats stats = entry.getValue();
+            long[] counts = stats.counts();
+            for ( int i = 0; i < COUNTERS; i++ )
+            {
+                totalCounts[i] += counts[i];
+            }
+            calls += stats.calls.get();
+            metrics.put( entry.getKey(), OperationMetrics.create(
+                    entry.getKey(), stats.calls.get(), counts, stats.latency ) );
+        }
+        return new MetricsSnapshot( metrics, OperationMetrics.create(
+                UNATTRIBUTED, 0, unattributed.counts(), unattributed.latency ),
+                OperationMetrics.create( TOTAL, calls, totalCounts,
+                        totalLatency ) );
+    }
+
+    @Override
+    public List<OperationMetrics> getOperations()
+    {
+        return new ArrayList<OperationMetrics>( snapshot().getOperations()
+                .values() );
+    }
+
+    @Override
+    public OperationMetrics getUnattributed()
+    {
+        return snapshot().getUnattributed();
+    }
+
+    @Override
+    public OperationMetrics getTotal()
+    {
+        return snapshot().getTotal();
+    }
+
+    @Override
+    public void reset()
+    {
+        operations.clear();
+        unattributed.reset();
+        totalLatency.reset();
+    }
+
+    /**
+     * Publish the metrics through JMX.
+     * 
+     * @param store the name of the store, used in the object name
+     */
+    synchronized void register( final String store )
+    {
+        if ( objectName != null )
+        {
+            throw new IllegalStateException(
+                    "The metrics are already used by a running database: ["
+                            + objectName + "]" );
+        }
+        try
+        {
+            ObjectName name = new ObjectName( DOMAIN
+                                              + ":type=StoreMetrics,store="
+                                              + ObjectName.quote( store )
+                                              + ",instance="
+                                              + INSTANCES.incrementAndGet() );
+            ManagementFactory.getPlatformMBeanServer()
+                    .registerMBean( this, name );
+            objectName = name;
+        }
+        catch ( JMException e )
+        {
+            throw new IllegalStateException(
+                    "Could not register the store metrics.", e );
+        }
+    }
+
+    /**
+     * Stop publishing the metrics through JMX.
+     */
+    synchronized void unregister()
+    {
+        if ( objectName == null )
+        {
+            return;
+        }
+        try
+        {
+            ManagementFactory.getPlatformMBeanServer()
+                    .unregisterMBean( objectName );
+        }
+        catch ( JMException e )
+        {
+            throw new IllegalStateException(
+                    "Could not unregister the store metrics.", e );
+        }
+        finally
+        {
+            objectName = null;
+        }
+    }
+
+    /**
+     * Get the name of the published MXBean.
+     * 
+     * @return the object name, or <code>null</code> if not published
+     */
+    public synchronized ObjectName getObjectName()
+    {
+        return objectName;
+    }
+
+    private Stats stats( final String operation )
+    {
+        Stats stats = operations.get( operation );
+        if ( stats == null )
+        {
+            Stats newStats = new Stats();
+            stats = operations.putIfAbsent( operation, newStats );
+            if ( stats == null )
+            {
+                stats = newStats;
+            }
+        }
+        return stats;
+    }
+
+    /**
+     * The collected metrics of one operation.
+     */
+    private static final class Stats
+    {
+        private final AtomicLong calls = new AtomicLong();
+        private final AtomicLongArray counts = new AtomicLongArray( COUNTERS );
+        private final LatencyHistogram latency = new LatencyHistogram();
+
+        private void add( final long[] callCounts, final long nanos )
+        {
+            calls.incrementAndGet();
+            for ( int i = 0; i < COUNTERS; i++ )
+            {
+                if ( callCounts[i] != 0 )
+                {
+                    counts.addAndGet( i, callCounts[i] );
+                }
+            }
+            latency.record( nanos );
+        }
+
+        private long[] counts()
+        {
+            long[] values = new long[COUNTERS];
+            for ( int i = 0; i < COUNTERS; i++ )
+            {
+                values[i] = counts.get( i );
+            }
+            return values;
+        }
+
+        private void reset()
+        {
+            calls.set( 0 );
+            for ( int i = 0; i < COUNTERS; i++ )
+            {
+                counts.set( i, 0 );
+            }
+            latency.reset();
+        }
+    }
+
+    /**
+     * The operation running on a thread.
+     */
+    private final class Context implements Call
+    {
+        private String operation = null;
+        private long start;
+        private final long[] counts = new long[COUNTERS];
+
+        @Override
+        public void exit()
+        {
+            if ( operation == null )
+            {
+                return;
+            }
+            long elapsed = System.nanoTime() - start;
+            stats( operation ).add( counts, elapsed );
+            totalLatency.record( elapsed );
+            operation = null;
+            Arrays.fill( counts, 0 );
+        }
+    }
+}
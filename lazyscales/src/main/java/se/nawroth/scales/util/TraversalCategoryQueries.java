@@ -0,0 +1,114 @@
+/**
+ * Copyright (c) 2002-2013 "Neo Technology,"
+ * Network Engine for Objects in Lund AB [http://neotechnology.com]
+ *
+ * This file is part of Neo4j.
+ *
+ * Neo4j is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package se.nawroth.scales.util;
+
+import static org.neo4j.graphdb.Direction.INCOMING;
+import static org.neo4j.graphdb.Direction.OUTGOING;
+
+import org.neo4j.graphdb.Direction;
+import org.neo4j.graphdb.Node;
+import org.neo4j.graphdb.Relationship;
+import org.neo4j.graphdb.RelationshipType;
+import org.neo4j.graphdb.traversal.Evaluators;
+import org.neo4j.graphdb.traversal.TraversalDescription;
+import org.neo4j.helpers.collection.IterableWrapper;
+import org.neo4j.kernel.Traversal;
+
+/**
+ * {@link CategoryQueries} implemented by expanding relationships with the core
+ * API. Only {@link #allSubCategories(Node)} needs an actual traversal, the
+ * other queries are single hops.
+ * 
+ * @author Anders Nawroth
+ */
+final class TraversalCategoryQueries implements CategoryQueries
+{
+    private final RelationshipType categoryType;
+    private final RelationshipType itemType;
+    private final TraversalDescription allCategoriesInCategory;
+
+    /**
+     * Create the queries from {@link RelationshipType}s.
+     * 
+     * @param categoryType relationship type between categories
+     * @param itemType relationship type from a category to its items
+     */
+    TraversalCategoryQueries( final RelationshipType categoryType,
+            final RelationshipType itemType )
+    {
+        this.categoryType = categoryType;
+        this.itemType = itemType;
+        allCategoriesInCategory = Traversal.description()
+                .breadthFirst()
+                .relationships( categoryType, OUTGOING )
+                .evaluator( Evaluators.excludeStartPosition() );
+    }
+
+    @Override
+    public Iterable<Node> subCategories( final Node category )
+    {
+        return expand( category, OUTGOING, categoryType );
+    }
+
+    @Override
+    public Iterable<Node> allSubCategories( final Node category )
+    {
+        return allCategoriesInCategory.traverse( category )
+                .nodes();
+    }
+
+    @Override
+    public Iterable<Node> parentCategories( final Node category )
+    {
+        return expand( category, INCOMING, categoryType );
+    }
+
+    @Override
+    public Iterable<Node> categoriesOfItem( final Node item )
+    {
+        return expand( item, INCOMING, categoryType, itemType );
+    }
+
+    @Override
+    public Iterable<Node> directItems( final Node category )
+    {
+        return expand( category, OUTGOING, itemType );
+    }
+
+    @Override
+    public Iterable<Node> allItems( final Node category )
+    {
+        return expand( category, OUTGOING, categoryType, itemType );
+    }
+
+    private static Iterable<Node> expand( final Node node,
+            final Direction direction, final RelationshipType... types )
+    {
+        return new IterableWrapper<Node, Relationship>( node.getRelationships(
+                direction, types ) )
+        {
+            @Override
+            protected Node underlyingObjectToObject( final Relationship rel )
+            {
+                return rel.getOtherNode( node );
+            }
+        };
+    }
+}
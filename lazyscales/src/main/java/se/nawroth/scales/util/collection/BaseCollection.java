@@ -21,6 +21,8 @@ package se.nawroth.scales.util.collection;
 
 import java.util.AbstractCollection;
 import java.util.Iterator;
+import java.util.Spliterator;
+import java.util.Spliterators;
 
 /**
  * Class to handle a collection of nodes.
@@ -70,6 +72,21 @@ public abstract class BaseCollection<T, U> extends AbstractCollection<T>
         return size;
     }
 
+    /**
+     * A sized {@link Spliterator} over a copy of the elements, so the
+     * collection is only iterated once, and can be split evenly for parallel
+     * streams.
+     * 
+     * @return the spliterator instance
+     */
+    @Override
+    public Spliterator<T> spliterator()
+    {
+        return Spliterators.spliterator( toArray(), Spliterator.ORDERED
+                                                    | Spliterator.IMMUTABLE
+                                                    | Spliterator.NONNULL );
+    }
+
     /**
      * Get the start element.
      * 
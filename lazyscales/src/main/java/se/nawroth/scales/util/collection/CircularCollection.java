@@ -21,9 +21,13 @@ package se.nawroth.scales.util.collection;
 
 import java.util.Collection;
 import java.util.Iterator;
+import java.util.Spliterator;
+import java.util.stream.Stream;
+import java.util.stream.StreamSupport;
 
 /**
- * Class that extends normal collections by adding a circular iterator method.
+ * Class that extends normal collections by adding circular iterator and stream
+ * methods.
  * 
  * @author Anders Nawroth
  * @param <T> the exposed type
@@ -49,4 +53,22 @@ public abstract class CircularCollection<T, U> extends BaseCollection<T, U>
      * @return the iterator instance
      */
     public abstract Iterator<T> circularIterator();
+
+    /**
+     * A circular {@link Spliterator} over this {@link Collection}.
+     * 
+     * @return the spliterator instance
+     */
+    public abstract Spliterator<T> circularSpliterator();
+
+    /**
+     * A lazy, circular {@link Stream} over this {@link Collection}. The stream
+     * never ends, unless the collection can't be iterated circularly.
+     * 
+     * @return the stream instance
+     */
+    public final Stream<T> circularStream()
+    {
+        return StreamSupport.stream( circularSpliterator(), false );
+    }
 }
@@ -0,0 +1,69 @@
+/**
+ * Copyright (c) 2002-2013 "Neo Technology,"
+ * Network Engine for Objects in Lund AB [http://neotechnology.com]
+ *
+ * This file is part of Neo4j.
+ *
+ * Neo4j is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package se.nawroth.scales.util.collection;
+
+import java.util.Spliterator;
+import java.util.Spliterators;
+import java.util.function.Consumer;
+
+/**
+ * An endless {@link Spliterator} repeating the elements of an array. Splitting
+ * hands out the next batch of elements as a sized spliterator, so the repeated
+ * elements can feed a parallel pipeline that is cut off by
+ * {@link java.util.stream.Stream#limit(long)} or a short-circuiting operation.
+ * 
+ * @author Anders Nawroth
+ * @param <T> the type of the elements
+ */
+public final class CircularSpliterator<T> extends
+        Spliterators.AbstractSpliterator<T>
+{
+    private final T[] period;
+    private int position = 0;
+
+    /**
+     * Create instance from the elements of one period. The array is not
+     * copied, and must not be changed.
+     * 
+     * @param period the elements to repeat, there is nothing to repeat if the
+     *            array is empty
+     */
+    public CircularSpliterator( final T[] period )
+    {
+        super( period.length == 0 ? 0 : Long.MAX_VALUE,
+                ORDERED | IMMUTABLE | NONNULL );
+        this.period = period;
+    }
+
+    @Override
+    public boolean tryAdvance( final Consumer<? super T> action )
+    {
+        if ( period.length == 0 )
+        {
+            return false;
+        }
+        action.accept( period[position++] );
+        if ( position == period.length )
+        {
+            position = 0;
+        }
+        return true;
+    }
+}
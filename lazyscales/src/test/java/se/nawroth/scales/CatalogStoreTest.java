@@ -0,0 +1,327 @@
+/**
+ * Copyright (c) 2002-2013 "Neo Technology,"
+ * Network Engine for Objects in Lund AB [http://neotechnology.com]
+ *
+ * This file is part of Neo4j.
+ *
+ * Neo4j is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package se.nawroth.scales;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+import static se.nawroth.scales.api.DiatonicInterval.FIFTH;
+import static se.nawroth.scales.api.DiatonicInterval.FOURTH;
+import static se.nawroth.scales.api.DiatonicInterval.MAJOR_SECOND;
+import static se.nawroth.scales.api.DiatonicInterval.MAJOR_THIRD;
+import static se.nawroth.scales.api.DiatonicInterval.MINOR_SECOND;
+import static se.nawroth.scales.api.DiatonicInterval.MINOR_THIRD;
+
+import java.io.IOException;
+import java.io.StringReader;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.TreeSet;
+
+import org.junit.Test;
+import org.neo4j.graphdb.Transaction;
+import org.neo4j.test.ImpermanentGraphDatabase;
+
+import se.nawroth.scales.api.ChordFamily;
+import se.nawroth.scales.api.Note;
+import se.nawroth.scales.api.Scale;
+import se.nawroth.scales.api.ScaleFamily;
+import se.nawroth.scales.api.Tuning;
+import se.nawroth.scales.api.TuningFamily;
+import se.nawroth.scales.chord.ChordMatch;
+import se.nawroth.scales.fretboard.FingeringCost;
+import se.nawroth.scales.fretboard.Fretboard;
+import se.nawroth.scales.fretboard.FretboardMatrix;
+import se.nawroth.scales.fretboard.FretboardService;
+import se.nawroth.scales.fretboard.PatternStyle;
+import se.nawroth.scales.memory.MemoryCatalogStore;
+import se.nawroth.scales.note.Notes;
+import se.nawroth.scales.scale.ScaleDistance;
+
+/**
+ * Test that the graph and the in-memory store hold the same catalog.
+ * 
+ * @author Anders Nawroth
+ */
+public class CatalogStoreTest
+{
+    private static final String CATALOG = "version | test\n"
+                                          + "scale family | Diatonic\n"
+                                          + "scales | Diatonic | 2 2 1 2 2 2 1 | Ionian | Dorian | Phrygian\n"
+                                          + "tuning family | Standard tunings\n"
+                                          + "tuning | Standard tunings | E♭ tuning | E_FLAT | 5 5 5 4 5\n";
+
+    /**
+     * Populate both stores through the same calls and compare the outcome.
+     */
+    @Test
+    public void sameCatalogInBothStores()
+    {
+        GraphCatalogStore graph = new GraphCatalogStore(
+                new ImpermanentGraphDatabase() );
+        try
+        {
+            assertEquals( describe( graph ), describe( new MemoryCatalogStore() ) );
+        }
+        finally
+        {
+            graph.stop();
+        }
+    }
+
+    /**
+     * A catalog can be loaded directly into the in-memory store.
+     * 
+     * @throws IOException on failure
+     */
+    @Test
+    public void loadCatalogIntoMemory() throws IOException
+    {
+        MemoryCatalogStore store = new MemoryCatalogStore();
+        store.init();
+        assertEquals( 5, store.load( new StringReader( CATALOG ) ) );
+        assertEquals( "test", store.getCatalogVersion() );
+        Scale dorian = store.findScale( MAJOR_SECOND, MINOR_SECOND,
+                MAJOR_SECOND, MAJOR_SECOND, MAJOR_SECOND, MINOR_SECOND,
+                MAJOR_SECOND );
+        assertEquals( "Dorian", dorian.getName() );
+        assertNull( store.findScale( MAJOR_SECOND, MAJOR_SECOND,
+                MAJOR_SECOND, MAJOR_SECOND, MAJOR_SECOND, MAJOR_SECOND ) );
+        TuningFamily standard = store.getRootTuningFamily()
+                .getSubFamilies()
+                .iterator()
+                .next();
+        Tuning tuning = standard.getTunings()
+                .iterator()
+                .next();
+        assertEquals( "E♭ tuning", tuning.getName() );
+        assertEquals( 6, tuning.size() );
+        assertEquals( 3, tuning.iterator()
+                .next()
+                .getPitchClass() );
+    }
+
+    /**
+     * Scales without a name sort after the named ones, and only equal scales
+     * compare as equal.
+     */
+    @Test
+    public void unnamedScalesSortAfterNamedOnes()
+    {
+        TestCatalog catalog = new TestCatalog( new MemoryCatalogStore() );
+        CatalogStore store = catalog.getCatalogStore();
+        Scale ionian = catalog.getIonian();
+        Scale lydian = store.findScale( MAJOR_SECOND, MAJOR_SECOND,
+                MAJOR_SECOND, MINOR_SECOND, MAJOR_SECOND, MAJOR_SECOND,
+                MINOR_SECOND );
+        Scale mixolydian = store.findScale( MAJOR_SECOND, MAJOR_SECOND,
+                MINOR_SECOND, MAJOR_SECOND, MAJOR_SECOND, MINOR_SECOND,
+                MAJOR_SECOND );
+        assertNull( lydian.getName() );
+        assertNull( mixolydian.getName() );
+        assertTrue( ionian.compareTo( lydian ) < 0 );
+        assertTrue( lydian.compareTo( ionian ) > 0 );
+        assertEquals( 0, lydian.compareTo( store.findScale( MAJOR_SECOND,
+                MAJOR_SECOND, MAJOR_SECOND, MINOR_SECOND, MAJOR_SECOND,
+                MAJOR_SECOND, MINOR_SECOND ) ) );
+        assertEquals( -Integer.signum( lydian.compareTo( mixolydian ) ),
+                Integer.signum( mixolydian.compareTo( lydian ) ) );
+        assertEquals( 3, new TreeSet<Scale>( Arrays.asList( mixolydian,
+                lydian, ionian, lydian ) ).size() );
+        catalog.shutdown();
+    }
+
+    /**
+     * Fretboards only depend on the store abstraction.
+     */
+    @Test
+    public void fretboardsFromMemory()
+    {
+        TestCatalog catalog = new TestCatalog( new MemoryCatalogStore() );
+        CatalogStore store = catalog.getCatalogStore();
+        Scale ionian = catalog.getIonian();
+        Tuning tuning = catalog.getStandardTuning();
+        FretboardService fretboardService = catalog.getServices()
+                .getFretboardService();
+        FretboardMatrix matrix = fretboardService.getMatrix( new Fretboard(
+                tuning, Notes.notes( store.note( 0 ), ionian ) ) );
+        assertEquals( 6, matrix.getStringCount() );
+        assertEquals( store.note( 4 ), matrix.scaleNoteAt( 0, 0 ) );
+        assertEquals( store.note( 5 ), matrix.scaleNoteAt( 0, 1 ) );
+        assertNull( matrix.scaleNoteAt( 0, 2 ) );
+        assertTrue( matrix.isRoot( 1, 1 ) );
+        assertSame( matrix, fretboardService.getMatrix( new Fretboard( tuning,
+                Notes.notes( store.note( 0 ), ionian ) ) ) );
+        assertEquals( 5, fretboardService.getPatterns(
+                Notes.notes( store.note( 0 ), ionian ), tuning,
+                PatternStyle.CAGED, FingeringCost.DEFAULT )
+                .size() );
+        catalog.shutdown();
+    }
+
+    /**
+     * All services work on top of the in-memory store.
+     */
+    @Test
+    public void servicesFromMemory()
+    {
+        TestCatalog catalog = new TestCatalog( new MemoryCatalogStore() );
+        CatalogStore store = catalog.getCatalogStore();
+        Services services = catalog.getServices();
+        assertSame( store.note( 4 ), services.getNoteService()
+                .note( 4 ) );
+        Scale ionian = services.getScaleSearchService()
+                .find( MAJOR_SECOND, MAJOR_SECOND, MINOR_SECOND, MAJOR_SECOND,
+                        MAJOR_SECOND, MAJOR_SECOND, MINOR_SECOND );
+        assertEquals( catalog.getIonian(), ionian );
+        Scale lydian;
+        ChordFamily triads;
+        long generation = services.getGeneration();
+        Transaction tx = services.beginTx();
+        try
+        {
+            lydian = services.getScaleService()
+                    .newScale( catalog.getDiatonicFamily(), ionian, 4,
+                            "Lydian" );
+            triads = services.getChordFamilyService()
+                    .newChordFamily( services.getChordFamilyService()
+                            .getRootChordFamily(), "Triads" );
+            services.getChordService()
+                    .newChord( triads, "Major", MAJOR_THIRD, FIFTH );
+            services.getChordService()
+                    .newChord( triads, "Minor", MINOR_THIRD, FIFTH );
+            tx.success();
+        }
+        finally
+        {
+            tx.finish();
+        }
+        assertTrue( services.getGeneration() > generation );
+        assertEquals( "Lydian", services.getScaleSearchService()
+                .find( MAJOR_SECOND, MAJOR_SECOND, MAJOR_SECOND, MINOR_SECOND,
+                        MAJOR_SECOND, MAJOR_SECOND, MINOR_SECOND )
+                .getName() );
+        assertEquals( lydian, store.findScale( MAJOR_SECOND, MAJOR_SECOND,
+                MAJOR_SECOND, MINOR_SECOND, MAJOR_SECOND, MAJOR_SECOND,
+                MINOR_SECOND ) );
+        assertTrue( services.getScaleService()
+                .addAllScales() > 0 );
+        assertFalse( services.getScaleService()
+                .getUnnamedScales()
+                .isEmpty() );
+        assertEquals( 0, services.getScaleSimilarityService()
+                .findSimilar( ionian, ScaleDistance.INTERVAL_VECTOR, 1 )
+                .get( 0 )
+                .getDistance() );
+
+        List<ChordMatch> matches = services.getChordService()
+                .identify( store.note( 4 ), store.note( 7 ), store.note( 0 ) );
+        assertEquals( "Major", matches.get( 0 )
+                .getChord()
+                .getName() );
+        assertEquals( 0, matches.get( 0 )
+                .getRoot()
+                .getPitchClass() );
+
+        Tuning standard = catalog.getStandardTuning();
+        Tuning dropped = services.getTuningService()
+                .newTuning( standard.getFamily(), "D tuning", store.note( 2 ),
+                        standard );
+        assertEquals( 6, dropped.size() );
+        assertEquals( 2, dropped.iterator()
+                .next()
+                .getPitchClass() );
+
+        Note d = store.note( 2 );
+        assertEquals( new ArrayList<Note>( Notes.notes( d, ionian ) ),
+                new ArrayList<Note>( services.getTranspositionAtlas()
+                        .getNotes( ionian, d ) ) );
+        catalog.shutdown();
+    }
+
+    private static String describe( final CatalogStore store )
+    {
+        store.start();
+        store.init();
+        StringBuilder description = new StringBuilder();
+        ScaleFamily diatonic = store.newScaleFamily(
+                store.getRootScaleFamily(), "Diatonic" );
+        store.newScales( diatonic, new String[] { "Ionian", "Dorian",
+                "Phrygian" }, MAJOR_SECOND, MAJOR_SECOND, MINOR_SECOND,
+                MAJOR_SECOND, MAJOR_SECOND, MAJOR_SECOND, MINOR_SECOND );
+        ScaleFamily pentatonic = store.newScaleFamily( diatonic, "Pentatonic" );
+        store.newScales( pentatonic, new String[] { "Major pentatonic" },
+                MAJOR_SECOND, MAJOR_SECOND, MINOR_THIRD, MAJOR_SECOND,
+                MINOR_THIRD );
+        describe( store.getRootScaleFamily(), description );
+        description.append( store.findScale( MINOR_SECOND, MAJOR_SECOND,
+                MAJOR_SECOND, MAJOR_SECOND, MINOR_SECOND, MAJOR_SECOND,
+                MAJOR_SECOND )
+                .getName() )
+                .append( '\n' );
+        description.append( store.findScale( MAJOR_SECOND, MAJOR_SECOND,
+                MAJOR_SECOND, MAJOR_SECOND, MAJOR_SECOND, MAJOR_SECOND ) )
+                .append( '\n' );
+
+        TuningFamily standard = store.newTuningFamily(
+                store.getRootTuningFamily(), "Standard tunings" );
+        Note eFlat = store.note( 3 );
+        store.newTuning( standard, "E♭ tuning", eFlat, FOURTH, FOURTH,
+                FOURTH, MAJOR_THIRD, FOURTH );
+        for ( Tuning tuning : standard.getTunings() )
+        {
+            description.append( tuning.getName() )
+                    .append( ' ' )
+                    .append( tuning.getFamily() )
+                    .append( ':' );
+            for ( Note note : tuning )
+            {
+                description.append( ' ' )
+                        .append( note.toString( true ) );
+            }
+            description.append( '\n' );
+        }
+        description.append( eFlat.getFromInterval( MAJOR_THIRD ) )
+                .append( '\n' );
+        return description.toString();
+    }
+
+    private static void describe( final ScaleFamily family,
+            final StringBuilder description )
+    {
+        description.append( family )
+                .append( '\n' );
+        for ( Scale scale : family.getScales() )
+        {
+            description.append( ' ' )
+                    .append( scale )
+                    .append( ' ' )
+                    .append( scale.getPitchClassSet() )
+                    .append( '\n' );
+        }
+        for ( ScaleFamily subFamily : family.getSubFamilies() )
+        {
+            describe( subFamily, description );
+        }
+    }
+}
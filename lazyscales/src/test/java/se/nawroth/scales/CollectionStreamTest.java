@@ -0,0 +1,172 @@
+/**
+ * Copyright (c) 2002-2013 "Neo Technology,"
+ * Network Engine for Objects in Lund AB [http://neotechnology.com]
+ *
+ * This file is part of Neo4j.
+ *
+ * Neo4j is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package se.nawroth.scales;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+import static se.nawroth.scales.api.DiatonicInterval.MAJOR_SECOND;
+import static se.nawroth.scales.api.DiatonicInterval.MINOR_SECOND;
+import static se.nawroth.scales.api.DiatonicInterval.MINOR_THIRD;
+
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Spliterator;
+import java.util.stream.Collectors;
+import java.util.stream.IntStream;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import org.neo4j.graphdb.Transaction;
+
+import se.nawroth.scales.api.NamedInterval;
+import se.nawroth.scales.api.Note;
+import se.nawroth.scales.api.Scale;
+import se.nawroth.scales.api.ScaleFamily;
+import se.nawroth.scales.api.Tuning;
+import se.nawroth.scales.note.NoteRepository;
+import se.nawroth.scales.note.Notes;
+
+public class CollectionStreamTest
+{
+    private TestCatalog catalog;
+    private Services services;
+    private List<Scale> scales;
+    private Tuning standard;
+
+    @Before
+    public void setUp()
+    {
+        catalog = new TestCatalog();
+        services = catalog.getServices();
+        standard = catalog.getStandardTuning();
+        Transaction tx = services.beginTx();
+        try
+        {
+            ScaleFamily family = services.getScaleFamilyService()
+                    .getRootScaleFamily();
+            scales = new ArrayList<Scale>();
+            scales.add( catalog.getIonian() );
+            scales.add( services.getScaleService()
+                    .newScale( family, "Harmonic minor", MAJOR_SECOND,
+                            MINOR_SECOND, MAJOR_SECOND, MAJOR_SECOND,
+                            MINOR_SECOND, MINOR_THIRD, MINOR_SECOND ) );
+            scales.add( services.getScaleService()
+                    .newScale( family, "Major pentatonic", MAJOR_SECOND,
+                            MAJOR_SECOND, MINOR_THIRD, MAJOR_SECOND,
+                            MINOR_THIRD ) );
+            tx.success();
+        }
+        finally
+        {
+            tx.finish();
+        }
+    }
+
+    @After
+    public void tearDown()
+    {
+        catalog.shutdown();
+    }
+
+    @Test
+    public void streamsTheIntervalsOfAScale()
+    {
+        Scale ionian = scales.get( 0 );
+        Spliterator<NamedInterval> spliterator = ionian.spliterator();
+        assertTrue( spliterator.hasCharacteristics( Spliterator.SIZED
+                                                    | Spliterator.IMMUTABLE ) );
+        assertEquals( 6, spliterator.getExactSizeIfKnown() );
+        assertEquals( new ArrayList<NamedInterval>( ionian ),
+                ionian.stream()
+                        .collect( Collectors.toList() ) );
+        assertEquals( take( ionian.circularIterator(), 15 ),
+                ionian.circularStream()
+                        .limit( 15 )
+                        .collect( Collectors.toList() ) );
+    }
+
+    @Test
+    public void streamsNotesCircularly()
+    {
+        Notes notes = Notes.notes( services.getNoteService()
+                .note( NoteRepository.A ), scales.get( 1 ) );
+        assertEquals( 7, notes.stream()
+                .count() );
+        List<Note> expected = take( notes.circularIterator(), 1000 );
+        assertEquals( expected.subList( 0, 20 ), notes.circularStream()
+                .limit( 20 )
+                .collect( Collectors.toList() ) );
+        assertEquals( expected, notes.circularStream()
+                .parallel()
+                .limit( 1000 )
+                .collect( Collectors.toList() ) );
+    }
+
+    @Test
+    public void streamsTheNotesOfATuning()
+    {
+        assertEquals( "[E, A, D, G, B, E]", standard.stream()
+                .map( note -> note.toString( false ) )
+                .collect( Collectors.toList() )
+                .toString() );
+    }
+
+    @Test
+    public void runsBatchesInParallel()
+    {
+        int expected = 0;
+        for ( Scale scale : scales )
+        {
+            for ( int root = 0; root < 12; root++ )
+            {
+                for ( Note open : standard )
+                {
+                    if ( Notes.notes( services.getNoteService()
+                            .note( root ), scale )
+                            .contains( open ) )
+                    {
+                        expected++;
+                    }
+                }
+            }
+        }
+        assertEquals( expected, scales.parallelStream()
+                .flatMap( scale -> IntStream.range( 0, 12 )
+                        .mapToObj( root -> Notes.notes( services.getNoteService()
+                                .note( root ), scale ) ) )
+                .mapToLong( notes -> standard.stream()
+                        .filter( notes::contains )
+                        .count() )
+                .sum() );
+    }
+
+    private static <T> List<T> take( final Iterator<T> iterator,
+            final int count )
+    {
+        List<T> list = new ArrayList<T>( count );
+        for ( int i = 0; i < count; i++ )
+        {
+            list.add( iterator.next() );
+        }
+        return list;
+    }
+}
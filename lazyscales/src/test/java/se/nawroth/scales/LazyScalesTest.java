@@ -21,6 +21,7 @@ package se.nawroth.scales;
 
 import static org.junit.Assert.assertEquals;
 import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertSame;
 import static org.junit.Assert.assertTrue;
 import static se.nawroth.scales.api.DiatonicInterval.FOURTH;
 import static se.nawroth.scales.api.DiatonicInterval.MAJOR_SECOND;
@@ -41,7 +42,9 @@ import se.nawroth.scales.api.ScaleFamily;
 import se.nawroth.scales.api.Tuning;
 import se.nawroth.scales.api.TuningFamily;
 import se.nawroth.scales.fretboard.Fretboard;
+import se.nawroth.scales.fretboard.FretboardMatrix;
 import se.nawroth.scales.note.NoteRepository;
+import se.nawroth.scales.note.NoteService;
 import se.nawroth.scales.note.Notes;
 
 /**
@@ -110,8 +113,19 @@ public class LazyScalesTest
             Note c = services.getNoteService().note( NoteRepository.C );
             Note a = services.getNoteService().note( NoteRepository.A );
 
+            assertEquals( 9, a.getPitchClass() );
+            assertEquals( DiatonicInterval.MAJOR_SIXTH,
+                    NoteService.findInterval( c, a ) );
+            assertEquals( DiatonicInterval.MINOR_THIRD,
+                    NoteService.findInterval( a, c ) );
+            assertEquals( c, a.getFromInterval( DiatonicInterval.MINOR_THIRD ) );
+            assertEquals( a, c.getFromIntervalReversed( DiatonicInterval.MINOR_THIRD ) );
+
             Notes notes = Notes.notes( c, ionian );
             System.out.println( notes );
+            assertTrue( notes.contains( a ) );
+            assertFalse( notes.contains( services.getNoteService().note(
+                    NoteRepository.B_FLAT ) ) );
 
             notes = Notes.notes( a, dorian );
             notes.setSharp();
@@ -150,6 +164,9 @@ public class LazyScalesTest
             services.getTuningService().newTuning( standard, "Standard tuning",
                     services.getNoteService().note( NoteRepository.E ),
                     myTuning );
+            // the root note is taken from the notes shared by the database
+            assertSame( services.getNoteService().note( NoteRepository.E_FLAT ),
+                    myTuning.iterator().next() );
             System.out.println( myTuning.getFamily() );
             for ( Tuning tuning : standard.getTunings() )
             {
@@ -162,6 +179,17 @@ public class LazyScalesTest
             System.out.println( notes );
             System.out.println( services.getFretboardService().printStrings(
                     neck, 17 ) );
+            FretboardMatrix matrix = services.getFretboardService().getMatrix(
+                    neck );
+            assertEquals( 6, matrix.getStringCount() );
+            assertEquals( services.getNoteService().note(
+                    NoteRepository.E_FLAT ), matrix.noteAt( 0, 0 ) );
+            assertTrue( matrix.inScale( 0, 0 ) );
+            assertFalse( matrix.inScale( 0, 1 ) );
+            assertTrue( matrix.isRoot( 1, 2 ) );
+            assertTrue( matrix.isRoot( 1, 14 ) );
+            assertTrue( matrix == services.getFretboardService().getMatrix(
+                    new Fretboard( myTuning, notes ) ) );
 
             Scale searchResult = services.getScaleSearchService().find(
                     MAJOR_SECOND, MAJOR_SECOND, MINOR_SECOND, MAJOR_SECOND,
@@ -0,0 +1,241 @@
+/**
+ * Copyright (c) 2002-2013 "Neo Technology,"
+ * Network Engine for Objects in Lund AB [http://neotechnology.com]
+ *
+ * This file is part of Neo4j.
+ *
+ * Neo4j is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package se.nawroth.scales;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+import static se.nawroth.scales.api.DiatonicInterval.MAJOR_SECOND;
+import static se.nawroth.scales.api.DiatonicInterval.MINOR_SECOND;
+
+import java.io.File;
+import java.util.Queue;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import org.neo4j.graphdb.Transaction;
+import org.neo4j.kernel.impl.util.FileUtils;
+
+import se.nawroth.scales.api.DiatonicInterval;
+import se.nawroth.scales.api.Scale;
+import se.nawroth.scales.api.ScaleFamily;
+import se.nawroth.scales.api.Tuning;
+import se.nawroth.scales.fretboard.Fretboard;
+import se.nawroth.scales.note.Notes;
+
+/**
+ * Runs the read path of the services from many threads at once, while another
+ * thread keeps writing.
+ * 
+ * @author Anders Nawroth
+ */
+public class ServicesConcurrencyTest
+{
+    private static final String STORE_DIR = "target/concurrency-test-db";
+    private static final int READERS = 8;
+    private static final int ROUNDS = 25;
+    private static final DiatonicInterval[] DORIAN = { MAJOR_SECOND,
+            MINOR_SECOND, MAJOR_SECOND, MAJOR_SECOND, MAJOR_SECOND,
+            MINOR_SECOND, MAJOR_SECOND };
+
+    private TestCatalog catalog;
+    private Services services;
+    private Fretboard fretboard;
+    private String expectedStrings;
+    private int rootFamilies;
+
+    @Before
+    public void setUp() throws Exception
+    {
+        FileUtils.deleteRecursively( new File( STORE_DIR ) );
+        catalog = new TestCatalog( new GraphCatalogStore( STORE_DIR ),
+                TestCatalog.DIATONIC_MODES );
+        services = catalog.getServices();
+        expectedStrings = services.getFretboardService().printStrings(
+                new Fretboard( catalog.getStandardTuning(), Notes.notes(
+                        catalog.note( 0 ),
+                        services.getScaleSearchService().find( DORIAN ) ) ),
+                12 );
+        rootFamilies = countSubFamilies();
+        // restart, so that the threads race to create the services
+        catalog.restart();
+        services = catalog.getServices();
+    }
+
+    @After
+    public void tearDown()
+    {
+        catalog.shutdown();
+    }
+
+    @Test
+    public void readFromManyThreadsWhileWriting() throws Exception
+    {
+        final CountDownLatch start = new CountDownLatch( 1 );
+        final CountDownLatch done = new CountDownLatch( READERS + 1 );
+        final Queue<Throwable> errors = new ConcurrentLinkedQueue<Throwable>();
+        final Object[][] seen = new Object[READERS][];
+        for ( int i = 0; i < READERS; i++ )
+        {
+            final int reader = i;
+            new Thread( new Runnable()
+            {
+                @Override
+                public void run()
+                {
+                    try
+                    {
+                        start.await();
+                        seen[reader] = new Object[] {
+                                services.getScaleService(),
+                                services.getNoteService(),
+                                services.getScaleFamilyService(),
+                                services.getTuningFamilyService(),
+                                services.getTuningService(),
+                                services.getScaleSearchService(),
+                                services.getFretboardService() };
+                        for ( int round = 0; round < ROUNDS; round++ )
+                        {
+                            read( round + reader );
+                        }
+                    }
+                    catch ( Throwable t )
+                    {
+                        errors.add( t );
+                    }
+                    finally
+                    {
+                        done.countDown();
+                    }
+                }
+            }, "reader-" + i ).start();
+        }
+        new Thread( new Runnable()
+        {
+            @Override
+            public void run()
+            {
+                try
+                {
+                    start.await();
+                    for ( int round = 0; round < ROUNDS; round++ )
+                    {
+                        write( round );
+                    }
+                }
+                catch ( Throwable t )
+                {
+                    errors.add( t );
+                }
+                finally
+                {
+                    done.countDown();
+                }
+            }
+        }, "writer" ).start();
+
+        start.countDown();
+        assertTrue( "Timed out.", done.await( 2, TimeUnit.MINUTES ) );
+        if ( !errors.isEmpty() )
+        {
+            throw new AssertionError( errors.peek() );
+        }
+        for ( int i = 1; i < READERS; i++ )
+        {
+            for ( int service = 0; service < seen[0].length; service++ )
+            {
+                assertSame( seen[0][service], seen[i][service] );
+            }
+        }
+        assertEquals( rootFamilies + ROUNDS, countSubFamilies() );
+    }
+
+    private void read( final int round )
+    {
+        int pitchClass = round % 12;
+        assertEquals( pitchClass,
+                services.getNoteService().note( pitchClass ).getPitchClass() );
+        assertEquals( "Dorian",
+                services.getScaleSearchService().find( DORIAN ).getName() );
+        ScaleFamily diatonic = diatonic();
+        int scales = 0;
+        for ( Scale scale : diatonic.getScales() )
+        {
+            scales++;
+        }
+        assertEquals( TestCatalog.DIATONIC_MODES.length, scales );
+        assertEquals( expectedStrings, services.getFretboardService()
+                .printStrings( fretboard(), 12 ) );
+    }
+
+    private void write( final int round )
+    {
+        Transaction tx = services.beginTx();
+        try
+        {
+            services.getScaleFamilyService().newScaleFamily(
+                    services.getScaleFamilyService().getRootScaleFamily(),
+                    "Family " + round );
+            tx.success();
+        }
+        finally
+        {
+            tx.finish();
+        }
+    }
+
+    private ScaleFamily diatonic()
+    {
+        for ( ScaleFamily family : services.getScaleFamilyService().getRootScaleFamily().getSubFamilies() )
+        {
+            if ( "Diatonic".equals( family.getName() ) )
+            {
+                return family;
+            }
+        }
+        throw new AssertionError( "No diatonic family." );
+    }
+
+    private synchronized Fretboard fretboard()
+    {
+        if ( fretboard == null )
+        {
+            Tuning tuning = services.getTuningFamilyService().getRootTuningFamily().getTunings().iterator().next();
+            fretboard = new Fretboard( tuning, Notes.notes(
+                    services.getNoteService().note( 0 ),
+                    services.getScaleSearchService().find( DORIAN ) ) );
+        }
+        return fretboard;
+    }
+
+    private int countSubFamilies()
+    {
+        int families = 0;
+        for ( ScaleFamily family : services.getScaleFamilyService().getRootScaleFamily().getSubFamilies() )
+        {
+            families++;
+        }
+        return families;
+    }
+}
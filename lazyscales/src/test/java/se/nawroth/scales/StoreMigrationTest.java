@@ -0,0 +1,107 @@
+/**
+ * Copyright (c) 2002-2013 "Neo Technology,"
+ * Network Engine for Objects in Lund AB [http://neotechnology.com]
+ *
+ * This file is part of Neo4j.
+ *
+ * Neo4j is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package se.nawroth.scales;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import org.neo4j.graphdb.Direction;
+import org.neo4j.graphdb.DynamicRelationshipType;
+import org.neo4j.graphdb.Node;
+import org.neo4j.graphdb.Transaction;
+
+import se.nawroth.scales.api.Scale;
+import se.nawroth.scales.api.Tuning;
+
+public class StoreMigrationTest
+{
+    private TestCatalog catalog;
+    private Services services;
+    private Scale ionian;
+    private Tuning tuning;
+
+    @Before
+    public void setUp()
+    {
+        catalog = new TestCatalog();
+        services = catalog.getServices();
+        ionian = catalog.getIonian();
+        tuning = catalog.getStandardTuning();
+    }
+
+    @After
+    public void tearDown()
+    {
+        catalog.shutdown();
+    }
+
+    @Test
+    public void newDatabaseIsCurrent()
+    {
+        StoreMigration migration = new StoreMigration(
+                (GraphCatalogStore) catalog.getCatalogStore() );
+        assertEquals( 0, migration.migrate() );
+        assertEquals( 6, ionian.size() );
+        assertEquals( 6, tuning.size() );
+    }
+
+    @Test
+    public void addsDegreesToOldDatabases()
+    {
+        Node intervalRoot = tuning.getUnderlyingNode()
+                .getSingleRelationship( DynamicRelationshipType.withName( "TUNING_INTERVAL_ROOT" ),
+                        Direction.OUTGOING )
+                .getEndNode();
+        Transaction tx = services.beginTx();
+        try
+        {
+            Node node = ionian.getUnderlyingNode();
+            for ( int i = 0; i < 7; i++ )
+            {
+                node.removeProperty( "degree" );
+                node = node.getRelationships( Direction.OUTGOING )
+                        .iterator()
+                        .next()
+                        .getEndNode();
+            }
+            intervalRoot.removeProperty( "degree" );
+            ( (GraphCatalogStore) catalog.getCatalogStore() ).getGraphDb()
+                    .getReferenceNode()
+                    .setProperty( "store version", 2 );
+            tx.success();
+        }
+        finally
+        {
+            tx.finish();
+        }
+        assertFalse( ionian.getUnderlyingNode()
+                .hasProperty( "degree" ) );
+        catalog.getCatalogStore()
+                .init();
+        assertTrue( intervalRoot.hasProperty( "degree" ) );
+        assertEquals( 7, ionian.getUnderlyingNode()
+                .getProperty( "degree" ) );
+        assertEquals( 6, intervalRoot.getProperty( "degree" ) );
+    }
+}
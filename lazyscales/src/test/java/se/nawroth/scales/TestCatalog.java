@@ -0,0 +1,248 @@
+/**
+ * Copyright (c) 2002-2013 "Neo Technology,"
+ * Network Engine for Objects in Lund AB [http://neotechnology.com]
+ *
+ * This file is part of Neo4j.
+ *
+ * Neo4j is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package se.nawroth.scales;
+
+import static se.nawroth.scales.api.DiatonicInterval.FOURTH;
+import static se.nawroth.scales.api.DiatonicInterval.MAJOR_SECOND;
+import static se.nawroth.scales.api.DiatonicInterval.MAJOR_THIRD;
+import static se.nawroth.scales.api.DiatonicInterval.MINOR_SECOND;
+
+import org.neo4j.graphdb.Transaction;
+import org.neo4j.test.ImpermanentGraphDatabase;
+
+import se.nawroth.scales.api.Note;
+import se.nawroth.scales.api.Scale;
+import se.nawroth.scales.api.ScaleFamily;
+import se.nawroth.scales.api.Tuning;
+import se.nawroth.scales.note.NoteRepository;
+
+/**
+ * Small catalog for the tests, kept in an in-memory database unless another
+ * {@link CatalogStore} is given. It contains a "Diatonic" scale family with
+ * Ionian and optionally its other modes, and a standard guitar tuning in the
+ * root tuning family.
+ * 
+ * @author Anders Nawroth
+ */
+public final class TestCatalog
+{
+    /**
+     * The names of the diatonic modes, starting from Ionian.
+     */
+    public static final String[] DIATONIC_MODES = { "Ionian", "Dorian",
+            "Phrygian", "Lydian", "Mixolydian", "Aeolian", "Locrian" };
+    private final ImpermanentGraphDatabase graphDb;
+    private final LazyScales lazyScales;
+    private final ScaleFamily diatonic;
+    private final Scale ionian;
+    private final Tuning standardTuning;
+
+    /**
+     * Create a catalog with Ionian as the only diatonic mode.
+     */
+    public TestCatalog()
+    {
+        this( DIATONIC_MODES[0] );
+    }
+
+    /**
+     * Create the catalog.
+     * 
+     * @param modes the names of the diatonic modes to add, starting from
+     *            Ionian
+     */
+    public TestCatalog( final String... modes )
+    {
+        this( new ImpermanentGraphDatabase(), modes );
+    }
+
+    /**
+     * Create a catalog with Ionian as the only diatonic mode, in a given store.
+     * 
+     * @param store the store to use, which must not be started yet
+     */
+    public TestCatalog( final CatalogStore store )
+    {
+        this( store, DIATONIC_MODES[0] );
+    }
+
+    /**
+     * Create the catalog in a given store.
+     * 
+     * @param store the store to use, which must not be started yet
+     * @param modes the names of the diatonic modes to add, starting from
+     *            Ionian
+     */
+    public TestCatalog( final CatalogStore store, final String... modes )
+    {
+        this( null, store, modes );
+    }
+
+    private TestCatalog( final ImpermanentGraphDatabase graphDb,
+            final String... modes )
+    {
+        this( graphDb, new GraphCatalogStore( graphDb ), modes );
+    }
+
+    private TestCatalog( final ImpermanentGraphDatabase graphDb,
+            final CatalogStore store, final String... modes )
+    {
+        this.graphDb = graphDb;
+        lazyScales = new LazyScales( store );
+        lazyScales.start();
+        lazyScales.init();
+        Services services = lazyScales.getServices();
+        Transaction tx = services.beginTx();
+        try
+        {
+            diatonic = services.getScaleFamilyService()
+                    .newScaleFamily( services.getScaleFamilyService()
+                            .getRootScaleFamily(), "Diatonic" );
+            ionian = services.getScaleService()
+                    .newScales( diatonic, modes, MAJOR_SECOND, MAJOR_SECOND,
+                            MINOR_SECOND, MAJOR_SECOND, MAJOR_SECOND,
+                            MAJOR_SECOND, MINOR_SECOND );
+            standardTuning = services.getTuningService()
+                    .newTuning( services.getTuningFamilyService()
+                            .getRootTuningFamily(), "Standard",
+                            note( NoteRepository.E ), FOURTH, FOURTH, FOURTH,
+                            MAJOR_THIRD, FOURTH );
+            tx.success();
+        }
+        finally
+        {
+            tx.finish();
+        }
+    }
+
+    /**
+     * Get the underlying database.
+     * 
+     * @return the database, or <code>null</code> if the catalog was created in
+     *         a given store
+     */
+    public ImpermanentGraphDatabase getGraphDb()
+    {
+        return graphDb;
+    }
+
+    /**
+     * Get the application the catalog is kept in.
+     * 
+     * @return the application
+     */
+    public LazyScales getLazyScales()
+    {
+        return lazyScales;
+    }
+
+    /**
+     * Get the store of the catalog.
+     * 
+     * @return the store
+     */
+    public CatalogStore getCatalogStore()
+    {
+        return lazyScales.getCatalogStore();
+    }
+
+    /**
+     * Get the services of the underlying database.
+     * 
+     * @return the services
+     */
+    public Services getServices()
+    {
+        return lazyScales.getServices();
+    }
+
+    /**
+     * Get a note of the catalog.
+     * 
+     * @param pitchClass the pitch class of the note
+     * @return the note
+     */
+    public Note note( final int pitchClass )
+    {
+        return lazyScales.getServices()
+                .getNoteService()
+                .note( pitchClass );
+    }
+
+    /**
+     * Get a note of the catalog.
+     * 
+     * @param noteRepresentation the note to get
+     * @return the note
+     */
+    public Note note( final NoteRepository noteRepresentation )
+    {
+        return lazyScales.getServices()
+                .getNoteService()
+                .note( noteRepresentation );
+    }
+
+    /**
+     * Get the family of the diatonic modes.
+     * 
+     * @return the diatonic family
+     */
+    public ScaleFamily getDiatonicFamily()
+    {
+        return diatonic;
+    }
+
+    /**
+     * Get the Ionian scale.
+     * 
+     * @return the Ionian scale
+     */
+    public Scale getIonian()
+    {
+        return ionian;
+    }
+
+    /**
+     * Get the standard guitar tuning.
+     * 
+     * @return the standard tuning
+     */
+    public Tuning getStandardTuning()
+    {
+        return standardTuning;
+    }
+
+    /**
+     * Stop the store and start it again, which drops the services.
+     */
+    public void restart()
+    {
+        lazyScales.stop();
+        lazyScales.start();
+    }
+
+    /**
+     * Shut down the underlying database.
+     */
+    public void shutdown()
+    {
+        lazyScales.stop();
+    }
+}
@@ -0,0 +1,83 @@
+/**
+ * Copyright (c) 2002-2013 "Neo Technology,"
+ * Network Engine for Objects in Lund AB [http://neotechnology.com]
+ *
+ * This file is part of Neo4j.
+ *
+ * Neo4j is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package se.nawroth.scales.api;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+import org.junit.Test;
+
+public class PitchClassSetTest
+{
+    private static final PitchClassSet C_MAJOR = PitchClassSet.fromSteps( 0,
+            2, 2, 1, 2, 2, 2 );
+
+    @Test
+    public void buildsMaskFromSteps()
+    {
+        assertEquals( 0xAB5, C_MAJOR.getMask() );
+        assertEquals( 7, C_MAJOR.size() );
+        assertTrue( C_MAJOR.contains( 4 ) );
+        assertFalse( C_MAJOR.contains( 3 ) );
+        assertTrue( C_MAJOR.contains( -1 ) );
+    }
+
+    @Test
+    public void iteratesFromTheRoot()
+    {
+        PitchClassSet dMinor = C_MAJOR.rotate( 1 );
+        assertEquals( 2, dMinor.getRoot() );
+        int[] expected = new int[] { 2, 4, 5, 7, 9, 11, 0 };
+        int index = 0;
+        for ( int pc = dMinor.first(); pc != -1; pc = dMinor.next( pc ) )
+        {
+            assertEquals( expected[index++], pc );
+        }
+        assertEquals( expected.length, index );
+        assertEquals( -1, PitchClassSet.EMPTY.first() );
+    }
+
+    @Test
+    public void transposesAndRotates()
+    {
+        PitchClassSet gMajor = C_MAJOR.transpose( 7 );
+        assertEquals( 7, gMajor.getRoot() );
+        assertTrue( gMajor.contains( 6 ) );
+        assertFalse( gMajor.contains( 5 ) );
+        assertEquals( C_MAJOR.getRelativeMask(), gMajor.getRelativeMask() );
+        assertEquals( C_MAJOR, C_MAJOR.transpose( -12 ) );
+        assertEquals( C_MAJOR, C_MAJOR.rotate( 7 ) );
+        assertEquals( 2, C_MAJOR.stepFrom( 0 ) );
+        assertEquals( 1, C_MAJOR.stepFrom( 11 ) );
+    }
+
+    @Test
+    public void combinesSets()
+    {
+        PitchClassSet cMajorTriad = PitchClassSet.fromSteps( 0, 4, 3 );
+        assertTrue( cMajorTriad.isSubsetOf( C_MAJOR ) );
+        assertFalse( C_MAJOR.isSubsetOf( cMajorTriad ) );
+        assertEquals( cMajorTriad, C_MAJOR.intersection( cMajorTriad ) );
+        assertEquals( C_MAJOR, C_MAJOR.union( cMajorTriad ) );
+        assertEquals( 8, C_MAJOR.union( C_MAJOR.transpose( 7 ) )
+                .size() );
+    }
+}
@@ -0,0 +1,221 @@
+/**
+ * Copyright (c) 2002-2013 "Neo Technology,"
+ * Network Engine for Objects in Lund AB [http://neotechnology.com]
+ *
+ * This file is part of Neo4j.
+ *
+ * Neo4j is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package se.nawroth.scales.catalog;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.fail;
+import static se.nawroth.scales.api.DiatonicInterval.MAJOR_SECOND;
+import static se.nawroth.scales.api.DiatonicInterval.MINOR_SECOND;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.StringReader;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Iterator;
+import java.util.List;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import org.neo4j.graphdb.Transaction;
+import org.neo4j.kernel.impl.util.FileUtils;
+
+import se.nawroth.scales.LazyScales;
+import se.nawroth.scales.Services;
+import se.nawroth.scales.api.Note;
+import se.nawroth.scales.api.Scale;
+import se.nawroth.scales.api.ScaleFamily;
+import se.nawroth.scales.api.Tuning;
+import se.nawroth.scales.api.TuningFamily;
+import se.nawroth.scales.note.NoteRepository;
+import se.nawroth.scales.util.NamedEntity;
+
+public class BatchCatalogLoaderTest
+{
+    private static final String STORE_DIR = "target/catalog-test-db";
+    private static final String CATALOG = "# test catalog\n"
+                                          + "version | 1.0\n"
+                                          + "scale family | Diatonic\n"
+                                          + "scale family | Diatonic/Major Scale Modes\n"
+                                          + "scales | Diatonic/Major Scale Modes | 2 2 1 2 2 2 1 | Ionian | Dorian\n"
+                                          + "scales | Diatonic | 2 1 2 2 1 2 2 | Aeolian\n"
+                                          + "scales | Diatonic | 2 2 2 2 2 2 | Whole Tone\n"
+                                          + "\n"
+                                          + "tuning family | Guitar\n"
+                                          + "tuning | Guitar | E♭ tuning | E_FLAT | 5 5 5 4 5\n"
+                                          + "tuning | Guitar | Standard | E | 5 5 5 4 5\n";
+    private LazyScales app;
+
+    @Before
+    public void setUp() throws IOException
+    {
+        FileUtils.deleteRecursively( new File( STORE_DIR ) );
+    }
+
+    @After
+    public void tearDown()
+    {
+        if ( app != null )
+        {
+            app.stop();
+        }
+    }
+
+    @Test
+    public void loadsCatalogReadableByServices() throws IOException
+    {
+        BatchCatalogLoader loader = new BatchCatalogLoader( STORE_DIR );
+        try
+        {
+            assertEquals( 9, loader.load( new StringReader( CATALOG ) ) );
+            // chromatic, major modes and whole tone; aeolian is a major mode
+            assertEquals( 3, loader.getRingCount() );
+        }
+        finally
+        {
+            loader.shutdown();
+        }
+
+        app = new LazyScales( STORE_DIR );
+        app.start();
+        app.init();
+        assertEquals( "1.0", app.getCatalogVersion() );
+        Services services = app.getServices();
+        Transaction tx = services.beginTx();
+        try
+        {
+            ScaleFamily root = services.getScaleFamilyService()
+                    .getRootScaleFamily();
+            assertEquals( "Scale families", root.getName() );
+            assertEquals( "[Chromatic, Diatonic]", names( root.getSubFamilies() ) );
+            ScaleFamily diatonic = child( root.getSubFamilies(), "Diatonic" );
+            assertEquals( "[Aeolian, Whole Tone]", names( diatonic.getScales() ) );
+            assertEquals( "[Dorian, Ionian]", names( child(
+                    diatonic.getSubFamilies(), "Major Scale Modes" ).getScales() ) );
+
+            Scale dorian = services.getScaleSearchService()
+                    .find( MAJOR_SECOND, MINOR_SECOND, MAJOR_SECOND,
+                            MAJOR_SECOND, MAJOR_SECOND, MINOR_SECOND,
+                            MAJOR_SECOND );
+            assertNotNull( dorian );
+            assertEquals( "Dorian", dorian.getName() );
+            assertEquals( 6, dorian.size() );
+            assertEquals( 0x6AD, dorian.getPitchClassSet()
+                    .getMask() );
+
+            Note a = services.getNoteService()
+                    .note( NoteRepository.A );
+            assertEquals( 9, a.getPitchClass() );
+
+            TuningFamily guitar = child( services.getTuningFamilyService()
+                    .getRootTuningFamily()
+                    .getSubFamilies(), "Guitar" );
+            List<Tuning> tunings = list( guitar.getTunings() );
+            assertEquals( 2, tunings.size() );
+            for ( Tuning tuning : tunings )
+            {
+                assertEquals( 6, tuning.size() );
+            }
+            Tuning standard = child( tunings, "Standard" );
+            Iterator<Note> strings = standard.iterator();
+            assertEquals( 4, strings.next()
+                    .getPitchClass() );
+            assertEquals( a, strings.next() );
+            tx.success();
+        }
+        finally
+        {
+            tx.finish();
+        }
+    }
+
+    @Test
+    public void readsVersion() throws IOException
+    {
+        assertEquals( "1.0",
+                CatalogReader.readVersion( new StringReader( CATALOG ) ) );
+        assertNull( CatalogReader.readVersion( new StringReader(
+                "scale family | Diatonic\n" ) ) );
+    }
+
+    @Test
+    public void rejectsUndeclaredFamily() throws IOException
+    {
+        BatchCatalogLoader loader = new BatchCatalogLoader( STORE_DIR );
+        try
+        {
+            loader.load( new StringReader( "version | 1.0\n"
+                                           + "scales | Diatonic | 2 2 1 2 2 2 1 | Ionian\n" ) );
+            fail( "The family was never declared." );
+        }
+        catch ( IllegalArgumentException e )
+        {
+            assertEquals( "Line [2]: The family has to be declared before it is used: [Diatonic]",
+                    e.getMessage() );
+        }
+        finally
+        {
+            loader.shutdown();
+        }
+
+        // a failed load must not look like an imported catalog
+        app = new LazyScales( STORE_DIR );
+        app.start();
+        assertNull( app.getCatalogVersion() );
+    }
+
+    private static <T> List<T> list( final Iterable<T> elements )
+    {
+        List<T> list = new ArrayList<T>();
+        for ( T element : elements )
+        {
+            list.add( element );
+        }
+        return list;
+    }
+
+    private static String names(
+            final Iterable<? extends NamedEntity<?>> entities )
+    {
+        List<String> names = new ArrayList<String>();
+        for ( NamedEntity<?> entity : entities )
+        {
+            names.add( entity.getName() );
+        }
+        Collections.sort( names );
+        return names.toString();
+    }
+
+    private static <T extends NamedEntity<T>> T child(
+            final Iterable<T> entities, final String name )
+    {
+        for ( T entity : entities )
+        {
+            if ( name.equals( entity.getName() ) )
+            {
+                return entity;
+            }
+        }
+        throw new AssertionError( "Missing: " + name );
+    }
+}
@@ -0,0 +1,225 @@
+/**
+ * Copyright (c) 2002-2013 "Neo Technology,"
+ * Network Engine for Objects in Lund AB [http://neotechnology.com]
+ *
+ * This file is part of Neo4j.
+ *
+ * Neo4j is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package se.nawroth.scales.chord;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+import static se.nawroth.scales.api.DiatonicInterval.FIFTH;
+import static se.nawroth.scales.api.DiatonicInterval.FOURTH;
+import static se.nawroth.scales.api.DiatonicInterval.MAJOR_SECOND;
+import static se.nawroth.scales.api.DiatonicInterval.MAJOR_SIXTH;
+import static se.nawroth.scales.api.DiatonicInterval.MAJOR_THIRD;
+import static se.nawroth.scales.api.DiatonicInterval.MINOR_SEVENTH;
+import static se.nawroth.scales.api.DiatonicInterval.MINOR_THIRD;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Set;
+import java.util.TreeSet;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import org.neo4j.graphdb.Transaction;
+
+import se.nawroth.scales.Services;
+import se.nawroth.scales.TestCatalog;
+import se.nawroth.scales.api.Chord;
+import se.nawroth.scales.api.ChordFamily;
+import se.nawroth.scales.api.NamedInterval;
+import se.nawroth.scales.api.Note;
+
+public class ChordServiceTest
+{
+    private TestCatalog catalog;
+    private Services services;
+    private ChordFamily triads;
+    private Chord major;
+
+    @Before
+    public void setUp()
+    {
+        catalog = new TestCatalog();
+        services = catalog.getServices();
+        Transaction tx = services.beginTx();
+        try
+        {
+            ChordService chords = services.getChordService();
+            ChordFamilyService families = services.getChordFamilyService();
+            triads = families.newChordFamily( families.getRootChordFamily(),
+                    "Triads" );
+            major = chords.newChord( triads, "Major", MAJOR_THIRD, FIFTH );
+            chords.newChord( triads, "Minor", MINOR_THIRD, FIFTH );
+            ChordFamily sevenths = families.newChordFamily(
+                    families.getRootChordFamily(), "Sevenths and sixths" );
+            chords.newChord( sevenths, "Dominant seventh", MAJOR_THIRD, FIFTH,
+                    MINOR_SEVENTH );
+            chords.newChord( sevenths, "Minor seventh", MINOR_THIRD, FIFTH,
+                    MINOR_SEVENTH );
+            chords.newChord( sevenths, "Major sixth", MAJOR_THIRD, FIFTH,
+                    MAJOR_SIXTH );
+            tx.success();
+        }
+        finally
+        {
+            tx.finish();
+        }
+    }
+
+    @After
+    public void tearDown()
+    {
+        catalog.shutdown();
+    }
+
+    @Test
+    public void iteratesOverTheIntervals()
+    {
+        List<NamedInterval> intervals = new ArrayList<NamedInterval>( major );
+        assertEquals( Arrays.<NamedInterval>asList( MAJOR_THIRD, FIFTH ),
+                intervals );
+        assertEquals( 2, major.size() );
+        assertEquals( 0x91, major.getPitchClassSet()
+                .getMask() );
+        assertEquals( "Major", major.getName() );
+    }
+
+    @Test
+    public void navigatesFamilies()
+    {
+        List<String> families = new ArrayList<String>();
+        for ( ChordFamily family : services.getChordFamilyService()
+                .getRootChordFamily()
+                .getSubFamilies() )
+        {
+            families.add( family.getName() );
+        }
+        assertTrue( families.contains( "Triads" ) );
+        assertEquals( 2, families.size() );
+        List<String> chords = new ArrayList<String>();
+        for ( Chord chord : triads.getChords() )
+        {
+            chords.add( chord.getName() );
+        }
+        assertTrue( chords.contains( "Major" ) );
+        assertTrue( chords.contains( "Minor" ) );
+        assertEquals( 2, chords.size() );
+    }
+
+    @Test
+    public void identifiesInversions()
+    {
+        assertMatch( "Major", 0, 0, identify( 0, 4, 7 ) );
+        assertMatch( "Major", 0, 1, identify( 4, 7, 0 ) );
+        assertMatch( "Major", 0, 2, identify( 7, 0, 4 ) );
+        assertMatch( "Minor", 9, 1, identify( 0, 4, 9, 4 ) );
+        assertMatch( "Dominant seventh", 7, 3, identify( 5, 7, 11, 2 ) );
+    }
+
+    @Test
+    public void listsEveryInterpretation()
+    {
+        List<ChordMatch> matches = identify( 9, 0, 4, 7 );
+        assertEquals( 2, matches.size() );
+        assertMatch( "Minor seventh", 9, 0, matches.subList( 0, 1 ) );
+        assertMatch( "Major sixth", 0, 3, matches.subList( 1, 2 ) );
+    }
+
+    @Test
+    public void findsNothingForUnknownChords()
+    {
+        assertTrue( identify( 0, 1, 2 ).isEmpty() );
+    }
+
+    @Test
+    public void keepsChordsWithTheSameNameApart()
+    {
+        Set<Chord> chords = new TreeSet<Chord>();
+        Transaction tx = services.beginTx();
+        try
+        {
+            chords.add( services.getChordService()
+                    .newChord( triads, "Suspended", MAJOR_SECOND, FIFTH ) );
+            chords.add( services.getChordService()
+                    .newChord( triads, "Suspended", FOURTH, FIFTH ) );
+            tx.success();
+        }
+        finally
+        {
+            tx.finish();
+        }
+        assertEquals( 2, chords.size() );
+    }
+
+    @Test( expected = IllegalArgumentException.class )
+    public void refusesDuplicatePitchClasses()
+    {
+        Transaction tx = services.beginTx();
+        try
+        {
+            services.getChordService()
+                    .newChord( triads, "Broken", MAJOR_THIRD, MAJOR_THIRD );
+        }
+        finally
+        {
+            tx.finish();
+        }
+    }
+
+    @Test( expected = IllegalArgumentException.class )
+    public void refusesDuplicateChords()
+    {
+        Transaction tx = services.beginTx();
+        try
+        {
+            services.getChordService()
+                    .newChord( triads, "Major again", FIFTH, MAJOR_THIRD );
+        }
+        finally
+        {
+            tx.finish();
+        }
+    }
+
+    private List<ChordMatch> identify( final int... pitchClasses )
+    {
+        Note[] notes = new Note[pitchClasses.length];
+        for ( int i = 0; i < notes.length; i++ )
+        {
+            notes[i] = services.getNoteService()
+                    .note( pitchClasses[i] );
+        }
+        return services.getChordService()
+                .identify( notes );
+    }
+
+    private static void assertMatch( final String name, final int root,
+            final int inversion, final List<ChordMatch> matches )
+    {
+        assertEquals( 1, matches.size() );
+        ChordMatch match = matches.get( 0 );
+        assertEquals( name, match.getChord()
+                .getName() );
+        assertEquals( root, match.getRoot()
+                .getPitchClass() );
+        assertEquals( inversion, match.getInversion() );
+    }
+}
@@ -0,0 +1,164 @@
+/**
+ * Copyright (c) 2002-2013 "Neo Technology,"
+ * Network Engine for Objects in Lund AB [http://neotechnology.com]
+ *
+ * This file is part of Neo4j.
+ *
+ * Neo4j is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package se.nawroth.scales.fretboard;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import org.neo4j.graphdb.Transaction;
+
+import se.nawroth.scales.Services;
+import se.nawroth.scales.TestCatalog;
+import se.nawroth.scales.api.Scale;
+import se.nawroth.scales.api.Tuning;
+import se.nawroth.scales.note.NoteRepository;
+import se.nawroth.scales.note.Notes;
+
+public class FingeringOptimizerTest
+{
+    private TestCatalog catalog;
+    private Services services;
+    private Scale ionian;
+    private Tuning standard;
+    private Tuning flat;
+
+    @Before
+    public void setUp()
+    {
+        catalog = new TestCatalog();
+        services = catalog.getServices();
+        ionian = catalog.getIonian();
+        standard = catalog.getStandardTuning();
+        Transaction tx = services.beginTx();
+        try
+        {
+            flat = services.getTuningService()
+                    .newTuning( services.getTuningFamilyService()
+                            .getRootTuningFamily(), "E♭ tuning",
+                            catalog.note( NoteRepository.E_FLAT ), standard );
+            tx.success();
+        }
+        finally
+        {
+            tx.finish();
+        }
+    }
+
+    @After
+    public void tearDown()
+    {
+        catalog.shutdown();
+    }
+
+    @Test
+    public void findsTheFiveCagedShapes()
+    {
+        List<PositionPattern> shapes = patterns( NoteRepository.C, standard,
+                PatternStyle.CAGED );
+        List<Integer> positions = new ArrayList<Integer>();
+        for ( PositionPattern shape : shapes )
+        {
+            positions.add( shape.getPosition() );
+            assertPlaysTheScale( shape );
+        }
+        assertEquals( "[1, 3, 5, 8, 10]", positions.toString() );
+    }
+
+    @Test
+    public void playsThreeNotesOnEveryString()
+    {
+        List<PositionPattern> patterns = patterns( NoteRepository.G,
+                standard, PatternStyle.THREE_NOTES_PER_STRING );
+        assertEquals( 7, patterns.size() );
+        for ( PositionPattern pattern : patterns )
+        {
+            for ( int string = 0; string < pattern.getStringCount(); string++ )
+            {
+                assertEquals( 3, pattern.getFrets( string ).length );
+            }
+            assertPlaysTheScale( pattern );
+        }
+        // G major from F sharp on the second fret of the low E string
+        PositionPattern first = patterns.get( 0 );
+        assertEquals( 2, first.getPosition() );
+        assertEquals( "3 5 7\n3 5 7\n2 4 5\n2 4 5\n2 3 5\n2 3 5\n",
+                first.toString() );
+    }
+
+    @Test
+    public void keepsTheHandInPlaceInABox()
+    {
+        for ( PositionPattern box : patterns( NoteRepository.A, standard,
+                PatternStyle.BOX ) )
+        {
+            assertPlaysTheScale( box );
+            for ( int string = 0; string < box.getStringCount(); string++ )
+            {
+                for ( int fret : box.getFrets( string ) )
+                {
+                    assertTrue( fret == 0 || fret >= box.getPosition() - 1 );
+                    assertTrue( fret <= box.getPosition()
+                                        + FingeringCost.DEFAULT.getHandSpan() );
+                }
+            }
+        }
+    }
+
+    @Test
+    public void sharesPatternsBetweenEqualLayouts()
+    {
+        assertSame( patterns( NoteRepository.C, standard, PatternStyle.BOX ),
+                patterns( NoteRepository.B, flat, PatternStyle.BOX ) );
+    }
+
+    private List<PositionPattern> patterns( final NoteRepository root,
+            final Tuning tuning, final PatternStyle style )
+    {
+        return services.getFretboardService()
+                .getPatterns( Notes.notes( catalog.note( root ), ionian ),
+                        tuning, style, FingeringCost.DEFAULT );
+    }
+
+    /**
+     * Every note of the pattern is in the scale, and the notes ascend from
+     * the lowest string to the highest.
+     */
+    private void assertPlaysTheScale( final PositionPattern pattern )
+    {
+        int[] openPitches = { 4, 9, 14, 19, 23, 28 };
+        int previous = Integer.MIN_VALUE;
+        for ( int string = pattern.getStringCount() - 1; string >= 0; string-- )
+        {
+            for ( int fret : pattern.getFrets( string ) )
+            {
+                int pitch = openPitches[5 - string] + fret;
+                assertTrue( pattern.toString(), pitch > previous );
+                previous = pitch;
+            }
+        }
+    }
+}
@@ -0,0 +1,137 @@
+/**
+ * Copyright (c) 2002-2013 "Neo Technology,"
+ * Network Engine for Objects in Lund AB [http://neotechnology.com]
+ *
+ * This file is part of Neo4j.
+ *
+ * Neo4j is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package se.nawroth.scales.fretboard;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertSame;
+import static se.nawroth.scales.api.DiatonicInterval.FOURTH;
+import static se.nawroth.scales.api.DiatonicInterval.MAJOR_SECOND;
+import static se.nawroth.scales.api.DiatonicInterval.MAJOR_THIRD;
+import static se.nawroth.scales.api.DiatonicInterval.MINOR_THIRD;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import org.neo4j.graphdb.Transaction;
+
+import se.nawroth.scales.Services;
+import se.nawroth.scales.TestCatalog;
+import se.nawroth.scales.api.Note;
+import se.nawroth.scales.api.Scale;
+import se.nawroth.scales.api.Tuning;
+import se.nawroth.scales.note.NoteRepository;
+import se.nawroth.scales.note.Notes;
+
+public class FretboardGridTest
+{
+    private TestCatalog catalog;
+    private Services services;
+    private List<Scale> scales;
+    private List<Tuning> tunings;
+    private List<Note> roots;
+
+    @Before
+    public void setUp()
+    {
+        catalog = new TestCatalog();
+        services = catalog.getServices();
+        Transaction tx = services.beginTx();
+        try
+        {
+            Scale penta = services.getScaleService()
+                    .newScale( services.getScaleFamilyService()
+                            .getRootScaleFamily(), "Minor Pentatonic",
+                            MINOR_THIRD, MAJOR_SECOND, MAJOR_SECOND,
+                            MINOR_THIRD, MAJOR_SECOND );
+            scales = Arrays.asList( catalog.getIonian(), penta );
+            Tuning sevenString = services.getTuningService()
+                    .newTuning( services.getTuningFamilyService()
+                            .getRootTuningFamily(), "Seven string",
+                            catalog.note( NoteRepository.B ), FOURTH, FOURTH,
+                            FOURTH, FOURTH, MAJOR_THIRD, FOURTH );
+            tunings = Arrays.asList( catalog.getStandardTuning(), sevenString );
+            tx.success();
+        }
+        finally
+        {
+            tx.finish();
+        }
+        roots = new ArrayList<Note>();
+        for ( int pitchClass = 0; pitchClass < 12; pitchClass++ )
+        {
+            roots.add( catalog.note( pitchClass ) );
+        }
+    }
+
+    @After
+    public void tearDown()
+    {
+        catalog.shutdown();
+    }
+
+    @Test
+    public void matchesSingleFretboards()
+    {
+        FretboardService fretboardService = services.getFretboardService();
+        FretboardGrid grid = fretboardService.getMatrices( tunings, scales,
+                roots );
+        assertEquals( 48, grid.size() );
+        for ( Tuning tuning : tunings )
+        {
+            for ( Scale scale : scales )
+            {
+                for ( Note root : roots )
+                {
+                    FretboardMatrix expected = fretboardService.getMatrix( new Fretboard(
+                            tuning, Notes.notes( root, scale ) ) );
+                    FretboardMatrix actual = grid.get( tuning, scale, root );
+                    assertEquals( expected.getStringCount(),
+                            actual.getStringCount() );
+                    for ( int string = 0; string < expected.getStringCount(); string++ )
+                    {
+                        for ( int fret = 0; fret < 12; fret++ )
+                        {
+                            assertEquals( expected.pitchClassAt( string, fret ),
+                                    actual.pitchClassAt( string, fret ) );
+                            assertEquals( expected.inScale( string, fret ),
+                                    actual.inScale( string, fret ) );
+                            assertEquals( expected.noteAt( string, fret ),
+                                    actual.noteAt( string, fret ) );
+                        }
+                    }
+                }
+            }
+        }
+        assertSame( grid.get( 1, 0, 3 ), grid.get( tunings.get( 1 ),
+                scales.get( 0 ), roots.get( 3 ) ) );
+    }
+
+    @Test( expected = IllegalArgumentException.class )
+    public void rejectsUnknownRoots()
+    {
+        services.getFretboardService()
+                .getMatrices( tunings, scales, roots.subList( 0, 2 ) )
+                .get( tunings.get( 0 ), scales.get( 0 ), roots.get( 5 ) );
+    }
+}
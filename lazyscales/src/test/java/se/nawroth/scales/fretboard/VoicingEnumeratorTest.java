@@ -0,0 +1,168 @@
+/**
+ * Copyright (c) 2002-2013 "Neo Technology,"
+ * Network Engine for Objects in Lund AB [http://neotechnology.com]
+ *
+ * This file is part of Neo4j.
+ *
+ * Neo4j is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package se.nawroth.scales.fretboard;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+import static se.nawroth.scales.api.DiatonicInterval.FIFTH;
+import static se.nawroth.scales.api.DiatonicInterval.MAJOR_THIRD;
+
+import java.util.HashSet;
+import java.util.Iterator;
+import java.util.Set;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import org.neo4j.graphdb.Direction;
+import org.neo4j.graphdb.Transaction;
+
+import se.nawroth.scales.Services;
+import se.nawroth.scales.TestCatalog;
+import se.nawroth.scales.api.Chord;
+import se.nawroth.scales.api.Note;
+import se.nawroth.scales.api.Tuning;
+import se.nawroth.scales.api.Types;
+import se.nawroth.scales.chord.ChordFamilyService;
+import se.nawroth.scales.note.NoteRepository;
+import se.nawroth.scales.note.Notes;
+import se.nawroth.scales.scale.ScaleImpl;
+
+public class VoicingEnumeratorTest
+{
+    private static final VoicingLimits LIMITS = new VoicingLimits( 7, 4, true );
+    private TestCatalog catalog;
+    private Services services;
+    private Chord major;
+    private Tuning standard;
+    private Note c;
+
+    @Before
+    public void setUp()
+    {
+        catalog = new TestCatalog();
+        services = catalog.getServices();
+        standard = catalog.getStandardTuning();
+        c = catalog.note( NoteRepository.C );
+        Transaction tx = services.beginTx();
+        try
+        {
+            ChordFamilyService families = services.getChordFamilyService();
+            major = services.getChordService()
+                    .newChord( families.getRootChordFamily(), "Major",
+                            MAJOR_THIRD, FIFTH );
+            tx.success();
+        }
+        finally
+        {
+            tx.finish();
+        }
+    }
+
+    @After
+    public void tearDown()
+    {
+        catalog.shutdown();
+    }
+
+    @Test
+    public void findsTheOpenChord()
+    {
+        Set<String> tabs = new HashSet<String>();
+        Iterator<Voicing> voicings = services.getFretboardService()
+                .getVoicings( major, c, standard, LIMITS );
+        while ( voicings.hasNext() )
+        {
+            tabs.add( voicings.next()
+                    .toString() );
+        }
+        assertTrue( tabs.contains( "x32010" ) );
+        assertTrue( tabs.contains( "332010" ) );
+        assertTrue( tabs.contains( "x35553" ) );
+    }
+
+    @Test
+    public void findsTheSameVoicingsAsAFullScan()
+    {
+        FretboardMatrix matrix = services.getFretboardService()
+                .getMatrix( new Fretboard( standard, Notes.notes( c,
+                        new ScaleImpl( catalog.getGraphDb()
+                                .getReferenceNode()
+                                .getSingleRelationship( Types.CHROMATIC_SCALE,
+                                        Direction.OUTGOING )
+                                .getEndNode() ) ) ) );
+        int mask = major.getPitchClassSet()
+                .getMask();
+        Set<Voicing> expected = new HashSet<Voicing>();
+        scan( matrix, mask, new int[matrix.getStringCount()], 0, expected );
+
+        Set<Voicing> found = new HashSet<Voicing>();
+        int count = 0;
+        Iterator<Voicing> voicings = services.getFretboardService()
+                .getVoicings( major, c, standard, LIMITS );
+        while ( voicings.hasNext() )
+        {
+            found.add( voicings.next() );
+            count++;
+        }
+        assertEquals( expected, found );
+        assertEquals( expected.size(), count );
+    }
+
+    private static void scan( final FretboardMatrix matrix, final int mask,
+            final int[] frets, final int string, final Set<Voicing> result )
+    {
+        if ( string == frets.length )
+        {
+            int covered = 0;
+            int lowest = Integer.MAX_VALUE;
+            int highest = 0;
+            for ( int i = 0; i < frets.length; i++ )
+            {
+                if ( frets[i] == Voicing.MUTED )
+                {
+                    continue;
+                }
+                int pitchClass = matrix.pitchClassAt( i, frets[i] );
+                if ( ( mask & 1 << pitchClass ) == 0 )
+                {
+                    return;
+                }
+                covered |= 1 << pitchClass;
+                if ( frets[i] > 0 )
+                {
+                    lowest = Math.min( lowest, frets[i] );
+                    highest = Math.max( highest, frets[i] );
+                }
+            }
+            if ( covered == mask
+                 && ( highest == 0 || highest - lowest < LIMITS.getMaxStretch() ) )
+            {
+                result.add( new Voicing( frets.clone(), matrix ) );
+            }
+            return;
+        }
+        for ( int fret = Voicing.MUTED; fret <= LIMITS.getMaxFret(); fret++ )
+        {
+            frets[string] = fret;
+            scan( matrix, mask, frets, string + 1, result );
+        }
+    }
+}
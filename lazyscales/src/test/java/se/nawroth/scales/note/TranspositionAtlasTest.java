@@ -0,0 +1,148 @@
+/**
+ * Copyright (c) 2002-2013 "Neo Technology,"
+ * Network Engine for Objects in Lund AB [http://neotechnology.com]
+ *
+ * This file is part of Neo4j.
+ *
+ * Neo4j is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package se.nawroth.scales.note;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotSame;
+import static org.junit.Assert.assertTrue;
+import static se.nawroth.scales.api.DiatonicInterval.MAJOR_SECOND;
+import static se.nawroth.scales.api.DiatonicInterval.MINOR_THIRD;
+
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.List;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import org.neo4j.graphdb.Transaction;
+
+import se.nawroth.scales.Services;
+import se.nawroth.scales.TestCatalog;
+import se.nawroth.scales.api.Note;
+import se.nawroth.scales.api.Scale;
+
+public class TranspositionAtlasTest
+{
+    private TestCatalog catalog;
+    private Services services;
+    private TranspositionAtlas atlas;
+    private List<Scale> scales;
+
+    @Before
+    public void setUp()
+    {
+        catalog = new TestCatalog();
+        services = catalog.getServices();
+        atlas = services.getTranspositionAtlas();
+        scales = new ArrayList<Scale>();
+        scales.add( catalog.getIonian() );
+        Transaction tx = services.beginTx();
+        try
+        {
+            scales.add( services.getScaleService()
+                    .newScale( catalog.getDiatonicFamily(), "Minor pentatonic",
+                            MINOR_THIRD, MAJOR_SECOND, MAJOR_SECOND,
+                            MINOR_THIRD, MAJOR_SECOND ) );
+            tx.success();
+        }
+        finally
+        {
+            tx.finish();
+        }
+    }
+
+    @After
+    public void tearDown()
+    {
+        catalog.shutdown();
+    }
+
+    @Test
+    public void matchesComputedNotesAtEveryRoot()
+    {
+        assertTrue( atlas.build() >= scales.size() );
+        for ( Scale scale : scales )
+        {
+            for ( int pitchClass = 0; pitchClass < 12; pitchClass++ )
+            {
+                Note root = services.getNoteService()
+                        .note( pitchClass );
+                Notes computed = Notes.notes( root, scale );
+                Notes atlasNotes = atlas.getNotes( scale, root );
+                assertEquals( new ArrayList<Note>( computed ),
+                        new ArrayList<Note>( atlasNotes ) );
+                assertEquals( take( computed.circularIterator(), 30 ),
+                        take( atlasNotes.circularIterator(), 30 ) );
+                assertEquals( computed.toString(), atlasNotes.toString() );
+                assertEquals( root, atlasNotes.getStartingNote() );
+            }
+        }
+    }
+
+    @Test
+    public void handsOutSeparateInstances()
+    {
+        Note a = services.getNoteService()
+                .note( NoteRepository.A );
+        Notes sharp = atlas.getNotes( scales.get( 0 ), a );
+        Notes flat = atlas.getNotes( scales.get( 0 ), a );
+        assertNotSame( sharp, flat );
+        sharp.setSharp();
+        assertTrue( flat.isFlat() );
+    }
+
+    @Test
+    public void addsScalesOnDemand()
+    {
+        atlas.build();
+        Scale added;
+        Transaction tx = services.beginTx();
+        try
+        {
+            added = services.getScaleService()
+                    .newScale( services.getScaleFamilyService()
+                            .getRootScaleFamily(), "Whole tone",
+                            MAJOR_SECOND, MAJOR_SECOND, MAJOR_SECOND,
+                            MAJOR_SECOND, MAJOR_SECOND, MAJOR_SECOND );
+            tx.success();
+        }
+        finally
+        {
+            tx.finish();
+        }
+        Note d = services.getNoteService()
+                .note( NoteRepository.D );
+        assertEquals( "Whole tone in D: D E G♭ A♭ B♭ C ",
+                atlas.getNotes( added, d )
+                        .toString() );
+    }
+
+    private static List<Note> take( final Iterator<Note> iterator,
+            final int count )
+    {
+        List<Note> list = new ArrayList<Note>( count );
+        for ( int i = 0; i < count; i++ )
+        {
+            list.add( iterator.next() );
+        }
+        return list;
+    }
+}
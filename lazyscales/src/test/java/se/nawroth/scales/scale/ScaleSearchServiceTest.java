@@ -0,0 +1,158 @@
+/**
+ * Copyright (c) 2002-2013 "Neo Technology,"
+ * Network Engine for Objects in Lund AB [http://neotechnology.com]
+ *
+ * This file is part of Neo4j.
+ *
+ * Neo4j is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package se.nawroth.scales.scale;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertNull;
+import static se.nawroth.scales.api.DiatonicInterval.MAJOR_SECOND;
+import static se.nawroth.scales.api.DiatonicInterval.MINOR_SECOND;
+import static se.nawroth.scales.api.DiatonicInterval.MINOR_THIRD;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import org.neo4j.graphdb.Direction;
+import org.neo4j.graphdb.Node;
+import org.neo4j.graphdb.Transaction;
+
+import se.nawroth.scales.Services;
+import se.nawroth.scales.TestCatalog;
+import se.nawroth.scales.api.Scale;
+import se.nawroth.scales.api.ScaleFamily;
+
+public class ScaleSearchServiceTest
+{
+    private TestCatalog catalog;
+    private Services services;
+    private Scale ionian;
+
+    @Before
+    public void setUp()
+    {
+        catalog = new TestCatalog();
+        services = catalog.getServices();
+        ionian = catalog.getIonian();
+    }
+
+    @After
+    public void tearDown()
+    {
+        catalog.shutdown();
+    }
+
+    @Test
+    public void keyIsSharedByAllRotations()
+    {
+        int[] ionianSteps = new int[] { 2, 2, 1, 2, 2, 2, 1 };
+        int[] locrianSteps = new int[] { 1, 2, 2, 1, 2, 2, 2 };
+        assertEquals( RotationKey.key( ionianSteps ),
+                RotationKey.key( locrianSteps ) );
+        assertEquals( 0, RotationKey.canonicalRotation( locrianSteps ) );
+        assertEquals( 6, RotationKey.canonicalRotation( ionianSteps ) );
+    }
+
+    @Test
+    public void findsEveryMode()
+    {
+        ScaleSearchService search = services.getScaleSearchService();
+        assertEquals( ionian.getUnderlyingNode(),
+                search.find( MAJOR_SECOND, MAJOR_SECOND, MINOR_SECOND,
+                        MAJOR_SECOND, MAJOR_SECOND, MAJOR_SECOND, MINOR_SECOND )
+                        .getUnderlyingNode() );
+        Scale dorian = search.find( MAJOR_SECOND, MINOR_SECOND, MAJOR_SECOND,
+                MAJOR_SECOND, MAJOR_SECOND, MINOR_SECOND, MAJOR_SECOND );
+        assertNotNull( dorian );
+        assertEquals( MAJOR_SECOND, dorian.iterator()
+                .next() );
+        Scale locrian = search.find( MINOR_SECOND, MAJOR_SECOND, MAJOR_SECOND,
+                MINOR_SECOND, MAJOR_SECOND, MAJOR_SECOND, MAJOR_SECOND );
+        assertEquals( MINOR_SECOND, locrian.iterator()
+                .next() );
+    }
+
+    @Test
+    public void readsPitchClassSetFromRing()
+    {
+        assertEquals( 6, ionian.size() );
+        assertEquals( 0xAB5, ionian.getPitchClassSet()
+                .getMask() );
+        Scale dorian = services.getScaleSearchService()
+                .find( MAJOR_SECOND, MINOR_SECOND, MAJOR_SECOND, MAJOR_SECOND,
+                        MAJOR_SECOND, MINOR_SECOND, MAJOR_SECOND );
+        assertEquals( ionian.getPitchClassSet()
+                .rotate( 1 )
+                .getRelativeMask(), dorian.getPitchClassSet()
+                .getMask() );
+    }
+
+    @Test
+    public void usesNodeIdentity()
+    {
+        Scale sameIonian = new ScaleImpl( ionian.getUnderlyingNode() );
+        assertEquals( ionian, sameIonian );
+        assertEquals( ionian.hashCode(), sameIonian.hashCode() );
+        assertFalse( ionian.equals( new ScaleImpl( walk( ionian, 1 ) ) ) );
+    }
+
+    @Test
+    public void doesNotFindUnknownScales()
+    {
+        assertNull( services.getScaleSearchService()
+                .find( MINOR_THIRD, MINOR_THIRD, MINOR_THIRD, MINOR_THIRD ) );
+    }
+
+    @Test
+    public void doesNotDuplicateRings()
+    {
+        Transaction tx = services.beginTx();
+        try
+        {
+            ScaleFamily family = services.getScaleFamilyService()
+                    .newScaleFamily(
+                            services.getScaleFamilyService()
+                                    .getRootScaleFamily(), "Modes" );
+            Scale aeolian = services.getScaleService()
+                    .newScale( family, "Aeolian", MAJOR_SECOND, MINOR_SECOND,
+                            MAJOR_SECOND, MAJOR_SECOND, MINOR_SECOND,
+                            MAJOR_SECOND, MAJOR_SECOND );
+            assertEquals( ionian.getUnderlyingNode(), walk( aeolian, 2 ) );
+            tx.success();
+        }
+        finally
+        {
+            tx.finish();
+        }
+    }
+
+    private static Node walk( final Scale scale, final int steps )
+    {
+        Node node = scale.getUnderlyingNode();
+        for ( int i = 0; i < steps; i++ )
+        {
+            node = node.getRelationships( Direction.OUTGOING )
+                    .iterator()
+                    .next()
+                    .getEndNode();
+        }
+        return node;
+    }
+}
@@ -0,0 +1,186 @@
+/**
+ * Copyright (c) 2002-2013 "Neo Technology,"
+ * Network Engine for Objects in Lund AB [http://neotechnology.com]
+ *
+ * This file is part of Neo4j.
+ *
+ * Neo4j is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package se.nawroth.scales.scale;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+import static se.nawroth.scales.api.DiatonicInterval.MINOR_THIRD;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import org.neo4j.graphdb.Transaction;
+
+import se.nawroth.scales.Services;
+import se.nawroth.scales.TestCatalog;
+import se.nawroth.scales.api.PitchClassSet;
+import se.nawroth.scales.api.Scale;
+import se.nawroth.scales.api.ScaleFamily;
+
+public class ScaleSimilarityServiceTest
+{
+    private static final String[] MODES = TestCatalog.DIATONIC_MODES;
+    private TestCatalog catalog;
+    private Services services;
+    private ScaleFamily family;
+    private Scale ionian;
+
+    @Before
+    public void setUp()
+    {
+        catalog = new TestCatalog( MODES );
+        services = catalog.getServices();
+        family = catalog.getDiatonicFamily();
+        ionian = catalog.getIonian();
+    }
+
+    @After
+    public void tearDown()
+    {
+        catalog.shutdown();
+    }
+
+    @Test
+    public void modesShareTheIntervalVector()
+    {
+        addAllScales();
+        List<SimilarScale> similar = services.getScaleSimilarityService()
+                .findSimilar( ionian, ScaleDistance.INTERVAL_VECTOR, 7 );
+        Set<String> names = new HashSet<String>();
+        for ( SimilarScale scale : similar.subList( 0, 6 ) )
+        {
+            assertEquals( 0, scale.getDistance() );
+            names.add( scale.getScale()
+                    .getName() );
+        }
+        assertEquals( new HashSet<String>( Arrays.asList( MODES ).subList( 1,
+                7 ) ), names );
+        assertTrue( similar.get( 6 )
+                .getDistance() > 0 );
+    }
+
+    @Test
+    public void findsTheSameScalesAsAScan()
+    {
+        addAllScales();
+        ScaleSimilarityService similarity = services.getScaleSimilarityService();
+        int[] queries = { ionian.getPitchClassSet()
+                .getRelativeMask(), 0x3, 0x249, 0x555, 0xfff, 0x7ff };
+        for ( ScaleDistance distance : ScaleDistance.values() )
+        {
+            for ( int query : queries )
+            {
+                List<SimilarScale> similar = similarity.findSimilar(
+                        PitchClassSet.of( query, 0 ), distance, 10 );
+                List<long[]> expected = scan( query, distance );
+                assertEquals( Math.min( 10, expected.size() ), similar.size() );
+                for ( int i = 0; i < similar.size(); i++ )
+                {
+                    SimilarScale found = similar.get( i );
+                    assertEquals( expected.get( i )[0], found.getDistance() );
+                    assertEquals( expected.get( i )[1], found.getScale()
+                            .getPitchClassSet()
+                            .getRelativeMask() );
+                }
+            }
+        }
+    }
+
+    @Test
+    public void seesScalesAddedLater()
+    {
+        PitchClassSet halfDiminished = PitchClassSet.fromSteps( 0, 3, 3, 4 );
+        List<SimilarScale> before = services.getScaleSimilarityService()
+                .findSimilar( halfDiminished, ScaleDistance.HAMMING, 1 );
+        Transaction tx = services.beginTx();
+        try
+        {
+            services.getScaleService()
+                    .newScale( family, "Diminished seventh", MINOR_THIRD,
+                            MINOR_THIRD, MINOR_THIRD, MINOR_THIRD );
+            tx.success();
+        }
+        finally
+        {
+            tx.finish();
+        }
+        List<SimilarScale> after = services.getScaleSimilarityService()
+                .findSimilar( halfDiminished, ScaleDistance.HAMMING, 1 );
+        assertEquals( 3, before.get( 0 )
+                .getDistance() );
+        assertEquals( 2, after.get( 0 )
+                .getDistance() );
+        assertEquals( "Diminished seventh", after.get( 0 )
+                .getScale()
+                .getName() );
+    }
+
+    private void addAllScales()
+    {
+        Transaction tx = services.beginTx();
+        try
+        {
+            services.getScaleService()
+                    .addAllScales();
+            tx.success();
+        }
+        finally
+        {
+            tx.finish();
+        }
+    }
+
+    /**
+     * Compare the query to every rooted pitch class set, keeping the sets
+     * that the distance can compare.
+     */
+    private static List<long[]> scan( final int query,
+            final ScaleDistance distance )
+    {
+        List<long[]> all = new ArrayList<long[]>();
+        for ( int mask = 1; mask <= PitchClassSet.CHROMATIC_MASK; mask += 2 )
+        {
+            if ( mask == query || Integer.bitCount( mask ) < 2
+                 || distance.partition( mask ) != distance.partition( query ) )
+            {
+                continue;
+            }
+            all.add( new long[] { distance.between( query, mask ), mask } );
+        }
+        Collections.sort( all, new Comparator<long[]>()
+        {
+            @Override
+            public int compare( final long[] one, final long[] other )
+            {
+                int order = Long.compare( one[0], other[0] );
+                return order != 0 ? order : Long.compare( one[1], other[1] );
+            }
+        } );
+        return all;
+    }
+}
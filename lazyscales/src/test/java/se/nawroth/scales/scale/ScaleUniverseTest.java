@@ -0,0 +1,146 @@
+/**
+ * Copyright (c) 2002-2013 "Neo Technology,"
+ * Network Engine for Objects in Lund AB [http://neotechnology.com]
+ *
+ * This file is part of Neo4j.
+ *
+ * Neo4j is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package se.nawroth.scales.scale;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+import static se.nawroth.scales.api.DiatonicInterval.MAJOR_SECOND;
+import static se.nawroth.scales.api.DiatonicInterval.MINOR_SECOND;
+import static se.nawroth.scales.api.DiatonicInterval.MINOR_THIRD;
+
+import java.util.List;
+import java.util.SortedSet;
+import java.util.TreeSet;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import org.neo4j.graphdb.Transaction;
+
+import se.nawroth.scales.Services;
+import se.nawroth.scales.TestCatalog;
+import se.nawroth.scales.api.Scale;
+import se.nawroth.scales.api.ScaleFamily;
+
+public class ScaleUniverseTest
+{
+    private static final int[] SCALES_BY_DEGREE = { 0, 0, 6, 19, 43, 66, 80,
+            66, 43, 19, 6, 1, 1 };
+    private TestCatalog catalog;
+    private Services services;
+
+    @Before
+    public void setUp()
+    {
+        catalog = new TestCatalog();
+        services = catalog.getServices();
+    }
+
+    @After
+    public void tearDown()
+    {
+        catalog.shutdown();
+    }
+
+    @Test
+    public void enumeratesEveryModeClassOnce()
+    {
+        List<int[]> scales = ScaleUniverse.enumerate();
+        int[] byDegree = new int[SCALES_BY_DEGREE.length];
+        long previous = -1;
+        for ( int[] steps : scales )
+        {
+            int sum = 0;
+            for ( int step : steps )
+            {
+                assertTrue( step > 0 );
+                sum += step;
+            }
+            assertEquals( 12, sum );
+            assertEquals( 0, RotationKey.canonicalRotation( steps ) );
+            long key = RotationKey.key( steps );
+            assertTrue( key > previous );
+            previous = key;
+            byDegree[steps.length]++;
+        }
+        for ( int degree = 0; degree < SCALES_BY_DEGREE.length; degree++ )
+        {
+            assertEquals( SCALES_BY_DEGREE[degree], byDegree[degree] );
+        }
+        assertEquals( 350, scales.size() );
+    }
+
+    @Test
+    public void addsMissingScalesAsUnnamed()
+    {
+        Transaction tx = services.beginTx();
+        try
+        {
+            ScaleFamily family = catalog.getDiatonicFamily();
+            Scale ionian = catalog.getIonian();
+            int added = services.getScaleService()
+                    .addAllScales();
+            // the chromatic scale and the ionian modes were already there
+            assertEquals( 348, added );
+            assertEquals( added, services.getScaleService()
+                    .getUnnamedScales()
+                    .size() );
+            assertEquals( 0, services.getScaleService()
+                    .addAllScales() );
+            assertEquals( ionian.getUnderlyingNode(),
+                    services.getScaleSearchService()
+                            .find( MAJOR_SECOND, MAJOR_SECOND, MINOR_SECOND,
+                                    MAJOR_SECOND, MAJOR_SECOND, MAJOR_SECOND,
+                                    MINOR_SECOND )
+                            .getUnderlyingNode() );
+
+            Scale diminished = services.getScaleSearchService()
+                    .find( MINOR_THIRD, MINOR_THIRD, MINOR_THIRD, MINOR_THIRD );
+            assertTrue( diminished.getUnderlyingNode()
+                    .hasProperty( RawScaleService.UNNAMED ) );
+            services.getScaleService()
+                    .newScale( family, "Diminished seventh", MINOR_THIRD,
+                            MINOR_THIRD, MINOR_THIRD, MINOR_THIRD );
+            assertFalse( diminished.getUnderlyingNode()
+                    .hasProperty( RawScaleService.UNNAMED ) );
+            assertEquals( added - 1, services.getScaleService()
+                    .getUnnamedScales()
+                    .size() );
+
+            // unnamed scales sort after the named ones
+            SortedSet<Scale> sorted = new TreeSet<Scale>(
+                    services.getScaleService()
+                            .getUnnamedScales() );
+            sorted.add( diminished );
+            sorted.add( ionian );
+            assertEquals( added + 1, sorted.size() );
+            assertEquals( diminished, sorted.first() );
+            assertNull( sorted.last()
+                    .getName() );
+            tx.success();
+        }
+        finally
+        {
+            tx.finish();
+        }
+    }
+}
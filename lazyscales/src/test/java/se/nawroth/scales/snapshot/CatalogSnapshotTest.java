@@ -0,0 +1,200 @@
+/**
+ * Copyright (c) 2002-2013 "Neo Technology,"
+ * Network Engine for Objects in Lund AB [http://neotechnology.com]
+ *
+ * This file is part of Neo4j.
+ *
+ * Neo4j is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package se.nawroth.scales.snapshot;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertSame;
+import static se.nawroth.scales.api.DiatonicInterval.FOURTH;
+import static se.nawroth.scales.api.DiatonicInterval.MAJOR_SECOND;
+import static se.nawroth.scales.api.DiatonicInterval.MAJOR_THIRD;
+import static se.nawroth.scales.api.DiatonicInterval.MINOR_SECOND;
+
+import java.io.File;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.List;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import org.neo4j.graphdb.Transaction;
+
+import se.nawroth.scales.Services;
+import se.nawroth.scales.TestCatalog;
+import se.nawroth.scales.api.Note;
+import se.nawroth.scales.api.Scale;
+import se.nawroth.scales.api.ScaleFamily;
+import se.nawroth.scales.api.Tuning;
+import se.nawroth.scales.api.TuningFamily;
+import se.nawroth.scales.note.NoteRepository;
+import se.nawroth.scales.note.Notes;
+import se.nawroth.scales.util.NamedEntity;
+
+public class CatalogSnapshotTest
+{
+    private static final File SNAPSHOT = new File( "target/catalog-snapshot.lzs" );
+    private TestCatalog catalog;
+    private CatalogSnapshot snapshot;
+
+    @Before
+    public void setUp() throws IOException
+    {
+        catalog = new TestCatalog( "Ionian", "Dorian", "Phrygian" );
+        Services services = catalog.getServices();
+        Transaction tx = services.beginTx();
+        try
+        {
+            services.getScaleService()
+                    .newScale( catalog.getDiatonicFamily(), "Aeolian",
+                            MAJOR_SECOND, MINOR_SECOND, MAJOR_SECOND,
+                            MAJOR_SECOND, MINOR_SECOND, MAJOR_SECOND,
+                            MAJOR_SECOND );
+            TuningFamily guitar = services.getTuningFamilyService()
+                    .newTuningFamily( services.getTuningFamilyService()
+                            .getRootTuningFamily(), "Guitar" );
+            Tuning flat = services.getTuningService()
+                    .newTuning( guitar, "E♭ tuning", services.getNoteService()
+                            .note( NoteRepository.E_FLAT ), FOURTH, FOURTH,
+                            FOURTH, MAJOR_THIRD, FOURTH );
+            services.getTuningService()
+                    .newTuning( guitar, "Standard", services.getNoteService()
+                            .note( NoteRepository.E ), flat );
+            tx.success();
+        }
+        finally
+        {
+            tx.finish();
+        }
+        SnapshotExporter.export( catalog.getLazyScales(), SNAPSHOT );
+        snapshot = CatalogSnapshot.open( SNAPSHOT );
+    }
+
+    @After
+    public void tearDown()
+    {
+        catalog.shutdown();
+    }
+
+    @Test
+    public void readsScalesLikeTheDatabase()
+    {
+        ScaleFamily databaseRoot = catalog.getServices()
+                .getScaleFamilyService()
+                .getRootScaleFamily();
+        ScaleFamily snapshotRoot = snapshot.getRootScaleFamily();
+        assertNull( snapshot.getCatalogVersion() );
+        assertEquals( databaseRoot.getName(), snapshotRoot.getName() );
+        assertEquals( toStrings( databaseRoot.getSubFamilies() ),
+                toStrings( snapshotRoot.getSubFamilies() ) );
+        assertEquals( 5, snapshot.getScaleCount() );
+
+        for ( ScaleFamily family : databaseRoot.getSubFamilies() )
+        {
+            ScaleFamily snapshotFamily = find( snapshotRoot.getSubFamilies(),
+                    family.getName() );
+            for ( Scale scale : family.getScales() )
+            {
+                Scale snapshotScale = find( snapshotFamily.getScales(),
+                        scale.getName() );
+                assertEquals( scale.toString(), snapshotScale.toString() );
+                assertEquals( scale.size(), snapshotScale.size() );
+                assertEquals( scale.getPitchClassSet(),
+                        snapshotScale.getPitchClassSet() );
+                assertEquals( toStrings( Notes.notes(
+                        catalog.note( NoteRepository.D ), scale ) ),
+                        toStrings( Notes.notes(
+                                snapshot.note( NoteRepository.D ),
+                                snapshotScale ) ) );
+            }
+        }
+    }
+
+    @Test
+    public void sharesRingsBetweenModes()
+    {
+        ScaleFamily diatonic = find( snapshot.getRootScaleFamily()
+                .getSubFamilies(), "Diatonic" );
+        Scale aeolian = find( diatonic.getScales(), "Aeolian" );
+        Scale dorian = find( diatonic.getScales(), "Dorian" );
+        assertFalse( aeolian.equals( dorian ) );
+        Iterator<?> circular = aeolian.circularIterator();
+        for ( int i = 0; i < 7 * 2; i++ )
+        {
+            circular.next();
+        }
+        assertEquals( MAJOR_SECOND, circular.next() );
+    }
+
+    @Test
+    public void readsTuningsAndNotes()
+    {
+        TuningFamily guitar = find( snapshot.getRootTuningFamily()
+                .getSubFamilies(), "Guitar" );
+        Tuning standard = find( guitar.getTunings(), "Standard" );
+        assertEquals( "Standard: [E, A, D, G, B, E]", standard.toString() );
+        assertEquals( 6, standard.size() );
+        assertEquals( guitar, standard.getFamily() );
+        // the guitar tunings and the standard tuning of the test catalog
+        assertEquals( 3, snapshot.getTuningCount() );
+
+        Note c = snapshot.note( NoteRepository.C );
+        assertSame( snapshot.note( NoteRepository.E ),
+                c.getFromInterval( MAJOR_THIRD ) );
+        assertSame( snapshot.note( NoteRepository.B ),
+                c.getFromIntervalReversed( MINOR_SECOND ) );
+        assertEquals( "C♯", c.getFromInterval( MINOR_SECOND )
+                .toString( false ) );
+        assertEquals( "D♭", c.getFromInterval( MINOR_SECOND )
+                .toString( true ) );
+    }
+
+    @Test( expected = UnsupportedOperationException.class )
+    public void hasNoUnderlyingNodes()
+    {
+        snapshot.getRootScaleFamily()
+                .getUnderlyingNode();
+    }
+
+    private static <T extends NamedEntity<T>> T find(
+            final Iterable<T> entities, final String name )
+    {
+        for ( T entity : entities )
+        {
+            if ( name.equals( entity.getName() ) )
+            {
+                return entity;
+            }
+        }
+        throw new AssertionError( "Missing: " + name );
+    }
+
+    private static List<String> toStrings( final Iterable<?> elements )
+    {
+        List<String> strings = new ArrayList<String>();
+        for ( Object element : elements )
+        {
+            strings.add( element.toString() );
+        }
+        return strings;
+    }
+}
@@ -22,7 +22,9 @@ package se.nawroth.scales.util;
 import static org.junit.Assert.assertEquals;
 
 import java.util.ArrayList;
+import java.util.HashSet;
 import java.util.List;
+import java.util.Set;
 
 import org.junit.After;
 import org.junit.Before;
@@ -206,6 +208,53 @@ public class CategoryUtilTest
         assertEquals( 3, i );
     }
 
+    @Test
+    public void testQueryEnginesAgree()
+    {
+        Category rootCat = getRootCategory();
+        Category mainCat = getNavigation().getSubCategories( rootCat )
+                .iterator()
+                .next();
+        Item directItem = getNavigation().getDirectItems( mainCat )
+                .iterator()
+                .next();
+        List<Object> traversed = queryAll( rootCat, mainCat, directItem );
+        assertEquals( CategoryUtil.QueryEngine.TRAVERSAL,
+                getNavigation().getQueryEngine() );
+        getNavigation().setQueryEngine( CategoryUtil.QueryEngine.CYPHER );
+        try
+        {
+            assertEquals( traversed, queryAll( rootCat, mainCat, directItem ) );
+        }
+        finally
+        {
+            getNavigation().setQueryEngine( CategoryUtil.QueryEngine.TRAVERSAL );
+        }
+    }
+
+    private static List<Object> queryAll( final Category rootCat,
+            final Category mainCat, final Item item )
+    {
+        List<Object> result = new ArrayList<Object>();
+        result.add( nodes( getNavigation().getSubCategories( rootCat ) ) );
+        result.add( nodes( getNavigation().getAllSubCategories( rootCat ) ) );
+        result.add( nodes( getNavigation().getParentCategories( mainCat ) ) );
+        result.add( nodes( getNavigation().getCategories( item ) ) );
+        result.add( nodes( getNavigation().getDirectItems( mainCat ) ) );
+        result.add( nodes( getNavigation().getAllItems( mainCat ) ) );
+        return result;
+    }
+
+    private static Set<Node> nodes( final Iterable<? extends Entity> entities )
+    {
+        Set<Node> nodes = new HashSet<Node>();
+        for ( Entity entity : entities )
+        {
+            nodes.add( entity.getUnderlyingNode() );
+        }
+        return nodes;
+    }
+
     @Test
     public void testAddItem()
     {
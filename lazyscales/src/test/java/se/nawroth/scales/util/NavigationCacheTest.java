@@ -0,0 +1,173 @@
+/**
+ * Copyright (c) 2002-2013 "Neo Technology,"
+ * Network Engine for Objects in Lund AB [http://neotechnology.com]
+ *
+ * This file is part of Neo4j.
+ *
+ * Neo4j is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package se.nawroth.scales.util;
+
+import static org.junit.Assert.assertEquals;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import org.neo4j.graphdb.Transaction;
+import org.neo4j.helpers.collection.IteratorUtil;
+import org.neo4j.test.ImpermanentGraphDatabase;
+
+public class NavigationCacheTest
+{
+    private static final CategoryWithPropertiesUtil<Category, Item> NAVIGATION = CategoryItemNavigation.getInstance();
+
+    private GraphDb db;
+    private NavigationCache cache;
+    private Category root;
+    private Category main;
+    private Category sub;
+    private Item item;
+
+    @Before
+    public void setUp() throws Exception
+    {
+        db = new GraphDb( new ImpermanentGraphDatabase() );
+        cache = db.getNavigationCache();
+        Transaction tx = db.beginTx();
+        try
+        {
+            root = new Category( db.getReferenceNode( CategoryTypes.CATEGORY ),
+                    NAVIGATION );
+            main = new Category( db.createNode(), NAVIGATION, root, "main" );
+            sub = new Category( db.createNode(), NAVIGATION, main, "sub" );
+            item = new Item( db.createNode(), NAVIGATION, main, "item" );
+            tx.success();
+        }
+        finally
+        {
+            tx.finish();
+        }
+    }
+
+    @After
+    public void tearDown() throws Exception
+    {
+        db.shutdown();
+    }
+
+    @Test
+    public void cachesResultsOutsideTransactions()
+    {
+        assertEquals( 1, count( NAVIGATION.getDirectItems( main ) ) );
+        assertEquals( 1, cache.getMisses() );
+        assertEquals( 0, cache.getHits() );
+        assertEquals( 1, count( NAVIGATION.getDirectItems( main ) ) );
+        assertEquals( 1, cache.getMisses() );
+        assertEquals( 1, cache.getHits() );
+    }
+
+    @Test
+    public void bypassesCacheInsideTransactions()
+    {
+        Transaction tx = db.beginTx();
+        try
+        {
+            new Item( db.createNode(), NAVIGATION, main, "uncommitted" );
+            assertEquals( 2, count( NAVIGATION.getDirectItems( main ) ) );
+        }
+        finally
+        {
+            tx.finish();
+        }
+        assertEquals( 0, cache.getMisses() );
+        assertEquals( 1, count( NAVIGATION.getDirectItems( main ) ) );
+    }
+
+    @Test
+    public void evictsOnCreatedAndDeletedRelationships()
+    {
+        assertEquals( 1, count( NAVIGATION.getDirectItems( main ) ) );
+        assertEquals( 1, count( NAVIGATION.getSubCategories( root ) ) );
+        Transaction tx = db.beginTx();
+        try
+        {
+            new Item( db.createNode(), NAVIGATION, main, "added" );
+            tx.success();
+        }
+        finally
+        {
+            tx.finish();
+        }
+        assertEquals( 1, cache.getEvictions() );
+        assertEquals( 2, count( NAVIGATION.getDirectItems( main ) ) );
+        assertEquals( 1, count( NAVIGATION.getSubCategories( root ) ) );
+        assertEquals( 1, cache.getHits() );
+
+        tx = db.beginTx();
+        try
+        {
+            NAVIGATION.removeItem( main, item );
+            tx.success();
+        }
+        finally
+        {
+            tx.finish();
+        }
+        assertEquals( 1, count( NAVIGATION.getDirectItems( main ) ) );
+    }
+
+    @Test
+    public void evictsTransitiveResults()
+    {
+        assertEquals( 2, count( NAVIGATION.getAllSubCategories( root ) ) );
+        Transaction tx = db.beginTx();
+        try
+        {
+            new Category( db.createNode(), NAVIGATION, sub, "deep" );
+            tx.success();
+        }
+        finally
+        {
+            tx.finish();
+        }
+        assertEquals( 3, count( NAVIGATION.getAllSubCategories( root ) ) );
+    }
+
+    @Test
+    public void cachesNamesUntilChanged()
+    {
+        assertEquals( "item", NAVIGATION.getSingleItemRelationshipProperty(
+                item, "name" ) );
+        assertEquals( "item", NAVIGATION.getSingleItemRelationshipProperty(
+                item, "name" ) );
+        assertEquals( 1, cache.getHits() );
+        Transaction tx = db.beginTx();
+        try
+        {
+            NAVIGATION.setItemRelationshipProperty( item, "name", "renamed" );
+            tx.success();
+        }
+        finally
+        {
+            tx.finish();
+        }
+        assertEquals( "renamed", NAVIGATION.getSingleItemRelationshipProperty(
+                item, "name" ) );
+    }
+
+    private static int count( final Iterable<?> iterable )
+    {
+        return IteratorUtil.count( iterable );
+    }
+}
@@ -0,0 +1,160 @@
+/**
+ * Copyright (c) 2002-2013 "Neo Technology,"
+ * Network Engine for Objects in Lund AB [http://neotechnology.com]
+ *
+ * This file is part of Neo4j.
+ *
+ * Neo4j is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package se.nawroth.scales.util;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+
+import java.lang.management.ManagementFactory;
+
+import javax.management.MBeanServer;
+import javax.management.ObjectName;
+import javax.management.openmbean.CompositeData;
+
+import org.junit.Test;
+import org.neo4j.graphdb.Transaction;
+import org.neo4j.test.ImpermanentGraphDatabase;
+
+import se.nawroth.scales.GraphCatalogStore;
+import se.nawroth.scales.TestCatalog;
+import se.nawroth.scales.api.Note;
+import se.nawroth.scales.fretboard.Fretboard;
+import se.nawroth.scales.fretboard.FretboardService;
+import se.nawroth.scales.note.Notes;
+
+public class StoreMetricsTest
+{
+    @Test
+    public void countStoreAccessOfServiceCalls() throws Exception
+    {
+        StoreMetrics metrics = new StoreMetrics();
+        TestCatalog catalog = new TestCatalog( new GraphCatalogStore(
+                new ImpermanentGraphDatabase(), metrics ) );
+        ObjectName name = metrics.getObjectName();
+        try
+        {
+            Fretboard fretboard = new Fretboard( catalog.getStandardTuning(),
+                    Notes.notes( catalog.note( 0 ), catalog.getIonian() ) );
+            FretboardService fretboardService = catalog.getServices()
+                    .getFretboardService();
+            metrics.reset();
+
+            int strings = 0;
+            for ( Iterable<Note> string : fretboardService.getStrings( fretboard ) )
+            {
+                // the strings go on forever
+                assertNotNull( string.iterator()
+                        .next() );
+                strings++;
+            }
+            assertEquals( 6, strings );
+            MetricsSnapshot snapshot = metrics.snapshot();
+            OperationMetrics getStrings = snapshot.getOperation( "FretboardService.getStrings" );
+            assertEquals( 1, getStrings.getCalls() );
+            assertTrue( getStrings.getRelationshipReads() > 0 );
+            assertTrue( getStrings.getNodeReads() > 0 );
+            assertTrue( getStrings.getMaxLatency() > 0 );
+            // the matrix was built by the outer call
+            assertNull( snapshot.getOperation( "FretboardService.getMatrix" ) );
+            assertEquals( 1, snapshot.getTotal()
+                    .getCalls() );
+
+            // now the matrix is cached
+            fretboardService.getStrings( fretboard );
+            snapshot = metrics.snapshot();
+            assertEquals( 2, snapshot.getOperation( "FretboardService.getStrings" )
+                    .getCalls() );
+            assertEquals( getStrings.getRelationshipReads(),
+                    snapshot.getOperation( "FretboardService.getStrings" )
+                            .getRelationshipReads() );
+
+            MBeanServer server = ManagementFactory.getPlatformMBeanServer();
+            assertTrue( server.isRegistered( name ) );
+            CompositeData total = (CompositeData) server.getAttribute( name,
+                    "Total" );
+            assertEquals( snapshot.getTotal()
+                    .getRelationshipReads(), total.get( "relationshipReads" ) );
+        }
+        finally
+        {
+            catalog.shutdown();
+        }
+        assertNull( metrics.getObjectName() );
+        assertFalse( ManagementFactory.getPlatformMBeanServer()
+                .isRegistered( name ) );
+    }
+
+    @Test
+    public void countCypherExecutions()
+    {
+        StoreMetrics metrics = new StoreMetrics();
+        GraphDb db = new GraphDb( new ImpermanentGraphDatabase(), metrics );
+        try
+        {
+            CategoryItemNavigation navigation = CategoryItemNavigation.getInstance();
+            navigation.setQueryEngine( CategoryUtil.QueryEngine.CYPHER );
+            Category root;
+            Transaction tx = db.beginTx();
+            try
+            {
+                root = new Category( db.createNode(), navigation );
+                Category sub = new Category( db.createNode(), navigation, root,
+                        "sub" );
+                new Item( db.createNode(), navigation, root, "direct" );
+                new Item( db.createNode(), navigation, sub, "indirect" );
+                tx.success();
+            }
+            finally
+            {
+                tx.finish();
+            }
+            assertEquals( 1, metrics.getTotal()
+                    .getTransactions() );
+
+            metrics.reset();
+            StoreMetrics.Call call = db.enter( "allItems" );
+            int items = 0;
+            try
+            {
+                for ( Item item : navigation.getAllItems( root ) )
+                {
+                    assertNotNull( item.getUnderlyingNode() );
+                    items++;
+                }
+            }
+            finally
+            {
+                call.exit();
+            }
+            assertEquals( 2, items );
+            OperationMetrics allItems = metrics.snapshot()
+                    .getOperation( "allItems" );
+            assertEquals( 1, allItems.getCypherExecutions() );
+            assertTrue( allItems.getNodeReads() >= items );
+        }
+        finally
+        {
+            db.shutdown();
+        }
+    }
+}